@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Products of square double matrices with {@code %*%}, {@code crossprod} and {@code tcrossprod}.
+ * The larger sizes take seconds per product, so the benchmark runs in single shot mode.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class MatMultBenchmark extends RBenchmarkBase {
+
+    @Param({"256", "512", "1024", "2048", "4096", "8192"}) public int size;
+
+    private Value matMult;
+    private Value crossprod;
+    private Value crossprodSelf;
+    private Value tcrossprod;
+
+    @Setup
+    public void setup() {
+        eval("set.seed(42); a <- matrix(runif(" + size + "^2), " + size + "); b <- matrix(runif(" + size + "^2), " + size + ")");
+        matMult = function("function() dim(a %*% b)");
+        crossprod = function("function() dim(crossprod(a, b))");
+        crossprodSelf = function("function() dim(crossprod(a))");
+        tcrossprod = function("function() dim(tcrossprod(a, b))");
+    }
+
+    @Benchmark
+    public Object matMult() {
+        return matMult.execute();
+    }
+
+    @Benchmark
+    public Object crossprod() {
+        return crossprod.execute();
+    }
+
+    @Benchmark
+    public Object crossprodSelf() {
+        return crossprodSelf.execute();
+    }
+
+    @Benchmark
+    public Object tcrossprod() {
+        return tcrossprod.execute();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Common setup of the FastR benchmarks: one R context per trial and helpers to evaluate R code in
+ * it. Subclasses prepare their data with {@link #eval(String)} in their {@code @Setup} method and
+ * call into functions obtained with {@link #function(String)} from the benchmark methods.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class RBenchmarkBase {
+
+    protected Context context;
+
+    protected Context getContext() {
+        if (context == null) {
+            context = Context.newBuilder("R", "llvm").allowAllAccess(true).build();
+        }
+        return context;
+    }
+
+    protected Value eval(String code) {
+        return getContext().eval(Source.create("R", code));
+    }
+
+    /**
+     * Evaluates {@code code}, which must produce an R function, so that the function can be
+     * executed repeatedly without parsing.
+     */
+    protected Value function(String code) {
+        Value result = eval(code);
+        assert result.canExecute() : code;
+        return result;
+    }
+
+    @TearDown
+    public void closeContext() {
+        if (context != null) {
+            context.close();
+            context = null;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Throughput of {@code serialize}, {@code unserialize} and {@code readRDS} for large atomic
+ * vectors, i.e. of the bulk XDR conversion in {@code RSerialize}. {@link XdrCodecBenchmark}
+ * measures the conversion itself without the R level overhead.
+ */
+public class SerializeBenchmark extends RBenchmarkBase {
+
+    @Param({"double", "integer", "logical", "complex", "raw"}) public String type;
+
+    @Param({"1000000"}) public int size;
+
+    private Value serialize;
+    private Value unserialize;
+    private Value readRDS;
+    private Value vector;
+    private Value data;
+    private Value file;
+
+    @Setup
+    public void setup() {
+        vector = eval(String.format("local({ x <- as.vector(runif(%d) * 100, '%s'); x[c(1, %d)] <- NA; x })", size, type, size / 2));
+        serialize = function("function(x) serialize(x, NULL)");
+        unserialize = function("function(data) unserialize(data)");
+        readRDS = function("function(file) readRDS(file)");
+        data = serialize.execute(vector);
+        file = eval("tempfile(fileext = '.rds')");
+        function("function(x, file) saveRDS(matrix(x, ncol = 10), file, compress = FALSE)").execute(vector, file);
+    }
+
+    @Benchmark
+    public Object serializeVector() {
+        return serialize.execute(vector);
+    }
+
+    @Benchmark
+    public Object unserializeVector() {
+        return unserialize.execute(data);
+    }
+
+    @Benchmark
+    public Object readRDSMatrix() {
+        return readRDS.execute(file);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.oracle.truffle.r.runtime.RSerialize;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RRawVector;
+
+/**
+ * Throughput of the XDR encoding and decoding of large int and double vectors in
+ * {@link RSerialize}, i.e., of its output and input stream classes without the R level overhead of
+ * {@code serialize} and {@code unserialize} (see {@link SerializeBenchmark}). Decoding is measured
+ * both from a preloaded array (as used by the lazy loading) and from an input stream read in
+ * chunks (as used for raw vectors and connections). The {@code Loop} benchmarks are the baseline:
+ * they convert the same values element by element with {@code writeInt}/{@code writeDouble} and
+ * {@code readInt}/{@code readDouble}, as {@code RSerialize} formerly did for every element.
+ */
+public class XdrCodecBenchmark extends RBenchmarkBase {
+
+    @Param({"double", "integer"}) public String type;
+
+    @Param({"1000", "1000000"}) public int size;
+
+    private RContext rContext;
+    private Object vector;
+    private double[] doubles;
+    private int[] ints;
+    private byte[] loopData;
+    private byte[] data;
+    private RRawVector rawData;
+
+    @Setup
+    public void setup() {
+        eval("invisible(NULL)");
+        getContext().enter();
+        rContext = RContext.getInstance();
+        Random random = new Random(42);
+        if ("double".equals(type)) {
+            doubles = new double[size];
+            for (int i = 0; i < size; i++) {
+                doubles[i] = random.nextDouble();
+            }
+            vector = RDataFactory.createDoubleVector(doubles, true);
+        } else {
+            ints = new int[size];
+            for (int i = 0; i < size; i++) {
+                ints[i] = random.nextInt(Integer.MAX_VALUE);
+            }
+            vector = RDataFactory.createIntVector(ints, true);
+        }
+        data = encode();
+        loopData = encodeLoop();
+        rawData = RDataFactory.createRawVector(data);
+    }
+
+    @TearDown
+    @Override
+    public void closeContext() {
+        if (context != null) {
+            context.leave();
+        }
+        super.closeContext();
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return RSerialize.serialize(rContext, vector, RSerialize.XDR, RSerialize.DEFAULT_VERSION, null);
+    }
+
+    @Benchmark
+    public Object decodeArray() throws IOException {
+        return RSerialize.unserialize(data, null, null, null);
+    }
+
+    @Benchmark
+    public Object decodeStream() {
+        return RSerialize.unserialize(rawData);
+    }
+
+    @Benchmark
+    public byte[] encodeLoop() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(size * Double.BYTES);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            if (doubles != null) {
+                for (int i = 0; i < size; i++) {
+                    out.writeDouble(doubles[i]);
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    out.writeInt(ints[i]);
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public Object decodeLoop() throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(loopData))) {
+            if (doubles != null) {
+                double[] result = new double[size];
+                for (int i = 0; i < size; i++) {
+                    result[i] = in.readDouble();
+                }
+                return result;
+            } else {
+                int[] result = new int[size];
+                for (int i = 0; i < size; i++) {
+                    result[i] = in.readInt();
+                }
+                return result;
+            }
+        }
+    }
+}
@@ -0,0 +1,555 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.RootCallTarget;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.api.source.SourceSection;
+import com.oracle.truffle.r.launcher.StartupTiming;
+import com.oracle.truffle.r.runtime.RInternalError;
+import com.oracle.truffle.r.runtime.RParserFactory;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.context.Engine.ParseException;
+import com.oracle.truffle.r.runtime.context.FastROptions;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.context.TruffleRLanguage;
+import com.oracle.truffle.r.runtime.data.RComplex;
+import com.oracle.truffle.r.runtime.data.RNull;
+import com.oracle.truffle.r.runtime.nodes.RCodeBuilder;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxNode;
+
+/**
+ * A cache of parsed R sources that is kept on disk across runs, in the directory given by
+ * {@link FastROptions#ParseCacheDir}. The entries are keyed by a digest of the parser version and
+ * the source text.
+ *
+ * An entry does not contain the AST itself but the sequence of {@link RCodeBuilder} calls the
+ * parser made, with source sections as character offsets. Replaying them on a new builder skips
+ * lexing and parsing, and produces the same AST with source sections of the current
+ * {@link Source}. Sources for which the parser uses anything that cannot be recorded, e.g. source
+ * sections of other files, are not cached. The parse data of the builder are not recorded either,
+ * so the cache must only be used if they are not needed.
+ */
+final class ParseCache {
+
+    private static final int MAGIC = 0x52415354;
+    private static final int FORMAT_VERSION = 1;
+    /**
+     * Short sources are parsed quickly and would just fill the cache, e.g. {@code parse(text=)}.
+     */
+    private static final int MIN_SOURCE_LENGTH = 1024;
+
+    private static final byte LOOKUP = 0;
+    private static final byte SPECIAL_LOOKUP = 1;
+    private static final byte CONSTANT = 2;
+    private static final byte CALL = 3;
+    private static final byte FUNCTION = 4;
+
+    private static final byte NULL_VALUE = 0;
+    private static final byte LOGICAL_VALUE = 1;
+    private static final byte INTEGER_VALUE = 2;
+    private static final byte DOUBLE_VALUE = 3;
+    private static final byte STRING_VALUE = 4;
+    private static final byte STRING_NA_VALUE = 5;
+    private static final byte COMPLEX_VALUE = 6;
+
+    private ParseCache() {
+        // no instances
+    }
+
+    /**
+     * Parses {@code source} like {@link RParserFactory.Parser#script}, using the cache if it is
+     * enabled.
+     */
+    static List<RSyntaxNode> script(RContext context, Source source, RCodeBuilder<RSyntaxNode> builder) throws ParseException {
+        CompilerAsserts.neverPartOfCompilation();
+        String version = RParserFactory.getParserVersion();
+        Path file = getCacheFile(context, source, version);
+        if (file == null) {
+            return parse(source, builder, context.getLanguage());
+        }
+        if (Files.isRegularFile(file)) {
+            // cache hits are a separate phase, "parse" only counts the sources that were parsed
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file))); StartupTiming.Phase phase = StartupTiming.phase("parse.cached")) {
+                List<RSyntaxNode> result = replay(in, Files.size(file), version, source, builder, context.getLanguage());
+                phase.addBytes(source.getLength());
+                phase.addObjects(result.size());
+                return result;
+            } catch (IOException | RuntimeException e) {
+                // a corrupt or outdated entry is replaced below, the builder may also fail on
+                // corrupt entries that pass the checks of the replay
+            }
+        }
+        RecordingBuilder recorder = new RecordingBuilder(builder, source);
+        List<RSyntaxNode> result = parse(source, recorder, context.getLanguage());
+        if (recorder.cacheable) {
+            write(file, version, recorder, result);
+        }
+        return result;
+    }
+
+    private static List<RSyntaxNode> parse(Source source, RCodeBuilder<RSyntaxNode> builder, TruffleRLanguage language) throws ParseException {
+        try (StartupTiming.Phase phase = StartupTiming.phase("parse")) {
+            phase.addBytes(source.getLength());
+            List<RSyntaxNode> result = RParserFactory.getParser().script(source, builder, language);
+            phase.addObjects(result.size());
+            return result;
+        }
+    }
+
+    private static Path getCacheFile(RContext context, Source source, String version) {
+        String dir = context.getOption(FastROptions.ParseCacheDir);
+        if (dir.isEmpty() || version == null || source.isInteractive() || source.getLength() < MIN_SOURCE_LENGTH) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(version.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(source.getCharacters().toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder();
+            for (byte b : digest.digest()) {
+                name.append(String.format("%02x", b));
+            }
+            return Paths.get(dir, name.append(".rast").toString());
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    private static void write(Path file, String version, RecordingBuilder recorder, List<RSyntaxNode> result) {
+        try {
+            ByteArrayOutputStream statements = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(statements);
+            out.writeInt(result.size());
+            for (RSyntaxNode node : result) {
+                Integer id = recorder.ids.get(node);
+                if (id == null) {
+                    return;
+                }
+                out.writeInt(id);
+            }
+            Files.createDirectories(file.getParent());
+            // write to a temporary file first, other processes may read the same entry
+            Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream fileOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                    fileOut.writeInt(MAGIC);
+                    fileOut.writeInt(FORMAT_VERSION);
+                    fileOut.writeUTF(version);
+                    fileOut.writeInt(recorder.strings.size());
+                    for (String s : recorder.strings.keySet()) {
+                        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                        fileOut.writeInt(bytes.length);
+                        fileOut.write(bytes);
+                    }
+                    fileOut.writeInt(recorder.recordCount);
+                    recorder.records.writeTo(fileOut);
+                    statements.writeTo(fileOut);
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            // the cache is an optimization, the source is simply parsed again next time
+        }
+    }
+
+    /**
+     * Replays the entry read from {@code in}. The {@code size} of the entry bounds all counts and
+     * lengths in it, so that a corrupt entry cannot cause huge allocations.
+     */
+    private static List<RSyntaxNode> replay(DataInputStream in, long size, String version, Source source, RCodeBuilder<RSyntaxNode> builder, TruffleRLanguage language) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !in.readUTF().equals(version)) {
+            throw new IOException("outdated parse cache entry");
+        }
+        String[] strings = new String[readCount(in, size)];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[readCount(in, size)];
+            in.readFully(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        Replay replay = new Replay(in, size, source, strings, new RSyntaxNode[readCount(in, size)]);
+        for (int i = 0; i < replay.nodes.length; i++) {
+            byte kind = in.readByte();
+            SourceSection section = replay.readSection();
+            switch (kind) {
+                case LOOKUP:
+                case SPECIAL_LOOKUP:
+                    String symbol = replay.readString();
+                    boolean functionLookup = in.readBoolean();
+                    replay.nodes[i] = kind == LOOKUP ? builder.lookup(section, symbol, functionLookup) : builder.specialLookup(section, symbol, functionLookup);
+                    break;
+                case CONSTANT:
+                    replay.nodes[i] = builder.constant(section, replay.readConstant());
+                    break;
+                case CALL:
+                    RSyntaxNode lhs = replay.readNode(i);
+                    replay.nodes[i] = builder.call(section, lhs, replay.readArguments(i));
+                    break;
+                case FUNCTION:
+                    List<RCodeBuilder.Argument<RSyntaxNode>> params = replay.readArguments(i);
+                    RSyntaxNode body = replay.readNode(i);
+                    RSyntaxNode assignedTo = replay.readNode(i);
+                    replay.nodes[i] = builder.function(language, section, params, body, assignedTo);
+                    break;
+                default:
+                    throw new IOException("invalid parse cache entry");
+            }
+        }
+        int count = readCount(in, size);
+        List<RSyntaxNode> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(replay.readNode(replay.nodes.length));
+        }
+        return result;
+    }
+
+    private static int readCount(DataInputStream in, long size) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > size) {
+            throw new IOException("invalid parse cache entry");
+        }
+        return count;
+    }
+
+    private static final class Replay {
+        private final DataInputStream in;
+        private final long size;
+        private final Source source;
+        private final String[] strings;
+        private final RSyntaxNode[] nodes;
+
+        Replay(DataInputStream in, long size, Source source, String[] strings, RSyntaxNode[] nodes) {
+            this.in = in;
+            this.size = size;
+            this.source = source;
+            this.strings = strings;
+            this.nodes = nodes;
+        }
+
+        SourceSection readSection() throws IOException {
+            int index = in.readInt();
+            if (index == -1) {
+                return null;
+            }
+            int length = in.readInt();
+            if (index < 0 || length < 0 || (long) index + length > source.getLength()) {
+                throw new IOException("invalid parse cache entry");
+            }
+            return source.createSection(index, length);
+        }
+
+        String readString() throws IOException {
+            int index = in.readInt();
+            if (index == -1) {
+                return null;
+            } else if (index < 0 || index >= strings.length) {
+                throw new IOException("invalid parse cache entry");
+            }
+            return strings[index];
+        }
+
+        /**
+         * Reads a reference to a node, which must have been built before node {@code current}.
+         */
+        RSyntaxNode readNode(int current) throws IOException {
+            int id = in.readInt();
+            if (id == -1) {
+                return null;
+            } else if (id < 0 || id >= current) {
+                throw new IOException("invalid parse cache entry");
+            }
+            return nodes[id];
+        }
+
+        List<RCodeBuilder.Argument<RSyntaxNode>> readArguments(int current) throws IOException {
+            int count = readCount(in, size);
+            List<RCodeBuilder.Argument<RSyntaxNode>> arguments = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                SourceSection section = readSection();
+                String name = readString();
+                arguments.add(RCodeBuilder.argument(section, name, readNode(current)));
+            }
+            return arguments;
+        }
+
+        Object readConstant() throws IOException {
+            byte kind = in.readByte();
+            switch (kind) {
+                case NULL_VALUE:
+                    return RNull.instance;
+                case LOGICAL_VALUE:
+                    return in.readByte();
+                case INTEGER_VALUE:
+                    return in.readInt();
+                case DOUBLE_VALUE:
+                    return Double.longBitsToDouble(in.readLong());
+                case STRING_VALUE:
+                    return readString();
+                case STRING_NA_VALUE:
+                    return RRuntime.STRING_NA;
+                case COMPLEX_VALUE:
+                    double re = Double.longBitsToDouble(in.readLong());
+                    return RComplex.valueOf(re, Double.longBitsToDouble(in.readLong()));
+                default:
+                    throw new IOException("invalid parse cache entry");
+            }
+        }
+    }
+
+    /**
+     * Passes all calls to the parser's builder and records the calls that create nodes. Each
+     * created node gets the index of its record as id, so arguments can refer to it.
+     */
+    private static final class RecordingBuilder implements RCodeBuilder<RSyntaxNode> {
+        private final RCodeBuilder<RSyntaxNode> delegate;
+        private final Source source;
+        private final ByteArrayOutputStream records = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(records);
+        private final IdentityHashMap<RSyntaxNode, Integer> ids = new IdentityHashMap<>();
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+        private int recordCount;
+        private boolean cacheable = true;
+
+        RecordingBuilder(RCodeBuilder<RSyntaxNode> delegate, Source source) {
+            this.delegate = delegate;
+            this.source = source;
+        }
+
+        private RSyntaxNode register(RSyntaxNode node) {
+            if (cacheable) {
+                ids.put(node, recordCount++);
+            }
+            return node;
+        }
+
+        private void writeSection(SourceSection section) throws IOException {
+            if (section == null) {
+                out.writeInt(-1);
+            } else if (section.isAvailable() && source.equals(section.getSource())) {
+                out.writeInt(section.getCharIndex());
+                out.writeInt(section.getCharLength());
+            } else {
+                cacheable = false;
+            }
+        }
+
+        private void writeString(String s) throws IOException {
+            if (s == null) {
+                out.writeInt(-1);
+            } else {
+                Integer index = strings.get(s);
+                if (index == null) {
+                    index = strings.size();
+                    strings.put(s, index);
+                }
+                out.writeInt(index);
+            }
+        }
+
+        private void writeNode(Object node) throws IOException {
+            if (node == null) {
+                out.writeInt(-1);
+            } else {
+                Integer id = node instanceof RSyntaxNode ? ids.get(node) : null;
+                if (id == null) {
+                    cacheable = false;
+                } else {
+                    out.writeInt(id);
+                }
+            }
+        }
+
+        private void writeArguments(List<Argument<RSyntaxNode>> arguments) throws IOException {
+            out.writeInt(arguments.size());
+            for (Argument<RSyntaxNode> argument : arguments) {
+                writeSection(argument.source);
+                writeString(argument.name);
+                writeNode(argument.value);
+            }
+        }
+
+        private void writeConstant(Object value) throws IOException {
+            if (value == RNull.instance) {
+                out.writeByte(NULL_VALUE);
+            } else if (value instanceof Byte) {
+                out.writeByte(LOGICAL_VALUE);
+                out.writeByte((byte) value);
+            } else if (value instanceof Integer) {
+                out.writeByte(INTEGER_VALUE);
+                out.writeInt((int) value);
+            } else if (value instanceof Double) {
+                out.writeByte(DOUBLE_VALUE);
+                out.writeLong(Double.doubleToRawLongBits((double) value));
+            } else if (value instanceof String) {
+                if (RRuntime.isNA((String) value)) {
+                    out.writeByte(STRING_NA_VALUE);
+                } else {
+                    out.writeByte(STRING_VALUE);
+                    writeString((String) value);
+                }
+            } else if (value instanceof RComplex) {
+                out.writeByte(COMPLEX_VALUE);
+                out.writeLong(Double.doubleToRawLongBits(((RComplex) value).getRealPart()));
+                out.writeLong(Double.doubleToRawLongBits(((RComplex) value).getImaginaryPart()));
+            } else {
+                cacheable = false;
+            }
+        }
+
+        @Override
+        public RSyntaxNode call(SourceSection src, RSyntaxNode lhs, List<Argument<RSyntaxNode>> arguments, DynamicObject attributes) {
+            RSyntaxNode result = delegate.call(src, lhs, arguments, attributes);
+            if (cacheable) {
+                if (attributes != null) {
+                    cacheable = false;
+                } else {
+                    try {
+                        out.writeByte(CALL);
+                        writeSection(src);
+                        writeNode(lhs);
+                        writeArguments(arguments);
+                    } catch (IOException e) {
+                        throw RInternalError.shouldNotReachHere(e);
+                    }
+                }
+            }
+            return register(result);
+        }
+
+        @Override
+        public RSyntaxNode constant(SourceSection src, Object value) {
+            RSyntaxNode result = delegate.constant(src, value);
+            if (cacheable) {
+                try {
+                    out.writeByte(CONSTANT);
+                    writeSection(src);
+                    writeConstant(value);
+                } catch (IOException e) {
+                    throw RInternalError.shouldNotReachHere(e);
+                }
+            }
+            return register(result);
+        }
+
+        @Override
+        public RSyntaxNode specialLookup(SourceSection src, String symbol, boolean functionLookup) {
+            return recordLookup(SPECIAL_LOOKUP, src, symbol, functionLookup, delegate.specialLookup(src, symbol, functionLookup));
+        }
+
+        @Override
+        public RSyntaxNode lookup(SourceSection src, String symbol, boolean functionLookup) {
+            return recordLookup(LOOKUP, src, symbol, functionLookup, delegate.lookup(src, symbol, functionLookup));
+        }
+
+        private RSyntaxNode recordLookup(byte kind, SourceSection src, String symbol, boolean functionLookup, RSyntaxNode result) {
+            if (cacheable) {
+                try {
+                    out.writeByte(kind);
+                    writeSection(src);
+                    writeString(symbol);
+                    out.writeBoolean(functionLookup);
+                } catch (IOException e) {
+                    throw RInternalError.shouldNotReachHere(e);
+                }
+            }
+            return register(result);
+        }
+
+        @Override
+        public RSyntaxNode function(TruffleRLanguage language, SourceSection src, List<Argument<RSyntaxNode>> arguments, RSyntaxNode body, Object assignedTo) {
+            RSyntaxNode result = delegate.function(language, src, arguments, body, assignedTo);
+            if (cacheable) {
+                try {
+                    out.writeByte(FUNCTION);
+                    writeSection(src);
+                    writeArguments(arguments);
+                    writeNode(body);
+                    writeNode(assignedTo);
+                } catch (IOException e) {
+                    throw RInternalError.shouldNotReachHere(e);
+                }
+            }
+            return register(result);
+        }
+
+        @Override
+        public RootCallTarget rootFunction(TruffleRLanguage language, SourceSection src, List<Argument<RSyntaxNode>> arguments, RSyntaxNode body, String name) {
+            cacheable = false;
+            return delegate.rootFunction(language, src, arguments, body, name);
+        }
+
+        @Override
+        public List<Argument<RSyntaxNode>> getFunctionExprArgs(Object args) {
+            return delegate.getFunctionExprArgs(args);
+        }
+
+        @Override
+        public void modifyLastToken(RCodeToken newToken) {
+            delegate.modifyLastToken(newToken);
+        }
+
+        @Override
+        public void modifyLastTokenIf(RCodeToken oldToken, RCodeToken newToken) {
+            delegate.modifyLastTokenIf(oldToken, newToken);
+        }
+
+        @Override
+        public void token(SourceSection src, RCodeToken token, String text) {
+            delegate.token(src, token, text);
+        }
+
+        @Override
+        public void setContext(CodeBuilderContext context) {
+            delegate.setContext(context);
+        }
+
+        @Override
+        public CodeBuilderContext getContext() {
+            return delegate.getContext();
+        }
+    }
+}
@@ -23,10 +23,15 @@
 package com.oracle.truffle.r.engine;
 
 import static com.oracle.truffle.r.runtime.context.FastROptions.LoadProfiles;
+import static com.oracle.truffle.r.runtime.context.FastROptions.StartupTimingFile;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -177,7 +182,9 @@ final class REngine implements Engine, Engine.Timings {
         suppressWarnings = true;
         MaterializedFrame baseFrame = RRuntime.createNonFunctionFrame("base");
         REnvironment.baseInitialize(baseFrame, globalFrame);
-        context.getStateRFFI().initializeVariables(context);
+        try (StartupTiming.Phase phase = StartupTiming.phase("ffi.initialize")) {
+            context.getStateRFFI().initializeVariables(context);
+        }
         RBuiltinPackages.loadBase(context, baseFrame);
         RGraphics.initialize(context);
         if (context.getOption(LoadProfiles)) {
@@ -187,7 +194,8 @@ final class REngine implements Engine, Engine.Timings {
              * during system profile evaluation, but does for the site/user profiles.
              */
             Source systemProfile = RProfile.systemProfile(context);
-            try {
+            try (StartupTiming.Phase phase = StartupTiming.phase("profile.system")) {
+                phase.addBytes(systemProfile.getLength());
                 parseAndEval(systemProfile, baseFrame, false);
             } catch (ParseException e) {
                 throw new RInternalError(e, "error while parsing system profile from %s", systemProfile.getName());
@@ -197,7 +205,8 @@ final class REngine implements Engine, Engine.Timings {
             suppressWarnings = false;
             Source siteProfile = context.stateRProfile.siteProfile();
             if (siteProfile != null) {
-                try {
+                try (StartupTiming.Phase phase = StartupTiming.phase("profile.site")) {
+                    phase.addBytes(siteProfile.getLength());
                     parseAndEval(siteProfile, baseFrame, false);
                 } catch (ParseException e) {
                     throw new RInternalError(e, "error while parsing site profile from %s", siteProfile.getName());
@@ -205,7 +214,8 @@ final class REngine implements Engine, Engine.Timings {
             }
             Source userProfile = context.stateRProfile.userProfile();
             if (userProfile != null) {
-                try {
+                try (StartupTiming.Phase phase = StartupTiming.phase("profile.user")) {
+                    phase.addBytes(userProfile.getLength());
                     parseAndEval(userProfile, globalFrame, false);
                 } catch (ParseException e) {
                     throw new RInternalError(e, "error while parsing user profile from %s", userProfile.getName());
@@ -220,6 +230,24 @@ final class REngine implements Engine, Engine.Timings {
 
             StartupTiming.timestamp("After Profiles Loaded");
         }
+        writeStartupTiming();
+        StartupTiming.endStartup();
+    }
+
+    /**
+     * Writes the startup timing collected so far as JSON into the file given by
+     * {@code StartupTimingFile} option, if any.
+     */
+    @TruffleBoundary
+    private void writeStartupTiming() {
+        String fileName = context.getOption(StartupTimingFile);
+        if (fileName != null && !fileName.isEmpty()) {
+            try {
+                Files.write(Paths.get(fileName), StartupTiming.toJSON().getBytes(StandardCharsets.UTF_8));
+            } catch (IOException | InvalidPathException e) {
+                RError.warning(RError.NO_CALLER, RError.Message.GENERIC, "could not write startup timing to " + fileName + ": " + e.getMessage());
+            }
+        }
     }
 
     @Override
@@ -294,15 +322,19 @@ final class REngine implements Engine, Engine.Timings {
     }
 
     private List<RSyntaxNode> parseSource(Source source) throws ParseException {
-        RParserFactory.Parser parser = RParserFactory.getParser();
-        return parser.script(source, new RASTBuilder(true), context.getLanguage());
+        return ParseCache.script(context, source, new RASTBuilder(true));
     }
 
     @Override
     public ParsedExpression parse(Source source, boolean keepSource) throws ParseException {
-        RParserFactory.Parser parser = RParserFactory.getParser();
         RASTBuilder builder = new RASTBuilder(true);
-        List<RSyntaxNode> script = parser.script(source, builder, context.getLanguage());
+        List<RSyntaxNode> script;
+        if (keepSource) {
+            // the parse data are not cached
+            script = RParserFactory.getParser().script(source, builder, context.getLanguage());
+        } else {
+            script = ParseCache.script(context, source, builder);
+        }
         Object[] data = new Object[script.size()];
         for (int i = 0; i < script.size(); i++) {
             data[i] = RASTUtils.createLanguageElement(script.get(i));
@@ -175,13 +175,15 @@ public final class RMain extends AbstractLanguageLauncher implements Closeable {
         }
 
         Context context;
-        if (debugLLVMLibs) {
-            context = preparedContext = contextBuilder.allowExperimentalOptions(true).option("inspect.HideErrors", "true").option("inspect.Internal", "true").option(
-                            "llvm.enableLVI", "true").arguments("R",
-                                            rArguments).in(
-                                                            consoleHandler.createInputStream()).out(outStream).err(errStream).build();
-        } else {
-            context = preparedContext = contextBuilder.arguments("R", rArguments).in(consoleHandler.createInputStream()).out(outStream).err(errStream).build();
+        try (StartupTiming.Phase phase = StartupTiming.phase("launcher.context")) {
+            if (debugLLVMLibs) {
+                context = preparedContext = contextBuilder.allowExperimentalOptions(true).option("inspect.HideErrors", "true").option("inspect.Internal", "true").option(
+                                "llvm.enableLVI", "true").arguments("R",
+                                                rArguments).in(
+                                                                consoleHandler.createInputStream()).out(outStream).err(errStream).build();
+            } else {
+                context = preparedContext = contextBuilder.arguments("R", rArguments).in(consoleHandler.createInputStream()).out(outStream).err(errStream).build();
+            }
         }
 
         this.consoleHandler.setContext(context);
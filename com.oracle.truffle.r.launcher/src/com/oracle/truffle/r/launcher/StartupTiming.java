@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2017, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2017, 2020, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -25,54 +25,106 @@ package com.oracle.truffle.r.launcher;
 import java.io.PrintStream;
 import java.lang.management.ManagementFactory;
 import java.lang.management.RuntimeMXBean;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Records the startup profile: named timestamps, and phases that aggregate the duration, the number
+ * of bytes and the number of objects processed, e.g. all lazy-load fetches. The profile is recorded
+ * until the first context finished its startup, see {@link #endStartup()}, or for the whole run if
+ * the system property {@code StartupTiming} is {@code true}. In that case the human readable summary
+ * is printed, and {@link #toJSON()} exports the profile in any case.
+ */
 public final class StartupTiming {
     public static final boolean ENABLED = "true".equals(System.getProperty("StartupTiming"));
 
-    private static volatile StartupTiming INSTANCE = null;
+    /**
+     * Bounds the number of timestamps, which are also taken after the startup if {@link #ENABLED}.
+     */
+    private static final int MAX_TIMESTAMPS = 1024;
+
+    private static final StartupTiming INSTANCE = new StartupTiming();
 
-    private final long startTime;
+    private volatile long startTime;
+    private volatile boolean recording = true;
+    private final AtomicInteger timestampCount = new AtomicInteger();
     private final ConcurrentLinkedDeque<Timestamp> timestamps = new ConcurrentLinkedDeque<>();
+    private final ConcurrentHashMap<String, PhaseStatistics> phases = new ConcurrentHashMap<>();
 
     private StartupTiming() {
-        RuntimeMXBean runtimeMXBean;
-        long st = 0L;
-        try {
-            runtimeMXBean = ManagementFactory.getRuntimeMXBean();
-            if (runtimeMXBean == null) {
-                st = System.currentTimeMillis();
-            } else {
-                st = runtimeMXBean.getStartTime();
-            }
-        } catch (Throwable t) {
-            st = System.currentTimeMillis();
-        }
-        startTime = st;
     }
 
-    private static synchronized void init() {
-        if (INSTANCE == null) {
-            INSTANCE = new StartupTiming();
+    /**
+     * The start time of the VM, which is only looked up when needed as the management beans are
+     * expensive to initialize.
+     */
+    private long getStartTime() {
+        if (startTime == 0) {
+            long st;
+            try {
+                RuntimeMXBean runtimeMXBean = ManagementFactory.getRuntimeMXBean();
+                if (runtimeMXBean == null) {
+                    st = timestamps.isEmpty() ? System.currentTimeMillis() : timestamps.getFirst().timestamp;
+                } else {
+                    st = runtimeMXBean.getStartTime();
+                }
+            } catch (Throwable t) {
+                st = timestamps.isEmpty() ? System.currentTimeMillis() : timestamps.getFirst().timestamp;
+            }
+            startTime = st;
         }
+        return startTime;
     }
 
     public static void timestamp(String name) {
-        if (ENABLED) {
-            init();
+        if (INSTANCE.recording || ENABLED) {
             INSTANCE.putTimestamp(name);
         }
     }
 
+    /**
+     * Starts measuring a phase, which ends when the returned object is closed. All phases with the
+     * same name are aggregated. The duration of a phase includes the phases nested in it, e.g.
+     * {@code base.load} includes parsing the base package, so phases with the same kind of work must
+     * not be nested.
+     */
+    public static Phase phase(String name) {
+        if (!INSTANCE.recording && !ENABLED) {
+            return Phase.NOT_RECORDED;
+        }
+        return new Phase(INSTANCE.phases.computeIfAbsent(name, n -> new PhaseStatistics()));
+    }
+
+    /**
+     * Stops recording once the startup is over, unless {@link #ENABLED}, so that e.g. lazy-load
+     * fetches and parsing do not pay for the profile afterwards.
+     */
+    public static void endStartup() {
+        INSTANCE.recording = false;
+    }
+
     public static void printSummary() {
         if (ENABLED) {
-            init();
             INSTANCE.summary(System.out);
         }
     }
 
+    /**
+     * Returns the timestamps and the phases recorded so far as a JSON object. Times are in
+     * milliseconds since the epoch or since the start of the VM, durations are in nanoseconds.
+     */
+    public static String toJSON() {
+        return INSTANCE.json();
+    }
+
     private void putTimestamp(String tsName) {
+        if (timestampCount.incrementAndGet() > MAX_TIMESTAMPS) {
+            return;
+        }
         timestamps.add(new Timestamp(System.currentTimeMillis(), Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory(), tsName));
     }
 
@@ -81,9 +133,9 @@ public final class StartupTiming {
         out.printf("%1$-50s %2$20s %3$20s %4$20s\n", "<Timestamp>", "<FromStart>", "<FromPrev>", "<UsedMem>");
 
         TreeSet<Timestamp> sorted = new TreeSet<>(timestamps);
-        long prevTs = startTime;
+        long prevTs = getStartTime();
         for (Timestamp ts : sorted) {
-            long relTs = ts.timestamp - startTime;
+            long relTs = ts.timestamp - getStartTime();
             long delta = ts.timestamp - prevTs;
             String msg = ts.name;
 
@@ -91,6 +143,106 @@ public final class StartupTiming {
 
             prevTs = ts.timestamp;
         }
+        if (!phases.isEmpty()) {
+            out.printf("%1$-50s %2$20s %3$20s %4$20s %5$20s\n", "<Phase>", "<Count>", "<Duration>", "<Bytes>", "<Objects>");
+            for (Map.Entry<String, PhaseStatistics> entry : new TreeMap<>(phases).entrySet()) {
+                PhaseStatistics stats = entry.getValue();
+                synchronized (stats) {
+                    out.printf("%1$-50s %2$20d %3$18dms %4$20d %5$20d\n", entry.getKey(), stats.count, stats.duration / 1000000, stats.bytes, stats.objects);
+                }
+            }
+        }
+    }
+
+    private String json() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"startTime\":").append(getStartTime()).append(",\"timestamps\":[");
+        String sep = "";
+        for (Timestamp ts : new TreeSet<>(timestamps)) {
+            sb.append(sep).append("{\"name\":");
+            appendString(sb, ts.name);
+            sb.append(",\"fromStart\":").append(ts.timestamp - getStartTime()).append(",\"usedMemory\":").append(ts.usedMem).append('}');
+            sep = ",";
+        }
+        sb.append("],\"phases\":[");
+        sep = "";
+        for (Map.Entry<String, PhaseStatistics> entry : new TreeMap<>(phases).entrySet()) {
+            PhaseStatistics stats = entry.getValue();
+            sb.append(sep).append("{\"name\":");
+            appendString(sb, entry.getKey());
+            synchronized (stats) {
+                sb.append(",\"count\":").append(stats.count).append(",\"duration\":").append(stats.duration);
+                sb.append(",\"bytes\":").append(stats.bytes).append(",\"objects\":").append(stats.objects).append('}');
+            }
+            sep = ",";
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static void appendString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    private static final class PhaseStatistics {
+        private long count;
+        private long duration;
+        private long bytes;
+        private long objects;
+
+        synchronized void add(long phaseDuration, long phaseBytes, long phaseObjects) {
+            count++;
+            duration += phaseDuration;
+            bytes += phaseBytes;
+            objects += phaseObjects;
+        }
+    }
+
+    /**
+     * A running phase, the bytes and objects it processed are added to the statistics when it is
+     * closed.
+     */
+    public static final class Phase implements AutoCloseable {
+        private static final Phase NOT_RECORDED = new Phase(null);
+
+        private final PhaseStatistics statistics;
+        private final long start;
+        private long bytes;
+        private long objects;
+
+        private Phase(PhaseStatistics statistics) {
+            this.statistics = statistics;
+            this.start = statistics == null ? 0 : System.nanoTime();
+        }
+
+        public void addBytes(long n) {
+            if (statistics != null) {
+                bytes += n;
+            }
+        }
+
+        public void addObjects(long n) {
+            if (statistics != null) {
+                objects += n;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (statistics != null) {
+                statistics.add(System.nanoTime() - start, bytes, objects);
+            }
+        }
     }
 
     private static final class Timestamp implements Comparable<Timestamp> {
@@ -22,10 +22,17 @@
  */
 package com.oracle.truffle.r.library.parallel;
 
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.integerValue;
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.size;
+
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.r.nodes.builtin.RExternalBuiltinNode;
+import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RIntVector;
+import com.oracle.truffle.r.runtime.rng.lecuyer.LecuyerCMRG;
 
 /**
  * The .Call support for the parallel package.
@@ -37,4 +44,30 @@ public class ParallelFunctions {
             return RRuntime.asLogical(RContext.getInstance().getParent() != null);
         }
     }
+
+    private static void seedCasts(Casts casts) {
+        casts.arg(0).mustBe(integerValue(), RError.Message.GENERIC, "invalid seed").asIntegerVector().mustBe(size(7), RError.Message.GENERIC, "invalid seed");
+    }
+
+    public abstract static class NextStream extends RExternalBuiltinNode.Arg1 {
+        static {
+            seedCasts(new Casts(NextStream.class));
+        }
+
+        @Specialization
+        protected RIntVector nextStream(RIntVector seed) {
+            return RDataFactory.createIntVector(LecuyerCMRG.nextStream(seed.getReadonlyData()), RDataFactory.COMPLETE_VECTOR);
+        }
+    }
+
+    public abstract static class NextSubStream extends RExternalBuiltinNode.Arg1 {
+        static {
+            seedCasts(new Casts(NextSubStream.class));
+        }
+
+        @Specialization
+        protected RIntVector nextSubStream(RIntVector seed) {
+            return RDataFactory.createIntVector(LecuyerCMRG.nextSubStream(seed.getReadonlyData()), RDataFactory.COMPLETE_VECTOR);
+        }
+    }
 }
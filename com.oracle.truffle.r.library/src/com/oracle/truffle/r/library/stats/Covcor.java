@@ -22,6 +22,10 @@ package com.oracle.truffle.r.library.stats;
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.nullValue;
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.toBoolean;
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Specialization;
@@ -37,6 +41,8 @@ import com.oracle.truffle.r.nodes.unary.IsFactorNode;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RError.Message;
 import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.context.FastROptions;
+import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RDoubleVector;
 import com.oracle.truffle.r.runtime.data.RList;
@@ -239,6 +245,195 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
         }
     }
 
+    /*
+     * Cache-blocked cross products of the centred columns for the non-Kendall methods. The column
+     * pairs are processed in tiles of TILE x TILE columns that go through the observations selected
+     * by ind[] (all of them if ind is null) in chunks of CHUNK rows. The columns of a tile are
+     * centred chunk by chunk into small buffers, so that they stay in cache and the matrix is never
+     * copied as a whole. Each pair still accumulates its products in the order of the
+     * observations, which keeps the results identical to the plain per-pair loops. Large problems
+     * distribute the tiles over the process-wide fork-join pool.
+     */
+
+    private static final int TILE = 16;
+    private static final int CHUNK = 1024;
+
+    /**
+     * Stores sum_k (x[k, i] - xm[i]) * (y[k, j] - ym[j]) / n1 into ans[i, j]; pairs with a column
+     * marked in has_na_x or has_na_y get NA. For {@code x == y} only the lower triangle is computed
+     * and mirrored.
+     */
+    private static void crossprod(int n, int ncx, int ncy, double[] x, double[] y, double[] xm, double[] ym, boolean[] ind, boolean[] has_na_x, boolean[] has_na_y, int nobs, int n1,
+                    double[] ans) {
+        boolean symmetric = x == y;
+        int[] rows = null;
+        if (ind != null) {
+            rows = new int[nobs];
+            int r = 0;
+            for (int k = 0; k < n; k++) {
+                if (ind[k]) {
+                    rows[r++] = k;
+                }
+            }
+        }
+        int tilesX = (ncx + TILE - 1) / TILE;
+        int tilesY = (ncy + TILE - 1) / TILE;
+        int[] tiles = new int[2 * (symmetric ? tilesX * (tilesX + 1) / 2 : tilesX * tilesY)];
+        int t = 0;
+        for (int ti = 0; ti < tilesX; ti++) {
+            for (int tj = 0; tj < (symmetric ? ti + 1 : tilesY); tj++) {
+                tiles[t++] = ti * TILE;
+                tiles[t++] = tj * TILE;
+            }
+        }
+        CrossprodTask task = new CrossprodTask(new CrossprodData(n, ncx, ncy, x, y, xm, ym, rows, has_na_x, has_na_y, nobs, n1, ans, symmetric, tiles), 0, tiles.length / 2);
+        long pairs = symmetric ? (long) ncx * (ncx + 1) / 2 : (long) ncx * ncy;
+        ForkJoinPool pool = tiles.length > 2 ? RContext.getInstance().getParallelPool(FastROptions.ParallelFlopsThreshold, pairs * nobs) : null;
+        if (pool != null) {
+            pool.invoke(task);
+        } else {
+            task.compute();
+        }
+    }
+
+    /**
+     * The arguments of {@link #crossprod} shared by all tasks, {@code rows} are the indices of the
+     * selected observations or {@code null} if all are selected.
+     */
+    private static final class CrossprodData {
+        final int n;
+        final int ncx;
+        final int ncy;
+        final double[] x;
+        final double[] y;
+        final double[] xm;
+        final double[] ym;
+        final int[] rows;
+        final boolean[] hasNAx;
+        final boolean[] hasNAy;
+        final int nobs;
+        final int n1;
+        final double[] ans;
+        final boolean symmetric;
+        final int[] tiles;
+
+        CrossprodData(int n, int ncx, int ncy, double[] x, double[] y, double[] xm, double[] ym, int[] rows, boolean[] hasNAx, boolean[] hasNAy, int nobs, int n1, double[] ans,
+                        boolean symmetric, int[] tiles) {
+            this.n = n;
+            this.ncx = ncx;
+            this.ncy = ncy;
+            this.x = x;
+            this.y = y;
+            this.xm = xm;
+            this.ym = ym;
+            this.rows = rows;
+            this.hasNAx = hasNAx;
+            this.hasNAy = hasNAy;
+            this.nobs = nobs;
+            this.n1 = n1;
+            this.ans = ans;
+            this.symmetric = symmetric;
+            this.tiles = tiles;
+        }
+    }
+
+    private static final class CrossprodTask extends RecursiveAction {
+        private final CrossprodData d;
+        private final int from;
+        private final int to;
+
+        CrossprodTask(CrossprodData d, int from, int to) {
+            this.d = d;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (getPool() != null && to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new CrossprodTask(d, from, mid), new CrossprodTask(d, mid, to));
+            } else {
+                double[] sums = new double[TILE * TILE];
+                double[] bx = new double[TILE * CHUNK];
+                double[] by = new double[TILE * CHUNK];
+                for (int t = from; t < to; t++) {
+                    tile(d.tiles[2 * t], d.tiles[2 * t + 1], sums, bx, by);
+                }
+            }
+        }
+
+        private boolean skip(int i, int j) {
+            return (d.hasNAx != null && d.hasNAx[i]) || (d.hasNAy != null && d.hasNAy[j]);
+        }
+
+        /**
+         * Stores the centred observations {@code k0} to {@code k1} of the columns {@code c0} to
+         * {@code c1} of {@code v} into {@code buf}, one column every {@link #CHUNK} elements.
+         */
+        private void centre(double[] v, double[] m, boolean[] hasNA, int c0, int c1, int k0, int k1, double[] buf) {
+            int[] rows = d.rows;
+            for (int c = c0; c < c1; c++) {
+                if (hasNA == null || !hasNA[c]) {
+                    int vv = c * d.n;
+                    int bb = (c - c0) * CHUNK - k0;
+                    double mean = m[c];
+                    if (rows == null) {
+                        for (int k = k0; k < k1; k++) {
+                            buf[bb + k] = v[vv + k] - mean;
+                        }
+                    } else {
+                        for (int k = k0; k < k1; k++) {
+                            buf[bb + k] = v[vv + rows[k]] - mean;
+                        }
+                    }
+                }
+            }
+        }
+
+        private void tile(int i0, int j0, double[] sums, double[] bx, double[] by) {
+            int i1 = Math.min(i0 + TILE, d.ncx);
+            int j1 = Math.min(j0 + TILE, d.ncy);
+            // a tile on the diagonal has the same columns on both sides
+            boolean diagonal = d.symmetric && i0 == j0;
+            double[] cy = diagonal ? bx : by;
+            Arrays.fill(sums, 0);
+            for (int k0 = 0; k0 < d.nobs; k0 += CHUNK) {
+                int k1 = Math.min(k0 + CHUNK, d.nobs);
+                int len = k1 - k0;
+                centre(d.x, d.xm, d.hasNAx, i0, i1, k0, k1, bx);
+                if (!diagonal) {
+                    centre(d.y, d.ym, d.hasNAy, j0, j1, k0, k1, by);
+                }
+                for (int i = i0; i < i1; i++) {
+                    int xx = (i - i0) * CHUNK;
+                    int jEnd = d.symmetric ? Math.min(j1, i + 1) : j1;
+                    for (int j = j0; j < jEnd; j++) {
+                        if (!skip(i, j)) {
+                            int yy = (j - j0) * CHUNK;
+                            int s = (i - i0) * TILE + (j - j0);
+                            double sum = sums[s];
+                            for (int k = 0; k < len; k++) {
+                                sum += bx[xx + k] * cy[yy + k];
+                            }
+                            sums[s] = sum;
+                        }
+                    }
+                }
+            }
+            for (int i = i0; i < i1; i++) {
+                int jEnd = d.symmetric ? Math.min(j1, i + 1) : j1;
+                for (int j = j0; j < jEnd; j++) {
+                    double result = skip(i, j) ? RRuntime.DOUBLE_NA : sums[(i - i0) * TILE + (j - j0)] / d.n1;
+                    ANS(d.ans, d.ncx, i, j, result);
+                    if (d.symmetric) {
+                        ANS(d.ans, d.ncx, j, i, result);
+                    }
+                }
+            }
+        }
+    }
+
     private static void cov_complete1(int n, int ncx, double[] x, double[] xm, boolean[] ind, double[] ans, boolean[] sd_0, boolean cor, boolean kendall) {
         int n1 = -1;
 
@@ -262,25 +457,11 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
             MEAN(n, ncx, x, xm, ind, nobs); /* -> xm[] */
             n1 = nobs - 1;
         }
-        for (int i = 0; i < ncx; i++) {
-            int xx = i * n;
-
-            if (!kendall) {
-                double xxm = xm[i];
-                for (int j = 0; j <= i; j++) {
-                    int yy = j * n;
-                    double yym = xm[j];
-                    double sum = 0;
-                    for (int k = 0; k < n; k++) {
-                        if (ind[k]) {
-                            sum += (x[xx + k] - xxm) * (x[yy + k] - yym);
-                        }
-                    }
-                    double result = sum / n1;
-                    ANS(ans, ncx, j, i, result);
-                    ANS(ans, ncx, i, j, result);
-                }
-            } else { /* Kendall's tau */
+        if (!kendall) {
+            crossprod(n, ncx, ncx, x, x, xm, xm, ind, null, null, nobs, n1, ans);
+        } else { /* Kendall's tau */
+            for (int i = 0; i < ncx; i++) {
+                int xx = i * n;
                 for (int j = 0; j <= i; j++) {
                     int yy = j * n;
                     double sum = 0;
@@ -340,34 +521,17 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
             MEAN_(n, ncx, x, xm, has_na);/* -> xm[] */
             n1 = n - 1;
         }
-        for (int i = 0; i < ncx; i++) {
-            if (has_na[i]) {
-                for (int j = 0; j <= i; j++) {
-                    ANS(ans, ncx, j, i, RRuntime.DOUBLE_NA);
-                    ANS(ans, ncx, i, j, RRuntime.DOUBLE_NA);
-                }
-            } else {
-                int xx = i * n;
-
-                if (!kendall) {
-                    double xxm = xm[i];
+        if (!kendall) {
+            crossprod(n, ncx, ncx, x, x, xm, xm, null, has_na, has_na, n, n1, ans);
+        } else {
+            for (int i = 0; i < ncx; i++) {
+                if (has_na[i]) {
                     for (int j = 0; j <= i; j++) {
-                        if (has_na[j]) {
-                            ANS(ans, ncx, j, i, RRuntime.DOUBLE_NA);
-                            ANS(ans, ncx, i, j, RRuntime.DOUBLE_NA);
-                        } else {
-                            int yy = j * n;
-                            double yym = xm[j];
-                            double sum = 0;
-                            for (int k = 0; k < n; k++) {
-                                sum += (x[xx + k] - xxm) * (x[yy + k] - yym);
-                            }
-                            double result = sum / n1;
-                            ANS(ans, ncx, j, i, result);
-                            ANS(ans, ncx, i, j, result);
-                        }
+                        ANS(ans, ncx, j, i, RRuntime.DOUBLE_NA);
+                        ANS(ans, ncx, i, j, RRuntime.DOUBLE_NA);
                     }
                 } else { /* Kendall's tau */
+                    int xx = i * n;
                     for (int j = 0; j <= i; j++) {
                         if (has_na[j]) {
                             ANS(ans, ncx, j, i, RRuntime.DOUBLE_NA);
@@ -469,22 +633,11 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
             MEAN(n, ncy, y, ym, ind, nobs);/* -> ym[] */
             n1 = nobs - 1;
         }
-        for (int i = 0; i < ncx; i++) {
-            int xx = i * n;
-            if (!kendall) {
-                double xxm = xm[i];
-                for (int j = 0; j < ncy; j++) {
-                    int yy = j * n;
-                    double yym = ym[j];
-                    double sum = 0;
-                    for (int k = 0; k < n; k++) {
-                        if (ind[k]) {
-                            sum += (x[xx + k] - xxm) * (y[yy + k] - yym);
-                        }
-                    }
-                    ANS(ans, ncx, i, j, sum / n1);
-                }
-            } else { /* Kendall's tau */
+        if (!kendall) {
+            crossprod(n, ncx, ncy, x, y, xm, ym, ind, null, null, nobs, n1, ans);
+        } else { /* Kendall's tau */
+            for (int i = 0; i < ncx; i++) {
+                int xx = i * n;
                 for (int j = 0; j < ncy; j++) {
                     int yy = j * n;
                     double sum = 0;
@@ -569,29 +722,16 @@ public abstract class Covcor extends RExternalBuiltinNode.Arg4 {
             MEAN_(n, ncy, y, ym, has_na_y);/* -> ym[] */
             n1 = n - 1;
         }
-        for (int i = 0; i < ncx; i++) {
-            if (has_na_x[i]) {
-                for (int j = 0; j < ncy; j++) {
-                    ANS(ans, ncx, i, j, RRuntime.DOUBLE_NA);
-                }
-            } else {
-                int xx = i * n;
-                if (!kendall) {
-                    double xxm = xm[i];
+        if (!kendall) {
+            crossprod(n, ncx, ncy, x, y, xm, ym, null, has_na_x, has_na_y, n, n1, ans);
+        } else {
+            for (int i = 0; i < ncx; i++) {
+                if (has_na_x[i]) {
                     for (int j = 0; j < ncy; j++) {
-                        if (has_na_y[j]) {
-                            ANS(ans, ncx, i, j, RRuntime.DOUBLE_NA);
-                        } else {
-                            int yy = j * n;
-                            double yym = ym[j];
-                            double sum = 0;
-                            for (int k = 0; k < n; k++) {
-                                sum += (x[xx + k] - xxm) * (y[yy + k] - yym);
-                            }
-                            ANS(ans, ncx, i, j, sum / n1);
-                        }
+                        ANS(ans, ncx, i, j, RRuntime.DOUBLE_NA);
                     }
                 } else { /* Kendall's tau */
+                    int xx = i * n;
                     for (int j = 0; j < ncy; j++) {
                         if (has_na_y[j]) {
                             ANS(ans, ncx, i, j, RRuntime.DOUBLE_NA);
@@ -35,19 +35,25 @@ import static com.oracle.truffle.r.runtime.RError.Message.INVALID_ARG;
 import static com.oracle.truffle.r.runtime.RRuntime.LOGICAL_FALSE;
 
 import java.util.Arrays;
+import java.util.Locale;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.r.runtime.data.nodes.attributes.SetFixedAttributeNode;
 import com.oracle.truffle.r.nodes.builtin.RExternalBuiltinNode;
 import com.oracle.truffle.r.runtime.RError;
+import com.oracle.truffle.r.runtime.RInternalError;
+import com.oracle.truffle.r.runtime.RLocale;
 import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.context.FastROptions;
+import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
-import com.oracle.truffle.r.runtime.data.RDoubleVector;
 import com.oracle.truffle.r.runtime.data.RIntVector;
-import com.oracle.truffle.r.runtime.data.RLogicalVector;
 import com.oracle.truffle.r.runtime.data.RStringVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 import com.oracle.truffle.r.runtime.nodes.RBaseNode;
@@ -70,13 +76,48 @@ public abstract class TypeConvert extends RExternalBuiltinNode.Arg5 {
         return RError.SHOW_CALLER;
     }
 
-    private static boolean isNA(String s, RStringVector naStrings) {
+    private static final int MIN_PARALLEL_ELEMENTS = 16 * 1024;
+
+    /**
+     * The logical, integer or double data a character vector converts to. It is kept as a plain
+     * array so that it can be computed on threads that cannot create R vectors.
+     */
+    private static final class Conversion {
+        private final Object data;
+        private final boolean complete;
+
+        private Conversion(Object data, boolean complete) {
+            this.data = data;
+            this.complete = complete;
+        }
+
+        private RAbstractVector createVector() {
+            if (data instanceof int[]) {
+                return RDataFactory.createIntVector((int[]) data, complete);
+            } else if (data instanceof double[]) {
+                return RDataFactory.createDoubleVector((double[]) data, complete);
+            } else {
+                return RDataFactory.createLogicalVector((byte[]) data, complete);
+            }
+        }
+    }
+
+    /**
+     * Converts the elements {@code from} to {@code to} (exclusive) into an array prepared by the
+     * caller, returns whether there was no NA and throws {@link NumberFormatException} if an
+     * element cannot be converted.
+     */
+    private interface RangeConverter {
+        boolean convert(int from, int to);
+    }
+
+    private static boolean isNA(String s, String[] naStrings) {
         // naStrings are in addition to NA_character_
         if (RRuntime.isNA(s) || s.isEmpty()) { // Blank treated as NA too
             return true;
         }
-        for (int i = 0; i < naStrings.getLength(); i++) {
-            if (s.equals(naStrings.getDataAt(i))) {
+        for (int i = 0; i < naStrings.length; i++) {
+            if (s.equals(naStrings[i])) {
                 return true;
             }
         }
@@ -88,97 +129,148 @@ public abstract class TypeConvert extends RExternalBuiltinNode.Arg5 {
      * not isNA(elem, naStrings). However, there may be isNA values after that.
      */
 
-    private static RIntVector readIntVector(RStringVector x, int firstPos, int firstVal, RStringVector naStrings) {
-        int[] data = new int[x.getLength()];
+    private static Conversion readIntVector(String[] x, int firstPos, int firstVal, String[] naStrings, ForkJoinPool pool) {
+        int[] data = new int[x.length];
         Arrays.fill(data, 0, firstPos, RRuntime.INT_NA);
-        boolean complete = canBeComplete(firstPos);
         data[firstPos] = firstVal;
-        for (int i = firstPos + 1; i < data.length; i++) {
-            String s = x.getDataAt(i);
-            if (isNA(s, naStrings)) {
-                data[i] = RRuntime.INT_NA;
-                complete = false;
-            } else {
-                int result = RRuntime.parseInt(s);
-                if (result == RRuntime.INT_NA) {
-                    throw new NumberFormatException();
+        boolean complete = convertRange((from, to) -> {
+            boolean rangeComplete = true;
+            for (int i = from; i < to; i++) {
+                String s = x[i];
+                if (isNA(s, naStrings)) {
+                    data[i] = RRuntime.INT_NA;
+                    rangeComplete = false;
+                } else {
+                    int result = RRuntime.parseInt(s);
+                    if (result == RRuntime.INT_NA) {
+                        throw new NumberFormatException();
+                    }
+                    data[i] = result;
                 }
-                data[i] = result;
             }
-        }
-        return RDataFactory.createIntVector(data, complete);
+            return rangeComplete;
+        }, firstPos + 1, x.length, pool);
+        return new Conversion(data, canBeComplete(firstPos) && complete);
     }
 
-    private static RDoubleVector readDoubleVector(RStringVector x, int firstPos, double firstVal, RStringVector naStrings) {
-        double[] data = new double[x.getLength()];
+    private static Conversion readDoubleVector(String[] x, int firstPos, double firstVal, String[] naStrings, Locale numLocale, ForkJoinPool pool) {
+        double[] data = new double[x.length];
         Arrays.fill(data, 0, firstPos, RRuntime.DOUBLE_NA);
-        boolean complete = canBeComplete(firstPos);
         data[firstPos] = firstVal;
-        for (int i = firstPos + 1; i < data.length; i++) {
-            String s = x.getDataAt(i);
-            boolean isNA = isNA(s, naStrings);
-            data[i] = isNA ? RRuntime.DOUBLE_NA : RRuntime.string2doubleNoCheck(s, true, true);
-            complete = complete && !isNA;
-        }
-        return RDataFactory.createDoubleVector(data, complete);
+        boolean complete = convertRange((from, to) -> {
+            boolean rangeComplete = true;
+            for (int i = from; i < to; i++) {
+                String s = x[i];
+                boolean isNA = isNA(s, naStrings);
+                data[i] = isNA ? RRuntime.DOUBLE_NA : RRuntime.string2doubleNoCheck(s, true, numLocale);
+                rangeComplete = rangeComplete && !isNA;
+            }
+            return rangeComplete;
+        }, firstPos + 1, x.length, pool);
+        return new Conversion(data, canBeComplete(firstPos) && complete);
     }
 
-    private static RLogicalVector readLogicalVector(RStringVector x, int firstPos, byte firstVal, RStringVector naStrings) {
-        byte[] data = new byte[x.getLength()];
+    private static Conversion readLogicalVector(String[] x, int firstPos, byte firstVal, String[] naStrings, ForkJoinPool pool) {
+        byte[] data = new byte[x.length];
         Arrays.fill(data, 0, firstPos, RRuntime.LOGICAL_NA);
-        boolean complete = canBeComplete(firstPos);
         data[firstPos] = firstVal;
-        for (int i = firstPos + 1; i < data.length; i++) {
-            String s = x.getDataAt(i);
-            boolean isNA = isNA(s, naStrings);
-            data[i] = isNA ? RRuntime.LOGICAL_NA : RRuntime.string2logicalNoCheck(s, true);
-            complete = complete && !isNA;
+        boolean complete = convertRange((from, to) -> {
+            boolean rangeComplete = true;
+            for (int i = from; i < to; i++) {
+                String s = x[i];
+                boolean isNA = isNA(s, naStrings);
+                data[i] = isNA ? RRuntime.LOGICAL_NA : RRuntime.string2logicalNoCheck(s, true);
+                rangeComplete = rangeComplete && !isNA;
+            }
+            return rangeComplete;
+        }, firstPos + 1, x.length, pool);
+        return new Conversion(data, canBeComplete(firstPos) && complete);
+    }
+
+    /**
+     * Runs {@code converter} on the range {@code from} to {@code to}, split into chunks on
+     * {@code pool} unless it is {@code null}. Once a chunk failed, the chunks that did not start
+     * yet are cancelled and the {@link NumberFormatException} is rethrown.
+     */
+    private static boolean convertRange(RangeConverter converter, int from, int to, ForkJoinPool pool) {
+        int chunks = pool == null ? 1 : Math.min(pool.getParallelism() * 4, (to - from) / MIN_PARALLEL_ELEMENTS);
+        if (chunks < 2) {
+            return converter.convert(from, to);
         }
-        return RDataFactory.createLogicalVector(data, complete);
+        @SuppressWarnings("unchecked")
+        ForkJoinTask<Boolean>[] tasks = new ForkJoinTask[chunks];
+        for (int i = 0; i < chunks; i++) {
+            int chunkFrom = from + (int) ((long) (to - from) * i / chunks);
+            int chunkTo = from + (int) ((long) (to - from) * (i + 1) / chunks);
+            tasks[i] = pool.submit(() -> converter.convert(chunkFrom, chunkTo));
+        }
+        boolean complete = true;
+        NumberFormatException failure = null;
+        for (ForkJoinTask<Boolean> task : tasks) {
+            if (failure != null) {
+                task.cancel(false);
+                continue;
+            }
+            try {
+                complete &= task.get();
+            } catch (ExecutionException e) {
+                if (!(e.getCause() instanceof NumberFormatException)) {
+                    throw RInternalError.shouldNotReachHere(e.getCause());
+                }
+                failure = (NumberFormatException) e.getCause();
+            } catch (InterruptedException e) {
+                throw RInternalError.shouldNotReachHere(e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return complete;
     }
 
     private static boolean canBeComplete(int firstNonNAPos) {
         return firstNonNAPos == 0 ? RDataFactory.COMPLETE_VECTOR : RDataFactory.INCOMPLETE_VECTOR;
     }
 
-    @Specialization
-    @TruffleBoundary
-    protected Object typeConvert(RStringVector x, RStringVector naStrings, boolean asIs, @SuppressWarnings("unused") Object dec, @SuppressWarnings("unused") Object numeral) {
-        if (x.getLength() == 0) {
-            return RDataFactory.createEmptyLogicalVector();
-        }
-
+    /**
+     * Converts the non-empty {@code x} to logical, integer or double data like
+     * {@code type.convert} does, doubles are parsed in {@code numLocale}. Returns {@code null} if
+     * {@code x} has to stay a character vector or become a factor. The elements after the first
+     * non-NA one, which determines the type that is tried first, are converted in chunks on
+     * {@code pool} unless it is {@code null}.
+     */
+    private static Conversion convert(String[] x, String[] naStrings, Locale numLocale, ForkJoinPool pool) {
         int i = 0;
-        while (i < x.getLength() && (x.getDataAt(i).isEmpty() || isNA(x.getDataAt(i), naStrings))) {
+        while (i < x.length && isNA(x[i], naStrings)) {
             i++;
         }
 
-        if (i == x.getLength()) {
+        if (i == x.length) {
             // all NAs
             byte[] data = new byte[i];
             Arrays.fill(data, RRuntime.LOGICAL_NA);
-            return RDataFactory.createLogicalVector(data, RDataFactory.INCOMPLETE_VECTOR);
+            return new Conversion(data, RDataFactory.INCOMPLETE_VECTOR);
         }
 
-        String s = x.getDataAt(i);
+        String s = x[i];
         if (RRuntime.hasHexPrefix(s)) {
             // this is a mess
             // double takes precedence even if s is a hexadecimal integer
             try {
-                double doubleVal = RRuntime.string2doubleNoCheck(s, true, true);
-                return readDoubleVector(x, i, doubleVal, naStrings);
+                double doubleVal = RRuntime.string2doubleNoCheck(s, true, numLocale);
+                return readDoubleVector(x, i, doubleVal, naStrings, numLocale, pool);
             } catch (NumberFormatException ix) {
                 // fall through
             }
         } else {
             try {
                 int intVal = RRuntime.string2intNoCheck(s, true);
-                return readIntVector(x, i, intVal, naStrings);
+                return readIntVector(x, i, intVal, naStrings, pool);
             } catch (NumberFormatException ix) {
                 try {
-                    double doubleVal = RRuntime.string2doubleNoCheck(s, true, true);
+                    double doubleVal = RRuntime.string2doubleNoCheck(s, true, numLocale);
                     try {
-                        return readDoubleVector(x, i, doubleVal, naStrings);
+                        return readDoubleVector(x, i, doubleVal, naStrings, numLocale, pool);
                     } catch (NumberFormatException lx) {
                         // fall through
                     }
@@ -186,7 +278,7 @@ public abstract class TypeConvert extends RExternalBuiltinNode.Arg5 {
                     try {
                         byte logicalVal = RRuntime.string2logicalNoCheck(s, true);
                         try {
-                            return readLogicalVector(x, i, logicalVal, naStrings);
+                            return readLogicalVector(x, i, logicalVal, naStrings, pool);
                         } catch (NumberFormatException lx) {
                             // fall through
                         }
@@ -196,16 +288,44 @@ public abstract class TypeConvert extends RExternalBuiltinNode.Arg5 {
                 }
             }
         }
+        return null;
+    }
+
+    private static long countChars(String[] x) {
+        long chars = 0;
+        for (String s : x) {
+            chars += s.length();
+        }
+        return chars;
+    }
+
+    @Specialization
+    @TruffleBoundary
+    protected Object typeConvert(RStringVector x, RStringVector naStrings, boolean asIs, @SuppressWarnings("unused") Object dec, @SuppressWarnings("unused") Object numeral) {
+        if (x.getLength() == 0) {
+            return RDataFactory.createEmptyLogicalVector();
+        }
+
+        RContext context = RContext.getInstance();
+        Locale numLocale = context.stateRLocale.getLocale(RLocale.NUMERIC);
+        String[] data = x.getReadonlyStringData();
+        // vectors of at least ParallelScanThreshold characters are converted in parallel
+        ForkJoinPool pool = data.length < 2 * MIN_PARALLEL_ELEMENTS ? null : context.getParallelPool(FastROptions.ParallelScanThreshold, countChars(data));
+        Conversion conversion = convert(data, naStrings.getReadonlyStringData(), numLocale, pool);
+        if (conversion != null) {
+            return conversion.createVector();
+        }
         // fall through target - conversion to int, double or logical failed
 
         if (asIs) {
             return x;
         } else {
             // collect levels for a factor result
+            String[] naStringsData = naStrings.getReadonlyStringData();
             TreeMap<String, Integer> levels = new TreeMap<>();
             for (int j = 0; j < x.getLength(); j++) {
-                s = x.getDataAt(j);
-                if (!isNA(s, naStrings)) {
+                String s = x.getDataAt(j);
+                if (!isNA(s, naStringsData)) {
                     levels.put(s, 0);
                 }
             }
@@ -218,8 +338,8 @@ public abstract class TypeConvert extends RExternalBuiltinNode.Arg5 {
             int[] data = new int[x.getLength()];
             boolean complete = true;
             for (int j = 0; j < data.length; j++) {
-                s = x.getDataAt(j);
-                if (!isNA(s, naStrings)) {
+                String s = x.getDataAt(j);
+                if (!isNA(s, naStringsData)) {
                     data[j] = levels.get(s);
                 } else {
                     data[j] = RRuntime.INT_NA;
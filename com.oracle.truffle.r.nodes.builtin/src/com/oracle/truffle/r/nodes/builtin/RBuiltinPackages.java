@@ -35,6 +35,7 @@ import com.oracle.truffle.api.frame.FrameDescriptor;
 import com.oracle.truffle.api.frame.FrameSlot;
 import com.oracle.truffle.api.frame.MaterializedFrame;
 import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.r.launcher.StartupTiming;
 import com.oracle.truffle.r.nodes.builtin.base.BasePackage;
 import com.oracle.truffle.r.nodes.builtin.base.BaseVariables;
 import static com.oracle.truffle.r.runtime.context.FastROptions.LoadPackagesNativeCode;
@@ -112,7 +113,8 @@ public final class RBuiltinPackages implements RBuiltinLookup {
         // Any RBuiltinKind.SUBSTITUTE functions installed above should not be overridden
         try {
             RContext.getInstance().setLoadingBase(true);
-            try {
+            try (StartupTiming.Phase phase = StartupTiming.phase("base.load")) {
+                phase.addBytes(baseSource.getLength());
                 RContext.getEngine().parseAndEval(baseSource, baseFrame, false);
             } catch (ParseException e) {
                 throw new RInternalError(e, "error while parsing base source from %s", baseSource.getName());
@@ -96,6 +96,30 @@ public abstract class Array extends RBuiltinNode.Arg3 {
             throw error(RError.Message.DIMS_CONTAIN_NEGATIVE_VALUES);
         }
 
+        RAbstractVector result = null;
+        try (SequentialIterator dataIter = dataAccess.access(data)) {
+            if (totalLength > 0 && dataAccess.getLength(dataIter) == 1) {
+                // arrays filled with a single value are stored as constants
+                result = RepeatInternal.createConstant(dataAccess, dataIter, totalLength);
+            }
+        }
+        if (result != null) {
+            result.setDimensions(dimArray);
+        } else {
+            result = createArray(data, dataAccess, resultAccess, isEmpty, factory, totalLength, dimArray);
+        }
+
+        // dimensions are set as a separate step so they are checked for validity
+        if (hasDimNames.profile(dimNames instanceof RList)) {
+            updateDimNames(result, dimNames);
+        } else {
+            assert dimNames instanceof RNull;
+        }
+        return result;
+    }
+
+    private static RAbstractVector createArray(RAbstractVector data, VectorAccess dataAccess, VectorAccess resultAccess, ConditionProfile isEmpty, VectorFactory factory, int totalLength,
+                    int[] dimArray) {
         RAbstractVector result = factory.createUninitializedVector(dataAccess.getType(), totalLength, dimArray, null, null);
 
         try (SequentialIterator resultIter = resultAccess.access(result); SequentialIterator dataIter = dataAccess.access(data)) {
@@ -112,13 +136,6 @@ public abstract class Array extends RBuiltinNode.Arg3 {
                 result.setComplete(!dataAccess.na.isEnabled());
             }
         }
-
-        // dimensions are set as a separate step so they are checked for validity
-        if (hasDimNames.profile(dimNames instanceof RList)) {
-            updateDimNames(result, dimNames);
-        } else {
-            assert dimNames instanceof RNull;
-        }
         return result;
     }
 
@@ -128,6 +128,7 @@ import com.oracle.truffle.r.nodes.builtin.fastr.FastRInteropFactory.FastRInterop
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRInteropFactory.FastRInteropGetExceptionNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRInteropFactory.FastRInteropTryNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRJavaGDResize;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRLazyLoadCacheStats;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRLibPaths;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRLibPathsNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastROptionBuiltin;
@@ -151,6 +152,7 @@ import com.oracle.truffle.r.nodes.builtin.fastr.FastRSourceInfo;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRSourceInfoNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRStackTrace;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRStackTraceNodeGen;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRStartupTiming;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRSyntaxTree;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRSyntaxTreeNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRTestsTry;
@@ -463,6 +465,8 @@ public class BasePackage extends RBuiltinPackage {
         add(Exists.class, ExistsNodeGen::create);
         add(Expression.class, ExpressionNodeGen::create);
         add(FastRGetExecutor.class, FastRGetExecutor::new);
+        add(FastRLazyLoadCacheStats.class, FastRLazyLoadCacheStats::new);
+        add(FastRStartupTiming.class, FastRStartupTiming::new);
         add(FastRContext.R.class, FastRContextFactory.RNodeGen::create);
         add(FastRContext.Rscript.class, FastRContextFactory.RscriptNodeGen::create);
         add(FastRContext.CloseChannel.class, FastRContextFactory.CloseChannelNodeGen::create);
@@ -470,6 +474,9 @@ public class BasePackage extends RBuiltinPackage {
         add(FastRContext.CreateForkChannel.class, FastRContextFactory.CreateForkChannelNodeGen::create);
         add(FastRContext.Eval.class, FastRContextFactory.EvalNodeGen::create);
         add(FastRContext.Get.class, FastRContext.Get::new);
+        add(FastRContext.Template.class, FastRContextFactory.TemplateNodeGen::create);
+        add(FastRContext.Pool.class, FastRContextFactory.PoolNodeGen::create);
+        add(FastRContext.PoolStats.class, FastRContext.PoolStats::new);
         add(FastRContext.FastRContextNew.class, FastRContext.FastRContextNew::new);
         add(FastRContext.FastRContextClose.class, FastRContext.FastRContextClose::new);
         add(FastRContext.GetChannel.class, FastRContextFactory.GetChannelNodeGen::create);
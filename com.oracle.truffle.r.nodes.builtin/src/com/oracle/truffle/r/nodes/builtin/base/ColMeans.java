@@ -50,6 +50,10 @@ public abstract class ColMeans extends ColSumsBase {
     protected RDoubleVector colMeansNaRmFalse(RDoubleVector x, int rowNum, int colNum, @SuppressWarnings("unused") boolean naRm,
                     @CachedLibrary("x.getData()") VectorDataLibrary dataLib) {
         checkVectorLength(dataLib, x, rowNum, colNum);
+        RDoubleVector parallel = sumColumnsParallel(x, rowNum, colNum, false, true);
+        if (parallel != null) {
+            return parallel;
+        }
 
         double[] result = new double[colNum];
         boolean isComplete = true;
@@ -80,6 +84,10 @@ public abstract class ColMeans extends ColSumsBase {
     protected RDoubleVector colMeansNaRmTrue(RDoubleVector x, int rowNum, int colNum, @SuppressWarnings("unused") boolean naRm,
                     @CachedLibrary("x.getData()") VectorDataLibrary dataLib) {
         checkVectorLength(dataLib, x, rowNum, colNum);
+        RDoubleVector parallel = sumColumnsParallel(x, rowNum, colNum, true, true);
+        if (parallel != null) {
+            return parallel;
+        }
 
         double[] result = new double[colNum];
         boolean isComplete = true;
@@ -110,6 +118,10 @@ public abstract class ColMeans extends ColSumsBase {
     protected RDoubleVector colMeansNaRmFalse(RLogicalVector x, int rowNum, int colNum, @SuppressWarnings("unused") boolean naRm,
                     @CachedLibrary("x.getData()") VectorDataLibrary dataLib) {
         checkVectorLength(dataLib, x, rowNum, colNum);
+        RDoubleVector parallel = sumColumnsParallel(x, rowNum, colNum, false, true);
+        if (parallel != null) {
+            return parallel;
+        }
 
         double[] result = new double[colNum];
         Object xData = x.getData();
@@ -134,6 +146,10 @@ public abstract class ColMeans extends ColSumsBase {
     protected RDoubleVector colMeansNaRmTrue(RLogicalVector x, int rowNum, int colNum, @SuppressWarnings("unused") boolean naRm,
                     @CachedLibrary("x.getData()") VectorDataLibrary dataLib) {
         checkVectorLength(dataLib, x, rowNum, colNum);
+        RDoubleVector parallel = sumColumnsParallel(x, rowNum, colNum, true, true);
+        if (parallel != null) {
+            return parallel;
+        }
 
         double[] result = new double[colNum];
         boolean isComplete = true;
@@ -164,6 +180,10 @@ public abstract class ColMeans extends ColSumsBase {
     protected RDoubleVector colMeansNaRmFalse(RIntVector x, int rowNum, int colNum, @SuppressWarnings("unused") boolean naRm,
                     @CachedLibrary("x.getData()") VectorDataLibrary dataLib) {
         checkVectorLength(dataLib, x, rowNum, colNum);
+        RDoubleVector parallel = sumColumnsParallel(x, rowNum, colNum, false, true);
+        if (parallel != null) {
+            return parallel;
+        }
 
         double[] result = new double[colNum];
         Object xData = x.getData();
@@ -188,6 +208,10 @@ public abstract class ColMeans extends ColSumsBase {
     protected RDoubleVector colMeansNaRmTrue(RIntVector x, int rowNum, int colNum, @SuppressWarnings("unused") boolean naRm,
                     @CachedLibrary("x.getData()") VectorDataLibrary dataLib) {
         checkVectorLength(dataLib, x, rowNum, colNum);
+        RDoubleVector parallel = sumColumnsParallel(x, rowNum, colNum, true, true);
+        if (parallel != null) {
+            return parallel;
+        }
 
         double[] result = new double[colNum];
         boolean isComplete = true;
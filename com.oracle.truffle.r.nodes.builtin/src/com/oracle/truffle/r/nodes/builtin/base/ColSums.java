@@ -54,6 +54,10 @@ public abstract class ColSums extends ColSumsBase {
     protected RDoubleVector colSums(RDoubleVector x, int rowNum, int colNum, boolean rnaParam,
                     @CachedLibrary("x.getData()") VectorDataLibrary xDataLib) {
         checkVectorLength(xDataLib, x, rowNum, colNum);
+        RDoubleVector parallel = sumColumnsParallel(x, rowNum, colNum, rnaParam, false);
+        if (parallel != null) {
+            return parallel;
+        }
 
         double[] result = new double[colNum];
         boolean isComplete = true;
@@ -95,6 +99,10 @@ public abstract class ColSums extends ColSumsBase {
     protected RDoubleVector colSums(RLogicalVector x, int rowNum, int colNum, boolean rnaParam,
                     @CachedLibrary("x.getData()") VectorDataLibrary xDataLib) {
         checkVectorLength(xDataLib, x, rowNum, colNum);
+        RDoubleVector parallel = sumColumnsParallel(x, rowNum, colNum, rnaParam, false);
+        if (parallel != null) {
+            return parallel;
+        }
 
         final boolean rna = removeNA.profile(rnaParam);
         double[] result = new double[colNum];
@@ -130,6 +138,10 @@ public abstract class ColSums extends ColSumsBase {
     protected RDoubleVector colSums(RIntVector x, int rowNum, int colNum, boolean rnaParam,
                     @CachedLibrary("x.getData()") VectorDataLibrary xDataLib) {
         checkVectorLength(xDataLib, x, rowNum, colNum);
+        RDoubleVector parallel = sumColumnsParallel(x, rowNum, colNum, rnaParam, false);
+        if (parallel != null) {
+            return parallel;
+        }
 
         final boolean rna = removeNA.profile(rnaParam);
         double[] result = new double[colNum];
@@ -26,13 +26,19 @@ import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.numericValue
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.toBoolean;
 import static com.oracle.truffle.r.runtime.RError.Message.INVALID_ARGUMENT;
 
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.TruffleLanguage;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.profiles.BranchProfile;
 import com.oracle.truffle.api.profiles.ConditionProfile;
+import com.oracle.truffle.r.nodes.builtin.ParallelReduction;
 import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.context.TruffleRLanguage;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RDoubleVector;
 import com.oracle.truffle.r.runtime.data.VectorDataLibrary;
@@ -46,6 +52,8 @@ import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 public abstract class ColSumsBase extends RBuiltinNode.Arg4 {
 
     private final ConditionProfile vectorLengthProfile = ConditionProfile.createBinaryProfile();
+    private final ConditionProfile parallelProfile = ConditionProfile.createBinaryProfile();
+    @CompilationFinal private TruffleLanguage.ContextReference<RContext> ctxRef;
 
     protected static Casts createCasts(Class<? extends ColSumsBase> extCls) {
         Casts casts = new Casts(extCls);
@@ -56,6 +64,14 @@ public abstract class ColSumsBase extends RBuiltinNode.Arg4 {
         return casts;
     }
 
+    private boolean isLong(Object x) {
+        if (ctxRef == null) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            ctxRef = lookupContextReference(TruffleRLanguage.class);
+        }
+        return ParallelReduction.isLong(x, ctxRef.get());
+    }
+
     protected final void checkVectorLength(RAbstractVector x, int rowNum, int colNum) {
         checkVectorLength(VectorDataLibrary.getFactory().getUncached(), x, rowNum, colNum);
     }
@@ -66,6 +82,28 @@ public abstract class ColSumsBase extends RBuiltinNode.Arg4 {
         }
     }
 
+    /**
+     * Computes the column sums or means of a large matrix in parallel, returns {@code null} if the
+     * matrix has to be summed sequentially.
+     */
+    protected final RDoubleVector sumColumnsParallel(RAbstractVector x, int rowNum, int colNum, boolean naRm, boolean mean) {
+        if (parallelProfile.profile(isLong(x))) {
+            return ParallelMatrixSums.colSums(x, rowNum, colNum, naRm, mean);
+        }
+        return null;
+    }
+
+    /**
+     * Computes the row sums or means of a large matrix in parallel, returns {@code null} if the
+     * matrix has to be summed sequentially.
+     */
+    protected final RDoubleVector sumRowsParallel(RAbstractVector x, int rowNum, int colNum, boolean naRm, RowSumsBase.FinalTransform finalTransform) {
+        if (parallelProfile.profile(isLong(x))) {
+            return ParallelMatrixSums.rowSums(x, rowNum, colNum, naRm, finalTransform);
+        }
+        return null;
+    }
+
     @Specialization(guards = {"rowNum == 0", "colNum == 0"})
     @SuppressWarnings("unused")
     protected static RDoubleVector doEmptyMatrix(Object x, int rowNum, int colNum, boolean naRm) {
@@ -53,7 +53,6 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.DoubleBuffer;
 import java.nio.IntBuffer;
 import java.nio.ShortBuffer;
 import java.nio.channels.ByteChannel;
@@ -61,6 +60,7 @@ import java.nio.charset.Charset;
 import java.nio.charset.IllegalCharsetNameException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -959,80 +959,181 @@ public abstract class ConnectionFunctions {
             return result;
         }
 
-        private static ByteBuffer fillBuffer(RConnection con, boolean swap, int bytes) throws IOException {
-            ByteBuffer buffer = ByteBuffer.allocate(bytes);
-            // read at least one element
-            do {
-                int bytesRead = con.readBin(buffer);
-                if (bytesRead == 0) {
-                    break;
+        /**
+         * Size of the memory-mapped windows, a multiple of all element sizes.
+         */
+        private static final int MAPPED_WINDOW_SIZE = 1 << 30;
+
+        /**
+         * Size of the chunks read from connections that cannot be memory-mapped.
+         */
+        private static final int CHUNK_SIZE = 64 * 1024;
+
+        /**
+         * Provides the bytes of at most {@code n} elements of {@code size} bytes in chunks that
+         * contain whole elements (except for the last one at EOF). For file connections, the chunks
+         * are memory-mapped windows of the file, so that the elements are decoded directly from the
+         * file into the array of the result vector. Otherwise, the chunks are read into a reused
+         * buffer.
+         */
+        private static final class ElementReader {
+            private final RConnection con;
+            private final int n;
+            private final int size;
+            private final boolean swap;
+            private long remaining;
+            private ByteBuffer buffer;
+
+            ElementReader(RConnection con, int n, int size, boolean swap) {
+                this.con = con;
+                this.n = n;
+                this.size = size;
+                this.swap = swap;
+                this.remaining = (long) n * size;
+            }
+
+            /**
+             * The number of elements to allocate initially: exact if the connection knows how much
+             * data it has, otherwise one chunk.
+             */
+            int initialCapacity() throws IOException {
+                long available = con.remainingBytes();
+                if (available >= 0) {
+                    return (int) (Math.min(remaining, available) / size);
                 }
-            } while (buffer.hasRemaining());
-            buffer.flip();
-            checkOrder(buffer, swap);
-            return buffer;
+                return (int) Math.min(n, Math.max(CHUNK_SIZE / size, 1));
+            }
+
+            /**
+             * The number of elements to grow an array of {@code length} to, if it needs room for
+             * {@code needed} elements.
+             */
+            int grow(int length, int needed) {
+                return (int) Math.max(needed, Math.min(n, 2L * length));
+            }
+
+            /**
+             * Returns the next chunk in the requested byte order, or {@code null} at EOF.
+             */
+            ByteBuffer next() throws IOException {
+                if (remaining < size) {
+                    return null;
+                }
+                int requested = (int) Math.min(remaining, MAPPED_WINDOW_SIZE);
+                ByteBuffer chunk = con.readBinMapped(requested);
+                if (chunk == null) {
+                    requested = (int) Math.min(remaining, Math.max(CHUNK_SIZE / size, 1) * size);
+                    if (buffer == null || buffer.capacity() < requested) {
+                        buffer = ByteBuffer.allocate(requested);
+                    }
+                    buffer.clear().limit(requested);
+                    do {
+                        int bytesRead = con.readBin(buffer);
+                        if (bytesRead == 0) {
+                            break;
+                        }
+                    } while (buffer.hasRemaining());
+                    buffer.flip();
+                    chunk = buffer;
+                }
+                // a short chunk means EOF, any incomplete element at its end is dropped
+                remaining = chunk.remaining() < requested ? 0 : remaining - requested;
+                if (chunk.remaining() < size) {
+                    return null;
+                }
+                return checkOrder(chunk, swap);
+            }
         }
 
         private static RIntVector readInteger(RConnection con, int n, int size, boolean swap, boolean signed) throws IOException {
-            ByteBuffer buffer = fillBuffer(con, swap, n * size);
-            int nInts = buffer.limit() / size;
-            int[] data = new int[nInts];
+            ElementReader reader = new ElementReader(con, n, size, swap);
+            int[] data = new int[reader.initialCapacity()];
+            int count = 0;
+            ByteBuffer chunk;
+            while ((chunk = reader.next()) != null) {
+                int nInts = chunk.remaining() / size;
+                if (count + nInts > data.length) {
+                    data = Arrays.copyOf(data, reader.grow(data.length, count + nInts));
+                }
+                if (size == 4) {
+                    chunk.asIntBuffer().get(data, count, nInts);
+                } else if (size == 1) {
+                    for (int i = 0; i < nInts; i++) {
+                        byte b = chunk.get();
+                        data[count + i] = signed ? b : b & 0xFF;
+                    }
+                } else if (size == 2) {
+                    ShortBuffer shortBuffer = chunk.asShortBuffer();
+                    for (int i = 0; i < nInts; i++) {
+                        short s = shortBuffer.get();
+                        data[count + i] = signed ? s : s & 0xFFFF;
+                    }
+                }
+                count += nInts;
+            }
+            if (count != data.length) {
+                data = Arrays.copyOf(data, count);
+            }
             boolean complete = RDataFactory.COMPLETE_VECTOR;
             if (size == 4) {
-                IntBuffer intBuffer = buffer.asIntBuffer();
-                for (int i = 0; i < nInts; i++) {
-                    int d = intBuffer.get();
-                    if (RRuntime.isNA(d)) {
+                for (int i = 0; i < count; i++) {
+                    if (RRuntime.isNA(data[i])) {
                         complete = RDataFactory.INCOMPLETE_VECTOR;
+                        break;
                     }
-                    data[i] = d;
-                }
-            } else if (size == 1) {
-                for (int i = 0; i < nInts; i++) {
-                    byte b = buffer.get();
-                    int d = signed ? b : b & 0xFF;
-                    data[i] = d;
-                }
-            } else if (size == 2) {
-                ShortBuffer shortBuffer = buffer.asShortBuffer();
-                for (int i = 0; i < nInts; i++) {
-                    short s = shortBuffer.get();
-                    data[i] = signed ? s : s & 0xFFFF;
                 }
             }
             return RDataFactory.createIntVector(data, complete);
         }
 
         private static RDoubleVector readDouble(RConnection con, int n, boolean swap) throws IOException {
-            ByteBuffer buffer = fillBuffer(con, swap, n * 8);
-            DoubleBuffer doubleBuffer = buffer.asDoubleBuffer();
-            int nDoubles = buffer.limit() / 8;
+            ElementReader reader = new ElementReader(con, n, 8, swap);
+            double[] data = new double[reader.initialCapacity()];
+            int count = 0;
+            ByteBuffer chunk;
+            while ((chunk = reader.next()) != null) {
+                int nDoubles = chunk.remaining() / 8;
+                if (count + nDoubles > data.length) {
+                    data = Arrays.copyOf(data, reader.grow(data.length, count + nDoubles));
+                }
+                chunk.asDoubleBuffer().get(data, count, nDoubles);
+                count += nDoubles;
+            }
+            if (count != data.length) {
+                data = Arrays.copyOf(data, count);
+            }
             boolean complete = RDataFactory.COMPLETE_VECTOR;
-            double[] data = new double[nDoubles];
-            for (int i = 0; i < nDoubles; i++) {
-                double d = doubleBuffer.get();
-                if (RRuntime.isNA(d)) {
+            for (int i = 0; i < count; i++) {
+                if (RRuntime.isNA(data[i])) {
                     complete = RDataFactory.INCOMPLETE_VECTOR;
+                    break;
                 }
-                data[i] = d;
             }
             return RDataFactory.createDoubleVector(data, complete);
         }
 
         private static RComplexVector readComplex(RConnection con, int n, boolean swap) throws IOException {
-            ByteBuffer buffer = fillBuffer(con, swap, n * 16);
-            DoubleBuffer doubleBuffer = buffer.asDoubleBuffer();
-            int nComplex = buffer.limit() / 16;
+            ElementReader reader = new ElementReader(con, n, 16, swap);
+            double[] data = new double[2 * reader.initialCapacity()];
+            int count = 0;
+            ByteBuffer chunk;
+            while ((chunk = reader.next()) != null) {
+                int nComplex = chunk.remaining() / 16;
+                if (2 * (count + nComplex) > data.length) {
+                    data = Arrays.copyOf(data, 2 * reader.grow(data.length / 2, count + nComplex));
+                }
+                chunk.asDoubleBuffer().get(data, 2 * count, 2 * nComplex);
+                count += nComplex;
+            }
+            if (2 * count != data.length) {
+                data = Arrays.copyOf(data, 2 * count);
+            }
             boolean complete = RDataFactory.COMPLETE_VECTOR;
-            double[] data = new double[nComplex * 2];
-            for (int i = 0; i < nComplex; i++) {
-                double re = doubleBuffer.get();
-                double im = doubleBuffer.get();
-                if (RRuntime.isNA(re) || RRuntime.isNA(im)) {
+            for (int i = 0; i < data.length; i++) {
+                if (RRuntime.isNA(data[i])) {
                     complete = RDataFactory.INCOMPLETE_VECTOR;
+                    break;
                 }
-                data[2 * i] = re;
-                data[2 * i + 1] = im;
             }
             return RDataFactory.createComplexVector(data, complete);
         }
@@ -1079,9 +1180,21 @@ public abstract class ConnectionFunctions {
         }
 
         private static RRawVector readRaw(RConnection con, int n) throws IOException {
-            ByteBuffer buffer = fillBuffer(con, false, n);
-            byte[] data = new byte[buffer.limit()];
-            buffer.get(data);
+            ElementReader reader = new ElementReader(con, n, 1, false);
+            byte[] data = new byte[reader.initialCapacity()];
+            int count = 0;
+            ByteBuffer chunk;
+            while ((chunk = reader.next()) != null) {
+                int nBytes = chunk.remaining();
+                if (count + nBytes > data.length) {
+                    data = Arrays.copyOf(data, reader.grow(data.length, count + nBytes));
+                }
+                chunk.get(data, count, nBytes);
+                count += nBytes;
+            }
+            if (count != data.length) {
+                data = Arrays.copyOf(data, count);
+            }
             return RDataFactory.createRawVector(data);
         }
 
@@ -1093,19 +1206,30 @@ public abstract class ConnectionFunctions {
          */
 
         private static RLogicalVector readLogical(RConnection con, int n, boolean swap) throws IOException {
-            ByteBuffer buffer = fillBuffer(con, swap, n * 4);
-            IntBuffer intBuffer = buffer.asIntBuffer();
-            int nInts = buffer.limit() / 4;
-            byte[] data = new byte[nInts];
+            ElementReader reader = new ElementReader(con, n, 4, swap);
+            byte[] data = new byte[reader.initialCapacity()];
+            int count = 0;
             boolean complete = RDataFactory.COMPLETE_VECTOR;
-            for (int i = 0; i < nInts; i++) {
-                int value = intBuffer.get();
-                if (RRuntime.isNA(value)) {
-                    data[i] = RRuntime.LOGICAL_NA;
-                    complete = RDataFactory.INCOMPLETE_VECTOR;
-                } else {
-                    data[i] = value == 1 ? RRuntime.LOGICAL_TRUE : RRuntime.LOGICAL_FALSE;
+            ByteBuffer chunk;
+            while ((chunk = reader.next()) != null) {
+                IntBuffer intBuffer = chunk.asIntBuffer();
+                int nInts = intBuffer.remaining();
+                if (count + nInts > data.length) {
+                    data = Arrays.copyOf(data, reader.grow(data.length, count + nInts));
                 }
+                for (int i = 0; i < nInts; i++) {
+                    int value = intBuffer.get();
+                    if (RRuntime.isNA(value)) {
+                        data[count + i] = RRuntime.LOGICAL_NA;
+                        complete = RDataFactory.INCOMPLETE_VECTOR;
+                    } else {
+                        data[count + i] = value == 1 ? RRuntime.LOGICAL_TRUE : RRuntime.LOGICAL_FALSE;
+                    }
+                }
+                count += nInts;
+            }
+            if (count != data.length) {
+                data = Arrays.copyOf(data, count);
             }
             return RDataFactory.createLogicalVector(data, complete);
         }
@@ -1298,7 +1422,7 @@ public abstract class ConnectionFunctions {
 
         @Specialization
         @TruffleBoundary
-        protected int seek(int con, double where, int origin, int rw) {
+        protected double seek(int con, double where, int origin, int rw) {
             /*
              * N.B. 0,1,2 are valid values for "rw"; 1,2,3 are valid values for "origin". We use 0
              * for the NA (enquiry) case.
@@ -1312,11 +1436,8 @@ public abstract class ConnectionFunctions {
                 actualOrigin = origin;
             }
             try {
-                long newOffset = RConnection.fromIndex(con).seek(offset, RConnection.SeekMode.values()[actualOrigin], RConnection.SeekRWMode.values()[rw]);
-                if (newOffset > Integer.MAX_VALUE) {
-                    throw RError.nyi(RError.SHOW_CALLER, "seek > Integer.MAX_VALUE");
-                }
-                return (int) newOffset;
+                // offsets beyond Integer.MAX_VALUE are exactly representable as double
+                return RConnection.fromIndex(con).seek(offset, RConnection.SeekMode.values()[actualOrigin], RConnection.SeekRWMode.values()[rw]);
             } catch (IOException x) {
                 throw error(RError.Message.GENERIC, x.getMessage());
             }
@@ -45,6 +45,7 @@ import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.LoopNode;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.profiles.ConditionProfile;
+import com.oracle.truffle.r.launcher.StartupTiming;
 import com.oracle.truffle.r.nodes.access.variables.ReadVariableNode;
 import com.oracle.truffle.r.runtime.data.nodes.attributes.SpecialAttributesFunctions.SetClassAttributeNode;
 import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
@@ -54,6 +55,7 @@ import com.oracle.truffle.r.nodes.function.call.CallRFunctionCachedNode;
 import com.oracle.truffle.r.nodes.function.call.CallRFunctionCachedNodeGen;
 import com.oracle.truffle.r.runtime.data.nodes.ShareObjectNode;
 import com.oracle.truffle.r.runtime.ArgumentsSignature;
+import com.oracle.truffle.r.runtime.LazyDBCache;
 import com.oracle.truffle.r.runtime.RCaller;
 import com.oracle.truffle.r.runtime.RCompression;
 import com.oracle.truffle.r.runtime.RError;
@@ -242,51 +244,66 @@ public class HiddenInternalFunctions {
         @TruffleBoundary
         private Object lazyLoadDBFetchInternal(RContext context, MaterializedFrame frame, RIntVector key, RStringVector datafile, int compression, RFunction envhook,
                         CallRFunctionCachedNode callCache) {
+            try (StartupTiming.Phase phase = StartupTiming.phase("lazyload.fetch")) {
+                phase.addBytes(key.getDataAt(1));
+                phase.addObjects(1);
+                return fetch(context, frame, key, datafile, compression, envhook, callCache);
+            }
+        }
+
+        private Object fetch(RContext context, MaterializedFrame frame, RIntVector key, RStringVector datafile, int compression, RFunction envhook, CallRFunctionCachedNode callCache) {
             if (CompilerDirectives.inInterpreter()) {
                 LoopNode.reportLoopCount(this, -5);
             }
             String dbPath = datafile.getDataAt(0);
             String packageName = context.getSafeTruffleFile(dbPath).getName();
-            byte[] dbData = RContext.getInstance().stateLazyDBCache.getData(context, dbPath);
+            ByteBuffer dbData = context.stateLazyDBCache.getData(context, dbPath);
             int dotIndex;
             if ((dotIndex = packageName.lastIndexOf('.')) > 0) {
                 packageName = packageName.substring(0, dotIndex);
             }
             int offset = key.getDataAt(0);
             int length = key.getDataAt(1);
-            int outlen = getOutlen(dbData, offset); // length of uncompressed data
+            long cacheSize = LazyDBCache.ObjectCache.getCapacity(context);
+            Object cached = cacheSize == 0 ? null : LazyDBCache.ObjectCache.get(dbData, offset);
             byte[] udata = null;
-            boolean rc = true;
-            /*
-             * compression may have value 0, 1, 2 or 3. Value 1 is gzip and the data starts at
-             * "offset + 4". Values 2 and 3 have a "type" field at "offset + 4
-             * " and the data starts at "offset + 5". The type field is 'Z' for lzma, '2' for bzip,
-             * '1' for zip and '0' for no compression. From GnuR code, the only difference between
-             * compression=2 and compression=3 is that type='Z' is only possible for the latter.
-             */
-            if (compression == 0) {
-                udata = new byte[length];
-                System.arraycopy(dbData, offset, udata, 0, length);
+            if (cached instanceof byte[]) {
+                udata = (byte[]) cached;
+            } else if (cached != null) {
+                // immutable data shared by all contexts
+                return cached;
             } else {
-                udata = new byte[outlen];
-                if (compression == 2 || compression == 3) {
-                    RCompression.Type type = RCompression.Type.fromTypeChar(dbData[4]);
-                    if (type == null) {
-                        warning(RError.Message.GENERIC, "unknown compression type");
-                        return RNull.instance;
-                    }
-                    byte[] data = new byte[length - 5];
-                    System.arraycopy(dbData, offset + 5, data, 0, data.length);
-                    rc = RCompression.uncompress(type, udata, data);
+                boolean rc = true;
+                /*
+                 * compression may have value 0, 1, 2 or 3. Value 1 is gzip and the data starts
+                 * at "offset + 4". Values 2 and 3 have a "type" field at "offset + 4" and the data
+                 * starts at "offset + 5". The type field is 'Z' for lzma, '2' for bzip, '1' for
+                 * zip and '0' for no compression. From GnuR code, the only difference between
+                 * compression=2 and compression=3 is that type='Z' is only possible for the
+                 * latter.
+                 */
+                if (compression == 0) {
+                    udata = LazyDBCache.getBytes(dbData, offset, length);
                 } else {
-                    // GnuR treats any other value as 1
-                    byte[] data = new byte[length - 4];
-                    System.arraycopy(dbData, offset + 4, data, 0, data.length);
-                    rc = RCompression.uncompress(RCompression.Type.GZIP, udata, data);
+                    int outlen = dbData.getInt(offset); // length of uncompressed data
+                    udata = new byte[outlen];
+                    if (compression == 2 || compression == 3) {
+                        RCompression.Type type = RCompression.Type.fromTypeChar(dbData.get(offset + 4));
+                        if (type == null) {
+                            warning(RError.Message.GENERIC, "unknown compression type");
+                            return RNull.instance;
+                        }
+                        byte[] data = LazyDBCache.getBytes(dbData, offset + 5, length - 5);
+                        rc = RCompression.uncompress(type, udata, data);
+                    } else {
+                        // GnuR treats any other value as 1
+                        byte[] data = LazyDBCache.getBytes(dbData, offset + 4, length - 4);
+                        rc = RCompression.uncompress(RCompression.Type.GZIP, udata, data);
+                    }
+                }
+                if (!rc) {
+                    throw error(RError.Message.LAZY_LOAD_DB_CORRUPT, dbPath);
                 }
-            }
-            if (!rc) {
-                throw error(RError.Message.LAZY_LOAD_DB_CORRUPT, dbPath);
             }
             try {
                 RSerialize.CallHook callHook = new RSerialize.CallHook() {
@@ -307,6 +324,9 @@ public class HiddenInternalFunctions {
                 };
                 String functionName = ReadVariableNode.getSlowPathEvaluationName();
                 Object result = RSerialize.unserialize(udata, callHook, packageName, functionName);
+                if (cached == null && cacheSize > 0) {
+                    LazyDBCache.ObjectCache.put(dbData, offset, result, udata);
+                }
                 return result;
             } catch (IOException ex) {
                 // unexpected
@@ -314,13 +334,6 @@ public class HiddenInternalFunctions {
             }
         }
 
-        private static int getOutlen(byte[] dbData, int offset) {
-            ByteBuffer dataLengthBuf = ByteBuffer.allocate(4);
-            dataLengthBuf.put(dbData, offset, 4);
-            dataLengthBuf.position(0);
-            return dataLengthBuf.getInt();
-        }
-
         private static final class EvaluateAndSharePromiseNode extends Node {
             @Child private PromiseHelperNode promiseHelperNode;
             @Child private ShareObjectNode shareObjectNode;
@@ -543,7 +556,8 @@ public class HiddenInternalFunctions {
         @Specialization
         @TruffleBoundary
         protected RNull doLazyLoadDBFlush(RStringVector dbPath) {
-            RContext.getInstance().stateLazyDBCache.remove(dbPath.getDataAt(0));
+            RContext context = RContext.getInstance();
+            context.stateLazyDBCache.remove(context, dbPath.getDataAt(0));
             return RNull.instance;
         }
     }
@@ -47,6 +47,8 @@ import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RType;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.context.FastROptions;
+import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.RComplex;
 import com.oracle.truffle.r.runtime.data.RComplexVector;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
@@ -58,6 +60,8 @@ import com.oracle.truffle.r.runtime.ops.BinaryArithmetic;
 import com.oracle.truffle.r.runtime.ops.na.NACheck;
 
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import static com.oracle.truffle.r.runtime.data.nodes.attributes.SpecialAttributesFunctions.GetDimAttributeNode.isMatrix;
 import static com.oracle.truffle.r.runtime.RDispatch.OPS_GROUP_GENERIC;
@@ -170,6 +174,155 @@ public abstract class MatMult extends RBuiltinNode.Arg2 {
         }
     }
 
+    /*
+     * Tiled multiplication for matrices that exceed a single block: the result is split into
+     * TILE x TILE tiles that are computed independently, each of them by walking the shared
+     * dimension in panels of TILE_K. The panels of a and b are packed into contiguous arrays, which
+     * also removes the strides of transposed operands, and the products are accumulated column by
+     * column so that the innermost loop is a plain multiply-add over the rows of the tile that the
+     * compiler can vectorize. Large products distribute the tiles over the process-wide fork-join
+     * pool.
+     */
+
+    private static final int TILE = 64;
+    private static final int TILE_K = 256;
+
+    @TruffleBoundary
+    private static void multiplyTiled(double[] a, double[] b, int aRows, int aCols, int bCols, double[] result, int aRowStride, int aColStride, int bRowStride, int bColStride, boolean mirrored) {
+        int rowTiles = (aRows + TILE - 1) / TILE;
+        int colTiles = (bCols + TILE - 1) / TILE;
+        int count = 0;
+        for (int rowTile = 0; rowTile < rowTiles; rowTile++) {
+            count += mirrored ? Math.max(0, colTiles - rowTile) : colTiles;
+        }
+        int[] tiles = new int[2 * count];
+        int t = 0;
+        for (int rowTile = 0; rowTile < rowTiles; rowTile++) {
+            for (int colTile = mirrored ? rowTile : 0; colTile < colTiles; colTile++) {
+                tiles[t++] = rowTile * TILE;
+                tiles[t++] = colTile * TILE;
+            }
+        }
+        MultiplyTask task = new MultiplyTask(a, b, aRows, aCols, bCols, result, aRowStride, aColStride, bRowStride, bColStride, tiles, 0, count);
+        ForkJoinPool pool = count > 1 ? RContext.getInstance().getParallelPool(FastROptions.ParallelFlopsThreshold, (long) aRows * aCols * bCols) : null;
+        if (pool != null) {
+            pool.invoke(task);
+        } else {
+            task.compute();
+        }
+    }
+
+    private static final class MultiplyTask extends RecursiveAction {
+        private final double[] a;
+        private final double[] b;
+        private final int aRows;
+        private final int aCols;
+        private final int bCols;
+        private final double[] result;
+        private final int aRowStride;
+        private final int aColStride;
+        private final int bRowStride;
+        private final int bColStride;
+        private final int[] tiles;
+        private final int from;
+        private final int to;
+
+        MultiplyTask(double[] a, double[] b, int aRows, int aCols, int bCols, double[] result, int aRowStride, int aColStride, int bRowStride, int bColStride, int[] tiles, int from, int to) {
+            this.a = a;
+            this.b = b;
+            this.aRows = aRows;
+            this.aCols = aCols;
+            this.bCols = bCols;
+            this.result = result;
+            this.aRowStride = aRowStride;
+            this.aColStride = aColStride;
+            this.bRowStride = bRowStride;
+            this.bColStride = bColStride;
+            this.tiles = tiles;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (getPool() != null && to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new MultiplyTask(a, b, aRows, aCols, bCols, result, aRowStride, aColStride, bRowStride, bColStride, tiles, from, mid),
+                                new MultiplyTask(a, b, aRows, aCols, bCols, result, aRowStride, aColStride, bRowStride, bColStride, tiles, mid, to));
+            } else {
+                double[] aPanel = new double[TILE * Math.min(TILE_K, aCols)];
+                double[] bPanel = new double[TILE * Math.min(TILE_K, aCols)];
+                double[] sums = new double[TILE * TILE];
+                for (int t = from; t < to; t++) {
+                    multiplyTile(tiles[2 * t], tiles[2 * t + 1], aPanel, bPanel, sums);
+                }
+            }
+        }
+
+        private void multiplyTile(int row, int col, double[] aPanel, double[] bPanel, double[] sums) {
+            int rows = Math.min(TILE, aRows - row);
+            int cols = Math.min(TILE, bCols - col);
+            Arrays.fill(sums, 0, rows * cols, 0);
+            for (int k = 0; k < aCols; k += TILE_K) {
+                int panelK = Math.min(TILE_K, aCols - k);
+                // aPanel holds the rows of the tile for each k, bPanel the k's for each column
+                for (int innerK = 0; innerK < panelK; innerK++) {
+                    int aIndex = (k + innerK) * aColStride + row * aRowStride;
+                    int panelIndex = innerK * rows;
+                    for (int innerRow = 0; innerRow < rows; innerRow++) {
+                        aPanel[panelIndex + innerRow] = a[aIndex];
+                        aIndex += aRowStride;
+                    }
+                }
+                for (int innerCol = 0; innerCol < cols; innerCol++) {
+                    int bIndex = (col + innerCol) * bColStride + k * bRowStride;
+                    int panelIndex = innerCol * panelK;
+                    for (int innerK = 0; innerK < panelK; innerK++) {
+                        bPanel[panelIndex + innerK] = b[bIndex];
+                        bIndex += bRowStride;
+                    }
+                }
+                // four columns at a time share the loads of the a panel
+                int innerCol = 0;
+                for (; innerCol + 4 <= cols; innerCol += 4) {
+                    int s0 = innerCol * rows;
+                    int s1 = s0 + rows;
+                    int s2 = s1 + rows;
+                    int s3 = s2 + rows;
+                    int b0 = innerCol * panelK;
+                    for (int innerK = 0; innerK < panelK; innerK++) {
+                        double bValue0 = bPanel[b0 + innerK];
+                        double bValue1 = bPanel[b0 + panelK + innerK];
+                        double bValue2 = bPanel[b0 + 2 * panelK + innerK];
+                        double bValue3 = bPanel[b0 + 3 * panelK + innerK];
+                        int aIndex = innerK * rows;
+                        for (int innerRow = 0; innerRow < rows; innerRow++) {
+                            double aValue = aPanel[aIndex + innerRow];
+                            sums[s0 + innerRow] += aValue * bValue0;
+                            sums[s1 + innerRow] += aValue * bValue1;
+                            sums[s2 + innerRow] += aValue * bValue2;
+                            sums[s3 + innerRow] += aValue * bValue3;
+                        }
+                    }
+                }
+                for (; innerCol < cols; innerCol++) {
+                    int sumIndex = innerCol * rows;
+                    int bIndex = innerCol * panelK;
+                    for (int innerK = 0; innerK < panelK; innerK++) {
+                        double bValue = bPanel[bIndex + innerK];
+                        int aIndex = innerK * rows;
+                        for (int innerRow = 0; innerRow < rows; innerRow++) {
+                            sums[sumIndex + innerRow] += aPanel[aIndex + innerRow] * bValue;
+                        }
+                    }
+                }
+            }
+            for (int innerCol = 0; innerCol < cols; innerCol++) {
+                System.arraycopy(sums, innerCol * rows, result, (col + innerCol) * aRows + row, rows);
+            }
+        }
+    }
+
     @Specialization
     protected RDoubleVector multiplyDouble(RDoubleVector a, RDoubleVector b,
                     @Cached("create(promoteDimNames)") MatMultAsDouble matMult) {
@@ -628,11 +781,9 @@ public abstract class MatMult extends RBuiltinNode.Arg2 {
 
         private final boolean promoteDimNames;
 
-        private final ConditionProfile bigProfile = ConditionProfile.createBinaryProfile();
         private final BranchProfile incompleteProfile = BranchProfile.create();
         @CompilationFinal private boolean seenLargeMatrix;
 
-        private final LoopConditionProfile mainLoopProfile = LoopConditionProfile.createCountingProfile();
         private final LoopConditionProfile remainingLoopProfile = LoopConditionProfile.createCountingProfile();
         private final ConditionProfile noDimAttributes = ConditionProfile.createBinaryProfile();
 
@@ -799,23 +950,7 @@ public abstract class MatMult extends RBuiltinNode.Arg2 {
                 seenLargeMatrix = true;
             }
             if (seenLargeMatrix) {
-                for (int row = 0; row < aRows; row += BLOCK_SIZE) {
-                    for (int col = mirrored ? row : 0; col < bCols; col += BLOCK_SIZE) {
-                        for (int k = 0; k < aCols; k += BLOCK_SIZE) {
-                            int remainingCols = Math.min(BLOCK_SIZE, bCols - col);
-                            int remainingRows = Math.min(BLOCK_SIZE, aRows - row);
-                            int remainingK = BLOCK_SIZE;
-                            if (k + BLOCK_SIZE > aCols) {
-                                remainingK = aCols - k;
-                            }
-                            if (bigProfile.profile(remainingCols == BLOCK_SIZE && remainingRows == BLOCK_SIZE && remainingK == BLOCK_SIZE)) {
-                                multiplyBlock(dataA, dataB, aRows, result, row, col, k, aRowStride, aColStride, bRowStride, bColStride, BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE, mainLoopProfile);
-                            } else {
-                                multiplyBlock(dataA, dataB, aRows, result, row, col, k, aRowStride, aColStride, bRowStride, bColStride, remainingCols, remainingRows, remainingK, remainingLoopProfile);
-                            }
-                        }
-                    }
-                }
+                multiplyTiled(dataA, dataB, aRows, aCols, bCols, result, aRowStride, aColStride, bRowStride, bColStride, mirrored);
             } else {
                 multiplyBlock(dataA, dataB, aRows, result, 0, 0, 0, aRowStride, aColStride, bRowStride, bColStride, bCols, aRows, aCols, remainingLoopProfile);
             }
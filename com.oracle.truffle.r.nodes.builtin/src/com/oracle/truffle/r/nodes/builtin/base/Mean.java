@@ -26,13 +26,18 @@ import static com.oracle.truffle.r.runtime.RDispatch.INTERNAL_GENERIC;
 import static com.oracle.truffle.r.runtime.builtins.RBehavior.PURE_SUMMARY;
 import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.INTERNAL;
 
+import com.oracle.truffle.api.TruffleLanguage;
 import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.CachedContext;
 import com.oracle.truffle.api.dsl.ImportStatic;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.profiles.ConditionProfile;
+import com.oracle.truffle.r.nodes.builtin.ParallelReduction;
 import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
 import com.oracle.truffle.r.runtime.RType;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.context.TruffleRLanguage;
 import com.oracle.truffle.r.runtime.data.RComplex;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 import com.oracle.truffle.r.runtime.data.nodes.VectorAccess;
@@ -49,7 +54,15 @@ public abstract class Mean extends RBuiltinNode.Arg1 {
     @Specialization(guards = {"access.supports(x)", "access.getType() != Complex"})
     protected double meanDoubleCached(RAbstractVector x,
                     @Cached("x.access()") VectorAccess access,
-                    @Cached("createBinaryProfile()") ConditionProfile emptyProfile) {
+                    @Cached("createBinaryProfile()") ConditionProfile emptyProfile,
+                    @Cached("createBinaryProfile()") ConditionProfile parallelProfile,
+                    @CachedContext(TruffleRLanguage.class) TruffleLanguage.ContextReference<RContext> ctxRef) {
+        if (parallelProfile.profile(ParallelReduction.isLong(x, ctxRef.get()))) {
+            Double parallel = ParallelReduction.mean(x);
+            if (parallel != null) {
+                return parallel;
+            }
+        }
         try (SequentialIterator iter = access.access(x)) {
             if (emptyProfile.profile(!access.next(iter))) {
                 return Double.NaN;
@@ -68,8 +81,10 @@ public abstract class Mean extends RBuiltinNode.Arg1 {
 
     @Specialization(replaces = "meanDoubleCached", guards = "x.getRType() != Complex")
     protected double meanDoubleGeneric(RAbstractVector x,
-                    @Cached("createBinaryProfile()") ConditionProfile emptyProfile) {
-        return meanDoubleCached(x, x.slowPathAccess(), emptyProfile);
+                    @Cached("createBinaryProfile()") ConditionProfile emptyProfile,
+                    @Cached("createBinaryProfile()") ConditionProfile parallelProfile,
+                    @CachedContext(TruffleRLanguage.class) TruffleLanguage.ContextReference<RContext> ctxRef) {
+        return meanDoubleCached(x, x.slowPathAccess(), emptyProfile, parallelProfile, ctxRef);
     }
 
     @Specialization(guards = {"access.supports(x)", "access.getType() == Complex"})
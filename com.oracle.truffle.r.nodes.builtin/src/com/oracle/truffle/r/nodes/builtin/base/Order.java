@@ -42,7 +42,6 @@ import com.oracle.truffle.r.nodes.builtin.RPrecedenceBuiltinNode;
 import com.oracle.truffle.r.nodes.builtin.base.OrderNodeGen.CmpNodeGen;
 import com.oracle.truffle.r.nodes.builtin.base.OrderNodeGen.IsAtomicNANodeGen;
 import com.oracle.truffle.r.nodes.builtin.base.OrderNodeGen.OrderVector1NodeGen;
-import com.oracle.truffle.r.nodes.builtin.base.SortFunctions.RadixSort;
 import com.oracle.truffle.r.runtime.nodes.unary.CastToVectorNode;
 import com.oracle.truffle.r.runtime.nodes.unary.CastToVectorNodeGen;
 import com.oracle.truffle.r.runtime.RError;
@@ -50,6 +49,7 @@ import com.oracle.truffle.r.runtime.RLocale;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RType;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.context.FastROptions;
 import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.RArgsValuesAndNames;
 import com.oracle.truffle.r.runtime.data.RComplex;
@@ -78,7 +78,7 @@ public abstract class Order extends RPrecedenceBuiltinNode {
     private final ValueProfile vectorProfile = ValueProfile.createClassProfile();
 
     /**
-     * For use by {@link RadixSort}.
+     * For use by other nodes that already have cast arguments.
      */
     public abstract Object execute(byte naLast, boolean decreasing, RArgsValuesAndNames args);
 
@@ -89,6 +89,11 @@ public abstract class Order extends RPrecedenceBuiltinNode {
         int n = v.getLength();
         reportWork(n);
 
+        int[] parallel = orderInParallel(v, n, naLast, dec);
+        if (parallel != null) {
+            return RDataFactory.createIntVector(parallel, RDataFactory.COMPLETE_VECTOR);
+        }
+
         int[] indx = createIndexes(v, n, naLast);
         initOrderVector1().execute(indx, v, naLast, dec, true);
         for (int i = 0; i < indx.length; i++) {
@@ -98,6 +103,28 @@ public abstract class Order extends RPrecedenceBuiltinNode {
         return RDataFactory.createIntVector(indx, RDataFactory.COMPLETE_VECTOR);
     }
 
+    /**
+     * Large vectors are ordered by {@link RadixOrder}, which can sort in parallel and gives the
+     * same result as the shell sort: a stable order with {@code NA}s (including {@code NaN}s)
+     * placed according to {@code naLast}. Strings are only handled this way in the C locale,
+     * otherwise they are compared with the collator. Returns {@code null} if the vector should be
+     * ordered sequentially.
+     */
+    @TruffleBoundary
+    private int[] orderInParallel(RAbstractVector v, int n, byte naLast, boolean dec) {
+        if (!(v instanceof RIntVector || v instanceof RDoubleVector || v instanceof RLogicalVector || v instanceof RStringVector) || RContext.getInstance().getParallelPool(FastROptions.ParallelSortThreshold, n) == null) {
+            return null;
+        }
+        if (v instanceof RStringVector && RContext.getInstance().stateRLocale.getLocale(RLocale.COLLATE) != Locale.ROOT) {
+            return null;
+        }
+        int[] result = RadixOrder.order(this, new Object[]{v}, naLast, new boolean[]{dec}, false, true).order;
+        for (int i = 0; i < result.length; i++) {
+            result[i]++;
+        }
+        return result;
+    }
+
     /**
      * To exclude the possibility of the presence of NA in the vector, it is not possible to rely on
      * the value of the "complete" flag only, since this flag concerns the "pure" NA only and not
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.base;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.nodes.builtin.ParallelReduction;
+import com.oracle.truffle.r.nodes.builtin.base.RowSumsBase.FinalTransform;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.context.FastROptions;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
+import com.oracle.truffle.r.runtime.data.RIntVector;
+import com.oracle.truffle.r.runtime.data.RLogicalVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+
+/**
+ * Column and row sums and means of large matrices backed by managed arrays, computed on the
+ * process-wide fork-join pool. {@code colSums} and {@code colMeans} split the matrix into blocks
+ * of whole columns and sum every column in order, so they give the same result as the sequential
+ * loops. {@code rowSums} and {@code rowMeans} stream down the columns of a block and add them into
+ * a vector of row sums, which reads the matrix in memory order. Matrices with few rows are also
+ * split into blocks of columns, whose partial row sums are added in the order of the blocks. The
+ * blocks only depend on the dimensions of the matrix, so the result does not depend on the number
+ * of threads. The first {@code NA} or {@code NaN} of a row in a block is recorded in a mask of the
+ * block, the one of the first block decides the result of the row.
+ *
+ * The methods return {@code null} if the matrix is shorter than
+ * {@link FastROptions#ParallelReduceThreshold} or not backed by a managed array, the caller then
+ * computes the sums sequentially.
+ */
+final class ParallelMatrixSums {
+
+    /**
+     * Minimal number of elements summed by one task.
+     */
+    private static final int BLOCK_SIZE = 1 << 20;
+
+    /**
+     * Maximal number of rows accumulated by one task.
+     */
+    private static final int ROW_BLOCK = 1 << 14;
+
+    /**
+     * Number of row blocks that is enough work for the pool without splitting the columns.
+     */
+    private static final int MIN_ROW_BLOCKS = 16;
+
+    private static final byte SEEN_NAN = 1;
+    private static final byte SEEN_NA = 2;
+
+    private ParallelMatrixSums() {
+        // no instances
+    }
+
+    @TruffleBoundary
+    static RDoubleVector colSums(RAbstractVector x, int rowNum, int colNum, boolean naRm, boolean mean) {
+        Elements elements = Elements.create(x, rowNum, colNum);
+        if (elements == null) {
+            return null;
+        }
+        double[] result = new double[colNum];
+        int width = Math.max(1, BLOCK_SIZE / rowNum);
+        int blocks = (colNum + width - 1) / width;
+        elements.pool.invoke(new BlockTask(0, blocks, block -> {
+            int colTo = Math.min(colNum, (block + 1) * width);
+            for (int c = block * width; c < colTo; c++) {
+                result[c] = elements.sumColumn(c * rowNum, rowNum, naRm, mean);
+            }
+        }));
+        return RDataFactory.createDoubleVector(result, isComplete(result));
+    }
+
+    @TruffleBoundary
+    static RDoubleVector rowSums(RAbstractVector x, int rowNum, int colNum, boolean naRm, FinalTransform finalTransform) {
+        Elements elements = Elements.create(x, rowNum, colNum);
+        if (elements == null) {
+            return null;
+        }
+        int height = Math.min(rowNum, ROW_BLOCK);
+        int rowBlocks = (rowNum + height - 1) / height;
+        int width = rowBlocks >= MIN_ROW_BLOCKS ? colNum : Math.max(1, BLOCK_SIZE / height);
+        int colBlocks = (colNum + width - 1) / width;
+        double[][] sums = new double[colBlocks][rowNum];
+        int[][] counts = new int[colBlocks][rowNum];
+        byte[][] seen = new byte[colBlocks][rowNum];
+        elements.pool.invoke(new BlockTask(0, rowBlocks * colBlocks, block -> {
+            int colBlock = block / rowBlocks;
+            int rowFrom = (block % rowBlocks) * height;
+            int colFrom = colBlock * width;
+            elements.accumulateRows(rowNum, rowFrom, Math.min(rowNum, rowFrom + height), colFrom, Math.min(colNum, colFrom + width),
+                            sums[colBlock], counts[colBlock], seen[colBlock]);
+        }));
+        double[] result = new double[rowNum];
+        for (int i = 0; i < rowNum; i++) {
+            double sum = 0;
+            int count = 0;
+            byte state = 0;
+            for (int b = 0; b < colBlocks; b++) {
+                sum += sums[b][i];
+                count += counts[b][i];
+                if (state == 0) {
+                    state = seen[b][i];
+                }
+            }
+            if (naRm || state == 0) {
+                result[i] = finalTransform.get(sum, count);
+            } else {
+                result[i] = state == SEEN_NA ? RRuntime.DOUBLE_NA : Double.NaN;
+            }
+        }
+        return RDataFactory.createDoubleVector(result, isComplete(result));
+    }
+
+    private static boolean isComplete(double[] result) {
+        for (double value : result) {
+            if (RRuntime.isNA(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The elements of a logical, integer or double matrix, read as doubles.
+     */
+    private static final class Elements {
+        private final ForkJoinPool pool;
+        private final double[] doubles;
+        private final int[] ints;
+        private final byte[] logicals;
+
+        private Elements(ForkJoinPool pool, double[] doubles, int[] ints, byte[] logicals) {
+            this.pool = pool;
+            this.doubles = doubles;
+            this.ints = ints;
+            this.logicals = logicals;
+        }
+
+        static Elements create(RAbstractVector x, int rowNum, int colNum) {
+            long size = (long) rowNum * colNum;
+            RContext context = RContext.getInstance();
+            if (size > x.getLength() || !ParallelReduction.isLong(x, context)) {
+                return null;
+            }
+            ForkJoinPool pool = context.getParallelPool(FastROptions.ParallelReduceThreshold, size);
+            if (pool == null) {
+                return null;
+            }
+            Elements elements;
+            if (x instanceof RDoubleVector) {
+                elements = new Elements(pool, ParallelReduction.getDoubleData(x), null, null);
+            } else if (x instanceof RIntVector) {
+                elements = new Elements(pool, null, ParallelReduction.getIntData(x), null);
+            } else if (x instanceof RLogicalVector) {
+                elements = new Elements(pool, null, null, ParallelReduction.getLogicalData(x));
+            } else {
+                return null;
+            }
+            return elements.doubles == null && elements.ints == null && elements.logicals == null ? null : elements;
+        }
+
+        double get(int index) {
+            if (doubles != null) {
+                return doubles[index];
+            } else if (ints != null) {
+                int value = ints[index];
+                return value == RRuntime.INT_NA ? RRuntime.DOUBLE_NA : value;
+            } else {
+                byte value = logicals[index];
+                return value == RRuntime.LOGICAL_NA ? RRuntime.DOUBLE_NA : value;
+            }
+        }
+
+        double sumColumn(int start, int rowNum, boolean naRm, boolean mean) {
+            double sum = 0;
+            int count = 0;
+            for (int i = start; i < start + rowNum; i++) {
+                double value = get(i);
+                if (Double.isNaN(value)) {
+                    if (!naRm) {
+                        return RRuntime.isNA(value) ? RRuntime.DOUBLE_NA : Double.NaN;
+                    }
+                } else {
+                    sum += value;
+                    count++;
+                }
+            }
+            if (!mean) {
+                return sum;
+            }
+            return count == 0 ? Double.NaN : sum / count;
+        }
+
+        void accumulateRows(int rowNum, int rowFrom, int rowTo, int colFrom, int colTo, double[] sums, int[] counts, byte[] seen) {
+            for (int c = colFrom; c < colTo; c++) {
+                int pos = c * rowNum;
+                for (int i = rowFrom; i < rowTo; i++) {
+                    double value = get(pos + i);
+                    if (Double.isNaN(value)) {
+                        if (seen[i] == 0) {
+                            seen[i] = RRuntime.isNA(value) ? SEEN_NA : SEEN_NAN;
+                        }
+                    } else {
+                        sums[i] += value;
+                        counts[i]++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the blocks {@code from} to {@code to} by recursive halving.
+     */
+    private static final class BlockTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final IntConsumer block;
+
+        BlockTask(int from, int to, IntConsumer block) {
+            this.from = from;
+            this.to = to;
+            this.block = block;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                block.accept(from);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new BlockTask(from, mid, block), new BlockTask(mid, to, block));
+            }
+        }
+    }
+}
@@ -24,19 +24,27 @@ import static com.oracle.truffle.r.runtime.RDispatch.SUMMARY_GROUP_GENERIC;
 import static com.oracle.truffle.r.runtime.builtins.RBehavior.PURE_SUMMARY;
 import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.PRIMITIVE;
 
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.TruffleLanguage;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Fallback;
 import com.oracle.truffle.api.dsl.ImportStatic;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.profiles.ConditionProfile;
 import com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef;
+import com.oracle.truffle.r.nodes.builtin.ParallelReduction;
 import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RType;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.context.TruffleRLanguage;
 import com.oracle.truffle.r.runtime.data.RArgsValuesAndNames;
 import com.oracle.truffle.r.runtime.data.RComplex;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 import com.oracle.truffle.r.runtime.data.nodes.VectorAccess;
 import com.oracle.truffle.r.runtime.data.nodes.VectorAccess.SequentialIterator;
 import com.oracle.truffle.r.runtime.ops.BinaryArithmetic;
@@ -57,6 +65,9 @@ public abstract class Prod extends RBuiltinNode.Arg2 {
 
     @Child private BinaryArithmetic prod = BinaryArithmetic.MULTIPLY.createOperation();
 
+    private final ConditionProfile parallelProfile = ConditionProfile.createBinaryProfile();
+    @CompilationFinal private TruffleLanguage.ContextReference<RContext> ctxRef;
+
     @ExplodeLoop
     protected static boolean supports(RArgsValuesAndNames args, VectorAccess[] argAccess) {
         if (args.getLength() != argAccess.length) {
@@ -167,7 +178,17 @@ public abstract class Prod extends RBuiltinNode.Arg2 {
         throw error(RError.Message.INVALID_TYPE_ARGUMENT, Predef.getTypeName(args.getArgument(i)));
     }
 
-    protected static double prodDouble(Object v, VectorAccess access, boolean naRm) {
+    protected double prodDouble(Object v, VectorAccess access, boolean naRm) {
+        if (ctxRef == null) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            ctxRef = lookupContextReference(TruffleRLanguage.class);
+        }
+        if (parallelProfile.profile(ParallelReduction.isLong(v, ctxRef.get()))) {
+            ParallelReduction.Result parallel = ParallelReduction.reduce(ParallelReduction.Kind.PROD, (RAbstractVector) v, naRm, false, 1, 1);
+            if (parallel != null) {
+                return parallel.getValue();
+            }
+        }
         try (SequentialIterator iter = access.access(v)) {
             double value = 1;
             while (access.next(iter)) {
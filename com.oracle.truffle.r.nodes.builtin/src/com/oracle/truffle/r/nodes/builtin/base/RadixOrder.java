@@ -0,0 +1,442 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.base;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.RError;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.context.FastROptions;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
+import com.oracle.truffle.r.runtime.data.RIntVector;
+import com.oracle.truffle.r.runtime.data.RLogicalVector;
+import com.oracle.truffle.r.runtime.data.RStringVector;
+import com.oracle.truffle.r.runtime.nodes.RBaseNode;
+
+/**
+ * Stable least-significant-digit radix ordering used by {@code radixsort} (cf.
+ * {@code src/main/radixsort.c} in GnuR). Every key vector is first encoded into {@code long} values
+ * whose order is the requested order, i.e. the direction given by the per-key
+ * {@code decreasing} flag and the position of {@code NA}s are already part of the encoding:
+ * <ul>
+ * <li>integers and logicals are used as they are,</li>
+ * <li>doubles are mapped to their IEEE bit pattern with the bits of negative numbers flipped (
+ * {@code -0} is treated as {@code 0}, {@code NaN} as {@code NA}),</li>
+ * <li>strings are replaced by their rank among the distinct strings of the vector (in C-locale
+ * order, i.e. by code points, which is the order of their UTF-8 bytes, or in the order of their
+ * first appearance if {@code sortstr} is {@code FALSE}).</li>
+ * </ul>
+ * The permutation is then sorted by each key in turn starting with the last one, each of them
+ * processed in {@value #DIGIT_BITS}-bit digits. Only the significant bits of the range of the key
+ * are processed, so e.g. small integer codes or factors need a single counting pass.
+ * <p>
+ * Permutations of at least {@link FastROptions#ParallelSortThreshold} rows are split into chunks
+ * that are sorted on the {@link RContext#getForkJoinPool() process-wide pool} and then merged. Since
+ * both the radix sort of a chunk and the merge (which prefers the left chunk) are stable, the
+ * result is exactly the one of the sequential sort.
+ */
+public final class RadixOrder {
+
+    private static final int DIGIT_BITS = 11;
+    private static final int DIGIT_MASK = (1 << DIGIT_BITS) - 1;
+
+    /**
+     * Chunks smaller than this are not worth another fork and merge.
+     */
+    private static final int MIN_PARALLEL_CHUNK = 1 << 14;
+
+    private RadixOrder() {
+        // only static members
+    }
+
+    /**
+     * The result of {@link #order}, i.e. the 0-based permutation and (if requested) the sizes of
+     * the groups of equal rows in the sorted order.
+     */
+    public static final class Result {
+        public final int[] order;
+        public final int[] groupSizes;
+
+        Result(int[] order, int[] groupSizes) {
+            this.order = order;
+            this.groupSizes = groupSizes;
+        }
+    }
+
+    /**
+     * Computes the order of the rows given by {@code keys}.
+     *
+     * @param keys the key vectors, all of the same length
+     * @param naLast {@link RRuntime#LOGICAL_TRUE} to put rows with {@code NA}s last,
+     *            {@link RRuntime#LOGICAL_FALSE} to put them first and {@link RRuntime#LOGICAL_NA}
+     *            to remove them
+     * @param decreasing the direction for each of the keys
+     * @param retgrp whether to compute the group sizes
+     * @param sortstr whether to sort strings or to just group them in the order of their first
+     *            appearance
+     */
+    @TruffleBoundary
+    public static Result order(RBaseNode caller, Object[] keys, byte naLast, boolean[] decreasing, boolean retgrp, boolean sortstr) {
+        assert keys.length == decreasing.length && keys.length > 0;
+        int n = getLength(caller, keys[0], 0);
+        for (int k = 1; k < keys.length; k++) {
+            if (getLength(caller, keys[k], k) != n) {
+                throw caller.error(RError.Message.ARGUMENT_LENGTHS_DIFFER);
+            }
+        }
+        boolean removeNA = RRuntime.isNA(naLast);
+        boolean nasLast = removeNA || RRuntime.fromLogical(naLast);
+        boolean[] rowNA = removeNA ? new boolean[n] : null;
+        long[][] encoded = new long[keys.length][];
+        int[] bits = new int[keys.length];
+        for (int k = 0; k < keys.length; k++) {
+            boolean[] isNA = new boolean[n];
+            long[] values = encode(keys[k], decreasing[k], sortstr, isNA);
+            bits[k] = normalize(values, isNA, nasLast);
+            encoded[k] = values;
+            if (removeNA) {
+                for (int i = 0; i < n; i++) {
+                    rowNA[i] |= isNA[i];
+                }
+            }
+        }
+
+        int[] o = initialOrder(n, rowNA);
+        ForkJoinPool pool = o.length < 2 * MIN_PARALLEL_CHUNK ? null : RContext.getInstance().getParallelPool(FastROptions.ParallelSortThreshold, o.length);
+        if (pool != null) {
+            int chunk = Math.max(MIN_PARALLEL_CHUNK, o.length / pool.getParallelism() + 1);
+            pool.invoke(new SortTask(o, new int[o.length], 0, o.length, chunk, encoded, bits));
+        } else {
+            o = sort(o, encoded, bits);
+        }
+        return new Result(o, retgrp ? groupSizes(o, encoded) : null);
+    }
+
+    private static int getLength(RBaseNode caller, Object key, int index) {
+        if (key instanceof RIntVector) {
+            return ((RIntVector) key).getLength();
+        } else if (key instanceof RDoubleVector) {
+            return ((RDoubleVector) key).getLength();
+        } else if (key instanceof RLogicalVector) {
+            return ((RLogicalVector) key).getLength();
+        } else if (key instanceof RStringVector) {
+            return ((RStringVector) key).getLength();
+        }
+        throw caller.error(RError.Message.GENERIC, String.format("Column %d passed to [f]order is type '%s', not yet supported.", index + 1, RRuntime.getRTypeName(key)));
+    }
+
+    /**
+     * Encodes the key into signed {@code long} values (in increasing order) and marks the
+     * {@code NA} values in {@code isNA}.
+     */
+    private static long[] encode(Object key, boolean decreasing, boolean sortstr, boolean[] isNA) {
+        long[] result;
+        if (key instanceof RIntVector) {
+            int[] data = ((RIntVector) key).getReadonlyData();
+            result = new long[data.length];
+            for (int i = 0; i < data.length; i++) {
+                if (RRuntime.isNA(data[i])) {
+                    isNA[i] = true;
+                } else {
+                    result[i] = data[i];
+                }
+            }
+        } else if (key instanceof RLogicalVector) {
+            byte[] data = ((RLogicalVector) key).getReadonlyData();
+            result = new long[data.length];
+            for (int i = 0; i < data.length; i++) {
+                if (RRuntime.isNA(data[i])) {
+                    isNA[i] = true;
+                } else {
+                    result[i] = data[i];
+                }
+            }
+        } else if (key instanceof RDoubleVector) {
+            double[] data = ((RDoubleVector) key).getReadonlyData();
+            result = new long[data.length];
+            for (int i = 0; i < data.length; i++) {
+                double d = data[i];
+                if (Double.isNaN(d)) {
+                    isNA[i] = true;
+                } else {
+                    long b = Double.doubleToRawLongBits(d == 0 ? 0.0 : d);
+                    result[i] = b >= 0 ? b : b ^ Long.MAX_VALUE;
+                }
+            }
+        } else {
+            result = encodeStrings(((RStringVector) key).getReadonlyStringData(), sortstr, isNA);
+        }
+        if (decreasing) {
+            for (int i = 0; i < result.length; i++) {
+                result[i] = ~result[i];
+            }
+        }
+        return result;
+    }
+
+    private static long[] encodeStrings(String[] data, boolean sortstr, boolean[] isNA) {
+        long[] result = new long[data.length];
+        HashMap<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < data.length; i++) {
+            String s = data[i];
+            if (RRuntime.isNA(s)) {
+                isNA[i] = true;
+            } else {
+                Integer id = ids.get(s);
+                if (id == null) {
+                    id = ids.size();
+                    ids.put(s, id);
+                }
+                result[i] = id;
+            }
+        }
+        if (sortstr && ids.size() > 1) {
+            String[] unique = new String[ids.size()];
+            for (Map.Entry<String, Integer> e : ids.entrySet()) {
+                unique[e.getValue()] = e.getKey();
+            }
+            String[] sorted = unique.clone();
+            Arrays.sort(sorted, RadixOrder::compareCodePoints);
+            HashMap<String, Integer> ranks = new HashMap<>(sorted.length * 2);
+            for (int i = 0; i < sorted.length; i++) {
+                ranks.put(sorted[i], i);
+            }
+            int[] idToRank = new int[unique.length];
+            for (int i = 0; i < unique.length; i++) {
+                idToRank[i] = ranks.get(unique[i]);
+            }
+            for (int i = 0; i < data.length; i++) {
+                if (!isNA[i]) {
+                    result[i] = idToRank[(int) result[i]];
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compares by code points rather than by UTF-16 code units as {@link String#compareTo} does,
+     * the two differ for supplementary characters.
+     */
+    static int compareCodePoints(String a, String b) {
+        int lenA = a.length();
+        int lenB = b.length();
+        int i = 0;
+        int j = 0;
+        while (i < lenA && j < lenB) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) {
+                return Integer.compare(ca, cb);
+            }
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Integer.compare(lenA - i, lenB - j);
+    }
+
+    /**
+     * Assigns the {@code NA} values their place and shifts all values to start at zero. Returns
+     * the number of significant bits of the resulting values.
+     */
+    private static int normalize(long[] values, boolean[] isNA, boolean nasLast) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        boolean hasNA = false;
+        for (int i = 0; i < values.length; i++) {
+            if (isNA[i]) {
+                hasNA = true;
+            } else {
+                min = Math.min(min, values[i]);
+                max = Math.max(max, values[i]);
+            }
+        }
+        if (min > max) {
+            // only NAs (or no values at all)
+            Arrays.fill(values, 0);
+            return 0;
+        }
+        long naValue = nasLast ? max + 1 : min - 1;
+        long lo = hasNA ? Math.min(min, naValue) : min;
+        long hi = hasNA ? Math.max(max, naValue) : max;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (isNA[i] ? naValue : values[i]) - lo;
+        }
+        return 64 - Long.numberOfLeadingZeros(hi - lo);
+    }
+
+    private static int[] initialOrder(int n, boolean[] removed) {
+        int count = n;
+        if (removed != null) {
+            for (int i = 0; i < n; i++) {
+                if (removed[i]) {
+                    count--;
+                }
+            }
+        }
+        int[] o = new int[count];
+        for (int i = 0, j = 0; i < n; i++) {
+            if (removed == null || !removed[i]) {
+                o[j++] = i;
+            }
+        }
+        return o;
+    }
+
+    private static int[] sort(int[] order, long[][] keys, int[] bits) {
+        int n = order.length;
+        if (n < 2) {
+            return order;
+        }
+        int[] o = order;
+        int[] oTmp = new int[n];
+        long[] k = new long[n];
+        long[] kTmp = new long[n];
+        int[] count = new int[1 << DIGIT_BITS];
+        for (int ki = keys.length - 1; ki >= 0; ki--) {
+            if (bits[ki] == 0) {
+                // all values are equal
+                continue;
+            }
+            long[] values = keys[ki];
+            for (int i = 0; i < n; i++) {
+                k[i] = values[o[i]];
+            }
+            for (int shift = 0; shift < bits[ki]; shift += DIGIT_BITS) {
+                Arrays.fill(count, 0);
+                for (int i = 0; i < n; i++) {
+                    count[(int) ((k[i] >>> shift) & DIGIT_MASK)]++;
+                }
+                if (count[(int) ((k[0] >>> shift) & DIGIT_MASK)] == n) {
+                    // all rows have the same digit
+                    continue;
+                }
+                int pos = 0;
+                for (int d = 0; d < count.length; d++) {
+                    int c = count[d];
+                    count[d] = pos;
+                    pos += c;
+                }
+                for (int i = 0; i < n; i++) {
+                    int dst = count[(int) ((k[i] >>> shift) & DIGIT_MASK)]++;
+                    oTmp[dst] = o[i];
+                    kTmp[dst] = k[i];
+                }
+                int[] oSwap = o;
+                o = oTmp;
+                oTmp = oSwap;
+                long[] kSwap = k;
+                k = kTmp;
+                kTmp = kSwap;
+            }
+        }
+        return o;
+    }
+
+    private static int[] groupSizes(int[] o, long[][] keys) {
+        int n = o.length;
+        if (n == 0) {
+            return new int[0];
+        }
+        int[] sizes = new int[n];
+        int groups = 0;
+        int start = 0;
+        for (int i = 1; i < n; i++) {
+            for (long[] values : keys) {
+                if (values[o[i]] != values[o[i - 1]]) {
+                    sizes[groups++] = i - start;
+                    start = i;
+                    break;
+                }
+            }
+        }
+        sizes[groups++] = n - start;
+        return Arrays.copyOf(sizes, groups);
+    }
+
+    private static int compareRows(long[][] keys, int a, int b) {
+        for (long[] values : keys) {
+            // the normalized keys are unsigned
+            int c = Long.compareUnsigned(values[a], values[b]);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Sorts {@code order[from, to)} by sorting both halves (in parallel) and merging them.
+     */
+    @SuppressWarnings("serial")
+    private static final class SortTask extends RecursiveAction {
+        private final int[] order;
+        private final int[] tmp;
+        private final int from;
+        private final int to;
+        private final int chunk;
+        private final long[][] keys;
+        private final int[] bits;
+
+        SortTask(int[] order, int[] tmp, int from, int to, int chunk, long[][] keys, int[] bits) {
+            this.order = order;
+            this.tmp = tmp;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.keys = keys;
+            this.bits = bits;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunk) {
+                int[] sorted = sort(Arrays.copyOfRange(order, from, to), keys, bits);
+                System.arraycopy(sorted, 0, order, from, sorted.length);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SortTask(order, tmp, from, mid, chunk, keys, bits), new SortTask(order, tmp, mid, to, chunk, keys, bits));
+            if (compareRows(keys, order[mid - 1], order[mid]) <= 0) {
+                // already in order
+                return;
+            }
+            System.arraycopy(order, from, tmp, from, to - from);
+            int i = from;
+            int j = mid;
+            int k = from;
+            while (i < mid && j < to) {
+                // on ties the row from the left half goes first to keep the sort stable
+                order[k++] = compareRows(keys, tmp[i], tmp[j]) <= 0 ? tmp[i++] : tmp[j++];
+            }
+            System.arraycopy(tmp, i, order, k, mid - i);
+            System.arraycopy(tmp, j, order, k + mid - i, to - j);
+        }
+    }
+}
@@ -31,8 +31,6 @@ import static com.oracle.truffle.r.runtime.RDispatch.INTERNAL_GENERIC;
 import static com.oracle.truffle.r.runtime.builtins.RBehavior.PURE;
 import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.PRIMITIVE;
 
-import java.util.Arrays;
-
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.dsl.Cached;
@@ -70,6 +68,7 @@ import com.oracle.truffle.r.runtime.data.VectorDataLibrary.RandomAccessIterator;
 import com.oracle.truffle.r.runtime.data.VectorDataLibrary.RandomAccessWriteIterator;
 import com.oracle.truffle.r.runtime.data.VectorDataLibrary.SeqIterator;
 import com.oracle.truffle.r.runtime.data.RIntVector;
+import com.oracle.truffle.r.runtime.data.RLogicalVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 import com.oracle.truffle.r.runtime.data.nodes.CopyResizedToPreallocated;
 import com.oracle.truffle.r.runtime.data.nodes.CopyResizedToPreallocatedNodeGen;
@@ -203,10 +202,7 @@ public abstract class Repeat extends RBuiltinNode.Arg2 {
                         throw error(RError.Message.INVALID_ARGUMENT, "times");
                     }
                     int length = lengthOutOrTimes.profile(!RRuntime.isNA(lengthOut)) ? lengthOut : t;
-                    double[] data = new double[length];
-                    double value = xDataLib.getDoubleAt(xData, 0);
-                    Arrays.fill(data, value);
-                    return RDataFactory.createDoubleVector(data, !RRuntime.isNA(value));
+                    return RDataFactory.createDoubleConstant(xDataLib.getDoubleAt(xData, 0), length);
                 } else {
                     CompilerDirectives.transferToInterpreterAndInvalidate();
                     trySimple = false;
@@ -254,8 +250,21 @@ public abstract class Repeat extends RBuiltinNode.Arg2 {
         /**
          * Prepare the input vector by replicating its elements.
          */
-        private static RAbstractVector handleEach(VectorDataLibrary xDataLib, Object xData, RAbstractVector x, int each, VectorDataLibrary eachResultDataLib) {
+        private RAbstractVector handleEach(VectorDataLibrary xDataLib, Object xData, RAbstractVector x, int each, VectorDataLibrary eachResultDataLib) {
             int xLen = xDataLib.getLength(xData);
+            if ((long) xLen * each > Integer.MAX_VALUE) {
+                throw error(RError.Message.TOO_LONG_VECTOR);
+            }
+            if (xLen > 0) {
+                int[] ends = new int[xLen];
+                for (int i = 0; i < xLen; i++) {
+                    ends[i] = (i + 1) * each;
+                }
+                RAbstractVector r = createRunLength(xDataLib, xData, x, ends);
+                if (r != null) {
+                    return r;
+                }
+            }
             // Note: the complete flag will be updated in the commitRandomAccessWriteIterator
             RAbstractVector r = x.createEmptySameType(xLen * each, true);
             Object rData = r.getData();
@@ -280,6 +289,10 @@ public abstract class Repeat extends RBuiltinNode.Arg2 {
         }
 
         private RAbstractVector copyResized(VectorDataLibrary xDataLib, Object xData, RAbstractVector x, int length) {
+            if (isCompact(x) && xDataLib.getLength(xData) > 0) {
+                // constant and run-length vectors are resized without materializing them
+                return x.copyResized(length, false);
+            }
             if (copyResizedNode == null) {
                 CompilerDirectives.transferToInterpreterAndInvalidate();
                 copyResizedNode = insert(CopyResizedToPreallocatedNodeGen.create());
@@ -300,15 +313,18 @@ public abstract class Repeat extends RBuiltinNode.Arg2 {
                 if (howManyTimes < 0) {
                     throw error(RError.Message.INVALID_ARGUMENT, "times");
                 }
-                int resultLength = xDataLib.getLength(xData) * howManyTimes;
-                return copyResized(xDataLib, xData, x, resultLength);
+                long resultLength = (long) xDataLib.getLength(xData) * howManyTimes;
+                if (resultLength > Integer.MAX_VALUE) {
+                    throw error(RError.Message.TOO_LONG_VECTOR);
+                }
+                return copyResized(xDataLib, xData, x, (int) resultLength);
             } else {
                 // times is a vector with several elements
                 if (xDataLib.getLength(xData) != timesDataLib.getLength(timesData)) {
                     throw error(RError.Message.INVALID_ARGUMENT, "times");
                 }
                 // iterate once over the times vector to determine result vector size
-                int resultLength = 0;
+                long resultLength = 0;
                 SeqIterator it = timesDataLib.iterator(timesData);
                 while (timesDataLib.nextLoopCondition(timesData, it)) {
                     int t = timesDataLib.getNextInt(timesData, it);
@@ -317,9 +333,23 @@ public abstract class Repeat extends RBuiltinNode.Arg2 {
                     }
                     resultLength += t;
                 }
+                if (resultLength > Integer.MAX_VALUE) {
+                    throw error(RError.Message.TOO_LONG_VECTOR);
+                }
+                int[] ends = new int[xDataLib.getLength(xData)];
+                it = timesDataLib.iterator(timesData);
+                int end = 0;
+                while (timesDataLib.nextLoopCondition(timesData, it)) {
+                    end += timesDataLib.getNextInt(timesData, it);
+                    ends[it.getIndex()] = end;
+                }
+                RAbstractVector compact = createRunLength(xDataLib, xData, x, ends);
+                if (compact != null) {
+                    return compact;
+                }
                 // create and populate result vector, the complete flag will be updated in the
                 // iterator commit
-                RAbstractVector r = x.createEmptySameType(resultLength, true);
+                RAbstractVector r = x.createEmptySameType((int) resultLength, true);
                 Object rData = r.getData();
                 VectorDataLibrary rDataLib = getResultDataLib();
                 try (RandomAccessWriteIterator rIt = rDataLib.randomAccessWriteIterator(rData)) {
@@ -338,6 +368,32 @@ public abstract class Repeat extends RBuiltinNode.Arg2 {
             }
         }
 
+        private static boolean isCompact(RAbstractVector x) {
+            if (x instanceof RDoubleVector) {
+                return ((RDoubleVector) x).isCompact();
+            } else if (x instanceof RIntVector) {
+                return ((RIntVector) x).isCompact();
+            } else if (x instanceof RLogicalVector) {
+                return ((RLogicalVector) x).isCompact();
+            }
+            return false;
+        }
+
+        /**
+         * Creates a run-length encoded vector with the elements of {@code x} as the values of the
+         * runs, returns {@code null} if {@code x} is not a logical, integer or double vector.
+         */
+        private static RAbstractVector createRunLength(VectorDataLibrary xDataLib, Object xData, RAbstractVector x, int[] ends) {
+            if (x instanceof RDoubleVector) {
+                return RDataFactory.createDoubleRunLength(xDataLib.getDoubleDataCopy(xData), ends);
+            } else if (x instanceof RIntVector) {
+                return RDataFactory.createIntRunLength(xDataLib.getIntDataCopy(xData), ends);
+            } else if (x instanceof RLogicalVector) {
+                return RDataFactory.createLogicalRunLength(xDataLib.getLogicalDataCopy(xData), ends);
+            }
+            return null;
+        }
+
         public void initEachResultDataLib() {
             if (eachResultDataLib == null) {
                 CompilerDirectives.transferToInterpreterAndInvalidate();
@@ -34,7 +34,9 @@ import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.profiles.ConditionProfile;
 import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
 import com.oracle.truffle.r.runtime.RError;
+import com.oracle.truffle.r.runtime.RType;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RDataFactory.VectorFactory;
 import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
@@ -71,6 +73,15 @@ public abstract class RepeatInternal extends RBuiltinNode.Arg2 {
                 if (timesValue < 0) {
                     throw error(RError.Message.INVALID_VALUE, "times");
                 }
+                if ((long) timesValue * valueLength > Integer.MAX_VALUE) {
+                    throw error(RError.Message.TOO_LONG_VECTOR);
+                }
+                if (valueLength == 1 && timesValue > 0) {
+                    RAbstractVector constant = createConstant(valueAccess, valueIter, timesValue);
+                    if (constant != null) {
+                        return constant;
+                    }
+                }
                 result = factory.createVector(valueAccess.getType(), timesValue * valueLength, false);
                 try (SequentialIterator resultIter = resultAccess.access(result)) {
                     for (int i = 0; i < timesValue; i++) {
@@ -82,13 +93,27 @@ public abstract class RepeatInternal extends RBuiltinNode.Arg2 {
                     }
                 }
             } else if (timesLength == valueLength) {
-                int count = 0;
+                long longCount = 0;
                 while (timesAccess.next(timesIter)) {
                     int num = timesAccess.getInt(timesIter);
                     if (num < 0) {
                         throw error(RError.Message.INVALID_VALUE, "times");
                     }
-                    count += num;
+                    longCount += num;
+                }
+                if (longCount > Integer.MAX_VALUE) {
+                    throw error(RError.Message.TOO_LONG_VECTOR);
+                }
+                int count = (int) longCount;
+                if (count > 0 && isCompactType(valueAccess.getType())) {
+                    int[] ends = new int[valueLength];
+                    timesAccess.reset(timesIter);
+                    int end = 0;
+                    while (timesAccess.next(timesIter)) {
+                        end += timesAccess.getInt(timesIter);
+                        ends[timesIter.getIndex()] = end;
+                    }
+                    return createRunLength(valueAccess, valueIter, valueLength, ends);
                 }
                 result = factory.createVector(valueAccess.getType(), count, false);
 
@@ -110,6 +135,56 @@ public abstract class RepeatInternal extends RBuiltinNode.Arg2 {
         }
     }
 
+    private static boolean isCompactType(RType type) {
+        return type == RType.Logical || type == RType.Integer || type == RType.Double;
+    }
+
+    /**
+     * Creates a vector of {@code length} copies of the next element of {@code iter}, which is
+     * stored only once, or returns {@code null} if the type has no constant representation.
+     */
+    static RAbstractVector createConstant(VectorAccess access, SequentialIterator iter, int length) {
+        RType type = access.getType();
+        if (!isCompactType(type)) {
+            return null;
+        }
+        access.next(iter);
+        switch (type) {
+            case Logical:
+                return RDataFactory.createLogicalConstant(access.getLogical(iter), length);
+            case Integer:
+                return RDataFactory.createIntConstant(access.getInt(iter), length);
+            default:
+                return RDataFactory.createDoubleConstant(access.getDouble(iter), length);
+        }
+    }
+
+    private static RAbstractVector createRunLength(VectorAccess access, SequentialIterator iter, int length, int[] ends) {
+        switch (access.getType()) {
+            case Logical: {
+                byte[] values = new byte[length];
+                while (access.next(iter)) {
+                    values[iter.getIndex()] = access.getLogical(iter);
+                }
+                return RDataFactory.createLogicalRunLength(values, ends);
+            }
+            case Integer: {
+                int[] values = new int[length];
+                while (access.next(iter)) {
+                    values[iter.getIndex()] = access.getInt(iter);
+                }
+                return RDataFactory.createIntRunLength(values, ends);
+            }
+            default: {
+                double[] values = new double[length];
+                while (access.next(iter)) {
+                    values[iter.getIndex()] = access.getDouble(iter);
+                }
+                return RDataFactory.createDoubleRunLength(values, ends);
+            }
+        }
+    }
+
     @Specialization(guards = {"valueAccess.supports(value)", "timesAccess.supports(times)"})
     protected RAbstractVector repCached(RAbstractVector value, RIntVector times,
                     @Cached("create()") VectorFactory factory,
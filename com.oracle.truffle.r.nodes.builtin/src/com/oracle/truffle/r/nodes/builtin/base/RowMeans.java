@@ -42,19 +42,19 @@ public abstract class RowMeans extends RowSumsBase {
     @Specialization(limit = "getTypedVectorDataLibraryCacheSize()")
     protected RDoubleVector rowMeans(RDoubleVector x, int rowNum, int colNum, boolean naRm,
                     @CachedLibrary("x.getData()") VectorDataLibrary dataLib) {
-        return accumulateRows(dataLib, x.getData(), rowNum, colNum, naRm, TransformMean.INSTANCE);
+        return accumulateRows(dataLib, x, rowNum, colNum, naRm, TransformMean.INSTANCE);
     }
 
     @Specialization(limit = "getTypedVectorDataLibraryCacheSize()")
     protected RDoubleVector rowMeans(RIntVector x, int rowNum, int colNum, boolean naRm,
                     @CachedLibrary("x.getData()") VectorDataLibrary dataLib) {
-        return accumulateRows(dataLib, x.getData(), rowNum, colNum, naRm, TransformMean.INSTANCE);
+        return accumulateRows(dataLib, x, rowNum, colNum, naRm, TransformMean.INSTANCE);
     }
 
     @Specialization(limit = "getTypedVectorDataLibraryCacheSize()")
     protected RDoubleVector rowMeans(RLogicalVector x, int rowNum, int colNum, boolean naRm,
                     @CachedLibrary("x.getData()") VectorDataLibrary dataLib) {
-        return accumulateRows(dataLib, x.getData(), rowNum, colNum, naRm, TransformMean.INSTANCE);
+        return accumulateRows(dataLib, x, rowNum, colNum, naRm, TransformMean.INSTANCE);
     }
 
     private static final class TransformMean extends FinalTransform {
@@ -41,19 +41,19 @@ public abstract class RowSums extends RowSumsBase {
     @Specialization(limit = "getTypedVectorDataLibraryCacheSize()")
     protected RDoubleVector rowSums(RDoubleVector x, int rowNum, int colNum, boolean naRm,
                     @CachedLibrary("x.getData()") VectorDataLibrary dataLib) {
-        return accumulateRows(dataLib, x.getData(), rowNum, colNum, naRm, SelectSum.INSTANCE);
+        return accumulateRows(dataLib, x, rowNum, colNum, naRm, SelectSum.INSTANCE);
     }
 
     @Specialization(limit = "getTypedVectorDataLibraryCacheSize()")
     protected RDoubleVector rowSums(RIntVector x, int rowNum, int colNum, boolean naRm,
                     @CachedLibrary("x.getData()") VectorDataLibrary dataLib) {
-        return accumulateRows(dataLib, x.getData(), rowNum, colNum, naRm, SelectSum.INSTANCE);
+        return accumulateRows(dataLib, x, rowNum, colNum, naRm, SelectSum.INSTANCE);
     }
 
     @Specialization(limit = "getTypedVectorDataLibraryCacheSize()")
     protected RDoubleVector rowSums(RLogicalVector x, int rowNum, int colNum, boolean naRm,
                     @CachedLibrary("x.getData()") VectorDataLibrary dataLib) {
-        return accumulateRows(dataLib, x.getData(), rowNum, colNum, naRm, SelectSum.INSTANCE);
+        return accumulateRows(dataLib, x, rowNum, colNum, naRm, SelectSum.INSTANCE);
     }
 
     private static final class SelectSum extends FinalTransform {
@@ -29,6 +29,7 @@ import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RDoubleVector;
 import com.oracle.truffle.r.runtime.data.VectorDataLibrary;
 import com.oracle.truffle.r.runtime.data.VectorDataLibrary.RandomAccessIterator;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 import com.oracle.truffle.r.runtime.ops.BinaryArithmetic;
 import com.oracle.truffle.r.runtime.ops.na.NACheck;
 
@@ -53,8 +54,13 @@ public abstract class RowSumsBase extends ColSumsBase {
         abstract double get(double sum, int notNACount);
     }
 
-    protected final RDoubleVector accumulateRows(VectorDataLibrary dataLib, Object data, int rowNum, int colNum, boolean naRm, FinalTransform finalTransform) {
+    protected final RDoubleVector accumulateRows(VectorDataLibrary dataLib, RAbstractVector x, int rowNum, int colNum, boolean naRm, FinalTransform finalTransform) {
+        Object data = x.getData();
         reportWork(dataLib.getLength(data));
+        RDoubleVector parallel = sumRowsParallel(x, rowNum, colNum, naRm, finalTransform);
+        if (parallel != null) {
+            return parallel;
+        }
         double[] result = new double[rowNum];
         outerProfile.profileCounted(rowNum / 4);
         innerProfile.profileCounted(colNum);
@@ -36,9 +36,11 @@ import static com.oracle.truffle.r.runtime.builtins.RBehavior.IO;
 import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.INTERNAL;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -51,10 +53,15 @@ import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RError.Message;
 import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.RType;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
 import com.oracle.truffle.r.runtime.conn.RConnection;
 import com.oracle.truffle.r.runtime.conn.RConnection.ReadLineWarning;
+import com.oracle.truffle.r.runtime.conn.ScanTokenizer;
 import com.oracle.truffle.r.runtime.conn.StdConnections;
+import com.oracle.truffle.r.runtime.context.FastROptions;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.RComplex;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RFunction;
 import com.oracle.truffle.r.runtime.data.RList;
@@ -70,6 +77,9 @@ import com.oracle.truffle.r.runtime.ops.na.NACheck;
 public abstract class Scan extends RBuiltinNode.Arg19 {
 
     private static final int SCAN_BLOCKSIZE = 1000;
+    private static final int MIN_BLOCK_LINES = 256;
+    private static final int MAX_BLOCK_LINES = 1 << 16;
+    private static final int MIN_PARALLEL_LINES = 1024;
     private static final int NO_COMCHAR = 100000; /* won't occur even in Unicode */
 
     private final NACheck naCheck = NACheck.create();
@@ -106,16 +116,7 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
         boolean atStart = false;
         boolean embedWarn = false;
         boolean skipNull = false;
-    }
-
-    private static class GetQuotedItemsResult {
-        final String[] items;
-        final int pos;
-
-        GetQuotedItemsResult(String[] items, int pos) {
-            this.items = items;
-            this.pos = pos;
-        }
+        ScanTokenizer tokenizer = null;
     }
 
     static {
@@ -179,6 +180,8 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
         // TODO: some sort of character translation happens here?
         data.quoteset = quotes.toCharArray();
 
+        data.tokenizer = new ScanTokenizer(data.sepchar, data.quoteset);
+
         data.naStrings = naStringsVec;
 
         if (stripVec.getLength() != 1 && stripVec.getLength() != what.getLength()) {
@@ -220,105 +223,33 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
         }
     }
 
-    private static int skipWhitespace(String s, int start) {
-        int pos = start;
-        while (pos < s.length() && (s.charAt(pos) == ' ' || s.charAt(pos) == '\t')) {
-            pos++;
-        }
-        return pos;
-    }
-
-    private static boolean isInSet(char ch, char[] quoteset) {
-        for (int i = 0; i < quoteset.length; i++) {
-            if (ch == quoteset[i]) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private static GetQuotedItemsResult getQuotedItems(LocalData data, int maxItems, String s) {
-        ArrayList<String> items = new ArrayList<>();
-
-        char sepchar = data.sepchar;
-        char[] quoteset = data.quoteset;
-        int length = s.length();
-        int pos = 0;
-        if (sepchar == 0) {
-            pos = skipWhitespace(s, pos);
-        }
-        if (pos == length) {
-            return new GetQuotedItemsResult(new String[0], pos);
-        }
-        StringBuilder str = new StringBuilder();
-        do {
-            char ch = s.charAt(pos);
-            if (sepchar == 0 && (ch == ' ' || ch == '\t')) {
-                pos = skipWhitespace(s, pos);
-                if (pos == length) {
-                    break;
-                }
-                items.add(str.toString());
-                str.setLength(0);
-            } else if (sepchar != 0 && ch == sepchar) {
-                pos++;
-                items.add(str.toString());
-                str.setLength(0);
-            } else if (str.length() == 0 && isInSet(ch, quoteset)) {
-                char quoteStart = ch;
-                pos++;
-                while (true) {
-                    if (pos == length) {
-                        throw RError.error(RError.SHOW_CALLER, Message.INCOMPLETE_FINAL_LINE, s);
-                    }
-                    ch = s.charAt(pos++);
-                    if (ch == quoteStart) {
-                        if (pos < length && s.charAt(pos) == quoteStart) {
-                            str.append(quoteStart);
-                            pos++;
-                        } else {
-                            break;
-                        }
-                    } else {
-                        str.append(ch);
-                    }
-                }
-            } else {
-                str.append(ch);
-                pos++;
-            }
-        } while (pos < s.length() && (maxItems <= 0 || items.size() < maxItems));
-        if (str.length() > 0) {
-            items.add(str.toString());
-        }
-        return new GetQuotedItemsResult(items.toArray(new String[items.size()]), pos);
-    }
-
     private static String[] getItems(LocalData data, int maxItems, boolean blSkip) throws IOException {
         while (true) {
             String[] str = data.con.readLines(1, EnumSet.of(ReadLineWarning.EMBEDDED_NUL), false);
             if (str == null || str.length == 0) {
                 return null;
             } else {
-                GetQuotedItemsResult res = getQuotedItems(data, maxItems, str[0]);
-                String[] items = res.items;
-                if (blSkip && items.length == 0) {
+                int count = data.tokenizer.tokenize(str[0], maxItems);
+                if (count < 0) {
+                    throw RError.error(RError.SHOW_CALLER, Message.INCOMPLETE_FINAL_LINE, str[0]);
+                }
+                if (blSkip && count == 0) {
                     continue;
                 } else {
-                    if (res.pos < str[0].length()) {
-                        RStringVector remainder = RDataFactory.createStringVectorFromScalar(str[0].substring(res.pos));
+                    int end = data.tokenizer.getEnd();
+                    if (end < str[0].length()) {
+                        RStringVector remainder = RDataFactory.createStringVectorFromScalar(str[0].substring(end));
                         data.con.pushBack(remainder, true);
                     }
-                    return items.length == 0 ? new String[]{""} : items;
+                    return count == 0 ? new String[]{""} : data.tokenizer.getItems();
                 }
             }
         }
     }
 
-    private void fillEmpty(int from, int to, int records, RList list, LocalData data) {
+    private static void fillEmpty(int from, int to, FrameColumns frame, LocalData data) {
         for (int i = from; i < to; i++) {
-            RAbstractVector vec = (RAbstractVector) list.getDataAt(i);
-            vec.updateDataAtAsObject(records, extractItem(vec, "", data), naCheck);
+            frame.set(i, frame.records, extractItem(frame.types[i], "", data));
         }
     }
 
@@ -331,30 +262,50 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
         }
         int blockSize = maxRecords > 0 ? maxRecords : (maxLines > 0 ? maxLines : SCAN_BLOCKSIZE);
 
-        RList list = RDataFactory.createList(nc);
+        RType[] types = new RType[nc];
         for (int i = 0; i < nc; i++) {
             if (what.getDataAt(i) == RNull.instance) {
                 throw error(RError.Message.INVALID_ARGUMENT, "what");
             } else {
-                RAbstractVector vec = castVector(what.getDataAt(i));
-                list.updateDataAt(i, vec.createEmptySameType(blockSize, RDataFactory.COMPLETE_VECTOR), null);
+                types[i] = castVector(what.getDataAt(i)).getRType();
             }
         }
-        list.setNames(extractNames.execute(what));
-
-        naCheck.enable(true);
+        FrameColumns frame = new FrameColumns(types, blockSize);
+        scanFrameInternal(maxRecords, maxLines, flush, fill, blSkip, multiLine, data, frame);
 
-        return scanFrameInternal(maxRecords, maxLines, flush, fill, blSkip, multiLine, data, nc, blockSize, list);
+        RList list = frame.createList();
+        list.setNames(extractNames.execute(what));
+        return list;
     }
 
+    /**
+     * Reads the records of a frame. As long as no record is split across lines, blocks of lines
+     * are handed to a {@link BlockScanner}; the lines it cannot handle are read item by item.
+     */
     @TruffleBoundary
-    private RAbstractVector scanFrameInternal(int maxRecords, int maxLines, boolean flush, boolean fill, boolean blSkip, boolean multiLine, LocalData data, int nc, int initialBlockSize, RList list)
-                    throws IOException {
-        int blockSize = initialBlockSize;
-        int n = 0;
-        int lines = 0;
-        int records = 0;
+    private void scanFrameInternal(int maxRecords, int maxLines, boolean flush, boolean fill, boolean blSkip, boolean multiLine, LocalData data, FrameColumns frame) throws IOException {
+        int nc = frame.types.length;
+        BlockScanner blockScanner = BlockScanner.canScan(frame.types, maxRecords, data) ? new BlockScanner(frame.types, flush, fill, blSkip, data, data.stringTable) : null;
+        int blockLines = MIN_BLOCK_LINES;
         while (true) {
+            if (blockScanner != null && frame.n == 0) {
+                int requested = maxLines > 0 ? Math.min(blockLines, maxLines - frame.lines) : blockLines;
+                String[] lines = data.con.readLines(requested, EnumSet.of(ReadLineWarning.EMBEDDED_NUL), false);
+                if (lines == null || lines.length == 0) {
+                    break;
+                }
+                int consumed = scanBlock(blockScanner, lines, frame);
+                if (consumed == lines.length) {
+                    if (maxLines > 0 && frame.lines == maxLines) {
+                        break;
+                    }
+                    blockLines = Math.min(blockLines * 2, MAX_BLOCK_LINES);
+                    continue;
+                }
+                // the line that stopped the block scanner is read item by item below
+                data.con.pushBack(RDataFactory.createStringVector(Arrays.copyOfRange(lines, consumed, lines.length), RDataFactory.COMPLETE_VECTOR), true);
+                blockLines = MIN_BLOCK_LINES;
+            }
             // TODO: does not do any fancy stuff, like handling comments
             String[] strItems = getItems(data, maxRecords, blSkip);
             if (strItems == null) {
@@ -364,14 +315,14 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
             boolean done = false;
             for (int i = 0; i < Math.max(nc, strItems.length); i++) {
 
-                if (n == strItems.length) {
+                if (frame.n == strItems.length) {
                     if (fill) {
-                        fillEmpty(n, nc, records, list, data);
-                        records++;
-                        n = 0;
+                        fillEmpty(frame.n, nc, frame, data);
+                        frame.records++;
+                        frame.n = 0;
                         break;
                     } else if (!multiLine) {
-                        throw error(RError.Message.LINE_ELEMENTS, lines + 1, nc);
+                        throw error(RError.Message.LINE_ELEMENTS, frame.lines + 1, nc);
                     } else {
                         strItems = getItems(data, maxRecords, blSkip);
                         // Checkstyle: stop modified control variable check
@@ -383,25 +334,13 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
                         }
                     }
                 }
-                Object item = extractItem((RAbstractVector) list.getDataAt(n), strItems[i], data);
-
-                if (records == blockSize) {
-                    // enlarge the vector
-                    blockSize = blockSize * 2;
-                    for (int j = 0; j < nc; j++) {
-                        RAbstractVector vec = (RAbstractVector) list.getDataAt(j);
-                        vec = vec.copyResized(blockSize, false);
-                        list.updateDataAt(j, vec, null);
-                    }
-                }
-
-                RAbstractVector vec = (RAbstractVector) list.getDataAt(n);
-                vec.updateDataAtAsObject(records, item, naCheck);
-                n++;
-                if (n == nc) {
-                    records++;
-                    n = 0;
-                    if (records == maxRecords) {
+                Object item = extractItem(frame.types[frame.n], strItems[i], data);
+                frame.set(frame.n, frame.records, item);
+                frame.n++;
+                if (frame.n == nc) {
+                    frame.records++;
+                    frame.n = 0;
+                    if (frame.records == maxRecords) {
                         done = true;
                         break;
                     }
@@ -413,33 +352,70 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
             if (done) {
                 break;
             }
-            lines++;
-            if (lines == maxLines) {
+            frame.lines++;
+            if (frame.lines == maxLines) {
                 break;
             }
         }
 
-        if (n > 0 && n < nc) {
+        if (frame.n > 0 && frame.n < nc) {
             if (!fill) {
                 warning(RError.Message.ITEMS_NOT_MULTIPLE);
             }
-            fillEmpty(n, nc, records, list, data);
-            records++;
+            fillEmpty(frame.n, nc, frame, data);
+            frame.records++;
         }
 
         if (!data.quiet) {
-            String s = String.format("Read %d record%s", records, (records == 1) ? "" : "s");
+            String s = String.format("Read %d record%s", frame.records, (frame.records == 1) ? "" : "s");
             StdConnections.getStdout().writeString(s, true);
         }
-        // trim vectors if necessary
-        for (int i = 0; i < nc; i++) {
-            RAbstractVector vec = (RAbstractVector) list.getDataAt(i);
-            if (vec.getLength() > records) {
-                list.updateDataAt(i, vec.copyResized(records, false), null);
+    }
+
+    /**
+     * Stores the records of a block of {@code lines} in {@code frame} and returns the number of
+     * lines consumed, which is less than the number of lines if the scanner stopped at a line it
+     * cannot handle. Blocks of at least {@link FastROptions#ParallelScanThreshold} characters are
+     * split into chunks that are scanned on the {@link RContext#getForkJoinPool() process-wide pool}.
+     */
+    private static int scanBlock(BlockScanner scanner, String[] lines, FrameColumns frame) {
+        frame.ensureCapacity(frame.records + lines.length);
+        ForkJoinPool pool = lines.length < 2 * MIN_PARALLEL_LINES ? null : RContext.getInstance().getParallelPool(FastROptions.ParallelScanThreshold, countChars(lines));
+        int chunks = pool == null ? 1 : Math.min(pool.getParallelism() * 4, lines.length / MIN_PARALLEL_LINES);
+        if (chunks < 2) {
+            scanner.scan(lines, 0, lines.length, frame.data, frame.records);
+            frame.addBlock(scanner, frame.records);
+            return scanner.stop;
+        }
+        int base = frame.records;
+        BlockTask[] tasks = new BlockTask[chunks];
+        for (int i = 0; i < chunks; i++) {
+            int from = (int) ((long) lines.length * i / chunks);
+            int to = (int) ((long) lines.length * (i + 1) / chunks);
+            tasks[i] = new BlockTask(new BlockScanner(scanner, new HashMap<>()), lines, from, to, frame.data, base + from);
+            pool.execute(tasks[i]);
+        }
+        for (BlockTask task : tasks) {
+            task.join();
+        }
+        int consumed = 0;
+        for (BlockTask task : tasks) {
+            if (consumed < task.from) {
+                // an earlier chunk stopped, the records of the later ones are dropped
+                break;
             }
+            frame.addBlock(task.scanner, base + task.from);
+            consumed = task.scanner.stop;
         }
+        return consumed;
+    }
 
-        return list;
+    private static long countChars(String[] lines) {
+        long chars = 0;
+        for (String line : lines) {
+            chars += line.length();
+        }
+        return chars;
     }
 
     @TruffleBoundary
@@ -510,8 +486,12 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
     }
 
     private static Object extractItem(RAbstractVector what, String buffer, LocalData data) {
+        return extractItem(what.getRType(), buffer, data);
+    }
+
+    private static Object extractItem(RType type, String buffer, LocalData data) {
         try {
-            switch (what.getRType()) {
+            switch (type) {
                 case Logical:
                     if (isNaString(buffer, 0, data)) {
                         return RRuntime.LOGICAL_NA;
@@ -553,7 +533,333 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
                     throw RInternalError.shouldNotReachHere();
             }
         } catch (NumberFormatException e) {
-            throw RError.error(RError.SHOW_CALLER, Message.SCAN_UNEXPECTED, what.getRType().getName(), buffer);
+            throw RError.error(RError.SHOW_CALLER, Message.SCAN_UNEXPECTED, type.getName(), buffer);
+        }
+    }
+
+    /**
+     * The columns read by {@link #scanFrame}, kept in arrays of the columns' types until the
+     * result vectors are created.
+     */
+    private static final class FrameColumns {
+        final RType[] types;
+        final Object[] data;
+        final boolean[] incomplete;
+        int capacity;
+        int records;
+        int lines;
+        // column of the next item, non-zero while a record spans several lines
+        int n;
+
+        FrameColumns(RType[] types, int capacity) {
+            this.types = types;
+            this.data = new Object[types.length];
+            this.incomplete = new boolean[types.length];
+            this.capacity = capacity;
+            for (int i = 0; i < types.length; i++) {
+                data[i] = allocate(types[i], capacity);
+            }
+        }
+
+        private static Object allocate(RType type, int length) {
+            switch (type) {
+                case Logical:
+                case Raw:
+                    return new byte[length];
+                case Integer:
+                    return new int[length];
+                case Double:
+                    return new double[length];
+                case Complex:
+                    return new double[2 * length];
+                case Character:
+                    return new String[length];
+                default:
+                    throw RInternalError.shouldNotReachHere();
+            }
+        }
+
+        private static int elementSize(RType type) {
+            return type == RType.Complex ? 2 : 1;
+        }
+
+        void ensureCapacity(int length) {
+            if (length > capacity) {
+                resize(Math.max(length, capacity * 2));
+            }
+        }
+
+        void trim() {
+            if (capacity > records) {
+                resize(records);
+            }
+        }
+
+        private void resize(int newCapacity) {
+            for (int i = 0; i < types.length; i++) {
+                Object newData = allocate(types[i], newCapacity);
+                System.arraycopy(data[i], 0, newData, 0, Math.min(capacity, newCapacity) * elementSize(types[i]));
+                data[i] = newData;
+            }
+            capacity = newCapacity;
+        }
+
+        void set(int column, int record, Object item) {
+            ensureCapacity(record + 1);
+            Object array = data[column];
+            boolean isNA;
+            switch (types[column]) {
+                case Logical:
+                    ((byte[]) array)[record] = (byte) item;
+                    isNA = RRuntime.isNA((byte) item);
+                    break;
+                case Integer:
+                    ((int[]) array)[record] = (int) item;
+                    isNA = RRuntime.isNA((int) item);
+                    break;
+                case Double:
+                    ((double[]) array)[record] = (double) item;
+                    isNA = RRuntime.isNA((double) item);
+                    break;
+                case Complex:
+                    RComplex value = (RComplex) item;
+                    ((double[]) array)[2 * record] = value.getRealPart();
+                    ((double[]) array)[2 * record + 1] = value.getImaginaryPart();
+                    isNA = value.isNA();
+                    break;
+                case Character:
+                    ((String[]) array)[record] = (String) item;
+                    isNA = RRuntime.isNA((String) item);
+                    break;
+                case Raw:
+                    ((byte[]) array)[record] = ((RRaw) item).getValue();
+                    isNA = false;
+                    break;
+                default:
+                    throw RInternalError.shouldNotReachHere();
+            }
+            incomplete[column] |= isNA;
+        }
+
+        /**
+         * Appends the records that {@code scanner} stored from record {@code start} on.
+         */
+        void addBlock(BlockScanner scanner, int start) {
+            if (start != records) {
+                for (int i = 0; i < types.length; i++) {
+                    System.arraycopy(data[i], start, data[i], records, scanner.records);
+                }
+            }
+            records += scanner.records;
+            lines += scanner.lines;
+            for (int i = 0; i < types.length; i++) {
+                incomplete[i] |= scanner.incomplete[i];
+            }
+        }
+
+        RList createList() {
+            trim();
+            Object[] vectors = new Object[types.length];
+            for (int i = 0; i < types.length; i++) {
+                boolean complete = !incomplete[i];
+                switch (types[i]) {
+                    case Logical:
+                        vectors[i] = RDataFactory.createLogicalVector((byte[]) data[i], complete);
+                        break;
+                    case Integer:
+                        vectors[i] = RDataFactory.createIntVector((int[]) data[i], complete);
+                        break;
+                    case Double:
+                        vectors[i] = RDataFactory.createDoubleVector((double[]) data[i], complete);
+                        break;
+                    case Complex:
+                        vectors[i] = RDataFactory.createComplexVector((double[]) data[i], complete);
+                        break;
+                    case Character:
+                        vectors[i] = RDataFactory.createStringVector((String[]) data[i], complete);
+                        break;
+                    case Raw:
+                        vectors[i] = RDataFactory.createRawVector((byte[]) data[i]);
+                        break;
+                    default:
+                        throw RInternalError.shouldNotReachHere();
+                }
+            }
+            return RDataFactory.createList(vectors);
+        }
+    }
+
+    /**
+     * Splits whole lines into one record each and stores the items directly in the columns'
+     * arrays. It handles the lines of a frame whose columns are logical, integer, double or
+     * character and stops at the first line that does not form a record of its own (or does not
+     * parse), which {@link #scanFrameInternal} then reads item by item, reporting any errors.
+     * Instances do not use the context, so that blocks can be split on a pool.
+     */
+    private static final class BlockScanner {
+        private final RType[] types;
+        private final boolean flush;
+        private final boolean fill;
+        private final boolean blSkip;
+        private final String[] naStrings;
+        private final char sepchar;
+        private final char[] quoteset;
+        private final ScanTokenizer tokenizer;
+        private final HashMap<String, String> stringTable;
+
+        // results of the last scan
+        final boolean[] incomplete;
+        int records;
+        int lines;
+        int stop;
+
+        BlockScanner(RType[] types, boolean flush, boolean fill, boolean blSkip, LocalData data, HashMap<String, String> stringTable) {
+            this.types = types;
+            this.flush = flush;
+            this.fill = fill;
+            this.blSkip = blSkip;
+            this.naStrings = data.naStrings.getReadonlyStringData();
+            this.sepchar = data.sepchar;
+            this.quoteset = data.quoteset;
+            this.tokenizer = new ScanTokenizer(sepchar, quoteset);
+            this.stringTable = stringTable;
+            this.incomplete = new boolean[types.length];
+        }
+
+        BlockScanner(BlockScanner original, HashMap<String, String> stringTable) {
+            this.types = original.types;
+            this.flush = original.flush;
+            this.fill = original.fill;
+            this.blSkip = original.blSkip;
+            this.naStrings = original.naStrings;
+            this.sepchar = original.sepchar;
+            this.quoteset = original.quoteset;
+            this.tokenizer = new ScanTokenizer(sepchar, quoteset);
+            this.stringTable = stringTable;
+            this.incomplete = new boolean[types.length];
+        }
+
+        static boolean canScan(RType[] types, int maxRecords, LocalData data) {
+            // reading ahead would block on an interactive console
+            if (maxRecords > 0 || data.con == StdConnections.getStdin()) {
+                return false;
+            }
+            for (RType type : types) {
+                if (type != RType.Logical && type != RType.Integer && type != RType.Double && type != RType.Character) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Stores the records of {@code input[from, to)} in {@code columns} from record
+         * {@code base} on and sets {@link #stop} to the index of the first line not consumed.
+         */
+        void scan(String[] input, int from, int to, Object[] columns, int base) {
+            Arrays.fill(incomplete, false);
+            records = 0;
+            lines = 0;
+            stop = to;
+            for (int l = from; l < to; l++) {
+                int count = tokenizer.tokenize(input[l], 0);
+                if (count == 0 && blSkip) {
+                    continue;
+                }
+                if (count < 0 || !storeRecord(count, columns, base + records)) {
+                    stop = l;
+                    return;
+                }
+                records++;
+                lines++;
+            }
+        }
+
+        private boolean storeRecord(int count, Object[] columns, int record) {
+            // an empty line is a single empty item
+            int items = Math.max(count, 1);
+            if (items > types.length ? !flush : (items < types.length && !fill)) {
+                return false;
+            }
+            try {
+                for (int c = 0; c < types.length; c++) {
+                    store(c, columns[c], record, c < count ? tokenizer.getItem(c) : "");
+                }
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            return true;
+        }
+
+        private void store(int column, Object array, int record, String item) {
+            boolean isNA;
+            switch (types[column]) {
+                case Logical:
+                    byte logical = isNaString(item, 0) ? RRuntime.LOGICAL_NA : RRuntime.string2logicalNoCheck(item);
+                    ((byte[]) array)[record] = logical;
+                    isNA = RRuntime.isNA(logical);
+                    break;
+                case Integer:
+                    int integer = isNaString(item, 0) ? RRuntime.INT_NA : RRuntime.parseInt(item);
+                    ((int[]) array)[record] = integer;
+                    isNA = RRuntime.isNA(integer);
+                    break;
+                case Double:
+                    double dbl = isNaString(item, 0) ? RRuntime.DOUBLE_NA : RRuntime.string2doubleNoCheck(item);
+                    ((double[]) array)[record] = dbl;
+                    isNA = RRuntime.isNA(dbl);
+                    break;
+                case Character:
+                    isNA = isNaString(item, 1);
+                    String str = RRuntime.STRING_NA;
+                    if (!isNA) {
+                        str = stringTable.putIfAbsent(item, item);
+                        if (str == null) {
+                            str = item;
+                        }
+                    }
+                    ((String[]) array)[record] = str;
+                    break;
+                default:
+                    throw RInternalError.shouldNotReachHere();
+            }
+            incomplete[column] |= isNA;
+        }
+
+        // see Scan.isNaString
+        private boolean isNaString(String buffer, int mode) {
+            if (mode == 0 && buffer.length() == 0) {
+                return true;
+            }
+            for (int i = 0; i < naStrings.length; i++) {
+                if (naStrings[i].equals(buffer)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class BlockTask extends RecursiveAction {
+        final BlockScanner scanner;
+        final String[] input;
+        final int from;
+        final int to;
+        final Object[] columns;
+        final int base;
+
+        BlockTask(BlockScanner scanner, String[] input, int from, int to, Object[] columns, int base) {
+            this.scanner = scanner;
+            this.input = input;
+            this.from = from;
+            this.to = to;
+            this.columns = columns;
+            this.base = base;
+        }
+
+        @Override
+        protected void compute() {
+            scanner.scan(input, from, to, columns, base);
         }
     }
 }
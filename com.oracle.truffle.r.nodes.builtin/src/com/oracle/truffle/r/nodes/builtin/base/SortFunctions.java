@@ -39,6 +39,9 @@ import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.INTERNAL;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Specialization;
@@ -47,6 +50,8 @@ import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.context.FastROptions;
+import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.RArgsValuesAndNames;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RDoubleVector;
@@ -59,7 +64,8 @@ import com.oracle.truffle.r.runtime.data.RStringVector;
 
 /**
  * The internal functions mandated by {@code base/sort.R}. N.B. We use the standard JDK sorting
- * algorithms and not the specific algorithms specified in the R manual entry.
+ * algorithms and not the specific algorithms specified in the R manual entry. Vectors above
+ * {@code ParallelSortThreshold} are sorted on the process-wide fork-join pool.
  */
 public class SortFunctions {
 
@@ -75,7 +81,12 @@ public class SortFunctions {
     @TruffleBoundary
     private static double[] sort(double[] data, boolean decreasing) {
         // no reverse comparator for primitives
-        Arrays.parallelSort(data);
+        ForkJoinPool pool = RContext.getInstance().getParallelPool(FastROptions.ParallelSortThreshold, data.length);
+        if (pool != null) {
+            pool.invoke(ForkJoinTask.adapt(() -> Arrays.parallelSort(data)));
+        } else {
+            Arrays.sort(data);
+        }
         if (decreasing) {
             int len = data.length;
             for (int i = len / 2 - 1; i >= 0; i--) {
@@ -89,7 +100,12 @@ public class SortFunctions {
 
     @TruffleBoundary
     private static int[] sort(int[] data, boolean decreasing) {
-        Arrays.parallelSort(data);
+        ForkJoinPool pool = RContext.getInstance().getParallelPool(FastROptions.ParallelSortThreshold, data.length);
+        if (pool != null) {
+            pool.invoke(ForkJoinTask.adapt(() -> Arrays.parallelSort(data)));
+        } else {
+            Arrays.sort(data);
+        }
         if (decreasing) {
             int len = data.length;
             for (int i = len / 2 - 1; i >= 0; i--) {
@@ -103,7 +119,12 @@ public class SortFunctions {
 
     @TruffleBoundary
     private static byte[] sort(byte[] data, boolean decreasing) {
-        Arrays.parallelSort(data);
+        ForkJoinPool pool = RContext.getInstance().getParallelPool(FastROptions.ParallelSortThreshold, data.length);
+        if (pool != null) {
+            pool.invoke(ForkJoinTask.adapt(() -> Arrays.parallelSort(data)));
+        } else {
+            Arrays.sort(data);
+        }
         if (decreasing) {
             int len = data.length;
             for (int i = len / 2 - 1; i >= 0; i--) {
@@ -117,10 +138,12 @@ public class SortFunctions {
 
     @TruffleBoundary
     private static String[] sort(String[] data, boolean decreasing) {
-        if (decreasing) {
-            Arrays.parallelSort(data, Collections.reverseOrder());
+        Comparator<String> comparator = decreasing ? Collections.reverseOrder() : Comparator.naturalOrder();
+        ForkJoinPool pool = RContext.getInstance().getParallelPool(FastROptions.ParallelSortThreshold, data.length);
+        if (pool != null) {
+            pool.invoke(ForkJoinTask.adapt(() -> Arrays.parallelSort(data, comparator)));
         } else {
-            Arrays.parallelSort(data);
+            Arrays.sort(data, comparator);
         }
         return data;
     }
@@ -265,7 +288,6 @@ public class SortFunctions {
      */
     @RBuiltin(name = "radixsort", kind = INTERNAL, parameterNames = {"na.last", "decreasing", "retgrp", "sortstr", "..."}, behavior = PURE)
     public abstract static class RadixSort extends RBuiltinNode.Arg5 {
-        @Child private Order orderNode = OrderNodeGen.create();
 
         static {
             Casts casts = new Casts(RadixSort.class);
@@ -275,14 +297,9 @@ public class SortFunctions {
             casts.arg("sortstr").asLogicalVector().findFirst().map(toBoolean());
         }
 
-        @SuppressWarnings("unused")
         @Specialization
+        @TruffleBoundary
         protected Object radixSort(byte naLast, RLogicalVector decreasingVec, boolean retgrp, boolean sortstr, RArgsValuesAndNames zz) {
-            // Partial implementation just to get startup to work
-            if (retgrp) {
-                // sortstr only has an effect when retrgrp == true
-                throw RError.nyi(this, "radixsort: retgrp == TRUE not implemented");
-            }
             int nargs = zz.getLength();
             if (nargs == 0) {
                 return RNull.instance;
@@ -290,25 +307,32 @@ public class SortFunctions {
             if (nargs != decreasingVec.getLength()) {
                 throw error(RError.Message.RADIX_SORT_DEC_MATCH);
             }
-            /*
-             * Order takes a single decreasing argument that applies to all the vectors. We
-             * potentially have a different value for each vector, so we have to process one by one.
-             * However, OrderNode can't yet handle that, so we abort if nargs > 1 and the decreasing
-             * values don't match.
-             */
-            byte lastdb = RRuntime.LOGICAL_NA;
+            boolean[] decreasing = new boolean[nargs];
+            Object[] keys = new Object[nargs];
             for (int i = 0; i < nargs; i++) {
                 byte db = decreasingVec.getDataAt(i);
                 if (RRuntime.isNA(db)) {
                     throw error(RError.Message.RADIX_SORT_DEC_NOT_LOGICAL);
                 }
-                if (lastdb != RRuntime.LOGICAL_NA && db != lastdb) {
-                    throw RError.nyi(this, "radixsort: args > 1 with differing 'decreasing' values not implemented");
+                decreasing[i] = RRuntime.fromLogical(db);
+                keys[i] = RRuntime.asAbstractVector(zz.getArgument(i));
+            }
+            RadixOrder.Result sorted = RadixOrder.order(this, keys, naLast, decreasing, retgrp, sortstr);
+            int[] order = sorted.order;
+            for (int i = 0; i < order.length; i++) {
+                order[i]++;
+            }
+            RIntVector result = RDataFactory.createIntVector(order, RDataFactory.COMPLETE_VECTOR);
+            if (retgrp) {
+                int[] ends = sorted.groupSizes;
+                int maxgrpn = 0;
+                for (int i = 0; i < ends.length; i++) {
+                    maxgrpn = Math.max(maxgrpn, ends[i]);
+                    ends[i] += i == 0 ? 0 : ends[i - 1];
                 }
-                lastdb = db;
+                result.setAttr("ends", RDataFactory.createIntVector(ends, RDataFactory.COMPLETE_VECTOR));
+                result.setAttr("maxgrpn", maxgrpn);
             }
-            boolean decreasing = RRuntime.fromLogical(decreasingVec.getDataAt(0));
-            Object result = orderNode.execute(naLast, decreasing, zz);
             return result;
         }
     }
@@ -35,6 +35,7 @@ import com.oracle.truffle.r.runtime.data.nodes.attributes.TypeFromModeNodeGen;
 import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
 import com.oracle.truffle.r.runtime.DSLConfig;
 import com.oracle.truffle.r.runtime.RError;
+import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RType;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
@@ -82,6 +83,19 @@ public abstract class Vector extends RBuiltinNode.Arg2 {
         if (type == RType.PairList) {
             return RDataFactory.createPairList(length, SEXPTYPE.LISTSXP);
         }
+        // zero filled atomic vectors are stored as constants until they are updated
+        if (length > 0) {
+            switch (type) {
+                case Logical:
+                    return RDataFactory.createLogicalConstant(RRuntime.LOGICAL_FALSE, length);
+                case Integer:
+                    return RDataFactory.createIntConstant(0, length);
+                case Double:
+                    return RDataFactory.createDoubleConstant(0, length);
+                default:
+                    break;
+            }
+        }
         return type.create(length, false);
     }
 }
@@ -53,6 +53,8 @@ import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RSource;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
 import com.oracle.truffle.r.runtime.context.ChildContextInfo;
+import com.oracle.truffle.r.runtime.context.ContextPool;
+import com.oracle.truffle.r.runtime.context.ContextTemplate;
 import com.oracle.truffle.r.runtime.context.EvalThread;
 import com.oracle.truffle.r.runtime.context.FastROptions;
 import com.oracle.truffle.r.runtime.context.RContext;
@@ -90,6 +92,10 @@ public class FastRContext {
         private static void id(Casts casts) {
             casts.arg("id").asIntegerVector().mustBe(notEmpty()).findFirst();
         }
+
+        private static void pool(Casts casts) {
+            casts.arg("pool").asLogicalVector().findFirst().mustNotBeNA().map(toBoolean());
+        }
     }
 
     @RBuiltin(name = ".fastr.context.get", kind = PRIMITIVE, parameterNames = {}, behavior = READS_STATE)
@@ -177,29 +183,121 @@ public class FastRContext {
         }
     }
 
+    /**
+     * Sets up a template for the {@code SHARE_NOTHING} contexts created by
+     * {@code .fastr.context.spawn} and {@code .fastr.context.eval}: {@code size} contexts are
+     * initialized in advance and evaluate {@code setup}, e.g. to attach packages, so that creating a
+     * child context only takes an already initialized one. A {@code size} of zero removes the
+     * template.
+     */
+    @RBuiltin(name = ".fastr.context.template", visibility = OFF, kind = PRIMITIVE, parameterNames = {"size", "setup"}, behavior = COMPLEX)
+    public abstract static class Template extends RBuiltinNode.Arg2 {
+        @Override
+        public Object[] getDefaultParameterValues() {
+            return new Object[]{1, ""};
+        }
+
+        static {
+            Casts casts = new Casts(Template.class);
+            casts.arg("size").asIntegerVector().findFirst().mustNotBeNA().mustBe(gte(0));
+            casts.arg("setup").mustBe(stringValue()).asStringVector().findFirst().mustNotBeNA();
+        }
+
+        @Specialization
+        @TruffleBoundary
+        protected RNull template(int size, String setup) {
+            RContext context = RContext.getInstance();
+            context.setContextTemplate(size == 0 ? null : new ContextTemplate(context, size, setup));
+            return RNull.instance;
+        }
+    }
+
+    /**
+     * Sets up a pool of {@code size} worker threads with pre-initialized {@code SHARE_NOTHING}
+     * contexts, which evaluate {@code setup} after their initialization. Expressions are submitted
+     * to the pool with {@code .fastr.context.spawn(exprs, pool = TRUE)} and
+     * {@code .fastr.context.eval(exprs, pool = TRUE)}. A {@code size} of zero removes the pool.
+     */
+    @RBuiltin(name = ".fastr.context.pool", visibility = OFF, kind = PRIMITIVE, parameterNames = {"size", "setup"}, behavior = COMPLEX)
+    public abstract static class Pool extends RBuiltinNode.Arg2 {
+        @Override
+        public Object[] getDefaultParameterValues() {
+            return new Object[]{Runtime.getRuntime().availableProcessors(), ""};
+        }
+
+        static {
+            Casts casts = new Casts(Pool.class);
+            casts.arg("size").asIntegerVector().findFirst().mustNotBeNA().mustBe(gte(0));
+            casts.arg("setup").mustBe(stringValue()).asStringVector().findFirst().mustNotBeNA();
+        }
+
+        @Specialization
+        @TruffleBoundary
+        protected RNull pool(int size, String setup) {
+            RContext context = RContext.getInstance();
+            ContextPool previous = context.getContextPool();
+            if (previous != null && previous.hasUnfinishedEvaluations()) {
+                throw error(RError.Message.GENERIC, "the context pool has unfinished evaluations");
+            }
+            context.setContextPool(size == 0 ? null : new ContextPool(context, size, setup));
+            return RNull.instance;
+        }
+    }
+
+    /**
+     * Returns the statistics of the pool of worker contexts as a named numeric vector: the number of
+     * workers, busy workers and queued evaluations, the number of submitted and completed
+     * evaluations and the utilisation of the workers. Returns {@code NULL} if there is no pool.
+     */
+    @RBuiltin(name = ".fastr.context.pool.stats", kind = PRIMITIVE, parameterNames = {}, behavior = READS_STATE)
+    public static final class PoolStats extends RBuiltinNode.Arg0 {
+
+        private static final String[] NAMES = {"workers", "busy", "queued", "submitted", "completed", "utilisation"};
+
+        static {
+            Casts.noCasts(PoolStats.class);
+        }
+
+        @Override
+        @TruffleBoundary
+        public Object execute(VirtualFrame frame) {
+            ContextPool pool = RContext.getInstance().getContextPool();
+            if (pool == null) {
+                return RNull.instance;
+            }
+            return RDataFactory.createDoubleVector(pool.getStatistics(), RDataFactory.COMPLETE_VECTOR, RDataFactory.createStringVector(NAMES, RDataFactory.COMPLETE_VECTOR));
+        }
+    }
+
     /**
      * Similar to {@code .fastr.context.eval} but the invoking thread does not wait for completion,
      * which is done by {@code .fastr.context.join}. The result is a vector that should be passed to
-     * {@code .fastr.context.join}.
+     * {@code .fastr.context.join}. If {@code pool} is {@code TRUE}, the expressions are submitted
+     * to the pool of worker contexts set up by {@code .fastr.context.pool} instead of being
+     * evaluated in new contexts.
      *
      */
-    @RBuiltin(name = ".fastr.context.spawn", kind = PRIMITIVE, parameterNames = {"exprs", "kind"}, behavior = COMPLEX)
-    public abstract static class Spawn extends RBuiltinNode.Arg2 {
+    @RBuiltin(name = ".fastr.context.spawn", kind = PRIMITIVE, parameterNames = {"exprs", "kind", "pool"}, behavior = COMPLEX)
+    public abstract static class Spawn extends RBuiltinNode.Arg3 {
         @Override
         public Object[] getDefaultParameterValues() {
-            return new Object[]{RMissing.instance, FastROptions.sharedContextsOptionValue ? "SHARE_ALL" : "SHARE_NOTHING"};
+            return new Object[]{RMissing.instance, FastROptions.sharedContextsOptionValue ? "SHARE_ALL" : "SHARE_NOTHING", RRuntime.LOGICAL_FALSE};
         }
 
         static {
             Casts casts = new Casts(Spawn.class);
             CastsHelper.exprs(casts);
             CastsHelper.kind(casts);
+            CastsHelper.pool(casts);
         }
 
         @Specialization
         @TruffleBoundary
-        protected RIntVector spawn(RStringVector exprs, String kind) {
+        protected RIntVector spawn(RStringVector exprs, String kind, boolean pool) {
             RContext.ContextKind contextKind = RContext.ContextKind.valueOf(kind);
+            if (pool) {
+                return RDataFactory.createIntVector(submit(exprs, contextKind, false), RDataFactory.COMPLETE_VECTOR);
+            }
             if (RContext.getInstance().getOption(SharedContexts) && contextKind != ContextKind.SHARE_ALL) {
                 throw RError.error(RError.NO_CALLER, RError.Message.GENERIC, "Only shared contexts are allowed");
             }
@@ -210,10 +308,12 @@ public class FastRContext {
             int[] data = new int[length];
             int[] multiSlotIndices = new int[length];
 
-            // first, create context infos
+            // first, create context infos or take pre-initialized contexts from the template
             ChildContextInfo[] childContextInfos = new ChildContextInfo[length];
+            ContextTemplate.Spare[] spares = new ContextTemplate.Spare[length];
             for (int i = 0; i < length; i++) {
-                childContextInfos[i] = createContextInfo(contextKind);
+                spares[i] = takeSpare(contextKind);
+                childContextInfos[i] = spares[i] != null ? spares[i].getInfo() : createContextInfo(contextKind);
                 data[i] = childContextInfos[i].getId();
                 multiSlotIndices[i] = childContextInfos[i].getMultiSlotInd();
             }
@@ -225,7 +325,7 @@ public class FastRContext {
 
             // create eval threads which may already set values to shared slots
             for (int i = 0; i < length; i++) {
-                threads[i] = new EvalThread(RContext.getInstance().threads, childContextInfos[i],
+                threads[i] = new EvalThread(RContext.getInstance().threads, childContextInfos[i], spares[i] == null ? null : spares[i].getTruffleContext(),
                                 RSource.fromTextInternalInvisible(exprs.getDataAt(i % exprs.getLength()), RSource.Internal.CONTEXT_EVAL));
             }
             for (int i = 0; i < length; i++) {
@@ -251,8 +351,13 @@ public class FastRContext {
         protected RNull eval(RIntVector handle) {
             try {
                 int[] multiSlotIndices = new int[handle.getLength()];
+                ContextPool pool = RContext.getInstance().getContextPool();
                 for (int i = 0; i < handle.getLength(); i++) {
                     int id = handle.getDataAt(i);
+                    if (pool != null && pool.isPending(id)) {
+                        pool.await(id);
+                        continue;
+                    }
                     Thread thread = RContext.getInstance().threads.get(id);
                     if (EvalThread.idToMultiSlotTable.containsKey(id)) {
                         multiSlotIndices[i] = EvalThread.idToMultiSlotTable.remove(id);
@@ -313,24 +418,45 @@ public class FastRContext {
      * level list has the same number of entries as the number of contexts. The sublist contains the
      * result of the evaluation with name "result". It may also have an attribute "error" if the
      * evaluation threw an exception, in which case the result will be NA.
+     *
+     * If {@code pool} is {@code TRUE}, the expressions are evaluated by the pool of worker contexts
+     * set up by {@code .fastr.context.pool}.
      */
-    @RBuiltin(name = ".fastr.context.eval", kind = PRIMITIVE, parameterNames = {"exprs", "kind"}, behavior = COMPLEX)
-    public abstract static class Eval extends RBuiltinNode.Arg2 {
+    @RBuiltin(name = ".fastr.context.eval", kind = PRIMITIVE, parameterNames = {"exprs", "kind", "pool"}, behavior = COMPLEX)
+    public abstract static class Eval extends RBuiltinNode.Arg3 {
         @Override
         public Object[] getDefaultParameterValues() {
-            return new Object[]{RMissing.instance, RContext.getInstance().getOption(SharedContexts) ? "SHARE_ALL" : "SHARE_NOTHING"};
+            return new Object[]{RMissing.instance, RContext.getInstance().getOption(SharedContexts) ? "SHARE_ALL" : "SHARE_NOTHING", RRuntime.LOGICAL_FALSE};
         }
 
         static {
             Casts casts = new Casts(Eval.class);
             CastsHelper.exprs(casts);
             CastsHelper.kind(casts);
+            CastsHelper.pool(casts);
         }
 
         @Specialization
         @TruffleBoundary
-        protected Object eval(RStringVector exprs, String kind) {
+        protected Object eval(RStringVector exprs, String kind, boolean pool) {
             RContext.ContextKind contextKind = RContext.ContextKind.valueOf(kind);
+            if (pool) {
+                int[] handles = submit(exprs, contextKind, true);
+                ContextPool contextPool = RContext.getInstance().getContextPool();
+                Object[] results = new Object[handles.length];
+                int i = 0;
+                try {
+                    for (; i < handles.length; i++) {
+                        results[i] = contextPool.getResult(handles[i]);
+                    }
+                } catch (InterruptedException ex) {
+                    for (; i < handles.length; i++) {
+                        contextPool.discard(handles[i]);
+                    }
+                    throw error(RError.Message.GENERIC, "error waiting for the context pool");
+                }
+                return RDataFactory.createList(results);
+            }
             if (RContext.getInstance().getOption(SharedContexts) && contextKind != ContextKind.SHARE_ALL) {
                 throw RError.error(RError.NO_CALLER, RError.Message.GENERIC, "Only shared contexts are allowed");
             }
@@ -339,16 +465,19 @@ public class FastRContext {
             int length = exprs.getLength();
             Object[] results = new Object[length];
             if (length == 1) {
-                ChildContextInfo info = createContextInfo(contextKind);
-                TruffleContext truffleContext = info.createTruffleContext();
+                ContextTemplate.Spare spare = takeSpare(contextKind);
+                ChildContextInfo info = spare != null ? spare.getInfo() : createContextInfo(contextKind);
+                TruffleContext truffleContext = spare != null ? spare.getTruffleContext() : info.createTruffleContext();
                 results[0] = EvalThread.run(truffleContext, info, RSource.fromTextInternalInvisible(exprs.getDataAt(0), RSource.Internal.CONTEXT_EVAL));
             } else {
                 // separate threads that run in parallel; invoking thread waits for completion
                 EvalThread[] threads = new EvalThread[length];
                 int[] multiSlotIndices = new int[length];
                 for (int i = 0; i < length; i++) {
-                    ChildContextInfo info = createContextInfo(contextKind);
-                    threads[i] = new EvalThread(RContext.getInstance().threads, info, RSource.fromTextInternalInvisible(exprs.getDataAt(i % exprs.getLength()), RSource.Internal.CONTEXT_EVAL));
+                    ContextTemplate.Spare spare = takeSpare(contextKind);
+                    ChildContextInfo info = spare != null ? spare.getInfo() : createContextInfo(contextKind);
+                    threads[i] = new EvalThread(RContext.getInstance().threads, info, spare == null ? null : spare.getTruffleContext(),
+                                    RSource.fromTextInternalInvisible(exprs.getDataAt(i % exprs.getLength()), RSource.Internal.CONTEXT_EVAL));
                     multiSlotIndices[i] = info.getMultiSlotInd();
                 }
                 if (contextKind == ContextKind.SHARE_ALL) {
@@ -453,6 +582,35 @@ public class FastRContext {
         return result;
     }
 
+    /**
+     * Submits the expressions to the pool of worker contexts of the current context and returns
+     * their handles, the results are only kept if {@code keepResults} is {@code true}.
+     */
+    private static int[] submit(RStringVector exprs, RContext.ContextKind contextKind, boolean keepResults) {
+        ContextPool pool = RContext.getInstance().getContextPool();
+        if (pool == null) {
+            throw RError.error(RError.NO_CALLER, RError.Message.GENERIC, "no context pool, see .fastr.context.pool");
+        }
+        if (contextKind != ContextKind.SHARE_NOTHING) {
+            throw RError.error(RError.NO_CALLER, RError.Message.GENERIC, "the contexts of the context pool are of kind SHARE_NOTHING");
+        }
+        int[] handles = new int[exprs.getLength()];
+        for (int i = 0; i < handles.length; i++) {
+            handles[i] = pool.submit(RSource.fromTextInternalInvisible(exprs.getDataAt(i), RSource.Internal.CONTEXT_EVAL), keepResults);
+        }
+        return handles;
+    }
+
+    /**
+     * Takes a pre-initialized context from the template of the current context, returns
+     * {@code null} if there is no template or the template does not provide contexts of the given
+     * kind.
+     */
+    private static ContextTemplate.Spare takeSpare(RContext.ContextKind contextKind) {
+        ContextTemplate template = RContext.getInstance().getContextTemplate();
+        return template == null || contextKind != ContextKind.SHARE_NOTHING ? null : template.take();
+    }
+
     private static ChildContextInfo createContextInfo(RContext.ContextKind contextKind) {
         RContext context = RContext.getInstance();
         ConsoleIO console = context.getConsole();
@@ -578,22 +736,17 @@ public class FastRContext {
         @Specialization
         @TruffleBoundary
         protected RList select(RList nodes) {
-            int ind = 0;
             int length = nodes.getLength();
-            while (true) {
-                Object o = nodes.getDataAt(ind);
-                ind = (ind + 1) % length;
-                int id;
+            int[] ids = new int[length];
+            for (int i = 0; i < length; i++) {
+                Object o = nodes.getDataAt(i);
                 if (o instanceof Integer) {
-                    id = (int) o;
+                    ids[i] = (int) o;
                 } else {
-                    id = ((RIntVector) o).getDataAt(0);
-                }
-                Object res = RChannel.poll(id);
-                if (res != null) {
-                    return RDataFactory.createList(new Object[]{id, res});
+                    ids[i] = ((RIntVector) o).getDataAt(0);
                 }
             }
+            return RDataFactory.createList(RChannel.select(ids));
         }
     }
 }
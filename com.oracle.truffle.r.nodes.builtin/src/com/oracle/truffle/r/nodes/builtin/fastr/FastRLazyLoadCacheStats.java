@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.fastr;
+
+import static com.oracle.truffle.r.runtime.builtins.RBehavior.COMPLEX;
+import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.PRIMITIVE;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
+import com.oracle.truffle.r.runtime.LazyDBCache;
+import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+
+/**
+ * Returns the statistics of the process-wide cache of objects fetched from lazy-load databases as a
+ * named numeric vector: the number of hits and misses, the number of entries and their size in
+ * bytes.
+ */
+@RBuiltin(name = ".fastr.lazyload.cachestats", kind = PRIMITIVE, behavior = COMPLEX, parameterNames = {})
+public class FastRLazyLoadCacheStats extends RBuiltinNode.Arg0 {
+
+    private static final String[] NAMES = {"hits", "misses", "entries", "size"};
+
+    static {
+        Casts.noCasts(FastRLazyLoadCacheStats.class);
+    }
+
+    @Override
+    @TruffleBoundary
+    public Object execute(VirtualFrame frame) {
+        long[] stats = LazyDBCache.ObjectCache.getStatistics();
+        double[] data = new double[stats.length];
+        for (int i = 0; i < stats.length; i++) {
+            data[i] = stats[i];
+        }
+        return RDataFactory.createDoubleVector(data, RDataFactory.COMPLETE_VECTOR, RDataFactory.createStringVector(NAMES, RDataFactory.COMPLETE_VECTOR));
+    }
+}
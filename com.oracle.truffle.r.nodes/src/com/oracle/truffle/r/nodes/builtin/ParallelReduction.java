@@ -0,0 +1,658 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.context.FastROptions;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
+import com.oracle.truffle.r.runtime.data.RIntVector;
+import com.oracle.truffle.r.runtime.data.RLogicalVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+
+/**
+ * Reductions of long logical, integer and double vectors that are split into chunks reduced on the
+ * process-wide fork-join pool. The chunks have a fixed size, so their boundaries only depend on
+ * the length of the vector, and the partial results are combined in a fixed order: pairwise, or
+ * with Neumaier compensation for sums if {@link FastROptions#FullPrecisionSum} is set. Products
+ * keep their binary exponent apart, so that a chunk cannot overflow to infinity or underflow to
+ * zero when the whole product would not. The result therefore does not depend on the number of
+ * threads. A chunk that finds an {@code NA} deciding
+ * the result stops there and the chunks behind it are skipped.
+ *
+ * The reductions return {@code null} if the vector is shorter than
+ * {@link FastROptions#ParallelReduceThreshold} or not backed by a managed array, the caller then
+ * reduces it sequentially.
+ */
+public final class ParallelReduction {
+
+    public enum Kind {
+        SUM,
+        PROD,
+        MIN,
+        MAX
+    }
+
+    static final int CHUNK_SIZE = 1 << 16;
+
+    private ParallelReduction() {
+        // no instances
+    }
+
+    public static final class Result {
+        private final double value;
+        private final boolean na;
+        private final boolean empty;
+        private final boolean overflow;
+
+        Result(double value, boolean na, boolean empty, boolean overflow) {
+            this.value = value;
+            this.na = na;
+            this.empty = empty;
+            this.overflow = overflow;
+        }
+
+        /**
+         * The result, integer reductions that do not overflow return an integral value.
+         */
+        public double getValue() {
+            return value;
+        }
+
+        public boolean isNA() {
+            return na;
+        }
+
+        /**
+         * {@code true} if all elements were removed as {@code NA} or infinite values.
+         */
+        public boolean isEmpty() {
+            return empty;
+        }
+
+        /**
+         * {@code true} if an integer sum overflows at some point when the elements are added in
+         * order.
+         */
+        public boolean isOverflow() {
+            return overflow;
+        }
+    }
+
+    /**
+     * Fast check whether {@code value} is long enough to be a candidate for a parallel reduction
+     * in {@code context}, i.e. whether it has at least two chunks and reaches
+     * {@link FastROptions#ParallelReduceThreshold}. The option is only read for such vectors.
+     */
+    public static boolean isLong(Object value, RContext context) {
+        if (!(value instanceof RAbstractVector)) {
+            return false;
+        }
+        int length = ((RAbstractVector) value).getLength();
+        return length >= 2 * CHUNK_SIZE && length >= getThreshold(context);
+    }
+
+    @TruffleBoundary
+    private static int getThreshold(RContext context) {
+        int threshold = context.getNonNegativeIntOption(FastROptions.ParallelReduceThreshold);
+        return threshold == 0 ? Integer.MAX_VALUE : threshold;
+    }
+
+    /**
+     * Reduces {@code vector} with the semantics of {@code UnaryArithmeticReduceNode} for
+     * {@link Kind#SUM}, {@link Kind#MIN} and {@link Kind#MAX} and with the semantics of
+     * {@code prod} for {@link Kind#PROD}, which only removes {@code NA} and not {@code NaN}. The
+     * start values must be the identity for sums and products, because every chunk starts with
+     * them.
+     */
+    @TruffleBoundary
+    public static Result reduce(Kind kind, RAbstractVector vector, boolean naRm, boolean finite, int intStart, double doubleStart) {
+        ForkJoinPool pool = getPool(vector.getLength());
+        if (pool == null) {
+            return null;
+        }
+        Reduction reduction;
+        if (vector instanceof RDoubleVector) {
+            double[] data = getDoubleData(vector);
+            if (data == null) {
+                return null;
+            }
+            reduction = new DoubleReduction(kind, data, naRm, finite, doubleStart, isCompensated(kind));
+        } else if (vector instanceof RIntVector || vector instanceof RLogicalVector) {
+            int[] ints = vector instanceof RIntVector ? getIntData(vector) : null;
+            byte[] logicals = vector instanceof RLogicalVector ? getLogicalData(vector) : null;
+            if (ints == null && logicals == null) {
+                return null;
+            }
+            reduction = new IntReduction(kind, ints, logicals, naRm, intStart);
+        } else {
+            return null;
+        }
+        pool.invoke(new ChunkTask(reduction, 0, reduction.chunks));
+        return reduction.combine();
+    }
+
+    /**
+     * Computes the mean of {@code vector} with the semantics of the {@code mean} builtin: the
+     * first {@code NA} or {@code NaN} is the result, otherwise the sum divided by the length.
+     */
+    @TruffleBoundary
+    public static Double mean(RAbstractVector vector) {
+        ForkJoinPool pool = getPool(vector.getLength());
+        if (pool == null) {
+            return null;
+        }
+        MeanReduction reduction;
+        if (vector instanceof RDoubleVector) {
+            reduction = new MeanReduction(getDoubleData(vector), null, null, isCompensated(Kind.SUM));
+        } else if (vector instanceof RIntVector) {
+            reduction = new MeanReduction(null, getIntData(vector), null, isCompensated(Kind.SUM));
+        } else if (vector instanceof RLogicalVector) {
+            reduction = new MeanReduction(null, null, getLogicalData(vector), isCompensated(Kind.SUM));
+        } else {
+            return null;
+        }
+        if (reduction.doubles == null && reduction.ints == null && reduction.logicals == null) {
+            return null;
+        }
+        pool.invoke(new ChunkTask(reduction, 0, reduction.chunks));
+        return reduction.combine().getValue();
+    }
+
+    private static ForkJoinPool getPool(int length) {
+        return length < 2 * CHUNK_SIZE ? null : RContext.getInstance().getParallelPool(FastROptions.ParallelReduceThreshold, length);
+    }
+
+    private static boolean isCompensated(Kind kind) {
+        return kind == Kind.SUM && RContext.getInstance().getOption(FastROptions.FullPrecisionSum);
+    }
+
+    /**
+     * Returns the managed array of {@code vector}, or {@code null} if it is not materialized.
+     */
+    public static double[] getDoubleData(RAbstractVector vector) {
+        RDoubleVector v = (RDoubleVector) vector;
+        return v.isMaterialized() ? v.getInternalManagedData() : null;
+    }
+
+    public static int[] getIntData(RAbstractVector vector) {
+        RIntVector v = (RIntVector) vector;
+        return v.isMaterialized() ? v.getInternalManagedData() : null;
+    }
+
+    public static byte[] getLogicalData(RAbstractVector vector) {
+        RLogicalVector v = (RLogicalVector) vector;
+        return v.isMaterialized() ? v.getInternalManagedData() : null;
+    }
+
+    /**
+     * Sums the partial results {@code from} to {@code to} by recursive halving.
+     */
+    private static double pairwiseSum(double[] values, int from, int to) {
+        if (to - from == 1) {
+            return values[from];
+        }
+        int mid = (from + to) >>> 1;
+        return pairwiseSum(values, from, mid) + pairwiseSum(values, mid, to);
+    }
+
+    private static final double SCALE_LIMIT = 0x1p256;
+    private static final double VALUE_LIMIT = 0x1p512;
+
+    /**
+     * Takes the exponent out of {@code value} if its magnitude is outside of [1/limit, limit],
+     * adding it to {@code exponent[index]}. Zero, infinite and NaN values are kept.
+     */
+    private static double scale(double value, double limit, long[] exponent, int index) {
+        double abs = Math.abs(value);
+        if ((abs > limit || abs < 1 / limit) && abs != 0 && abs != Double.POSITIVE_INFINITY && abs == abs) {
+            int e = Math.getExponent(value);
+            exponent[index] += e;
+            return Math.scalb(value, -e);
+        }
+        return value;
+    }
+
+    /**
+     * Multiplies the scaled partial products {@code from} to {@code to} by recursive halving,
+     * leaving the result in {@code values[from]} and {@code exponents[from]}.
+     */
+    private static void pairwiseProduct(double[] values, long[] exponents, int from, int to) {
+        if (to - from > 1) {
+            int mid = (from + to) >>> 1;
+            pairwiseProduct(values, exponents, from, mid);
+            pairwiseProduct(values, exponents, mid, to);
+            exponents[from] += exponents[mid];
+            values[from] = scale(values[from] * values[mid], SCALE_LIMIT, exponents, from);
+        }
+    }
+
+    private static double product(double[] values, long[] exponents) {
+        pairwiseProduct(values, exponents, 0, values.length);
+        long exponent = Math.max(Integer.MIN_VALUE / 2, Math.min(Integer.MAX_VALUE / 2, exponents[0]));
+        return Math.scalb(values[0], (int) exponent);
+    }
+
+    /**
+     * Adds up the chunk sums and their compensations in order, compensating the additions of the
+     * sums as well.
+     */
+    private static double compensatedSum(double[] sums, double[] compensations) {
+        double sum = 0;
+        double compensation = 0;
+        for (int i = 0; i < sums.length; i++) {
+            double value = sums[i];
+            double t = sum + value;
+            if (Math.abs(sum) >= Math.abs(value)) {
+                compensation += (sum - t) + value;
+            } else {
+                compensation += (value - t) + sum;
+            }
+            sum = t;
+            compensation += compensations[i];
+        }
+        // the compensation is meaningless once the sum overflowed or became NaN
+        return Double.isFinite(sum) ? sum + compensation : sum;
+    }
+
+    /**
+     * Same as {@code BinaryArithmetic.MAX} on doubles: the first NaN sticks and 0 is larger than
+     * -0.
+     */
+    private static double max(double left, double right) {
+        if (left != left) {
+            return left;
+        } else if (left == 0.0d && right == 0.0d && Double.doubleToRawLongBits(left) == Double.doubleToRawLongBits(-0.0d)) {
+            return right;
+        } else {
+            return left >= right ? left : right;
+        }
+    }
+
+    private static double min(double left, double right) {
+        if (left != left) {
+            return left;
+        } else if (left == 0.0d && right == 0.0d && Double.doubleToRawLongBits(right) == Double.doubleToRawLongBits(-0.0d)) {
+            return right;
+        } else {
+            return left <= right ? left : right;
+        }
+    }
+
+    private abstract static class Reduction {
+        final int length;
+        final int chunks;
+        /**
+         * Index of the first chunk that decided the result, chunks behind it are skipped.
+         */
+        final AtomicInteger decidingChunk = new AtomicInteger(Integer.MAX_VALUE);
+
+        Reduction(int length) {
+            this.length = length;
+            this.chunks = (length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        }
+
+        final void run(int chunk) {
+            if (chunk < decidingChunk.get()) {
+                reduceChunk(chunk, chunk * CHUNK_SIZE, Math.min(length, (chunk + 1) * CHUNK_SIZE));
+            }
+        }
+
+        final void decide(int chunk) {
+            decidingChunk.accumulateAndGet(chunk, Math::min);
+        }
+
+        final boolean isDecided() {
+            return decidingChunk.get() != Integer.MAX_VALUE;
+        }
+
+        abstract void reduceChunk(int chunk, int from, int to);
+
+        abstract Result combine();
+    }
+
+    private static final class DoubleReduction extends Reduction {
+        private final Kind kind;
+        private final double[] data;
+        private final boolean naRm;
+        private final boolean finite;
+        private final double start;
+        private final boolean compensated;
+        private final double[] results;
+        private final double[] compensations;
+        private final long[] exponents;
+        private final boolean[] used;
+
+        DoubleReduction(Kind kind, double[] data, boolean naRm, boolean finite, double start, boolean compensated) {
+            super(data.length);
+            this.kind = kind;
+            this.data = data;
+            this.naRm = naRm;
+            this.finite = finite;
+            this.start = start;
+            this.compensated = compensated;
+            this.results = new double[chunks];
+            this.compensations = compensated ? new double[chunks] : null;
+            this.exponents = kind == Kind.PROD ? new long[chunks] : null;
+            this.used = new boolean[chunks];
+        }
+
+        @Override
+        void reduceChunk(int chunk, int from, int to) {
+            double result = start;
+            double compensation = 0;
+            boolean any = false;
+            for (int i = from; i < to; i++) {
+                double value = data[i];
+                if (kind == Kind.PROD) {
+                    if (RRuntime.isNA(value)) {
+                        if (naRm) {
+                            continue;
+                        }
+                        decide(chunk);
+                        return;
+                    }
+                } else if (Double.isNaN(value)) {
+                    if (naRm) {
+                        continue;
+                    } else if (RRuntime.isNA(value)) {
+                        decide(chunk);
+                        return;
+                    }
+                } else if (finite && Double.isInfinite(value)) {
+                    continue;
+                }
+                switch (kind) {
+                    case SUM:
+                        if (compensated) {
+                            double t = result + value;
+                            if (Math.abs(result) >= Math.abs(value)) {
+                                compensation += (result - t) + value;
+                            } else {
+                                compensation += (value - t) + result;
+                            }
+                            result = t;
+                        } else {
+                            result += value;
+                        }
+                        break;
+                    case PROD:
+                        result = scale(result * scale(value, VALUE_LIMIT, exponents, chunk), SCALE_LIMIT, exponents, chunk);
+                        break;
+                    case MIN:
+                        result = min(result, value);
+                        break;
+                    default:
+                        result = max(result, value);
+                        break;
+                }
+                any = true;
+            }
+            results[chunk] = result;
+            if (compensated) {
+                compensations[chunk] = compensation;
+            }
+            used[chunk] = any;
+        }
+
+        @Override
+        Result combine() {
+            if (isDecided()) {
+                return new Result(RRuntime.DOUBLE_NA, true, false, false);
+            }
+            boolean empty = true;
+            for (boolean u : used) {
+                empty &= !u;
+            }
+            double result;
+            switch (kind) {
+                case SUM:
+                    result = compensated ? compensatedSum(results, compensations) : pairwiseSum(results, 0, chunks);
+                    break;
+                case PROD:
+                    result = product(results, exponents);
+                    break;
+                case MIN:
+                    result = start;
+                    for (double r : results) {
+                        result = min(result, r);
+                    }
+                    break;
+                default:
+                    result = start;
+                    for (double r : results) {
+                        result = max(result, r);
+                    }
+                    break;
+            }
+            return new Result(result, false, empty, false);
+        }
+    }
+
+    private static final class IntReduction extends Reduction {
+        private final Kind kind;
+        private final int[] ints;
+        private final byte[] logicals;
+        private final boolean naRm;
+        private final int start;
+        private final long[] results;
+        private final double[] products;
+        private final long[] exponents;
+        private final long[] minPrefix;
+        private final long[] maxPrefix;
+        private final boolean[] used;
+
+        IntReduction(Kind kind, int[] ints, byte[] logicals, boolean naRm, int start) {
+            super(ints != null ? ints.length : logicals.length);
+            this.kind = kind;
+            this.ints = ints;
+            this.logicals = logicals;
+            this.naRm = naRm;
+            this.start = start;
+            this.results = new long[chunks];
+            this.products = kind == Kind.PROD ? new double[chunks] : null;
+            this.exponents = kind == Kind.PROD ? new long[chunks] : null;
+            this.minPrefix = kind == Kind.SUM ? new long[chunks] : null;
+            this.maxPrefix = kind == Kind.SUM ? new long[chunks] : null;
+            this.used = new boolean[chunks];
+        }
+
+        @Override
+        void reduceChunk(int chunk, int from, int to) {
+            int na = ints != null ? RRuntime.INT_NA : RRuntime.LOGICAL_NA;
+            long result = start;
+            double product = 1;
+            // prefix sums relative to the start of the chunk
+            long lowest = 0;
+            long highest = 0;
+            boolean any = false;
+            for (int i = from; i < to; i++) {
+                int value = ints != null ? ints[i] : logicals[i];
+                if (value == na) {
+                    if (naRm) {
+                        continue;
+                    }
+                    decide(chunk);
+                    return;
+                }
+                switch (kind) {
+                    case SUM:
+                        result += value;
+                        lowest = Math.min(lowest, result);
+                        highest = Math.max(highest, result);
+                        break;
+                    case PROD:
+                        product = scale(product * value, SCALE_LIMIT, exponents, chunk);
+                        break;
+                    case MIN:
+                        result = Math.min(result, value);
+                        break;
+                    default:
+                        result = Math.max(result, value);
+                        break;
+                }
+                any = true;
+            }
+            results[chunk] = result;
+            if (kind == Kind.PROD) {
+                products[chunk] = product;
+            } else if (kind == Kind.SUM) {
+                minPrefix[chunk] = lowest;
+                maxPrefix[chunk] = highest;
+            }
+            used[chunk] = any;
+        }
+
+        @Override
+        Result combine() {
+            if (isDecided()) {
+                return new Result(kind == Kind.PROD ? RRuntime.DOUBLE_NA : RRuntime.INT_NA, true, false, false);
+            }
+            boolean empty = true;
+            for (boolean u : used) {
+                empty &= !u;
+            }
+            switch (kind) {
+                case SUM:
+                    // an element by element sum of ints switches to doubles when it leaves the
+                    // int range, which happens if any prefix sum is out of the range
+                    long sum = start;
+                    boolean overflow = false;
+                    for (int i = 0; i < chunks; i++) {
+                        overflow |= sum + minPrefix[i] < -Integer.MAX_VALUE || sum + maxPrefix[i] > Integer.MAX_VALUE;
+                        sum += results[i];
+                    }
+                    return new Result(sum, false, empty, overflow);
+                case PROD:
+                    return new Result(product(products, exponents), false, empty, false);
+                case MIN:
+                    long min = start;
+                    for (long r : results) {
+                        min = Math.min(min, r);
+                    }
+                    return new Result(min, false, empty, false);
+                default:
+                    long max = start;
+                    for (long r : results) {
+                        max = Math.max(max, r);
+                    }
+                    return new Result(max, false, empty, false);
+            }
+        }
+    }
+
+    private static final class MeanReduction extends Reduction {
+        private final double[] doubles;
+        private final int[] ints;
+        private final byte[] logicals;
+        private final boolean compensated;
+        private final double[] sums;
+        private final double[] compensations;
+        private final double[] firstNA;
+
+        MeanReduction(double[] doubles, int[] ints, byte[] logicals, boolean compensated) {
+            super(doubles != null ? doubles.length : ints != null ? ints.length : logicals != null ? logicals.length : 0);
+            this.doubles = doubles;
+            this.ints = ints;
+            this.logicals = logicals;
+            this.compensated = compensated;
+            this.sums = new double[chunks];
+            this.compensations = new double[chunks];
+            this.firstNA = new double[chunks];
+        }
+
+        private double get(int i) {
+            if (doubles != null) {
+                return doubles[i];
+            } else if (ints != null) {
+                return RRuntime.isNA(ints[i]) ? RRuntime.DOUBLE_NA : ints[i];
+            } else {
+                return RRuntime.isNA(logicals[i]) ? RRuntime.DOUBLE_NA : logicals[i];
+            }
+        }
+
+        @Override
+        void reduceChunk(int chunk, int from, int to) {
+            double sum = 0;
+            double compensation = 0;
+            for (int i = from; i < to; i++) {
+                double value = get(i);
+                if (Double.isNaN(value)) {
+                    firstNA[chunk] = value;
+                    decide(chunk);
+                    return;
+                }
+                if (compensated) {
+                    double t = sum + value;
+                    if (Math.abs(sum) >= Math.abs(value)) {
+                        compensation += (sum - t) + value;
+                    } else {
+                        compensation += (value - t) + sum;
+                    }
+                    sum = t;
+                } else {
+                    sum += value;
+                }
+            }
+            sums[chunk] = sum;
+            compensations[chunk] = compensation;
+        }
+
+        @Override
+        Result combine() {
+            if (isDecided()) {
+                // all chunks before the deciding one were reduced, so it has the first NA or NaN
+                return new Result(firstNA[decidingChunk.get()], true, false, false);
+            }
+            double sum = compensated ? compensatedSum(sums, compensations) : pairwiseSum(sums, 0, chunks);
+            return new Result(sum / length, false, false, false);
+        }
+    }
+
+    private static final class ChunkTask extends RecursiveAction {
+        private final Reduction reduction;
+        private final int from;
+        private final int to;
+
+        ChunkTask(Reduction reduction, int from, int to) {
+            this.reduction = reduction;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ChunkTask(reduction, from, mid), new ChunkTask(reduction, mid, to));
+            } else {
+                reduction.run(from);
+            }
+        }
+    }
+}
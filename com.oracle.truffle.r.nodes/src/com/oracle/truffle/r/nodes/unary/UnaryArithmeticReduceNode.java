@@ -22,6 +22,9 @@
  */
 package com.oracle.truffle.r.nodes.unary;
 
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.TruffleLanguage;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Fallback;
 import com.oracle.truffle.api.dsl.ImportStatic;
@@ -33,10 +36,13 @@ import com.oracle.truffle.api.library.CachedLibrary;
 import com.oracle.truffle.api.profiles.BranchProfile;
 import com.oracle.truffle.api.profiles.ConditionProfile;
 import com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef;
+import com.oracle.truffle.r.nodes.builtin.ParallelReduction;
 import com.oracle.truffle.r.runtime.DSLConfig;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.context.TruffleRLanguage;
 import com.oracle.truffle.r.runtime.data.RComplex;
 import com.oracle.truffle.r.runtime.data.RDoubleVector;
 import com.oracle.truffle.r.runtime.data.RNull;
@@ -73,6 +79,7 @@ public abstract class UnaryArithmeticReduceNode extends RBaseNodeWithWarnings {
     @Child private BinaryArithmetic arithmetic;
 
     private final BinaryArithmeticFactory factory;
+    private final ParallelReduction.Kind parallelKind;
     protected final ReduceSemantics semantics;
     protected final boolean supportString;
     protected final boolean supportComplex;
@@ -80,6 +87,8 @@ public abstract class UnaryArithmeticReduceNode extends RBaseNodeWithWarnings {
     private final NACheck na = NACheck.create();
     private final ConditionProfile naRmProfile = ConditionProfile.createBinaryProfile();
     private final BranchProfile emptyProfile = BranchProfile.create();
+    private final ConditionProfile parallelProfile = ConditionProfile.createBinaryProfile();
+    @CompilationFinal private TruffleLanguage.ContextReference<RContext> ctxRef;
 
     private final BranchProfile intNANoOverflowProfile = BranchProfile.create();
 
@@ -87,10 +96,36 @@ public abstract class UnaryArithmeticReduceNode extends RBaseNodeWithWarnings {
         this.factory = factory;
         this.semantics = semantics;
         this.arithmetic = factory.createOperation();
+        this.parallelKind = getParallelKind(factory);
         this.supportString = semantics.supportString;
         this.supportComplex = semantics.supportComplex;
     }
 
+    private static ParallelReduction.Kind getParallelKind(BinaryArithmeticFactory factory) {
+        if (factory == BinaryArithmetic.ADD) {
+            return ParallelReduction.Kind.SUM;
+        } else if (factory == BinaryArithmetic.MIN) {
+            return ParallelReduction.Kind.MIN;
+        } else if (factory == BinaryArithmetic.MAX) {
+            return ParallelReduction.Kind.MAX;
+        }
+        return null;
+    }
+
+    private ParallelReduction.Result reduceParallel(RAbstractVector vector, boolean naRm, boolean finite) {
+        if (parallelKind == null) {
+            return null;
+        }
+        if (ctxRef == null) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            ctxRef = lookupContextReference(TruffleRLanguage.class);
+        }
+        if (parallelProfile.profile(ParallelReduction.isLong(vector, ctxRef.get()))) {
+            return ParallelReduction.reduce(parallelKind, vector, naRm, finite, semantics.getIntStart(), semantics.getDoubleStart());
+        }
+        return null;
+    }
+
     private void emptyWarning() {
         emptyProfile.enter();
         if (semantics.getEmptyWarning() != null) {
@@ -198,6 +233,18 @@ public abstract class UnaryArithmeticReduceNode extends RBaseNodeWithWarnings {
     }
 
     private Object doInt(RAbstractVector vector, boolean naRm, VectorAccess access) {
+        ParallelReduction.Result parallel = reduceParallel(vector, naRm, false);
+        if (parallel != null) {
+            if (parallel.isNA()) {
+                return RRuntime.INT_NA;
+            } else if (parallel.isEmpty()) {
+                emptyWarning();
+                if (semantics.isUseDoubleStartForEmptyVector()) {
+                    return semantics.getDoubleStart();
+                }
+            }
+            return parallel.isOverflow() ? (Object) parallel.getValue() : (Object) (int) parallel.getValue();
+        }
         boolean profiledNaRm = naRmProfile.profile(naRm);
         int result = semantics.getIntStart();
         int oldResult = result;
@@ -285,6 +332,13 @@ public abstract class UnaryArithmeticReduceNode extends RBaseNodeWithWarnings {
     }
 
     private double doDouble(RDoubleVector vector, boolean naRm, boolean finite, ConditionProfile finiteProfile, ConditionProfile isInfiniteProfile, VectorAccess access) {
+        ParallelReduction.Result parallel = reduceParallel(vector, naRm, finite);
+        if (parallel != null) {
+            if (parallel.isEmpty()) {
+                emptyWarning();
+            }
+            return parallel.getValue();
+        }
         boolean profiledNaRm = naRmProfile.profile(naRm);
         boolean profiledFinite = finiteProfile.profile(finite);
         double result = semantics.getDoubleStart();
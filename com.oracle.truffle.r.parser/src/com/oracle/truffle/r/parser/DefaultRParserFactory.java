@@ -22,6 +22,10 @@
  */
 package com.oracle.truffle.r.parser;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.List;
 
 import org.antlr.v4.runtime.ANTLRErrorStrategy;
@@ -242,4 +246,40 @@ public class DefaultRParserFactory extends RParserFactory {
     protected Parser createParser() {
         return new DefaultParser();
     }
+
+    private static String version;
+
+    /**
+     * The version is a digest of the generated parser and lexer classes, so that it changes with
+     * the grammar.
+     */
+    @Override
+    protected synchronized String getVersion() {
+        if (version == null) {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                for (Class<?> clazz : new Class<?>[]{RParser.class, RLexer.class}) {
+                    try (InputStream in = clazz.getResourceAsStream(clazz.getSimpleName() + ".class")) {
+                        if (in == null) {
+                            // e.g. in a native image
+                            return null;
+                        }
+                        byte[] buffer = new byte[8192];
+                        int n;
+                        while ((n = in.read(buffer)) > 0) {
+                            digest.update(buffer, 0, n);
+                        }
+                    }
+                }
+                StringBuilder sb = new StringBuilder();
+                for (byte b : digest.digest()) {
+                    sb.append(String.format("%02x", b));
+                }
+                version = sb.toString();
+            } catch (NoSuchAlgorithmException | IOException e) {
+                return null;
+            }
+        }
+        return version;
+    }
 }
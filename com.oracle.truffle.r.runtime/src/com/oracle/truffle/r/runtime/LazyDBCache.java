@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2015, 2019, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2015, 2020, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -23,21 +23,118 @@
 package com.oracle.truffle.r.runtime;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import com.oracle.truffle.api.TruffleFile;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.r.runtime.context.FastROptions;
 import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.RAttributesLayout;
+import com.oracle.truffle.r.runtime.data.RList;
+import com.oracle.truffle.r.runtime.data.RNull;
+import com.oracle.truffle.r.runtime.data.RSharingAttributeStorage;
+import com.oracle.truffle.r.runtime.data.model.RAbstractAtomicVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 
+/**
+ * Cache of the lazy-load databases ({@code .rdb} files) of packages. The files are memory-mapped
+ * read-only and the mappings are shared by all contexts of the process, so that loading the same
+ * packages in many (child) contexts does not copy the databases to the heap again and again. If
+ * the file system of the context does not provide a {@link FileChannel}, the file is read into a
+ * heap buffer instead.
+ *
+ * A context validates the shared entry (file size and modification time) the first time it
+ * accesses a database and then keeps using it until {@code lazyLoadDBflush} is called for it.
+ *
+ * The entries fetched from the databases are kept in the {@link ObjectCache}.
+ */
 public class LazyDBCache {
 
+    private static final class DBData {
+        private final long size;
+        private final FileTime lastModified;
+        private final ByteBuffer data;
+
+        DBData(long size, FileTime lastModified, ByteBuffer data) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.data = data;
+        }
+    }
+
+    /**
+     * The databases of all contexts keyed by canonical path.
+     */
+    private static final ConcurrentHashMap<String, DBData> sharedCache = new ConcurrentHashMap<>();
+
+    /**
+     * The key of a database in {@link #sharedCache}, relative paths and symbolic links must not
+     * lead to several copies of a database.
+     */
+    private static String sharedKey(TruffleFile dbFile) throws IOException {
+        return dbFile.getCanonicalFile().getPath();
+    }
+
+    private static ByteBuffer getSharedData(TruffleFile dbFile) throws IOException {
+        String key = sharedKey(dbFile);
+        long size = dbFile.size();
+        FileTime lastModified = dbFile.getLastModifiedTime();
+        DBData db = sharedCache.get(key);
+        if (db == null || db.size != size || !db.lastModified.equals(lastModified)) {
+            if (db != null) {
+                ObjectCache.invalidate(db.data);
+            }
+            db = new DBData(size, lastModified, load(dbFile, size));
+            // if another context was faster, both mappings are equivalent
+            sharedCache.put(key, db);
+        }
+        return db.data;
+    }
+
+    private static ByteBuffer load(TruffleFile file, long size) throws IOException {
+        try (SeekableByteChannel channel = file.newByteChannel(Collections.singleton(StandardOpenOption.READ))) {
+            if (channel instanceof FileChannel) {
+                // the mapping stays valid after the channel is closed
+                return ((FileChannel) channel).map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+        }
+        return ByteBuffer.wrap(file.readAllBytes()).asReadOnlyBuffer();
+    }
+
+    /**
+     * Copies {@code length} bytes starting at {@code offset} from the database buffer.
+     */
+    public static byte[] getBytes(ByteBuffer dbData, int offset, int length) {
+        byte[] result = new byte[length];
+        ByteBuffer slice = dbData.duplicate();
+        slice.position(offset);
+        slice.get(result);
+        return result;
+    }
+
     public static final class ContextStateImpl implements RContext.ContextState {
-        private final Map<String, byte[]> dbCache = new HashMap<>();
+        private final Map<String, ByteBuffer> dbCache = new HashMap<>();
 
-        public byte[] getData(RContext context, String dbPath) {
-            byte[] dbData = dbCache.get(dbPath);
+        /**
+         * Returns the read-only, big-endian contents of the database. The buffer is shared, so
+         * users must not change its position or limit but use absolute accessors or
+         * {@link LazyDBCache#getBytes}.
+         */
+        public ByteBuffer getData(RContext context, String dbPath) {
+            ByteBuffer dbData = dbCache.get(dbPath);
             if (dbData == null) {
                 try {
-                    dbData = context.getSafeTruffleFile(dbPath).readAllBytes();
+                    dbData = getSharedData(context.getSafeTruffleFile(dbPath));
                 } catch (IOException ex) {
                     // unexpected
                     throw RInternalError.shouldNotReachHere(ex);
@@ -47,13 +144,197 @@ public class LazyDBCache {
             return dbData;
         }
 
-        public void remove(String dbPath) {
+        public void remove(RContext context, String dbPath) {
             // no an error if missing
             dbCache.remove(dbPath);
+            TruffleFile file = context.getSafeTruffleFile(dbPath);
+            String key;
+            try {
+                key = sharedKey(file);
+            } catch (IOException ex) {
+                // e.g. the database was deleted, which leaves no symbolic links to resolve
+                key = file.getAbsoluteFile().normalize().getPath();
+            }
+            DBData db = sharedCache.remove(key);
+            if (db != null) {
+                ObjectCache.invalidate(db.data);
+            }
         }
 
         public static ContextStateImpl newContextState() {
             return new ContextStateImpl();
         }
     }
+
+    /**
+     * Process-wide cache of the entries fetched from the lazy-load databases, keyed by the
+     * (shared) database buffer and the offset of the entry. The value is the unserialized object
+     * if it is immutable data that can be shared by all contexts (see {@link #canShare}),
+     * otherwise the decompressed bytes, which saves the decompression but still needs to be
+     * unserialized in the calling context. The least recently used entries are evicted when the
+     * sum of the sizes of the decompressed entries exceeds the capacity.
+     */
+    public static final class ObjectCache {
+
+        private static final class Key {
+            private final ByteBuffer db;
+            private final int offset;
+
+            Key(ByteBuffer db, int offset) {
+                this.db = db;
+                this.offset = offset;
+            }
+
+            @Override
+            public boolean equals(Object obj) {
+                // the buffers are compared by identity, equals of ByteBuffer compares the contents
+                return obj instanceof Key && ((Key) obj).db == db && ((Key) obj).offset == offset;
+            }
+
+            @Override
+            public int hashCode() {
+                return System.identityHashCode(db) * 31 + offset;
+            }
+        }
+
+        private static final class Entry {
+            private final Object value;
+            private final long size;
+
+            Entry(Object value, long size) {
+                this.value = value;
+                this.size = size;
+            }
+        }
+
+        private static final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private static long totalSize;
+        private static volatile long capacity = -1;
+        private static long hits;
+        private static long misses;
+
+        private ObjectCache() {
+            // only static members
+        }
+
+        /**
+         * Returns the capacity of the cache in bytes. The cache is shared by the whole process, so
+         * its capacity is given by the {@link FastROptions#LazyLoadCacheSize} option of the first
+         * context that asks for it, the option of the other contexts is ignored.
+         */
+        public static synchronized long getCapacity(RContext context) {
+            if (capacity < 0) {
+                capacity = context.getNonNegativeIntOption(FastROptions.LazyLoadCacheSize) * 1024L * 1024L;
+            }
+            return capacity;
+        }
+
+        /**
+         * Returns the cached value, i.e. either a shared immutable object or the decompressed
+         * {@code byte[]}, or {@code null} if there is none.
+         */
+        public static synchronized Object get(ByteBuffer db, int offset) {
+            Entry entry = entries.get(new Key(db, offset));
+            if (entry == null) {
+                misses++;
+                return null;
+            }
+            hits++;
+            return entry.value;
+        }
+
+        /**
+         * Caches the entry at {@code offset} of {@code db}: {@code value} if it can be shared
+         * (it is then made shared permanent), otherwise the decompressed bytes {@code udata}.
+         */
+        public static void put(ByteBuffer db, int offset, Object value, byte[] udata) {
+            if (udata.length > capacity) {
+                return;
+            }
+            Object cached = udata;
+            if (canShare(value)) {
+                share(value);
+                cached = value;
+            }
+            synchronized (ObjectCache.class) {
+                Entry old = entries.put(new Key(db, offset), new Entry(cached, udata.length));
+                if (old != null) {
+                    totalSize -= old.size;
+                }
+                totalSize += udata.length;
+                Iterator<Entry> it = entries.values().iterator();
+                while (totalSize > capacity && it.hasNext()) {
+                    totalSize -= it.next().size;
+                    it.remove();
+                }
+            }
+        }
+
+        static synchronized void invalidate(ByteBuffer db) {
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, Entry> e = it.next();
+                if (e.getKey().db == db) {
+                    totalSize -= e.getValue().size;
+                    it.remove();
+                }
+            }
+        }
+
+        /**
+         * Returns the number of hits and misses, the number of entries and their size in bytes.
+         */
+        public static synchronized long[] getStatistics() {
+            return new long[]{hits, misses, entries.size(), totalSize};
+        }
+
+        /**
+         * Atomic vectors, and lists thereof, with only such attributes do not refer to anything
+         * context specific (environments, functions, etc.).
+         */
+        private static boolean canShare(Object value) {
+            if (value instanceof RAbstractAtomicVector) {
+                RAbstractVector vector = (RAbstractVector) value;
+                if (!vector.isMaterialized() || vector.hasNativeMemoryData()) {
+                    return false;
+                }
+            } else if (value instanceof RList) {
+                RList list = (RList) value;
+                for (int i = 0; i < list.getLength(); i++) {
+                    if (list.getDataAt(i) != RNull.instance && !canShare(list.getDataAt(i))) {
+                        return false;
+                    }
+                }
+            } else {
+                return false;
+            }
+            DynamicObject attributes = ((RAbstractVector) value).getAttributes();
+            if (attributes != null) {
+                for (RAttributesLayout.RAttribute a : RAttributesLayout.asIterable(attributes)) {
+                    if (!canShare(a.getValue())) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private static void share(Object value) {
+            ((RSharingAttributeStorage) value).makeSharedPermanent();
+            if (value instanceof RList) {
+                RList list = (RList) value;
+                for (int i = 0; i < list.getLength(); i++) {
+                    if (list.getDataAt(i) != RNull.instance) {
+                        share(list.getDataAt(i));
+                    }
+                }
+            }
+            DynamicObject attributes = ((RAbstractVector) value).getAttributes();
+            if (attributes != null) {
+                for (RAttributesLayout.RAttribute a : RAttributesLayout.asIterable(attributes)) {
+                    share(a.getValue());
+                }
+            }
+        }
+    }
 }
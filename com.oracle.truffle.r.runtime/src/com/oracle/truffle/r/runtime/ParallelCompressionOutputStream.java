@@ -0,0 +1,408 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.XZ;
+import org.tukaani.xz.XZOutputStream;
+
+/**
+ * Block-parallel compressor in the style of {@code pigz}/{@code pixz}. The data written to the
+ * stream are cut into blocks that are compressed on a {@link ForkJoinPool} while the writer
+ * produces the next blocks, the compressed blocks are written to the underlying stream in their
+ * order. The number of blocks in flight is limited by the parallelism of the pool and by
+ * {@link #MEMORY_BUDGET}, so the memory used is bounded and the writer is slowed down if the
+ * compression cannot keep up. The block buffers are reused once their block has been written.
+ * <ul>
+ * <li>gzip: the blocks are raw deflate streams ended by a sync flush (the last one by a final
+ * block) and primed with the last 32K of the previous block, together with a single gzip header
+ * and trailer they form one ordinary gzip member.</li>
+ * <li>xz, bzip2: every block is a complete stream, the result is a concatenation of streams, which
+ * is read by GNU R (and the {@code xz} and {@code bzip2} tools) as a single file.</li>
+ * </ul>
+ */
+public abstract class ParallelCompressionOutputStream extends OutputStream {
+
+    /**
+     * The memory (in bytes) that the blocks in flight may use together, at least one block is
+     * always allowed.
+     */
+    private static final long MEMORY_BUDGET = 256L << 20;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private static final class PendingBlock {
+        final Future<byte[]> result;
+        final byte[] data;
+
+        PendingBlock(Future<byte[]> result, byte[] data) {
+            this.result = result;
+            this.data = data;
+        }
+    }
+
+    private final OutputStream out;
+    private final ForkJoinPool pool;
+    private final ArrayDeque<PendingBlock> pending = new ArrayDeque<>();
+    private final ArrayDeque<byte[]> freeBlocks = new ArrayDeque<>();
+    private final int blockSize;
+    private final int maxPending;
+
+    /**
+     * The block being filled, allocated on the first write.
+     */
+    private byte[] block;
+    private int blockLength;
+    private byte[] dictionary;
+    private boolean anyBlock;
+    private boolean closed;
+
+    /**
+     * {@code blockMemory} is the memory (in bytes) needed by one block in flight, i.e., its buffer,
+     * the compressor and the compressed result.
+     */
+    protected ParallelCompressionOutputStream(OutputStream out, ForkJoinPool pool, int blockSize, long blockMemory) {
+        this.out = out;
+        this.pool = pool;
+        this.blockSize = blockSize;
+        this.maxPending = (int) Math.max(1, Math.min(pool.getParallelism(), MEMORY_BUDGET / blockMemory));
+    }
+
+    /**
+     * Creates a compressing stream for {@code type}, {@code level} is the compression level as
+     * used by R: {@code 0-9}, negative values request the default for gzip and bzip2, for xz the
+     * values {@code -1} to {@code -9} select the "extreme" variant of the preset {@code -level}
+     * (as {@code xzfile} does in GNU R).
+     */
+    public static OutputStream create(RCompression.Type type, OutputStream out, ForkJoinPool pool, int level) throws IOException {
+        switch (type) {
+            case GZIP:
+                return new GZipStream(out, pool, level < 0 ? 6 : Math.min(level, 9));
+            case XZ:
+                if (level < -9) {
+                    throw RInternalError.shouldNotReachHere("invalid xz compression level " + level);
+                }
+                return new XZStream(out, pool, Math.min(Math.abs(level), 9), level < 0);
+            case BZIP2:
+                return new BZip2Stream(out, pool, level < 1 ? 9 : Math.min(level, 9));
+            default:
+                throw RInternalError.shouldNotReachHere();
+        }
+    }
+
+    /**
+     * Compresses {@code length} bytes of {@code data}, {@code dictionary} is the end of the
+     * previous block (or {@code null}). Called concurrently for different blocks.
+     */
+    protected abstract byte[] compressBlock(byte[] data, int length, byte[] dictionary, boolean last) throws IOException;
+
+    /**
+     * Called in the order of the blocks before they are compressed.
+     */
+    protected void blockSubmitted(@SuppressWarnings("unused") byte[] data, @SuppressWarnings("unused") int length) {
+        // nothing by default
+    }
+
+    /**
+     * The length of the dictionary passed to the compression of the following block.
+     */
+    protected int dictionaryLength() {
+        return 0;
+    }
+
+    /**
+     * Whether an empty last block has to be compressed even if there were blocks before.
+     */
+    protected boolean needsLastBlock() {
+        return false;
+    }
+
+    protected void writeTrailer(@SuppressWarnings("unused") OutputStream os) throws IOException {
+        // nothing by default
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureBlock();
+        block[blockLength++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            ensureBlock();
+            int n = Math.min(remaining, block.length - blockLength);
+            System.arraycopy(b, offset, block, blockLength, n);
+            blockLength += n;
+            offset += n;
+            remaining -= n;
+        }
+    }
+
+    /**
+     * Makes sure that there is a block with free space, submits the current block if it is full.
+     */
+    private void ensureBlock() throws IOException {
+        if (block == null) {
+            block = newBlock();
+        } else if (blockLength == block.length) {
+            submit(false);
+        }
+    }
+
+    private byte[] newBlock() {
+        byte[] result = freeBlocks.poll();
+        return result != null ? result : new byte[blockSize];
+    }
+
+    private void submit(boolean last) throws IOException {
+        byte[] data = block == null ? EMPTY : block;
+        int length = blockLength;
+        byte[] dict = dictionary;
+        blockSubmitted(data, length);
+        int dictLength = Math.min(dictionaryLength(), length);
+        dictionary = dictLength == 0 ? null : Arrays.copyOfRange(data, length - dictLength, length);
+        anyBlock = true;
+        if (last && pending.isEmpty()) {
+            // nothing to overlap with
+            out.write(compressBlock(data, length, dict, true));
+            return;
+        }
+        while (pending.size() >= maxPending) {
+            writeCompleted(true);
+        }
+        pending.add(new PendingBlock(pool.submit(() -> compressBlock(data, length, dict, last)), data));
+        if (!last) {
+            block = newBlock();
+            blockLength = 0;
+        }
+    }
+
+    /**
+     * Writes the compressed blocks that are done (in order), waits for at least one if
+     * {@code wait} is {@code true}.
+     */
+    private void writeCompleted(boolean wait) throws IOException {
+        boolean waitForNext = wait;
+        while (!pending.isEmpty() && (waitForNext || pending.peek().result.isDone())) {
+            try {
+                PendingBlock done = pending.poll();
+                out.write(done.result.get());
+                if (done.data.length == blockSize) {
+                    freeBlocks.add(done.data);
+                }
+            } catch (InterruptedException ex) {
+                throw new IOException(ex);
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+            }
+            waitForNext = false;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeCompleted(false);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (blockLength > 0 || !anyBlock || needsLastBlock()) {
+                submit(true);
+            }
+            while (!pending.isEmpty()) {
+                writeCompleted(true);
+            }
+            writeTrailer(out);
+        } finally {
+            for (PendingBlock p : pending) {
+                p.result.cancel(false);
+            }
+            freeBlocks.clear();
+            out.close();
+        }
+    }
+
+    private static final class GZipStream extends ParallelCompressionOutputStream {
+        private static final int BLOCK_SIZE = 1 << 20;
+        private static final int DICTIONARY_SIZE = 1 << 15;
+
+        private final int level;
+        private final CRC32 crc = new CRC32();
+        private long totalLength;
+
+        GZipStream(OutputStream out, ForkJoinPool pool, int level) throws IOException {
+            // the deflater needs less than 300K
+            super(out, pool, BLOCK_SIZE, 2L * BLOCK_SIZE + (300 << 10));
+            this.level = level;
+            out.write(new byte[]{(byte) GZIPInputStream.GZIP_MAGIC, (byte) (GZIPInputStream.GZIP_MAGIC >> 8), Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0});
+        }
+
+        @Override
+        protected void blockSubmitted(byte[] data, int length) {
+            crc.update(data, 0, length);
+            totalLength += length;
+        }
+
+        @Override
+        protected int dictionaryLength() {
+            return DICTIONARY_SIZE;
+        }
+
+        @Override
+        protected boolean needsLastBlock() {
+            return true;
+        }
+
+        @Override
+        protected byte[] compressBlock(byte[] data, int length, byte[] dictionary, boolean last) {
+            Deflater deflater = new Deflater(level, true);
+            try {
+                if (dictionary != null) {
+                    deflater.setDictionary(dictionary);
+                }
+                deflater.setInput(data, 0, length);
+                ByteArrayOutputStream result = new ByteArrayOutputStream(length / 2 + 64);
+                byte[] buf = new byte[64 * 1024];
+                if (last) {
+                    deflater.finish();
+                    while (!deflater.finished()) {
+                        int n = deflater.deflate(buf);
+                        result.write(buf, 0, n);
+                    }
+                } else {
+                    int n;
+                    do {
+                        n = deflater.deflate(buf, 0, buf.length, Deflater.SYNC_FLUSH);
+                        result.write(buf, 0, n);
+                    } while (n == buf.length);
+                }
+                return result.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        @Override
+        protected void writeTrailer(OutputStream os) throws IOException {
+            int value = (int) crc.getValue();
+            int size = (int) totalLength;
+            os.write(new byte[]{(byte) value, (byte) (value >> 8), (byte) (value >> 16), (byte) (value >> 24), (byte) size, (byte) (size >> 8), (byte) (size >> 16), (byte) (size >> 24)});
+        }
+    }
+
+    private static final class XZStream extends ParallelCompressionOutputStream {
+        private static final int MIN_BLOCK_SIZE = 1 << 20;
+        private static final int MAX_BLOCK_SIZE = 8 << 20;
+
+        private final LZMA2Options options;
+
+        XZStream(OutputStream out, ForkJoinPool pool, int level, boolean extreme) throws IOException {
+            this(out, pool, createOptions(level, extreme));
+        }
+
+        private XZStream(OutputStream out, ForkJoinPool pool, LZMA2Options options) {
+            super(out, pool, blockSize(options), 2L * blockSize(options) + ((long) options.getEncoderMemoryUsage() << 10));
+            this.options = options;
+        }
+
+        /**
+         * The options of the preset {@code level}, the "extreme" variant is set up like in liblzma.
+         * The dictionary is not larger than a block, as it could not be used anyway.
+         */
+        private static LZMA2Options createOptions(int level, boolean extreme) throws IOException {
+            LZMA2Options options = new LZMA2Options(level);
+            if (extreme) {
+                options.setMode(LZMA2Options.MODE_NORMAL);
+                options.setMatchFinder(LZMA2Options.MF_BT4);
+                if (level == 3 || level == 5) {
+                    options.setNiceLen(192);
+                    options.setDepthLimit(0);
+                } else {
+                    options.setNiceLen(LZMA2Options.NICE_LEN_MAX);
+                    options.setDepthLimit(512);
+                }
+            }
+            int blockSize = blockSize(options);
+            if (options.getDictSize() > blockSize) {
+                options.setDictSize(blockSize);
+            }
+            return options;
+        }
+
+        /**
+         * Three times the dictionary size like "xz --threads", but at most
+         * {@link #MAX_BLOCK_SIZE}.
+         */
+        private static int blockSize(LZMA2Options options) {
+            return Math.min(MAX_BLOCK_SIZE, Math.max(MIN_BLOCK_SIZE, 3 * options.getDictSize()));
+        }
+
+        @Override
+        protected byte[] compressBlock(byte[] data, int length, byte[] dictionary, boolean last) throws IOException {
+            ByteArrayOutputStream result = new ByteArrayOutputStream(length / 4 + 64);
+            try (XZOutputStream xz = new XZOutputStream(result, options, XZ.CHECK_CRC32)) {
+                xz.write(data, 0, length);
+            }
+            return result.toByteArray();
+        }
+    }
+
+    private static final class BZip2Stream extends ParallelCompressionOutputStream {
+        private static final int BLOCK_SIZE = 8 << 20;
+
+        private final int level;
+
+        BZip2Stream(OutputStream out, ForkJoinPool pool, int level) {
+            // the compressor needs about eight times its block of up to 900K
+            super(out, pool, BLOCK_SIZE, 2L * BLOCK_SIZE + (8L * 900 << 10));
+            this.level = level;
+        }
+
+        @Override
+        protected byte[] compressBlock(byte[] data, int length, byte[] dictionary, boolean last) throws IOException {
+            return RCompression.bzipCompress(data, length, level);
+        }
+    }
+}
@@ -40,15 +40,21 @@ import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.Closure;
 import com.oracle.truffle.r.runtime.data.RAttributable;
 import com.oracle.truffle.r.runtime.data.RAttributesLayout;
+import com.oracle.truffle.r.runtime.data.RComplexVector;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
 import com.oracle.truffle.r.runtime.data.RFunction;
+import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.RPairList;
 import com.oracle.truffle.r.runtime.data.RList;
+import com.oracle.truffle.r.runtime.data.RLogicalVector;
 import com.oracle.truffle.r.runtime.data.RNull;
 import com.oracle.truffle.r.runtime.data.RPromise;
 import com.oracle.truffle.r.runtime.data.RPromise.PromiseState;
+import com.oracle.truffle.r.runtime.data.RRawVector;
 import com.oracle.truffle.r.runtime.data.RSharingAttributeStorage;
 import com.oracle.truffle.r.runtime.data.RUnboundValue;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 import com.oracle.truffle.r.runtime.env.REnvironment;
 import com.oracle.truffle.r.runtime.env.frame.FrameSlotChangeMonitor;
 import static com.oracle.truffle.r.runtime.env.frame.REnvTruffleFrameAccess.getStringIdentifiersAndValues;
@@ -60,11 +66,15 @@ import java.util.concurrent.TimeUnit;
 /**
  * Implementation of a channel abstraction used for communication between parallel contexts in
  * shared memory space.
+ *
+ * Values that cannot be modified by the receiver in place (atomic vectors, lists of such vectors,
+ * attributes) are passed by reference and made permanently shared so that neither side updates
+ * their reference counts or contents. Only environments, closures and promises are converted into
+ * a context-independent representation and only language objects and connections go through
+ * {@link RSerialize}.
  */
 public class RChannel {
 
-    // TODO: cheaper way of serializing data (re-usable buffer?)
-
     private static final int INITIAL_CHANNEL_NUM = 4;
     private static final int CHANNEL_NUM_GROW_FACTOR = 2;
     private static final int QUEUE_CAPACITY = 1;
@@ -79,6 +89,14 @@ public class RChannel {
      */
     private static final Semaphore create = new Semaphore(1, true);
 
+    /*
+     * Monitor used to wake up threads waiting in select() for a message on any of a set of
+     * channels; messageCount is bumped (under the monitor) on every send so that a message arriving
+     * between polling the queues and starting to wait is not missed
+     */
+    private static final Object messageSignal = new Object();
+    private static long messageCount = 0;
+
     private final ArrayBlockingQueue<Object> masterToClient = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
     private final ArrayBlockingQueue<Object> clientToMaster = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
 
@@ -219,6 +237,10 @@ public class RChannel {
         } catch (InterruptedException x) {
             throw RError.error(RError.SHOW_CALLER2, RError.Message.GENERIC, "error sending through the channel");
         }
+        synchronized (messageSignal) {
+            messageCount++;
+            messageSignal.notifyAll();
+        }
     }
 
     public static Object receive(int id) {
@@ -254,6 +276,54 @@ public class RChannel {
         return null;
     }
 
+    /**
+     * Waits until a message is available on any of the channels identified by {@code ids} and
+     * receives it. Unlike polling the channels in a loop, the calling thread is blocked until one of
+     * the channels is written to (or until the {@link FastROptions#ChannelReceiveTimeout} expires,
+     * if set).
+     *
+     * @return a two-element array containing the id of the channel the message was received from
+     *         and the message itself
+     */
+    public static Object[] select(int[] ids) {
+        RChannel[] selected = new RChannel[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            selected[i] = getChannelFromId(ids[i]);
+        }
+        int timeout = RContext.getInstance().getNonNegativeIntOption(ChannelReceiveTimeout);
+        long deadline = timeout > 0 ? System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout) : 0;
+        try {
+            while (true) {
+                long seenCount;
+                synchronized (messageSignal) {
+                    seenCount = messageCount;
+                }
+                for (int i = 0; i < ids.length; i++) {
+                    Object msg = (ids[i] < 0 ? selected[i].masterToClient : selected[i].clientToMaster).poll();
+                    if (msg != null) {
+                        Input in = new Input();
+                        return new Object[]{ids[i], in.processedReceivedMessage(msg)};
+                    }
+                }
+                synchronized (messageSignal) {
+                    while (messageCount == seenCount) {
+                        if (timeout > 0) {
+                            long remaining = deadline - System.nanoTime();
+                            if (remaining <= 0) {
+                                throw RError.error(RError.SHOW_CALLER2, RError.Message.GENERIC, "timeout while receiving from the channel");
+                            }
+                            TimeUnit.NANOSECONDS.timedWait(messageSignal, remaining);
+                        } else {
+                            messageSignal.wait();
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException x) {
+            throw RError.error(RError.SHOW_CALLER2, RError.Message.GENERIC, "error receiving from the channel");
+        }
+    }
+
     private static class TransmitterCommon extends RSerialize.RefCounter {
 
         protected static class SerializedRef {
@@ -456,13 +526,44 @@ public class RChannel {
             }
         }
 
+        /**
+         * Creates a vector using the same backing array as {@code v} so that the (potentially
+         * large) payload does not have to be copied when only the attributes need to be converted.
+         * Both vectors are made permanently shared which guarantees that neither the sender nor the
+         * receiver updates the common array in place. Returns {@code null} if {@code v} is not
+         * backed by a managed array.
+         */
+        private static RAbstractVector shareData(RAbstractVector v) {
+            if (!v.isMaterialized() || v.hasNativeMemoryData()) {
+                return null;
+            }
+            RAbstractVector result;
+            if (v instanceof RDoubleVector) {
+                result = RDataFactory.createDoubleVector(((RDoubleVector) v).getInternalManagedData(), v.isComplete());
+            } else if (v instanceof RIntVector) {
+                result = RDataFactory.createIntVector(((RIntVector) v).getInternalManagedData(), v.isComplete());
+            } else if (v instanceof RLogicalVector) {
+                result = RDataFactory.createLogicalVector(((RLogicalVector) v).getInternalManagedData(), v.isComplete());
+            } else if (v instanceof RRawVector) {
+                result = RDataFactory.createRawVector(((RRawVector) v).getInternalManagedData());
+            } else if (v instanceof RComplexVector) {
+                result = RDataFactory.createComplexVector(((RComplexVector) v).getInternalManagedData(), v.isComplete());
+            } else {
+                return null;
+            }
+            v.makeSharedPermanent();
+            result.makeSharedPermanent();
+            return result;
+        }
+
         @TruffleBoundary
         private Object convertObjectAttributesToPrivate(Object msg) throws IOException {
             RAttributable attributable = (RAttributable) msg;
             DynamicObject attr = attributable.getAttributes();
             DynamicObject newAttr = createShareableSlow(attr, false);
             if (newAttr != attr && RSharingAttributeStorage.isShareable(attributable)) {
-                attributable = ((RSharingAttributeStorage) msg).copy();
+                RAbstractVector sharedData = msg instanceof RAbstractVector ? shareData((RAbstractVector) msg) : null;
+                attributable = sharedData != null ? sharedData : ((RSharingAttributeStorage) msg).copy();
             }
             // see convertListAttributesToPrivate() why it is OK to use initAttributes() here
             attributable.initAttributes(newAttr);
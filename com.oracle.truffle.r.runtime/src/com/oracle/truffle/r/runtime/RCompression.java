@@ -28,8 +28,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.ProcessBuilder.Redirect;
-import java.nio.file.OpenOption;
-import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.zip.GZIPInputStream;
 
@@ -41,6 +39,8 @@ import com.oracle.truffle.r.runtime.ffi.ZipRFFI;
 /**
  * Abstracts the implementation of the various forms of compression used in R. Since the C API for
  * LZMA is very complex (as used by GnuR), we use an 'xz' subprocess to do the work.
+ *
+ * The compressed file connections write through a {@link ParallelCompressionOutputStream}.
  */
 public class RCompression {
     public enum Type {
@@ -221,8 +221,12 @@ public class RCompression {
         throw new IOException();
     }
 
-    public static void bzipCompressToFile(byte[] data, TruffleFile path, boolean append) throws IOException {
-        String[] command = new String[]{"bzip2", "-zc"};
+    /**
+     * Compresses the first {@code length} bytes of {@code data} into a complete bzip2 stream using
+     * a sub-process.
+     */
+    public static byte[] bzipCompress(byte[] data, int length, int level) throws IOException {
+        String[] command = new String[]{"bzip2", "-zc", "-" + level};
         int rc;
         ProcessBuilder pb = new ProcessBuilder(command);
         pb.redirectError(Redirect.INHERIT);
@@ -231,16 +235,13 @@ public class RCompression {
         OutputStream os = p.getOutputStream();
         ProcessOutputManager.OutputThreadVariable readThread = new ProcessOutputManager.OutputThreadVariable(command[0], is);
         readThread.start();
-        os.write(data);
+        os.write(data, 0, length);
         os.close();
         try {
             rc = p.waitFor();
             if (rc == 0) {
                 readThread.join();
-                byte[] cData = Arrays.copyOf(readThread.getData(), readThread.getTotalRead());
-                OpenOption[] openOptions = append ? new OpenOption[]{StandardOpenOption.APPEND} : new OpenOption[0];
-                path.newOutputStream(openOptions).write(cData);
-                return;
+                return Arrays.copyOf(readThread.getData(), readThread.getTotalRead());
             } else {
                 throw new IOException("bzip2 error code: " + rc);
             }
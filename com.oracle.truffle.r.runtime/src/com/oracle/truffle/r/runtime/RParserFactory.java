@@ -64,6 +64,18 @@ public abstract class RParserFactory {
         return getInstance().createParser();
     }
 
+    /**
+     * Returns a string that changes whenever the parser may produce different ASTs, e.g. to
+     * validate ASTs cached across runs, or {@code null} if there is no such version.
+     */
+    public static String getParserVersion() {
+        return getInstance().getVersion();
+    }
+
     protected abstract Parser createParser();
 
+    protected String getVersion() {
+        return null;
+    }
+
 }
@@ -455,6 +455,15 @@ public class RRuntime {
 
     @TruffleBoundary
     public static double string2doubleNoCheck(String v, boolean exceptionOnFail, boolean useLocale) {
+        return string2doubleNoCheck(v, exceptionOnFail, useLocale ? RContext.getInstance().stateRLocale.getLocale(RLocale.NUMERIC) : null);
+    }
+
+    /**
+     * Variant of {@link #string2doubleNoCheck(String, boolean, boolean)} that takes the numeric
+     * locale explicitly ({@code null} for none), so that it can be used off the context's thread.
+     */
+    @TruffleBoundary
+    public static double string2doubleNoCheck(String v, boolean exceptionOnFail, Locale numLocale) {
         // FIXME use R rules
         String trimmed = v.trim();
         if ("Inf".equals(trimmed) || "+Inf".equals(trimmed)) {
@@ -467,12 +476,11 @@ public class RRuntime {
             return DOUBLE_NA;
         }
         try {
-            if (useLocale) {
+            if (numLocale != null) {
                 ParsePosition ppos = new ParsePosition(0);
                 if (trimmed.startsWith("+")) {
                     trimmed = trimmed.substring(1);
                 }
-                Locale numLocale = RContext.getInstance().stateRLocale.getLocale(RLocale.NUMERIC);
                 Number val = NumberFormat.getInstance(numLocale).parse(trimmed, ppos);
                 if (ppos.getIndex() < trimmed.length()) {
                     throw new NumberFormatException("Unparseable number: \"" + trimmed + "\". Failed at index " + ppos.getErrorIndex());
@@ -22,11 +22,11 @@ package com.oracle.truffle.r.runtime;
 import com.oracle.truffle.api.TruffleFile;
 import com.oracle.truffle.r.runtime.context.FastROptions;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.NoSuchFileException;
 import java.util.ArrayList;
@@ -264,6 +264,10 @@ public class RSerialize {
 
     public static final class ContextStateImpl implements RContext.ContextState {
 
+        private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+        private ByteBuffer outputBuffer;
+
         /**
          * {@code ...getNamespace} in "namespace.R", used to callback to handle a
          * {@link SEXPTYPE#NAMESPACESXP} item.
@@ -285,6 +289,24 @@ public class RSerialize {
             return dotDotFindNamespace;
         }
 
+        /**
+         * Returns the direct buffer used to serialize to connections. Nested serializations (e.g.
+         * from a refhook) get a fresh one.
+         */
+        ByteBuffer takeOutputBuffer() {
+            ByteBuffer result = outputBuffer;
+            outputBuffer = null;
+            if (result == null) {
+                result = ByteBuffer.allocateDirect(OUTPUT_BUFFER_SIZE);
+            }
+            result.clear();
+            return result;
+        }
+
+        void releaseOutputBuffer(ByteBuffer buffer) {
+            outputBuffer = buffer;
+        }
+
         public static ContextStateImpl newContextState() {
             return new ContextStateImpl();
         }
@@ -292,6 +314,11 @@ public class RSerialize {
 
     private static final int MAX_PACKED_INDEX = Integer.MAX_VALUE >> 8;
 
+    /**
+     * Number of elements converted at once when a vector is not backed by a plain array.
+     */
+    private static final int BULK_CHUNK_SIZE = 4096;
+
     private static int packRefIndex(int i) {
         return (i << 8) | SEXPTYPE.REFSXP.code;
     }
@@ -853,13 +880,13 @@ public class RSerialize {
                 case INTSXP: {
                     int len = stream.readInt();
                     int[] data = new int[len];
+                    stream.readInts(data, 0, len);
                     boolean complete = RDataFactory.COMPLETE_VECTOR;
                     for (int i = 0; i < len; i++) {
-                        int intVal = stream.readInt();
-                        if (intVal == RRuntime.INT_NA) {
+                        if (data[i] == RRuntime.INT_NA) {
                             complete = false;
+                            break;
                         }
-                        data[i] = intVal;
                     }
                     result = RDataFactory.createIntVector(data, complete);
                     break;
@@ -869,13 +896,18 @@ public class RSerialize {
                     int len = stream.readInt();
                     byte[] data = new byte[len];
                     boolean complete = RDataFactory.COMPLETE_VECTOR;
-                    for (int i = 0; i < len; i++) {
-                        int intVal = stream.readInt();
-                        if (intVal == RRuntime.INT_NA) {
-                            complete = false;
-                            data[i] = RRuntime.LOGICAL_NA;
-                        } else {
-                            data[i] = (byte) intVal;
+                    int[] chunk = new int[Math.min(len, BULK_CHUNK_SIZE)];
+                    for (int start = 0; start < len; start += chunk.length) {
+                        int n = Math.min(len - start, chunk.length);
+                        stream.readInts(chunk, 0, n);
+                        for (int i = 0; i < n; i++) {
+                            int intVal = chunk[i];
+                            if (intVal == RRuntime.INT_NA) {
+                                complete = false;
+                                data[start + i] = RRuntime.LOGICAL_NA;
+                            } else {
+                                data[start + i] = (byte) intVal;
+                            }
                         }
                     }
                     result = RDataFactory.createLogicalVector(data, complete);
@@ -885,13 +917,13 @@ public class RSerialize {
                 case REALSXP: {
                     int len = stream.readInt();
                     double[] data = new double[len];
+                    stream.readDoubles(data, 0, len);
                     boolean complete = RDataFactory.COMPLETE_VECTOR;
                     for (int i = 0; i < len; i++) {
-                        double doubleVal = stream.readDouble();
-                        if (RRuntime.isNA(doubleVal)) {
+                        if (RRuntime.isNA(data[i])) {
                             complete = false;
+                            break;
                         }
-                        data[i] = doubleVal;
                     }
                     result = RDataFactory.createDoubleVector(data, complete);
                     break;
@@ -900,23 +932,17 @@ public class RSerialize {
                 case CPLXSXP: {
                     int len = stream.readInt();
                     double[] data = new double[2 * len];
+                    stream.readDoubles(data, 0, 2 * len);
                     boolean complete = RDataFactory.COMPLETE_VECTOR;
-                    for (int i = 0; i < len; i++) {
-                        int ix = 2 * i;
-                        double reVal = stream.readDouble();
-                        if (RRuntime.isNA(reVal)) {
+                    for (int ix = 0; ix < data.length; ix += 2) {
+                        boolean reNA = RRuntime.isNA(data[ix]);
+                        boolean imNA = RRuntime.isNA(data[ix + 1]);
+                        if (reNA || imNA) {
                             complete = false;
-                        }
-                        double imVal = stream.readDouble();
-                        if (RRuntime.isNA(imVal)) {
-                            complete = false;
-                        }
-                        if (RRuntime.isNA(reVal) && RRuntime.isNA(imVal)) {
-                            data[ix] = RRuntime.COMPLEX_NA_REAL_PART;
-                            data[ix + 1] = RRuntime.COMPLEX_NA_IMAGINARY_PART;
-                        } else {
-                            data[ix] = reVal;
-                            data[ix + 1] = imVal;
+                            if (reNA && imNA) {
+                                data[ix] = RRuntime.COMPLEX_NA_REAL_PART;
+                                data[ix + 1] = RRuntime.COMPLEX_NA_IMAGINARY_PART;
+                            }
                         }
                     }
                     result = RDataFactory.createComplexVector(data, complete);
@@ -1228,6 +1254,16 @@ public class RSerialize {
 
         abstract void readRaw(byte[] data) throws IOException;
 
+        /**
+         * Reads {@code length} ints into {@code data} starting at {@code offset}.
+         */
+        abstract void readInts(int[] data, int offset, int length) throws IOException;
+
+        /**
+         * Reads {@code length} doubles into {@code data} starting at {@code offset}.
+         */
+        abstract void readDoubles(double[] data, int offset, int length) throws IOException;
+
     }
 
     @SuppressWarnings("unused")
@@ -1368,6 +1404,37 @@ public class RSerialize {
             ensureData(data.length).readRaw(data);
         }
 
+        /*
+         * The bulk reads decode whole buffers at once through big-endian ByteBuffer views, which
+         * is much faster than assembling the values byte by byte.
+         */
+
+        @Override
+        void readInts(int[] data, int offset, int length) throws IOException {
+            int pos = offset;
+            int end = offset + length;
+            while (pos < end) {
+                int n = Math.min(end - pos, Math.max(defaultBuffer.buf.length / Integer.BYTES, 1));
+                Buffer buffer = ensureData(n * Integer.BYTES);
+                ByteBuffer.wrap(buffer.buf, buffer.offset, n * Integer.BYTES).asIntBuffer().get(data, pos, n);
+                buffer.offset += n * Integer.BYTES;
+                pos += n;
+            }
+        }
+
+        @Override
+        void readDoubles(double[] data, int offset, int length) throws IOException {
+            int pos = offset;
+            int end = offset + length;
+            while (pos < end) {
+                int n = Math.min(end - pos, Math.max(defaultBuffer.buf.length / Double.BYTES, 1));
+                Buffer buffer = ensureData(n * Double.BYTES);
+                ByteBuffer.wrap(buffer.buf, buffer.offset, n * Double.BYTES).asDoubleBuffer().get(data, pos, n);
+                buffer.offset += n * Double.BYTES;
+                pos += n;
+            }
+        }
+
         private Buffer ensureData(int n) throws IOException {
             Buffer usedBuffer;
             if (n > defaultBuffer.buf.length) {
@@ -1449,12 +1516,6 @@ public class RSerialize {
 
     private abstract static class POutputStream {
 
-        protected OutputStream os;
-
-        POutputStream(OutputStream os) {
-            this.os = os;
-        }
-
         abstract void writeInt(int value) throws IOException;
 
         abstract void writeString(String value) throws IOException;
@@ -1463,28 +1524,37 @@ public class RSerialize {
 
         abstract void writeRaw(byte value) throws IOException;
 
+        abstract void writeInts(int[] values, int offset, int length) throws IOException;
+
+        abstract void writeDoubles(double[] values, int offset, int length) throws IOException;
+
+        abstract void writeRaws(byte[] values, int offset, int length) throws IOException;
+
         abstract void flush() throws IOException;
 
     }
 
+    /**
+     * Writes the XDR format into a (big-endian) {@link ByteBuffer}. When the buffer is full, it is
+     * written to the channel and reused, so that the serialized image is never held in memory as a
+     * whole. The channel write blocks, which slows the serialization down to the speed of the
+     * connection.
+     */
     private static class XdrOutputFormat extends POutputStream {
-        private final byte[] buf;
-        private int offset;
+        protected ByteBuffer buf;
+        private final WritableByteChannel channel;
 
-        XdrOutputFormat(OutputStream os) {
-            super(os);
-            buf = new byte[8192];
-            buf[offset++] = 'X';
-            buf[offset++] = '\n';
+        XdrOutputFormat(ByteBuffer buf, WritableByteChannel channel) {
+            this.buf = buf;
+            this.channel = channel;
+            buf.put((byte) 'X');
+            buf.put((byte) '\n');
         }
 
         @Override
         void writeInt(int value) throws IOException {
             ensureSpace(4);
-            buf[offset++] = (byte) (value >>> 24);
-            buf[offset++] = (byte) (value >> 16);
-            buf[offset++] = (byte) (value >> 8);
-            buf[offset++] = (byte) value;
+            buf.putInt(value);
         }
 
         @Override
@@ -1496,68 +1566,168 @@ public class RSerialize {
                     break;
                 }
             }
-            if (simple && value.length() <= buf.length) {
+            if (simple && value.length() <= buf.capacity()) {
                 writeInt(value.length());
                 ensureSpace(value.length());
                 for (int i = 0; i < value.length(); i++) {
-                    buf[offset++] = (byte) value.charAt(i);
+                    buf.put((byte) value.charAt(i));
                 }
             } else {
                 byte[] bytes = value.getBytes();
-                int bytesLen = bytes.length;
-                int totalLen = bytesLen + 4;
-                if (totalLen > buf.length) {
-                    // too large to fit buffer
-                    ensureSpace(4);
-                    writeInt(bytesLen);
-                    flushBuffer();
-                    os.write(bytes);
-                } else {
-                    ensureSpace(totalLen);
-                    writeInt(bytesLen);
-                    System.arraycopy(bytes, 0, buf, offset, bytesLen);
-                    offset += bytesLen;
-                }
+                writeInt(bytes.length);
+                writeBytes(bytes, 0, bytes.length);
             }
         }
 
         @Override
         void writeRaw(byte value) throws IOException {
             ensureSpace(1);
-            buf[offset++] = value;
+            buf.put(value);
         }
 
         @Override
         void writeDouble(double value) throws IOException {
             ensureSpace(8);
-            long valueBits = Double.doubleToRawLongBits(value);
-            buf[offset++] = (byte) (valueBits >>> 56);
-            buf[offset++] = (byte) ((valueBits >> 48) & 0xff);
-            buf[offset++] = (byte) ((valueBits >> 40) & 0xff);
-            buf[offset++] = (byte) ((valueBits >> 32) & 0xff);
-            buf[offset++] = (byte) ((valueBits >> 24) & 0xff);
-            buf[offset++] = (byte) ((valueBits >> 16) & 0xff);
-            buf[offset++] = (byte) ((valueBits >> 8) & 0xff);
-            buf[offset++] = (byte) (valueBits & 0xff);
-        }
-
-        private void ensureSpace(int n) throws IOException {
-            if (offset + n > buf.length) {
+            // ByteBuffer uses the raw bits, i.e. the payload of NA is kept
+            buf.putDouble(value);
+        }
+
+        @Override
+        void writeInts(int[] values, int offset, int length) throws IOException {
+            int pos = offset;
+            int end = offset + length;
+            while (pos < end) {
+                ensureSpace(Integer.BYTES);
+                int n = Math.min(end - pos, buf.remaining() / Integer.BYTES);
+                buf.asIntBuffer().put(values, pos, n);
+                buf.position(buf.position() + n * Integer.BYTES);
+                pos += n;
+            }
+        }
+
+        @Override
+        void writeDoubles(double[] values, int offset, int length) throws IOException {
+            int pos = offset;
+            int end = offset + length;
+            while (pos < end) {
+                ensureSpace(Double.BYTES);
+                int n = Math.min(end - pos, buf.remaining() / Double.BYTES);
+                buf.asDoubleBuffer().put(values, pos, n);
+                buf.position(buf.position() + n * Double.BYTES);
+                pos += n;
+            }
+        }
+
+        @Override
+        void writeRaws(byte[] values, int offset, int length) throws IOException {
+            writeBytes(values, offset, length);
+        }
+
+        protected final void ensureSpace(int n) throws IOException {
+            if (buf.remaining() < n) {
+                makeSpace(n);
+            }
+        }
+
+        /**
+         * Makes room for at least {@code n} bytes in {@link #buf}.
+         */
+        protected void makeSpace(@SuppressWarnings("unused") int n) throws IOException {
+            flushBuffer();
+        }
+
+        protected void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+            if (length <= buf.remaining()) {
+                buf.put(bytes, offset, length);
+            } else {
+                // too large to fit buffer
                 flushBuffer();
+                writeFully(ByteBuffer.wrap(bytes, offset, length));
+            }
+        }
+
+        private void writeFully(ByteBuffer src) throws IOException {
+            while (src.hasRemaining()) {
+                channel.write(src);
             }
         }
 
         void flushBuffer() throws IOException {
-            if (offset > 0) {
-                os.write(buf, 0, offset);
-                offset = 0;
+            if (buf.position() > 0) {
+                buf.flip();
+                writeFully(buf);
+                buf.clear();
             }
         }
 
         @Override
         void flush() throws IOException {
             flushBuffer();
-            os.flush();
+        }
+    }
+
+    /**
+     * Writes the XDR format into heap buffers of geometrically growing size. Filled buffers are
+     * kept as they are (and not copied into a bigger one), so only {@link #toByteArray()} copies
+     * the data, into an array of the exact size.
+     */
+    private static final class XdrMemoryOutputFormat extends XdrOutputFormat {
+        private static final int INITIAL_SIZE = 8192;
+        private static final int MAX_CHUNK_SIZE = 64 << 20;
+
+        private final ArrayList<ByteBuffer> filled = new ArrayList<>();
+        private long filledSize;
+
+        XdrMemoryOutputFormat() {
+            super(ByteBuffer.allocate(INITIAL_SIZE), null);
+        }
+
+        @Override
+        protected void makeSpace(int n) {
+            buf.flip();
+            filled.add(buf);
+            filledSize += buf.remaining();
+            int size = (int) Math.min(Math.max(filledSize, INITIAL_SIZE), MAX_CHUNK_SIZE);
+            buf = ByteBuffer.allocate(Math.max(size, n));
+        }
+
+        @Override
+        protected void writeBytes(byte[] bytes, int offset, int length) {
+            int pos = offset;
+            int end = offset + length;
+            while (pos < end) {
+                if (!buf.hasRemaining()) {
+                    makeSpace(1);
+                }
+                int n = Math.min(end - pos, buf.remaining());
+                buf.put(bytes, pos, n);
+                pos += n;
+            }
+        }
+
+        @Override
+        void flush() {
+            // nothing to do, the data are retrieved by toByteArray
+        }
+
+        byte[] toByteArray() {
+            long size = filledSize + buf.position();
+            if (size > Integer.MAX_VALUE) {
+                throw RError.error(RError.SHOW_CALLER, RError.Message.GENERIC, "serialized object is too large to be stored in a raw vector");
+            }
+            byte[] result = new byte[(int) size];
+            int offset = 0;
+            for (int i = 0; i < filled.size(); i++) {
+                ByteBuffer chunk = filled.get(i);
+                int n = chunk.remaining();
+                chunk.get(result, offset, n);
+                offset += n;
+                // allow the chunk to be collected while the rest is copied
+                filled.set(i, null);
+            }
+            buf.flip();
+            buf.get(result, offset, buf.remaining());
+            return result;
         }
     }
 
@@ -1573,7 +1743,11 @@ public class RSerialize {
         private final int version;
         private final RContext context;
 
-        private Output(RContext context, int format, int version, CallHook hook, OutputStream os) throws IOException {
+        /**
+         * Writes to {@code channel} through {@code buffer} or into memory if {@code channel} is
+         * {@code null}.
+         */
+        private Output(RContext context, int format, int version, CallHook hook, WritableByteChannel channel, ByteBuffer buffer) throws IOException {
             super(hook);
             this.context = context;
             this.state = new PLState(context, hook != null ? hook.getSessionRef() : null);
@@ -1584,7 +1758,7 @@ public class RSerialize {
                 case BINARY:
                     throw formatError((byte) format, true);
                 default:
-                    stream = new XdrOutputFormat(os);
+                    stream = channel == null ? new XdrMemoryOutputFormat() : new XdrOutputFormat(buffer, channel);
                     break;
             }
         }
@@ -1772,27 +1946,44 @@ public class RSerialize {
                                 break;
                             }
 
-                            case INTSXP:
+                            case INTSXP: {
+                                RIntVector vector = (RIntVector) obj;
+                                int[] data = vector.isMaterialized() ? vector.getInternalManagedData() : null;
+                                if (data != null) {
+                                    stream.writeInt(data.length);
+                                    stream.writeInts(data, 0, data.length);
+                                } else {
+                                    writeIntsFromAccess(vector);
+                                }
+                                break;
+                            }
+
                             case LGLSXP: {
                                 // logicals are written as ints
-                                RAbstractVector vector = (RAbstractVector) obj;
-                                VectorAccess access = vector.slowPathAccess();
-                                try (SequentialIterator iter = access.access(vector)) {
-                                    stream.writeInt(access.getLength(iter));
-                                    while (access.next(iter)) {
-                                        stream.writeInt(access.getInt(iter));
-                                    }
-                                }
+                                writeIntsFromAccess((RAbstractVector) obj);
                                 break;
                             }
 
                             case REALSXP: {
                                 RDoubleVector vector = (RDoubleVector) obj;
-                                VectorAccess access = vector.slowPathAccess();
-                                try (SequentialIterator iter = access.access(vector)) {
-                                    stream.writeInt(access.getLength(iter));
-                                    while (access.next(iter)) {
-                                        stream.writeDouble(access.getDouble(iter));
+                                double[] data = vector.isMaterialized() ? vector.getInternalManagedData() : null;
+                                if (data != null) {
+                                    stream.writeInt(data.length);
+                                    stream.writeDoubles(data, 0, data.length);
+                                } else {
+                                    VectorAccess access = vector.slowPathAccess();
+                                    try (SequentialIterator iter = access.access(vector)) {
+                                        stream.writeInt(access.getLength(iter));
+                                        double[] chunk = new double[Math.min(access.getLength(iter), BULK_CHUNK_SIZE)];
+                                        int n = 0;
+                                        while (access.next(iter)) {
+                                            chunk[n++] = access.getDouble(iter);
+                                            if (n == chunk.length) {
+                                                stream.writeDoubles(chunk, 0, n);
+                                                n = 0;
+                                            }
+                                        }
+                                        stream.writeDoubles(chunk, 0, n);
                                     }
                                 }
                                 break;
@@ -1803,15 +1994,23 @@ public class RSerialize {
                                 VectorAccess access = vector.slowPathAccess();
                                 try (SequentialIterator iter = access.access(vector)) {
                                     stream.writeInt(access.getLength(iter));
+                                    double[] chunk = new double[2 * Math.min(access.getLength(iter), BULK_CHUNK_SIZE)];
+                                    int n = 0;
                                     while (access.next(iter)) {
-                                        if (access.isNA(iter)) {
-                                            stream.writeDouble(RRuntime.DOUBLE_NA);
-                                            stream.writeDouble(RRuntime.DOUBLE_NA);
-                                        } else {
-                                            stream.writeDouble(access.getComplexR(iter));
-                                            stream.writeDouble(access.getComplexI(iter));
+                                        double re = access.getComplexR(iter);
+                                        double im = access.getComplexI(iter);
+                                        if (RRuntime.isNA(re, im)) {
+                                            re = RRuntime.DOUBLE_NA;
+                                            im = RRuntime.DOUBLE_NA;
+                                        }
+                                        chunk[n++] = re;
+                                        chunk[n++] = im;
+                                        if (n == chunk.length) {
+                                            stream.writeDoubles(chunk, 0, n);
+                                            n = 0;
                                         }
                                     }
+                                    stream.writeDoubles(chunk, 0, n);
                                 }
                                 break;
                             }
@@ -1831,13 +2030,9 @@ public class RSerialize {
 
                             case RAWSXP: {
                                 RRawVector vector = (RRawVector) obj;
-                                VectorAccess access = vector.slowPathAccess();
-                                try (SequentialIterator iter = access.access(vector)) {
-                                    stream.writeInt(access.getLength(iter));
-                                    while (access.next(iter)) {
-                                        stream.writeRaw(access.getRaw(iter));
-                                    }
-                                }
+                                byte[] data = vector.getReadonlyData();
+                                stream.writeInt(data.length);
+                                stream.writeRaws(data, 0, data.length);
                                 break;
                             }
 
@@ -1986,6 +2181,23 @@ public class RSerialize {
             return result;
         }
 
+        private void writeIntsFromAccess(RAbstractVector vector) throws IOException {
+            VectorAccess access = vector.slowPathAccess();
+            try (SequentialIterator iter = access.access(vector)) {
+                stream.writeInt(access.getLength(iter));
+                int[] chunk = new int[Math.min(access.getLength(iter), BULK_CHUNK_SIZE)];
+                int n = 0;
+                while (access.next(iter)) {
+                    chunk[n++] = access.getInt(iter);
+                    if (n == chunk.length) {
+                        stream.writeInts(chunk, 0, n);
+                        n = 0;
+                    }
+                }
+                stream.writeInts(chunk, 0, n);
+            }
+        }
+
         private void outStringVec(RStringVector vec, boolean strsxp) throws IOException {
             if (!strsxp) {
                 stream.writeInt(0);
@@ -2445,11 +2657,10 @@ public class RSerialize {
      */
     @TruffleBoundary
     public static byte[] serialize(RContext context, Object obj, int type, int version, Object refhook) {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
         try {
-            Output output = new Output(context, type, version, (CallHook) refhook, out);
+            Output output = new Output(context, type, version, (CallHook) refhook, null, null);
             output.serialize(obj);
-            return out.toByteArray();
+            return ((XdrMemoryOutputFormat) output.stream).toByteArray();
         } catch (IOException ex) {
             throw RInternalError.shouldNotReachHere(ex);
         }
@@ -2457,8 +2668,13 @@ public class RSerialize {
 
     @TruffleBoundary
     public static void serialize(RContext context, RConnection conn, Object obj, int type, int version, Object refhook) throws IOException {
-        Output output = new Output(context, type, version, (CallHook) refhook, conn.getOutputStream());
-        output.serialize(obj);
+        ByteBuffer buffer = context.stateRSerialize.takeOutputBuffer();
+        try {
+            Output output = new Output(context, type, version, (CallHook) refhook, conn.getChannel(), buffer);
+            output.serialize(obj);
+        } finally {
+            context.stateRSerialize.releaseOutputBuffer(buffer);
+        }
     }
 
     private static class Debug {
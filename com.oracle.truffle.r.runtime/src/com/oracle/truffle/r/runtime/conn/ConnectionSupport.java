@@ -455,6 +455,16 @@ public class ConnectionSupport {
             throw RInternalError.shouldNotReachHere("INVALID CONNECTION");
         }
 
+        @Override
+        public ByteBuffer readBinMapped(int length) throws IOException {
+            throw RInternalError.shouldNotReachHere("INVALID CONNECTION");
+        }
+
+        @Override
+        public long remainingBytes() throws IOException {
+            throw RInternalError.shouldNotReachHere("INVALID CONNECTION");
+        }
+
         @Override
         public byte[] readBinChars() throws IOException {
             throw RInternalError.shouldNotReachHere("INVALID CONNECTION");
@@ -836,6 +846,18 @@ public class ConnectionSupport {
             return theConnection.readBin(buffer);
         }
 
+        @Override
+        public ByteBuffer readBinMapped(int length) throws IOException {
+            checkOpen();
+            return theConnection.readBinMapped(length);
+        }
+
+        @Override
+        public long remainingBytes() throws IOException {
+            checkOpen();
+            return theConnection.remainingBytes();
+        }
+
         @Override
         public byte[] readBinChars() throws IOException {
             checkOpen();
@@ -41,15 +41,17 @@ import java.util.EnumSet;
 import java.util.Objects;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.ParallelCompressionOutputStream;
+import com.oracle.truffle.r.runtime.RCompression;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.RType;
 import com.oracle.truffle.r.runtime.conn.ConnectionSupport.BaseRConnection;
+import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.RBaseObject;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RStringVector;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * Actually performs the I/O operations for a connections.<br>
@@ -63,6 +65,8 @@ abstract class DelegateRConnection extends RBaseObject implements RConnection, B
     protected final BaseRConnection base;
     private final ByteBuffer cache;
     private final boolean readCache;
+    private LineDecoder lineDecoder;
+    private LineEncoder lineEncoder;
 
     DelegateRConnection(BaseRConnection base) {
         this(base, DEFAULT_CACHE_SIZE, true);
@@ -140,6 +144,9 @@ abstract class DelegateRConnection extends RBaseObject implements RConnection, B
     @Override
     @TruffleBoundary
     public String[] readLines(int n, EnumSet<ReadLineWarning> warn, boolean skipNul) throws IOException {
+        if (readCache && cache != null) {
+            return readLinesFromCache(n, warn, skipNul);
+        }
         base.setIncomplete(false);
         ArrayList<String> lines = new ArrayList<>();
         int totalRead = 0;
@@ -216,6 +223,121 @@ abstract class DelegateRConnection extends RBaseObject implements RConnection, B
         return result;
     }
 
+    /**
+     * Variant of {@link #readLines} for connections with a read cache. Instead of reading byte by
+     * byte, it scans the cached block for line terminators and embedded nulls and decodes whole
+     * lines at once; only lines spanning more than one block are copied.
+     */
+    private String[] readLinesFromCache(int n, EnumSet<ReadLineWarning> warn, boolean skipNul) throws IOException {
+        base.setIncomplete(false);
+        LineDecoder decoder = getLineDecoder();
+        decoder.reset();
+        ArrayList<String> lines = new ArrayList<>();
+        byte[] buf = cache.array();
+        long nBytesConsumed = 0;
+        // a null was read and the rest of the line is dropped
+        boolean nullRead = false;
+        // the previous block ended with '\r', which may be followed by '\n'
+        boolean afterCR = false;
+        while (true) {
+            if (!cache.hasRemaining()) {
+                ensureDataAvailable(1);
+                if (!cache.hasRemaining()) {
+                    break;
+                }
+            }
+            if (afterCR) {
+                afterCR = false;
+                if (cache.get(cache.position()) == '\n') {
+                    // swallow the trailing lf
+                    cache.position(cache.position() + 1);
+                    nBytesConsumed++;
+                }
+                if (n > 0 && lines.size() == n) {
+                    break;
+                }
+                continue;
+            }
+            int start = cache.arrayOffset() + cache.position();
+            int end = cache.arrayOffset() + cache.limit();
+            int segmentStart = start;
+            int i = start;
+            boolean done = false;
+            while (i < end) {
+                int ch = buf[i] & 0xFF;
+                if (ch > '\r') {
+                    i++;
+                    continue;
+                }
+                if (ch == 0) {
+                    if (warn.contains(ReadLineWarning.EMBEDDED_NUL) && !skipNul) {
+                        RError.warning(RError.SHOW_CALLER, RError.Message.LINE_CONTAINS_EMBEDDED_NULLS, lines.size() + 1);
+                    }
+                    if (!nullRead) {
+                        decoder.append(buf, segmentStart, i - segmentStart);
+                    }
+                    nullRead = !skipNul;
+                    segmentStart = ++i;
+                } else if (ch == '\n' || ch == '\r') {
+                    lines.add(decoder.finishLine(buf, segmentStart, nullRead ? 0 : i - segmentStart));
+                    nullRead = false;
+                    i++;
+                    if (ch == '\r') {
+                        if (i == end) {
+                            afterCR = true;
+                        } else if (buf[i] == '\n') {
+                            // swallow the trailing lf
+                            i++;
+                        }
+                    }
+                    segmentStart = i;
+                    if (n > 0 && lines.size() == n && !afterCR) {
+                        done = true;
+                        break;
+                    }
+                } else {
+                    i++;
+                }
+            }
+            if (!done && !nullRead) {
+                decoder.append(buf, segmentStart, i - segmentStart);
+            }
+            cache.position(i - cache.arrayOffset());
+            nBytesConsumed += i - start;
+            if (done) {
+                break;
+            }
+        }
+        if (decoder.pendingLength() > 0) {
+            /*
+             * GnuR says if non-blocking and in text mode, silently push back incomplete lines,
+             * otherwise keep data and output warning.
+             */
+            final String incompleteFinalLine = decoder.finishLine(buf, 0, 0);
+            if (!base.isBlocking() && base.isTextMode()) {
+                base.pushBack(RDataFactory.createStringVector(incompleteFinalLine), false);
+                base.setIncomplete(true);
+            } else {
+                lines.add(incompleteFinalLine);
+                if (warn.contains(ReadLineWarning.INCOMPLETE_LAST_LINE)) {
+                    RError.warning(RError.SHOW_CALLER, RError.Message.INCOMPLETE_FINAL_LINE, base.getSummaryDescription());
+                }
+            }
+        }
+        String[] result = new String[lines.size()];
+        lines.toArray(result);
+        updateReadOffset(nBytesConsumed);
+        return result;
+    }
+
+    private LineDecoder getLineDecoder() {
+        Charset encoding = base.getEncoding();
+        if (lineDecoder == null || !lineDecoder.getCharset().equals(encoding)) {
+            lineDecoder = new LineDecoder(encoding);
+        }
+        return lineDecoder;
+    }
+
     /**
      * Updates the read cursor.<br>
      * <p>
@@ -225,7 +347,7 @@ abstract class DelegateRConnection extends RBaseObject implements RConnection, B
      *
      * @param nBytesConsumed Number of bytes consumed by a read operation.
      */
-    protected void updateReadOffset(int nBytesConsumed) {
+    protected void updateReadOffset(long nBytesConsumed) {
         // default: nothing to do
     }
 
@@ -238,36 +360,6 @@ abstract class DelegateRConnection extends RBaseObject implements RConnection, B
         }
     }
 
-    /**
-     * Writes a string to a channel.
-     *
-     * @param out the channel
-     * @param s The actual string to write.
-     * @param nl Indicates if a line separator should be appended.
-     * @param encoding The encoding to use for writing.
-     * @return {@code true} if an incomplete line was written; {@code false} otherwise
-     * @throws IOException
-     */
-    @TruffleBoundary
-    public static boolean writeStringHelper(WritableByteChannel out, String s, boolean nl, Charset encoding) throws IOException {
-        boolean incomplete;
-        final byte[] bytes = s.getBytes(encoding);
-        final byte[] lineSepBytes = nl ? System.lineSeparator().getBytes(encoding) : null;
-
-        ByteBuffer buf = ByteBuffer.allocate(bytes.length + (nl ? lineSepBytes.length : 0));
-        buf.put(bytes);
-        if (nl) {
-            buf.put(lineSepBytes);
-            incomplete = false;
-        } else {
-            incomplete = !s.contains("\n");
-        }
-
-        buf.rewind();
-        out.write(buf);
-        return incomplete;
-    }
-
     /**
      * Writes characters in binary mode (without any re-encoding) to the provided channel.
      *
@@ -370,7 +462,7 @@ abstract class DelegateRConnection extends RBaseObject implements RConnection, B
                 channel.position(offset);
                 break;
             case END:
-                channel.position(channel.size());
+                channel.position(channel.size() + offset);
                 break;
         }
         return position;
@@ -389,29 +481,25 @@ abstract class DelegateRConnection extends RBaseObject implements RConnection, B
         }
     }
 
+    /**
+     * Writes the lines, each followed by {@code sep}, to a channel.
+     *
+     * @return {@code true} if an incomplete line was written; {@code false} otherwise
+     */
     @TruffleBoundary
-    public static boolean writeLinesHelper(WritableByteChannel out, RStringVector lines, String sep, Charset encoding) throws IOException {
-        if (sep != null && sep.contains("\n")) {
-            // fast path: we know that the line is complete
-            final ByteBuffer nlBuf = ByteBuffer.wrap(sep.getBytes(encoding));
-            for (int i = 0; i < lines.getLength(); i++) {
-                final String line = lines.getDataAt(i);
-                final ByteBuffer buf = ByteBuffer.wrap(line.getBytes(encoding));
-                out.write(buf);
-                nlBuf.rewind();
-                out.write(nlBuf);
-            }
-            return false;
-        } else {
-            // slow path: we have to scan every string if it contains a newline
-            boolean incomplete = false;
+    static boolean writeLinesHelper(WritableByteChannel out, RStringVector lines, String sep, LineEncoder encoder) throws IOException {
+        try {
             for (int i = 0; i < lines.getLength(); i++) {
-                final String line = lines.getDataAt(i);
-                incomplete = DelegateRConnection.writeStringHelper(out, line, false, encoding);
-                incomplete = DelegateRConnection.writeStringHelper(out, sep, false, encoding) || incomplete;
+                encoder.write(out, lines.getDataAt(i));
+                encoder.write(out, sep);
             }
-            return incomplete;
+            encoder.flush(out);
+        } catch (IOException | RuntimeException e) {
+            encoder.reset();
+            throw e;
         }
+        // a separator without a newline leaves the last line incomplete
+        return lines.getLength() > 0 && !sep.contains("\n");
     }
 
     @Override
@@ -447,13 +535,31 @@ abstract class DelegateRConnection extends RBaseObject implements RConnection, B
 
     @Override
     public void writeLines(RStringVector lines, String sep, boolean useBytes) throws IOException {
-        boolean incomplete = DelegateRConnection.writeLinesHelper(this, lines, sep, base.getEncoding());
+        boolean incomplete = DelegateRConnection.writeLinesHelper(this, lines, sep, getLineEncoder());
         base.setIncomplete(incomplete);
     }
 
     @Override
     public void writeString(String s, boolean nl) throws IOException {
-        DelegateRConnection.writeStringHelper(this, s, nl, base.getEncoding());
+        LineEncoder encoder = getLineEncoder();
+        try {
+            encoder.write(this, s);
+            if (nl) {
+                encoder.write(this, System.lineSeparator());
+            }
+            encoder.flush(this);
+        } catch (IOException | RuntimeException e) {
+            encoder.reset();
+            throw e;
+        }
+    }
+
+    private LineEncoder getLineEncoder() {
+        Charset encoding = base.getEncoding();
+        if (lineEncoder == null || !lineEncoder.getCharset().equals(encoding)) {
+            lineEncoder = new LineEncoder(encoding);
+        }
+        return lineEncoder;
     }
 
     @Override
@@ -563,6 +669,16 @@ abstract class DelegateRConnection extends RBaseObject implements RConnection, B
         return read < 0 ? 0 : read;
     }
 
+    @Override
+    public ByteBuffer readBinMapped(int length) throws IOException {
+        return null;
+    }
+
+    @Override
+    public long remainingBytes() throws IOException {
+        return -1;
+    }
+
     /**
      * Reads null-terminated character strings from a {@link ReadableByteChannel}.
      */
@@ -640,8 +756,15 @@ abstract class DelegateRConnection extends RBaseObject implements RConnection, B
     private static final int GZIP_BUFFER_SIZE = (2 << 20);
 
     static DelegateRConnection createGZIPDelegateOutputConnection(BaseRConnection base, OutputStream os) throws IOException {
+        return createGZIPDelegateOutputConnection(base, os, -1);
+    }
+
+    /**
+     * The data are compressed in parallel, see {@link ParallelCompressionOutputStream}.
+     */
+    static DelegateRConnection createGZIPDelegateOutputConnection(BaseRConnection base, OutputStream os, int level) throws IOException {
         assert base.getOpenMode().canWrite();
-        return new CompressedOutputRConnection(base, new GZIPOutputStream(os, GZIP_BUFFER_SIZE), true);
+        return new CompressedOutputRConnection(base, ParallelCompressionOutputStream.create(RCompression.Type.GZIP, os, RContext.getInstance().getForkJoinPool(), level), true);
     }
 
     static DelegateRConnection createGZIPDelegateInputConnection(BaseRConnection base, InputStream is) throws IOException {
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.conn;
+
+import java.util.Arrays;
+
+import com.oracle.truffle.r.runtime.RRuntime;
+
+/**
+ * Counts the fields of lines like GNU R's {@code count.fields}, the companion of
+ * {@link ScanTokenizer}. The lines are fed one at a time, as {@link RConnection#readLines} returns
+ * them, so that the input is read in blocks and any pushed back lines are seen. Quotes may span
+ * lines, the lines inside a quote count as {@code NA}.
+ */
+public final class FieldCounter {
+
+    private final char sepchar;
+    private final String quoteset;
+    private final int comchar;
+    private final boolean blskip;
+
+    private int[] counts = new int[1000];
+    private int nlines;
+    private int nfields;
+    // line (1-based) on which the current quote started, 0 if not in a quote
+    private int inquote;
+    private char quote;
+    // whitespace separated input only: inside a quoted or an unquoted field
+    private boolean inQuotedField;
+    private boolean inField;
+
+    /**
+     * @param sepchar the separator, {@code 0} for whitespace
+     * @param comchar the comment character, or a value that is not a {@code char} for none
+     */
+    public FieldCounter(char sepchar, String quoteset, int comchar, boolean blskip) {
+        this.sepchar = sepchar;
+        this.quoteset = quoteset;
+        this.comchar = comchar;
+        this.blskip = blskip;
+    }
+
+    public void addLine(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == comchar && inquote == 0) {
+                // the rest of the line is a comment
+                break;
+            }
+            next(c);
+        }
+        next('\n');
+    }
+
+    private void next(char c) {
+        if (inQuotedField) {
+            if (c == quote) {
+                inquote = 0;
+                inQuotedField = false;
+                nfields++;
+            } else if (c == '\n') {
+                add(RRuntime.INT_NA);
+            }
+            return;
+        }
+        if (inField) {
+            if (!isSpace(c)) {
+                return;
+            }
+            inField = false;
+            nfields++;
+        }
+        if (c == '\n') {
+            if (inquote != 0) {
+                add(RRuntime.INT_NA);
+            } else if (nfields > 0 || !blskip) {
+                add(nfields);
+                nfields = 0;
+            }
+        } else if (sepchar != 0) {
+            if (nfields == 0) {
+                nfields++;
+            }
+            if (inquote != 0 && c == quote) {
+                inquote = 0;
+            } else if (quoteset.indexOf(c) >= 0) {
+                inquote = nlines + 1;
+                quote = c;
+            }
+            if (c == sepchar && inquote == 0) {
+                nfields++;
+            }
+        } else if (!isSpace(c)) {
+            if (quoteset.indexOf(c) >= 0) {
+                quote = c;
+                inquote = nlines + 1;
+                inQuotedField = true;
+            } else {
+                inField = true;
+            }
+        }
+    }
+
+    private void add(int count) {
+        if (nlines == counts.length) {
+            counts = Arrays.copyOf(counts, 2 * nlines);
+        }
+        counts[nlines++] = count;
+    }
+
+    /**
+     * Ends the input and returns the field counts, or {@code null} if there were no lines.
+     *
+     * @throws IllegalStateException if the input ends inside a quoted field
+     */
+    public int[] finish() {
+        if (inQuotedField) {
+            throw new IllegalStateException("quoted string on line " + inquote + " terminated by EOF");
+        }
+        assert !inField : "a field always ends with its line";
+        if (nfields != 0) {
+            add(nfields);
+        }
+        return nlines == 0 ? null : Arrays.copyOf(counts, nlines);
+    }
+
+    private static boolean isSpace(char c) {
+        // TODO locale
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+}
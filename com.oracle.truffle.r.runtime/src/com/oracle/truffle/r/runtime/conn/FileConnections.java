@@ -23,22 +23,23 @@
 package com.oracle.truffle.r.runtime.conn;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.ByteChannel;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
 import java.util.EnumSet;
 
-import org.tukaani.xz.LZMA2Options;
-import org.tukaani.xz.XZ;
 import org.tukaani.xz.XZInputStream;
-import org.tukaani.xz.XZOutputStream;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.TruffleFile;
+import com.oracle.truffle.r.runtime.ParallelCompressionOutputStream;
 import com.oracle.truffle.r.runtime.RCompression;
 import com.oracle.truffle.r.runtime.RCompression.Type;
 import com.oracle.truffle.r.runtime.RError;
@@ -49,6 +50,7 @@ import com.oracle.truffle.r.runtime.conn.ConnectionSupport.BasePathRConnection;
 import com.oracle.truffle.r.runtime.conn.ConnectionSupport.ConnectionClass;
 import com.oracle.truffle.r.runtime.conn.DelegateRConnection.CompressedInputRConnection;
 import com.oracle.truffle.r.runtime.conn.DelegateRConnection.CompressedOutputRConnection;
+import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.RStringVector;
 import java.nio.channels.SeekableByteChannel;
 import java.util.Collections;
@@ -84,7 +86,7 @@ public class FileConnections {
         }
 
         private DelegateRConnection createDelegateConnectionImpl() throws IOException {
-            return FileConnections.createDelegateConnection(this, cType, raw);
+            return FileConnections.createDelegateConnection(this, cType, raw, -1);
         }
 
         @TruffleBoundary
@@ -145,7 +147,7 @@ public class FileConnections {
      */
     public static class CompressedRConnection extends BasePathRConnection {
         private final RCompression.Type cType;
-        @SuppressWarnings("unused") private final int compression; // TODO
+        private final int compression;
 
         public CompressedRConnection(TruffleFile path, String modeString, Type cType, String encoding, int compression) throws IOException {
             super(path.getPath(), path, mapConnectionClass(cType), modeString, AbstractOpenMode.ReadBinary, encoding);
@@ -157,7 +159,7 @@ public class FileConnections {
         @Override
         @TruffleBoundary
         protected void createDelegateConnection() throws IOException {
-            setDelegate(FileConnections.createDelegateConnection(this, cType, false));
+            setDelegate(FileConnections.createDelegateConnection(this, cType, false, compression));
 
         }
 
@@ -208,7 +210,7 @@ public class FileConnections {
         return delegate;
     }
 
-    private static DelegateRConnection createXZDelegateConnection(BasePathRConnection base) throws IOException {
+    private static DelegateRConnection createXZDelegateConnection(BasePathRConnection base, int level) throws IOException {
 
         switch (base.getOpenMode().abstractOpenMode) {
             case Read:
@@ -216,18 +218,16 @@ public class FileConnections {
                 return new CompressedInputRConnection(base, new XZInputStream(base.path.newInputStream()));
             case Append:
             case AppendBinary:
-                TruffleFile afile = base.path;
-                return new CompressedOutputRConnection(base, new XZOutputStream(afile.newOutputStream(StandardOpenOption.APPEND), new LZMA2Options(), XZ.CHECK_CRC32), false);
+                return createParallelOutputConnection(base, RCompression.Type.XZ, base.path.newOutputStream(StandardOpenOption.APPEND), level);
             case Write:
             case WriteBinary:
-                TruffleFile wfile = base.path;
-                return new CompressedOutputRConnection(base, new XZOutputStream(wfile.newOutputStream(), new LZMA2Options(), XZ.CHECK_CRC32), false);
+                return createParallelOutputConnection(base, RCompression.Type.XZ, base.path.newOutputStream(), level);
             default:
                 throw RError.nyi(RError.SHOW_CALLER2, "open mode: " + base.getOpenMode());
         }
     }
 
-    private static DelegateRConnection createBZIP2DelegateConnection(BasePathRConnection base) throws IOException {
+    private static DelegateRConnection createBZIP2DelegateConnection(BasePathRConnection base, int level) throws IOException {
 
         switch (base.getOpenMode().abstractOpenMode) {
             case Read:
@@ -236,17 +236,25 @@ public class FileConnections {
                 return new ByteStreamCompressedInputRConnection(base, new ByteArrayInputStream(bzipUdata));
             case Append:
             case AppendBinary:
-                return new BZip2OutputRConnection(base, new ByteArrayOutputStream(), true);
+                return createParallelOutputConnection(base, RCompression.Type.BZIP2, base.path.newOutputStream(StandardOpenOption.APPEND), level);
             case Write:
             case WriteBinary:
-                return new BZip2OutputRConnection(base, new ByteArrayOutputStream(), false);
+                return createParallelOutputConnection(base, RCompression.Type.BZIP2, base.path.newOutputStream(), level);
             default:
                 throw RError.nyi(RError.SHOW_CALLER2, "open mode: " + base.getOpenMode());
         }
     }
 
+    /**
+     * The output of xz and bzip2 connections is compressed while it is written, in blocks that are
+     * compressed in parallel, see {@link ParallelCompressionOutputStream}.
+     */
+    private static DelegateRConnection createParallelOutputConnection(BasePathRConnection base, RCompression.Type type, OutputStream os, int level) throws IOException {
+        return new CompressedOutputRConnection(base, ParallelCompressionOutputStream.create(type, os, RContext.getInstance().getForkJoinPool(), level), false);
+    }
+
     @TruffleBoundary
-    private static DelegateRConnection createDelegateConnection(BasePathRConnection base, RCompression.Type cType, boolean raw) throws IOException {
+    private static DelegateRConnection createDelegateConnection(BasePathRConnection base, RCompression.Type cType, boolean raw, int level) throws IOException {
         AbstractOpenMode openMode = base.getOpenMode().abstractOpenMode;
 
         /*
@@ -278,17 +286,17 @@ public class FileConnections {
                         return DelegateRConnection.createGZIPDelegateInputConnection(base, base.path.newInputStream());
                     case Append:
                     case AppendBinary:
-                        return DelegateRConnection.createGZIPDelegateOutputConnection(base, base.path.newOutputStream(StandardOpenOption.APPEND));
+                        return DelegateRConnection.createGZIPDelegateOutputConnection(base, base.path.newOutputStream(StandardOpenOption.APPEND), level);
                     case Write:
                     case WriteBinary:
-                        return DelegateRConnection.createGZIPDelegateOutputConnection(base, base.path.newOutputStream());
+                        return DelegateRConnection.createGZIPDelegateOutputConnection(base, base.path.newOutputStream(), level);
                     default:
                         throw RError.nyi(RError.SHOW_CALLER2, "open mode: " + base.getOpenMode());
                 }
             case XZ:
-                return createXZDelegateConnection(base);
+                return createXZDelegateConnection(base, level);
             case BZIP2:
-                return createBZIP2DelegateConnection(base);
+                return createBZIP2DelegateConnection(base, level);
         }
         throw RInternalError.shouldNotReachHere("unsupported compression type");
     }
@@ -310,6 +318,12 @@ public class FileConnections {
 
     static class FileReadBinaryRConnection extends DelegateReadRConnection {
 
+        /**
+         * Smaller reads are served by {@link #readBin(ByteBuffer)}, because creating a mapping
+         * costs more than copying a few kilobytes.
+         */
+        private static final int MIN_MAPPED_SIZE = 1 << 20;
+
         private final SeekableByteChannel channel;
 
         FileReadBinaryRConnection(BasePathRConnection base) throws IOException {
@@ -322,6 +336,28 @@ public class FileConnections {
             return true;
         }
 
+        @Override
+        public long remainingBytes() throws IOException {
+            return Math.max(channel.size() - (channel.position() - bytesInCache()), 0);
+        }
+
+        @Override
+        @TruffleBoundary
+        public ByteBuffer readBinMapped(int length) throws IOException {
+            if (!(channel instanceof FileChannel)) {
+                return null;
+            }
+            long position = channel.position() - bytesInCache();
+            int n = (int) Math.min(length, Math.max(channel.size() - position, 0));
+            if (n < MIN_MAPPED_SIZE) {
+                return null;
+            }
+            MappedByteBuffer result = ((FileChannel) channel).map(MapMode.READ_ONLY, position, n);
+            channel.position(position + n);
+            invalidateCache();
+            return result;
+        }
+
         @Override
         public long seekInternal(long offset, SeekMode seekMode, SeekRWMode seekRWMode) throws IOException {
             return DelegateRConnection.seek(channel, offset, seekMode, seekRWMode, bytesInCache());
@@ -432,7 +468,7 @@ public class FileConnections {
         }
 
         @Override
-        protected void updateReadOffset(int nBytesConsumed) {
+        protected void updateReadOffset(long nBytesConsumed) {
             readOffset += nBytesConsumed;
         }
 
@@ -603,7 +639,7 @@ public class FileConnections {
         }
 
         @Override
-        protected void updateReadOffset(int nBytesConsumed) {
+        protected void updateReadOffset(long nBytesConsumed) {
             readOffset += nBytesConsumed;
         }
 
@@ -761,23 +797,4 @@ public class FileConnections {
             super(base, is);
         }
     }
-
-    private static class BZip2OutputRConnection extends CompressedOutputRConnection {
-        private final ByteArrayOutputStream bos;
-        private final boolean append;
-
-        BZip2OutputRConnection(BasePathRConnection base, ByteArrayOutputStream os, boolean append) {
-            super(base, os, false);
-            this.bos = os;
-            this.append = append;
-        }
-
-        @Override
-        public void close() throws IOException {
-            flush();
-            // Now actually do the compression using sub-process
-            byte[] data = bos.toByteArray();
-            RCompression.bzipCompressToFile(data, ((BasePathRConnection) base).path, append);
-        }
-    }
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.conn;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+import com.oracle.truffle.r.runtime.RInternalError;
+
+/**
+ * Decodes the lines found by {@link DelegateRConnection#readLines} and collects the pieces of
+ * lines that span more than one block of input. Lines in US-ASCII, UTF-8 and Latin-1 that consist
+ * of 7-bit characters only (and all Latin-1 lines) are converted to strings without a decoder; the
+ * others are decoded by a {@link CharsetDecoder} that is created once per connection.
+ */
+final class LineDecoder {
+
+    private final Charset charset;
+    private final boolean asciiCompatible;
+    private final boolean latin1;
+    private CharsetDecoder decoder;
+
+    private byte[] pending = new byte[256];
+    private int pendingLength;
+
+    LineDecoder(Charset charset) {
+        this.charset = charset;
+        this.latin1 = StandardCharsets.ISO_8859_1.equals(charset);
+        this.asciiCompatible = latin1 || StandardCharsets.UTF_8.equals(charset) || StandardCharsets.US_ASCII.equals(charset);
+    }
+
+    Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Drops the collected pieces of a line, e.g. after {@code readLines} was interrupted by an
+     * error.
+     */
+    void reset() {
+        pendingLength = 0;
+    }
+
+    /**
+     * Returns the number of bytes of the current line collected by {@link #append}.
+     */
+    int pendingLength() {
+        return pendingLength;
+    }
+
+    /**
+     * Appends a piece of the current line.
+     */
+    void append(byte[] bytes, int offset, int length) {
+        if (pendingLength + length > pending.length) {
+            byte[] newPending = new byte[Math.max(pending.length * 2, pendingLength + length)];
+            System.arraycopy(pending, 0, newPending, 0, pendingLength);
+            pending = newPending;
+        }
+        System.arraycopy(bytes, offset, pending, pendingLength, length);
+        pendingLength += length;
+    }
+
+    /**
+     * Finishes the current line, which consists of the collected pieces followed by the given
+     * bytes.
+     */
+    String finishLine(byte[] bytes, int offset, int length) {
+        String result;
+        if (pendingLength == 0) {
+            result = decode(bytes, offset, length);
+        } else {
+            append(bytes, offset, length);
+            result = decode(pending, 0, pendingLength);
+            pendingLength = 0;
+        }
+        return result;
+    }
+
+    @SuppressWarnings("deprecation")
+    private String decode(byte[] bytes, int offset, int length) {
+        if (asciiCompatible) {
+            boolean ascii = true;
+            if (!latin1) {
+                for (int i = offset; i < offset + length; i++) {
+                    if (bytes[i] < 0) {
+                        ascii = false;
+                        break;
+                    }
+                }
+            }
+            if (ascii) {
+                // maps every byte to the char with the same (unsigned) value
+                return new String(bytes, 0, offset, length);
+            }
+        }
+        if (decoder == null) {
+            decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+        try {
+            CharBuffer chars = decoder.reset().decode(ByteBuffer.wrap(bytes, offset, length));
+            return chars.toString();
+        } catch (CharacterCodingException e) {
+            // cannot happen with REPLACE
+            throw RInternalError.shouldNotReachHere(e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.conn;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes the strings written by {@link DelegateRConnection#writeLines} and
+ * {@link DelegateRConnection#writeString} into one buffer that is written to the channel only when
+ * it is full or on {@link #flush}, instead of writing every line (and separator) separately.
+ * Strings consisting of 7-bit characters are copied without an encoder if the charset is
+ * US-ASCII, UTF-8 or Latin-1; others are encoded by a {@link CharsetEncoder} that is created once
+ * per connection.
+ */
+final class LineEncoder {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Charset charset;
+    private final boolean asciiCompatible;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private CharsetEncoder encoder;
+
+    LineEncoder(Charset charset) {
+        this.charset = charset;
+        this.asciiCompatible = StandardCharsets.UTF_8.equals(charset) || StandardCharsets.US_ASCII.equals(charset) || StandardCharsets.ISO_8859_1.equals(charset);
+    }
+
+    Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Appends the encoded {@code s} to the buffer, writing the buffer to {@code out} whenever it
+     * fills up.
+     */
+    void write(WritableByteChannel out, String s) throws IOException {
+        int length = s.length();
+        if (asciiCompatible && length <= BUFFER_SIZE) {
+            if (buffer.remaining() < length) {
+                flush(out);
+            }
+            byte[] bytes = buffer.array();
+            int offset = buffer.arrayOffset() + buffer.position();
+            int i = 0;
+            while (i < length) {
+                char c = s.charAt(i);
+                if (c >= 0x80) {
+                    break;
+                }
+                bytes[offset + i] = (byte) c;
+                i++;
+            }
+            if (i == length) {
+                buffer.position(buffer.position() + length);
+                return;
+            }
+        }
+        encode(out, s);
+    }
+
+    private void encode(WritableByteChannel out, String s) throws IOException {
+        if (encoder == null) {
+            // replaces like String.getBytes
+            encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+        encoder.reset();
+        CharBuffer chars = CharBuffer.wrap(s);
+        CoderResult result;
+        while ((result = encoder.encode(chars, buffer, true)).isOverflow()) {
+            flush(out);
+        }
+        assert result.isUnderflow();
+        while (encoder.flush(buffer).isOverflow()) {
+            flush(out);
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to {@code out}.
+     */
+    void flush(WritableByteChannel out) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Drops the buffered bytes, e.g. after a write failed.
+     */
+    void reset() {
+        buffer.clear();
+    }
+}
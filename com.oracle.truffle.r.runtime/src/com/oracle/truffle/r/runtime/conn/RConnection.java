@@ -205,6 +205,21 @@ public interface RConnection extends AutoCloseable {
      */
     int readBin(ByteBuffer buffer) throws IOException;
 
+    /**
+     * Internal support for the {@code readBin} builtin on connections backed by a file. Maps up to
+     * {@code length} bytes at the current read position into memory and moves the position behind
+     * them, so that the data can be decoded without copying. Returns {@code null} if the connection
+     * does not support this (or mapping does not pay off for the given size), in which case
+     * {@link #readBin(ByteBuffer)} has to be used.
+     */
+    ByteBuffer readBinMapped(int length) throws IOException;
+
+    /**
+     * Returns the number of bytes between the current read position and the end of the
+     * connection, or {@code -1} if this is not known.
+     */
+    long remainingBytes() throws IOException;
+
     /**
      * Internal connection-specific support for the {@code readBin} builtin on character data.
      * character data is null-terminated and, therefore of length unknown to the caller. The result
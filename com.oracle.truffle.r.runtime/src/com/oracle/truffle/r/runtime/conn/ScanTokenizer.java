@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.conn;
+
+import java.util.Arrays;
+
+/**
+ * Splits lines read by {@code scan} into items. Items are separated by {@code sepchar} or, if it
+ * is {@code 0}, by runs of blanks and tabs, and may be quoted by any of the characters of
+ * {@code quoteset}, a doubled quote standing for the quote character itself. An empty trailing
+ * item is not reported.
+ *
+ * The tokenizer keeps its item array between lines and creates the strings of unquoted items as
+ * substrings of the line, so it allocates nothing but the items themselves. Instances are not
+ * thread-safe, tasks that split lines in parallel use one tokenizer each.
+ */
+public final class ScanTokenizer {
+
+    private final char sepchar;
+    private final char[] quoteset;
+
+    private final StringBuilder quoted = new StringBuilder();
+    private String[] items = new String[16];
+    private int count;
+    private int end;
+
+    public ScanTokenizer(char sepchar, char[] quoteset) {
+        this.sepchar = sepchar;
+        this.quoteset = quoteset;
+    }
+
+    /**
+     * Splits {@code s} into at most {@code maxItems} items ({@code maxItems <= 0} means no limit).
+     *
+     * @return the number of items or {@code -1} if {@code s} ends inside a quoted item
+     */
+    public int tokenize(String s, int maxItems) {
+        count = 0;
+        int length = s.length();
+        int pos = 0;
+        if (sepchar == 0) {
+            pos = skipWhitespace(s, pos);
+        }
+        if (pos == length) {
+            end = pos;
+            return 0;
+        }
+        // the current item is either s[start, pos) or, once it contained a quote, 'quoted'
+        int start = pos;
+        int itemEnd = -1;
+        boolean inQuoted = false;
+        do {
+            char ch = s.charAt(pos);
+            if (sepchar == 0 && (ch == ' ' || ch == '\t')) {
+                itemEnd = pos;
+                pos = skipWhitespace(s, pos);
+                if (pos == length) {
+                    // trailing blanks, the pending item is reported below
+                    break;
+                }
+                add(inQuoted ? quoted.toString() : s.substring(start, itemEnd));
+                itemEnd = -1;
+                start = pos;
+                inQuoted = false;
+            } else if (sepchar != 0 && ch == sepchar) {
+                add(inQuoted ? quoted.toString() : s.substring(start, pos));
+                pos++;
+                start = pos;
+                inQuoted = false;
+            } else if ((inQuoted ? quoted.length() : pos - start) == 0 && isQuote(ch)) {
+                char quoteStart = ch;
+                quoted.setLength(0);
+                inQuoted = true;
+                pos++;
+                while (true) {
+                    if (pos == length) {
+                        end = pos;
+                        return -1;
+                    }
+                    ch = s.charAt(pos++);
+                    if (ch == quoteStart) {
+                        if (pos < length && s.charAt(pos) == quoteStart) {
+                            quoted.append(quoteStart);
+                            pos++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        quoted.append(ch);
+                    }
+                }
+            } else {
+                if (inQuoted) {
+                    quoted.append(ch);
+                }
+                pos++;
+            }
+        } while (pos < length && (maxItems <= 0 || count < maxItems));
+        if (itemEnd < 0) {
+            itemEnd = pos;
+        }
+        if (inQuoted ? quoted.length() > 0 : itemEnd > start) {
+            add(inQuoted ? quoted.toString() : s.substring(start, itemEnd));
+        }
+        end = pos;
+        return count;
+    }
+
+    /**
+     * Returns the {@code i}-th item found by the last {@link #tokenize} call.
+     */
+    public String getItem(int i) {
+        assert i < count;
+        return items[i];
+    }
+
+    /**
+     * Returns a copy of the items found by the last {@link #tokenize} call.
+     */
+    public String[] getItems() {
+        return Arrays.copyOf(items, count);
+    }
+
+    /**
+     * Returns the position in the line at which the last {@link #tokenize} call stopped, which is
+     * before the end of the line only if it found {@code maxItems} items.
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    private void add(String item) {
+        if (count == items.length) {
+            items = Arrays.copyOf(items, count * 2);
+        }
+        items[count++] = item;
+    }
+
+    private boolean isQuote(char ch) {
+        for (int i = 0; i < quoteset.length; i++) {
+            if (ch == quoteset[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int skipWhitespace(String s, int start) {
+        int pos = start;
+        while (pos < s.length() && (s.charAt(pos) == ' ' || s.charAt(pos) == '\t')) {
+            pos++;
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.context;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleContext;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.r.runtime.RInternalError;
+import com.oracle.truffle.r.runtime.RSource;
+import com.oracle.truffle.r.runtime.data.RList;
+
+/**
+ * A bounded pool of worker threads, each of which owns a pre-initialized
+ * {@link RContext.ContextKind#SHARE_NOTHING} child context. Expressions submitted to the pool are
+ * queued and evaluated by the next idle worker in its context, so that many small evaluations do
+ * not pay for the creation of a thread and the initialization of a context each. Unlike the
+ * contexts created by {@code .fastr.context.spawn}, the contexts of the workers are reused, i.e. the
+ * global environment of a worker keeps the values assigned by earlier evaluations.
+ *
+ * Each submission is identified by a handle from the same id space as the child contexts, which
+ * can be used to wait for it. The pool only keeps the results that were asked for on submission,
+ * and drops a task as soon as it is done and its result is not needed.
+ */
+public final class ContextPool {
+
+    /**
+     * A submitted evaluation and its eventual result.
+     */
+    private static final class Task {
+        private static final Task SHUTDOWN = new Task(0, null, false);
+
+        private final int id;
+        private final Source source;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile boolean keepResult;
+        private volatile RList result;
+
+        Task(int id, Source source, boolean keepResult) {
+            this.id = id;
+            this.source = source;
+            this.keepResult = keepResult;
+        }
+    }
+
+    /**
+     * How long {@link #close()} waits for the workers to close their contexts.
+     */
+    private static final long CLOSE_TIMEOUT_MILLIS = 10000;
+
+    private final class Worker extends Thread {
+        private final ContextTemplate.Spare spare;
+
+        Worker(ContextTemplate.Spare spare) {
+            super("FastR-context-pool-" + spare.getInfo().getId());
+            this.spare = spare;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            spare.awaitInitialization();
+            TruffleContext truffleContext = spare.getTruffleContext();
+            Object prev = truffleContext.enter();
+            try {
+                while (true) {
+                    Task task = queue.take();
+                    if (task == Task.SHUTDOWN) {
+                        break;
+                    }
+                    busy.incrementAndGet();
+                    long start = System.nanoTime();
+                    try {
+                        if (spare.isFailed()) {
+                            task.result = EvalThread.createErrorResult("context initialization failed: " + spare.getFailure().getMessage());
+                        } else {
+                            task.result = EvalThread.eval(spare.getInfo(), task.source);
+                        }
+                    } finally {
+                        busyTime.addAndGet(System.nanoTime() - start);
+                        busy.decrementAndGet();
+                        completed.incrementAndGet();
+                        task.done.countDown();
+                        if (!task.keepResult) {
+                            tasks.remove(task.id);
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                // the pool is being closed
+            } finally {
+                truffleContext.leave(prev);
+                truffleContext.close();
+            }
+        }
+    }
+
+    private final Worker[] workers;
+    private final LinkedBlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+    private final Map<Integer, Task> tasks = new ConcurrentHashMap<>();
+    private final AtomicInteger busy = new AtomicInteger();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong busyTime = new AtomicLong();
+    private final long startTime = System.nanoTime();
+
+    /**
+     * Creates a pool of {@code size} workers whose contexts evaluate {@code setup} after their
+     * initialization. Must be called on the thread of {@code parent}, where the contexts of the
+     * workers are created.
+     */
+    @TruffleBoundary
+    public ContextPool(RContext parent, int size, String setup) {
+        Source setupSource = RSource.fromTextInternalInvisible(setup.isEmpty() ? "NULL" : setup, RSource.Internal.CONTEXT_EVAL);
+        workers = new Worker[size];
+        for (int i = 0; i < size; i++) {
+            workers[i] = new Worker(ContextTemplate.createSpare(parent, setupSource));
+        }
+        for (Worker worker : workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * Queues the evaluation of {@code source} and returns its handle. If {@code keepResult} is
+     * {@code true}, the result is kept until it is retrieved by {@link #getResult} or the handle is
+     * {@link #discard discarded}.
+     */
+    @TruffleBoundary
+    public int submit(Source source, boolean keepResult) {
+        Task task = new Task(ChildContextInfo.contextInfoIds.incrementAndGet(), source, keepResult);
+        tasks.put(task.id, task);
+        submitted.incrementAndGet();
+        queue.add(task);
+        return task.id;
+    }
+
+    /**
+     * Returns {@code true} if {@code handle} was returned by {@link #submit} and its evaluation is
+     * not done yet, or its result has not been retrieved yet.
+     */
+    public boolean isPending(int handle) {
+        return tasks.containsKey(handle);
+    }
+
+    /**
+     * Waits for the evaluation identified by {@code handle} without retrieving its result.
+     */
+    @TruffleBoundary
+    public void await(int handle) throws InterruptedException {
+        Task task = tasks.get(handle);
+        if (task != null) {
+            task.done.await();
+        }
+    }
+
+    /**
+     * Waits for the evaluation identified by {@code handle}, which must have been submitted with
+     * {@code keepResult}, and returns its result in the same form as
+     * {@link EvalThread#getEvalResult()}. The handle cannot be used afterwards.
+     */
+    @TruffleBoundary
+    public RList getResult(int handle) throws InterruptedException {
+        Task task = tasks.get(handle);
+        if (task == null || !task.keepResult) {
+            throw RInternalError.shouldNotReachHere("unknown context pool handle");
+        }
+        task.done.await();
+        tasks.remove(handle);
+        return task.result;
+    }
+
+    /**
+     * Drops the result of the evaluation identified by {@code handle}, e.g. if waiting for it was
+     * interrupted. The evaluation itself is not cancelled.
+     */
+    @TruffleBoundary
+    public void discard(int handle) {
+        Task task = tasks.get(handle);
+        if (task != null) {
+            task.keepResult = false;
+            if (task.done.getCount() == 0) {
+                tasks.remove(handle);
+            }
+        }
+    }
+
+    /**
+     * Returns {@code true} if some submitted evaluations are queued or running.
+     */
+    public boolean hasUnfinishedEvaluations() {
+        return completed.get() < submitted.get();
+    }
+
+    /**
+     * Returns the number of workers, the number of busy workers, the number of queued
+     * evaluations, the number of submitted and completed evaluations and the utilisation, i.e. the
+     * fraction of the lifetime of the workers they spent evaluating.
+     */
+    @TruffleBoundary
+    public double[] getStatistics() {
+        long elapsed = System.nanoTime() - startTime;
+        double utilisation = elapsed == 0 || workers.length == 0 ? 0 : (double) busyTime.get() / ((double) elapsed * workers.length);
+        return new double[]{workers.length, busy.get(), queue.size(), submitted.get(), completed.get(), Math.min(utilisation, 1)};
+    }
+
+    /**
+     * Lets the workers stop and close their contexts after the queued evaluations are done, without
+     * waiting for them.
+     */
+    @TruffleBoundary
+    public void shutdown() {
+        for (int i = 0; i < workers.length; i++) {
+            queue.add(Task.SHUTDOWN);
+        }
+    }
+
+    /**
+     * Stops the workers and waits a bounded time until their contexts are closed, workers that
+     * still initialize their contexts close them in the background. The queued evaluations are
+     * done first, but the results of unfinished evaluations, see
+     * {@link #hasUnfinishedEvaluations()}, are lost.
+     */
+    @TruffleBoundary
+    public void close() {
+        shutdown();
+        long deadline = System.currentTimeMillis() + CLOSE_TIMEOUT_MILLIS;
+        for (Worker worker : workers) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                break;
+            }
+            try {
+                worker.join(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+}
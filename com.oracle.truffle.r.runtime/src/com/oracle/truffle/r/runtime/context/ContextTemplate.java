@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.context;
+
+import java.util.ArrayDeque;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleContext;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.r.launcher.RCmdOptions.Client;
+import com.oracle.truffle.r.runtime.RError;
+import com.oracle.truffle.r.runtime.RInternalError;
+import com.oracle.truffle.r.runtime.RSource;
+import com.oracle.truffle.r.runtime.context.RContext.ConsoleIO;
+import com.oracle.truffle.r.runtime.context.RContext.ContextKind;
+
+/**
+ * A template for the {@link ContextKind#SHARE_NOTHING} child contexts of a context, e.g. the
+ * workers of a {@code SHARED} cluster. The template keeps a number of spare contexts that are
+ * fully initialized ahead of time on background threads, i.e. base and the default packages are
+ * loaded and the setup code of the template (for example attaching further packages) has been
+ * evaluated. Creating a child context then only amounts to taking a spare, which is replaced by a
+ * new one in the background.
+ *
+ * All methods except {@link #close()} must be called on the thread of the parent context as that
+ * is where the spare contexts are created.
+ */
+public final class ContextTemplate {
+
+    /**
+     * A pre-initialized child context.
+     */
+    public static final class Spare {
+        private final ChildContextInfo info;
+        private final TruffleContext truffleContext;
+        private final Thread initThread;
+        private volatile Throwable failure;
+
+        private Spare(ChildContextInfo info, Source setup) {
+            this.info = info;
+            this.truffleContext = info.createTruffleContext();
+            this.initThread = new Thread(() -> initialize(setup), "FastR-context-template-" + info.getId());
+            initThread.setDaemon(true);
+        }
+
+        private void initialize(Source setup) {
+            Object prev = truffleContext.enter();
+            try {
+                Engine engine = RContext.getEngine();
+                engine.parseAndEval(setup, engine.getGlobalFrame(), false);
+            } catch (Throwable t) {
+                // reported by the thread that takes the spare
+                failure = t;
+            } finally {
+                truffleContext.leave(prev);
+            }
+        }
+
+        void awaitInitialization() {
+            try {
+                initThread.join();
+            } catch (InterruptedException e) {
+                throw new RInternalError(e, "error waiting to initialize a context from a template");
+            }
+        }
+
+        boolean isFailed() {
+            return failure != null;
+        }
+
+        /**
+         * Returns the error that the initialization failed with, or {@code null}.
+         */
+        Throwable getFailure() {
+            return failure;
+        }
+
+        public ChildContextInfo getInfo() {
+            return info;
+        }
+
+        public TruffleContext getTruffleContext() {
+            return truffleContext;
+        }
+    }
+
+    private final RContext parent;
+    private final int size;
+    private final Source setup;
+    private final ArrayDeque<Spare> spares = new ArrayDeque<>();
+    private boolean closed;
+    /**
+     * Set once a spare failed to initialize. The setup will most likely fail again, so the
+     * template creates no more spares then.
+     */
+    private boolean failed;
+
+    /**
+     * Creates a template that keeps {@code size} spare contexts, which evaluate {@code setup}
+     * after their initialization.
+     */
+    @TruffleBoundary
+    public ContextTemplate(RContext parent, int size, String setup) {
+        this.parent = parent;
+        this.size = size;
+        this.setup = RSource.fromTextInternalInvisible(setup.isEmpty() ? "NULL" : setup, RSource.Internal.CONTEXT_EVAL);
+        fill();
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    private synchronized void fill() {
+        while (!closed && !failed && spares.size() < size) {
+            spares.add(createSpare(parent, setup));
+        }
+    }
+
+    /**
+     * Creates a {@link ContextKind#SHARE_NOTHING} child context of {@code parent} and starts its
+     * initialization, which evaluates {@code setup}, on a background thread.
+     */
+    static Spare createSpare(RContext parent, Source setup) {
+        ConsoleIO console = parent.getConsole();
+        ChildContextInfo info = ChildContextInfo.createNoRestore(Client.RSCRIPT, null, ContextKind.SHARE_NOTHING, parent, console.getStdin(), console.getStdout(), console.getStderr());
+        Spare spare = new Spare(info, setup);
+        spare.initThread.start();
+        return spare;
+    }
+
+    /**
+     * Takes an initialized spare context, waiting for the oldest spare to finish its
+     * initialization if necessary, and starts initializing a replacement. Returns {@code null} if
+     * the template has no spare context that could be initialized. If the initialization of a
+     * spare failed, a warning is reported and the template stops creating spares.
+     */
+    @TruffleBoundary
+    public Spare take() {
+        Spare spare;
+        synchronized (this) {
+            spare = spares.poll();
+        }
+        if (spare == null) {
+            return null;
+        }
+        spare.awaitInitialization();
+        if (spare.isFailed()) {
+            spare.truffleContext.close();
+            boolean first;
+            synchronized (this) {
+                first = !failed;
+                failed = true;
+            }
+            if (first) {
+                reportFailure(spare.getFailure());
+            }
+            return null;
+        }
+        fill();
+        return spare;
+    }
+
+    private static void reportFailure(Throwable failure) {
+        if (!(failure instanceof RError)) {
+            RInternalError.reportError(failure);
+        }
+        RError.warning(RError.NO_CALLER, RError.Message.GENERIC, "the initialization of a context from the template failed: " + failure.getMessage());
+    }
+
+    /**
+     * Closes all spare contexts, the template cannot be used afterwards.
+     */
+    @TruffleBoundary
+    public void close() {
+        Spare[] toClose;
+        synchronized (this) {
+            closed = true;
+            toClose = spares.toArray(new Spare[spares.size()]);
+            spares.clear();
+        }
+        for (Spare spare : toClose) {
+            spare.awaitInitialization();
+            spare.truffleContext.close();
+        }
+    }
+}
@@ -59,13 +59,22 @@ public class EvalThread extends Thread {
     public static final AtomicInteger threadCnt = new AtomicInteger(0);
 
     public EvalThread(Map<Integer, Thread> threadMap, ChildContextInfo info, Source source) {
+        this(threadMap, info, null, source);
+    }
+
+    /**
+     * Creates a thread that evaluates {@code source} in {@code truffleContext}, which was created
+     * from {@code info} in advance, e.g. by a {@link ContextTemplate}, or in a new context if
+     * {@code truffleContext} is {@code null}.
+     */
+    public EvalThread(Map<Integer, Thread> threadMap, ChildContextInfo info, TruffleContext truffleContext, Source source) {
         this.threadMap = threadMap;
         this.info = info;
         this.source = source;
         threadCnt.incrementAndGet();
         threadMap.put(info.getId(), this);
         idToMultiSlotTable.put(info.getId(), info.getMultiSlotInd());
-        this.truffleContext = info.createTruffleContext();
+        this.truffleContext = truffleContext != null ? truffleContext : info.createTruffleContext();
     }
 
     @Override
@@ -95,10 +104,22 @@ public class EvalThread extends Thread {
      * Convenience method for {@code .fastr.context.eval} in same thread.
      */
     public static RList run(TruffleContext truffleContext, ChildContextInfo info, Source source) {
+        Object parent = truffleContext.enter();
+        try {
+            return eval(info, source);
+        } finally {
+            truffleContext.leave(parent);
+            truffleContext.close();
+        }
+    }
+
+    /**
+     * Evaluates {@code source} in the child context described by {@code info}, which must be
+     * entered by the current thread.
+     */
+    public static RList eval(ChildContextInfo info, Source source) {
         RList result = null;
-        Object parent = null;
         try {
-            parent = truffleContext.enter();
             // this is the engine for the new child context
             Engine rEngine = RContext.getEngine();
             // Object eval = rEngine.eval(rEngine.parse(source), rEngine.getGlobalFrame());
@@ -117,9 +138,6 @@ public class EvalThread extends Thread {
             // some internal error
             RInternalError.reportErrorAndConsoleLog(t, info.getId());
             result = createErrorResult(t.getClass().getSimpleName());
-        } finally {
-            truffleContext.leave(parent);
-            truffleContext.close();
         }
         return result;
     }
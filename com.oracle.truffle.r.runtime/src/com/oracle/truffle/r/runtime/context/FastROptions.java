@@ -84,6 +84,22 @@ public class FastROptions {
     public static final OptionKey<Boolean> LoadProfiles = new OptionKey<>(!FastRConfig.ManagedMode);
     @Option(category = OptionCategory.EXPERT, help = "Use 128 bit arithmetic in sum builtin") //
     public static final OptionKey<Boolean> FullPrecisionSum = new OptionKey<>(false);
+    @Option(category = OptionCategory.EXPERT, help = "Minimal length of vectors that order and sort process in parallel, 0 disables parallel sorting") //
+    public static final OptionKey<Integer> ParallelSortThreshold = new OptionKey<>(1 << 20);
+    @Option(category = OptionCategory.EXPERT, help = "Minimal number of characters in a block of lines that scan splits into fields in parallel and in a vector that type.convert converts in parallel, 0 disables both") //
+    public static final OptionKey<Integer> ParallelScanThreshold = new OptionKey<>(1 << 20);
+    @Option(category = OptionCategory.EXPERT, help = "Minimal number of multiply-adds in matrix products, cov and cor that are split across threads, 0 disables parallel computation") //
+    public static final OptionKey<Integer> ParallelFlopsThreshold = new OptionKey<>(1 << 24);
+    @Option(category = OptionCategory.EXPERT, help = "Minimal length of vectors that sum, prod, mean, min, max, range and the row and column sums and means reduce in parallel, 0 disables parallel reductions") //
+    public static final OptionKey<Integer> ParallelReduceThreshold = new OptionKey<>(1 << 22);
+    @Option(category = OptionCategory.EXPERT, help = "Number of bindings above which environments created by new.env(hash = TRUE) keep them in a hash table instead of frame slots, 0 disables hash tables") //
+    public static final OptionKey<Integer> EnvHashThreshold = new OptionKey<>(1024);
+    @Option(category = OptionCategory.EXPERT, help = "Directory of the cache of parsed R sources that is shared across runs, the cache is disabled if empty") //
+    public static final OptionKey<String> ParseCacheDir = new OptionKey<>("");
+    @Option(category = OptionCategory.EXPERT, help = "File into which the startup timestamps and phases are written as JSON when the startup finishes, nothing is written if empty") //
+    public static final OptionKey<String> StartupTimingFile = new OptionKey<>("");
+    @Option(category = OptionCategory.EXPERT, help = "Size in MB of the process-wide cache of objects fetched from lazy-load databases, 0 disables the cache. Only the value of the first context that uses the cache is taken into account") //
+    public static final OptionKey<Integer> LazyLoadCacheSize = new OptionKey<>(64);
     @Option(category = OptionCategory.EXPERT, help = "Argument writes do not trigger state transitions") //
     public static final OptionKey<Boolean> InvisibleArgs = new OptionKey<>(true);
     @Option(category = OptionCategory.EXPERT, help = "Disable reference count decrements") //
@@ -50,6 +50,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
@@ -384,6 +385,16 @@ public final class RContext {
     public final WeakHashMap<TruffleFile, REnvironment> srcfileEnvironments = new WeakHashMap<>();
     public final List<String> libraryPaths = new ArrayList<>(1);
     public final Map<Integer, Thread> threads = new ConcurrentHashMap<>();
+    /**
+     * The template for the child contexts created by {@code .fastr.context.spawn} and
+     * {@code .fastr.context.eval}, if any.
+     */
+    private ContextTemplate contextTemplate;
+    /**
+     * The pool of worker contexts used by {@code .fastr.context.spawn} and
+     * {@code .fastr.context.eval} with {@code pool = TRUE}, if any.
+     */
+    private ContextPool contextPool;
     public final LanguageClosureCache languageClosureCache = new LanguageClosureCache();
     public final Map<String, Source> sourceCache = new ConcurrentHashMap<>();
 
@@ -642,6 +653,15 @@ public final class RContext {
             if (contextKind == ContextKind.SHARE_PARENT_RW) {
                 parentContext.sharedChild = null;
             }
+            if (contextTemplate != null) {
+                contextTemplate.close();
+                contextTemplate = null;
+            }
+            if (contextPool != null) {
+                // the worker contexts are children of this context
+                contextPool.close();
+                contextPool = null;
+            }
             state = EnumSet.of(State.DISPOSED);
 
             assert !initial || EvalThread.threadCnt.get() == 0 : "Did not close all children contexts";
@@ -658,6 +678,37 @@ public final class RContext {
         return parentContext;
     }
 
+    public ContextTemplate getContextTemplate() {
+        return contextTemplate;
+    }
+
+    /**
+     * Replaces the template for the child contexts, the spare contexts of the previous template are
+     * closed.
+     */
+    public void setContextTemplate(ContextTemplate template) {
+        if (contextTemplate != null) {
+            contextTemplate.close();
+        }
+        contextTemplate = template;
+    }
+
+    public ContextPool getContextPool() {
+        return contextPool;
+    }
+
+    /**
+     * Replaces the pool of worker contexts and closes the previous pool, which must not have
+     * unfinished evaluations.
+     */
+    public void setContextPool(ContextPool pool) {
+        if (contextPool != null) {
+            assert !contextPool.hasUnfinishedEvaluations();
+            contextPool.close();
+        }
+        contextPool = pool;
+    }
+
     public Env getEnv() {
         return env;
     }
@@ -933,6 +984,37 @@ public final class RContext {
         return executor.submit(action);
     }
 
+    /**
+     * Holder of the process-wide pool for data-parallel work of builtins (e.g. sorting of large
+     * vectors), which is created on first use and shared by all contexts so that the number of
+     * threads does not grow with the number of contexts. Its worker threads are daemons.
+     */
+    private static final class ParallelPoolHolder {
+        private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Returns the pool that builtins use to split work on large data across threads. The tasks
+     * must not run any R code, they may only work on data that the calling thread owns.
+     */
+    public ForkJoinPool getForkJoinPool() {
+        assert !state.contains(State.DISPOSED);
+        return ParallelPoolHolder.POOL;
+    }
+
+    /**
+     * Returns the {@link #getForkJoinPool() pool} if {@code work} (in the unit of the option) is at
+     * least the value of the {@code threshold} option, or {@code null} if the work should be done
+     * sequentially, which is also the case if the option is {@code 0}.
+     */
+    public ForkJoinPool getParallelPool(OptionKey<Integer> threshold, long work) {
+        int value = getNonNegativeIntOption(threshold);
+        if (value == 0 || work < value) {
+            return null;
+        }
+        return getForkJoinPool();
+    }
+
     @Override
     public String toString() {
         return "context: " + id;
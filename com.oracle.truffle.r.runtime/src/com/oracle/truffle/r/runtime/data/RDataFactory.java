@@ -1005,6 +1005,38 @@ public final class RDataFactory {
         return traceDataCreated(RDoubleVector.createSequence(start, stride, length));
     }
 
+    /**
+     * Creates a vector of {@code length} elements that are all {@code value}, which is stored only
+     * once until the vector is updated.
+     */
+    public static RIntVector createIntConstant(int value, int length) {
+        return traceDataCreated(RIntVector.createConstant(value, length));
+    }
+
+    public static RDoubleVector createDoubleConstant(double value, int length) {
+        return traceDataCreated(RDoubleVector.createConstant(value, length));
+    }
+
+    public static RLogicalVector createLogicalConstant(byte value, int length) {
+        return traceDataCreated(RLogicalVector.createConstant(value, length));
+    }
+
+    /**
+     * Creates a run-length encoded vector, run {@code i} has the value {@code values[i]} and ends
+     * before the index {@code ends[i]}. The arrays must not be modified afterwards.
+     */
+    public static RIntVector createIntRunLength(int[] values, int[] ends) {
+        return traceDataCreated(RIntVector.createRunLength(values, ends));
+    }
+
+    public static RDoubleVector createDoubleRunLength(double[] values, int[] ends) {
+        return traceDataCreated(RDoubleVector.createRunLength(values, ends));
+    }
+
+    public static RLogicalVector createLogicalRunLength(byte[] values, int[] ends) {
+        return traceDataCreated(RLogicalVector.createRunLength(values, ends));
+    }
+
     public static RIntVector createEmptyIntVector() {
         return createIntVector(new int[0], true);
     }
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.data;
+
+import static com.oracle.truffle.r.runtime.data.model.RAbstractVector.ENABLE_COMPLETE;
+
+import java.util.Arrays;
+
+import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Cached.Shared;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+import com.oracle.truffle.api.profiles.ConditionProfile;
+import com.oracle.truffle.api.profiles.LoopConditionProfile;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.RType;
+import com.oracle.truffle.r.runtime.data.VectorDataLibrary.RandomAccessIterator;
+import com.oracle.truffle.r.runtime.data.VectorDataLibrary.SeqIterator;
+import com.oracle.truffle.r.runtime.ops.na.NACheck;
+
+/**
+ * Double data that repeats one value, e.g. the result of {@code numeric(n)} or {@code rep(0, n)}. The data are not writeable, they are materialized to an array when the vector
+ * is updated.
+ */
+@ExportLibrary(VectorDataLibrary.class)
+final class RDoubleConstantVectorData implements TruffleObject {
+    private final double value;
+    private final int length;
+
+    RDoubleConstantVectorData(double value, int length) {
+        this.value = value;
+        this.length = length;
+    }
+
+    @SuppressWarnings("static-method")
+    @ExportMessage
+    public NACheck getNACheck(@Shared("naCheck") @Cached() NACheck na) {
+        na.enable(!isComplete());
+        return na;
+    }
+
+    @SuppressWarnings("static-method")
+    @ExportMessage
+    public RType getType() {
+        return RType.Double;
+    }
+
+    @ExportMessage
+    public int getLength() {
+        return length;
+    }
+
+    @ExportMessage
+    public RDoubleArrayVectorData materialize() {
+        return new RDoubleArrayVectorData(getDoubleDataCopy(), isComplete());
+    }
+
+    @ExportMessage
+    public RDoubleConstantVectorData copy(@SuppressWarnings("unused") boolean deep) {
+        return new RDoubleConstantVectorData(value, length);
+    }
+
+    @ExportMessage
+    public Object copyResized(int newSize, @SuppressWarnings("unused") boolean deep, boolean fillNA) {
+        if (fillNA && newSize > length) {
+            return new RDoubleRunLengthVectorData(new double[]{value, RRuntime.DOUBLE_NA}, new int[]{length, newSize});
+        }
+        return new RDoubleConstantVectorData(value, newSize);
+    }
+
+    @ExportMessage
+    public boolean isComplete() {
+        return !RRuntime.isNA(value) && ENABLE_COMPLETE;
+    }
+
+    @ExportMessage
+    public boolean isSorted(@SuppressWarnings("unused") boolean descending, @SuppressWarnings("unused") boolean naLast) {
+        return !Double.isNaN(value);
+    }
+
+    @ExportMessage
+    public double[] getDoubleDataCopy() {
+        double[] result = new double[length];
+        Arrays.fill(result, value);
+        return result;
+    }
+
+    // Read access to the elements:
+
+    @ExportMessage
+    public SeqIterator iterator(@Shared("naCheck") @Cached() NACheck naCheck,
+                    @Shared("SeqItLoopProfile") @Cached("createCountingProfile()") LoopConditionProfile loopProfile) {
+        SeqIterator it = new SeqIterator(null, length);
+        naCheck.enable(!isComplete());
+        it.initLoopConditionProfile(loopProfile);
+        return it;
+    }
+
+    @ExportMessage
+    @SuppressWarnings("static-method")
+    public boolean nextImpl(SeqIterator it, boolean loopCondition,
+                    @Shared("SeqItLoopProfile") @Cached("createCountingProfile()") LoopConditionProfile loopProfile) {
+        return it.next(loopCondition, loopProfile);
+    }
+
+    @ExportMessage
+    @SuppressWarnings("static-method")
+    public void nextWithWrap(SeqIterator it,
+                    @Cached("createBinaryProfile()") ConditionProfile wrapProfile) {
+        it.nextWithWrap(wrapProfile);
+    }
+
+    @ExportMessage
+    public RandomAccessIterator randomAccessIterator(@Shared("naCheck") @Cached() NACheck naCheck) {
+        naCheck.enable(!isComplete());
+        return new RandomAccessIterator(null);
+    }
+
+    @ExportMessage
+    public double getDoubleAt(@SuppressWarnings("unused") int index,
+                    @Shared("naCheck") @Cached() NACheck naCheck) {
+        assert index < length;
+        naCheck.check(value);
+        return value;
+    }
+
+    @ExportMessage
+    public double getNextDouble(@SuppressWarnings("unused") SeqIterator it, @Shared("naCheck") @Cached() NACheck naCheck) {
+        naCheck.check(value);
+        return value;
+    }
+
+    @ExportMessage
+    public double getDouble(@SuppressWarnings("unused") RandomAccessIterator it, @SuppressWarnings("unused") int index, @Shared("naCheck") @Cached() NACheck naCheck) {
+        naCheck.check(value);
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        CompilerAsserts.neverPartOfCompilation();
+        return "[" + value + " x " + length + "]";
+    }
+}
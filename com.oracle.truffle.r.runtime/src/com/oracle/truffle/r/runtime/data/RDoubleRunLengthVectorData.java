@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.data;
+
+import static com.oracle.truffle.r.runtime.data.model.RAbstractVector.ENABLE_COMPLETE;
+
+import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Cached.Shared;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+import com.oracle.truffle.api.profiles.ConditionProfile;
+import com.oracle.truffle.api.profiles.LoopConditionProfile;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.RType;
+import com.oracle.truffle.r.runtime.data.VectorDataLibrary.Iterator;
+import com.oracle.truffle.r.runtime.data.VectorDataLibrary.RandomAccessIterator;
+import com.oracle.truffle.r.runtime.data.VectorDataLibrary.SeqIterator;
+import com.oracle.truffle.r.runtime.ops.na.NACheck;
+
+/**
+ * Run-length encoded double data, e.g. the result of {@code rep(x, each = k)}. See
+ * {@link RunLengthEncoding} for the layout. The data are not writeable, they are materialized to an
+ * array when the vector is updated.
+ */
+@ExportLibrary(VectorDataLibrary.class)
+final class RDoubleRunLengthVectorData implements TruffleObject {
+    private final double[] values;
+    private final int[] ends;
+    private final boolean complete;
+    private final boolean ascending;
+    private final boolean descending;
+
+    RDoubleRunLengthVectorData(double[] values, int[] ends) {
+        assert values.length == ends.length;
+        this.values = values;
+        this.ends = ends;
+        boolean noNA = true;
+        boolean noNaN = true;
+        boolean up = true;
+        boolean down = true;
+        for (int i = 0; i < values.length; i++) {
+            noNA &= !RRuntime.isNA(values[i]);
+            noNaN &= !Double.isNaN(values[i]);
+            if (i > 0) {
+                up &= values[i - 1] <= values[i];
+                down &= values[i - 1] >= values[i];
+            }
+        }
+        this.complete = noNA;
+        this.ascending = noNaN && up;
+        this.descending = noNaN && down;
+    }
+
+    @SuppressWarnings("static-method")
+    @ExportMessage
+    public NACheck getNACheck(@Shared("naCheck") @Cached() NACheck na) {
+        na.enable(!isComplete());
+        return na;
+    }
+
+    @SuppressWarnings("static-method")
+    @ExportMessage
+    public RType getType() {
+        return RType.Double;
+    }
+
+    @ExportMessage
+    public int getLength() {
+        return RunLengthEncoding.getLength(ends);
+    }
+
+    @ExportMessage
+    public RDoubleArrayVectorData materialize() {
+        return new RDoubleArrayVectorData(getDoubleDataCopy(), isComplete());
+    }
+
+    @ExportMessage
+    public RDoubleRunLengthVectorData copy(@SuppressWarnings("unused") boolean deep) {
+        return new RDoubleRunLengthVectorData(values, ends);
+    }
+
+    @ExportMessage
+    public RDoubleRunLengthVectorData copyResized(int newSize, @SuppressWarnings("unused") boolean deep, boolean fillNA) {
+        int[][] resized = RunLengthEncoding.resize(ends, newSize, fillNA);
+        int[] runs = resized[0];
+        double[] newValues = new double[runs.length];
+        for (int i = 0; i < runs.length; i++) {
+            newValues[i] = runs[i] == -1 ? RRuntime.DOUBLE_NA : values[runs[i]];
+        }
+        return new RDoubleRunLengthVectorData(newValues, resized[1]);
+    }
+
+    @ExportMessage
+    public boolean isComplete() {
+        return complete && ENABLE_COMPLETE;
+    }
+
+    @ExportMessage
+    public boolean isSorted(boolean descendingOrder, @SuppressWarnings("unused") boolean naLast) {
+        return descendingOrder ? descending : ascending;
+    }
+
+    @ExportMessage
+    public double[] getDoubleDataCopy() {
+        double[] result = new double[getLength()];
+        int start = 0;
+        for (int i = 0; i < values.length; i++) {
+            double value = values[i];
+            for (int j = start; j < ends[i]; j++) {
+                result[j] = value;
+            }
+            start = Math.max(start, ends[i]);
+        }
+        return result;
+    }
+
+    // Read access to the elements:
+
+    @ExportMessage
+    public SeqIterator iterator(@Shared("naCheck") @Cached() NACheck naCheck,
+                    @Shared("SeqItLoopProfile") @Cached("createCountingProfile()") LoopConditionProfile loopProfile) {
+        SeqIterator it = new SeqIterator(new IteratorData(values, ends), getLength());
+        naCheck.enable(!isComplete());
+        it.initLoopConditionProfile(loopProfile);
+        return it;
+    }
+
+    @ExportMessage
+    @SuppressWarnings("static-method")
+    public boolean nextImpl(SeqIterator it, boolean loopCondition,
+                    @Shared("SeqItLoopProfile") @Cached("createCountingProfile()") LoopConditionProfile loopProfile) {
+        return it.next(loopCondition, loopProfile);
+    }
+
+    @ExportMessage
+    @SuppressWarnings("static-method")
+    public void nextWithWrap(SeqIterator it,
+                    @Cached("createBinaryProfile()") ConditionProfile wrapProfile) {
+        it.nextWithWrap(wrapProfile);
+    }
+
+    @ExportMessage
+    public RandomAccessIterator randomAccessIterator(@Shared("naCheck") @Cached() NACheck naCheck) {
+        naCheck.enable(!isComplete());
+        return new RandomAccessIterator(new IteratorData(values, ends));
+    }
+
+    @ExportMessage
+    public double getDoubleAt(int index,
+                    @Shared("naCheck") @Cached() NACheck naCheck) {
+        assert index < getLength();
+        double value = values[RunLengthEncoding.findRun(ends, index)];
+        naCheck.check(value);
+        return value;
+    }
+
+    @ExportMessage
+    public double getNextDouble(SeqIterator it, @Shared("naCheck") @Cached() NACheck naCheck) {
+        double value = getStore(it).get(it.getIndex());
+        naCheck.check(value);
+        return value;
+    }
+
+    @ExportMessage
+    public double getDouble(RandomAccessIterator it, int index, @Shared("naCheck") @Cached() NACheck naCheck) {
+        double value = getStore(it).get(index);
+        naCheck.check(value);
+        return value;
+    }
+
+    private static IteratorData getStore(Iterator it) {
+        return (IteratorData) it.getStore();
+    }
+
+    @Override
+    public String toString() {
+        CompilerAsserts.neverPartOfCompilation();
+        return "[" + values.length + " runs, length " + getLength() + "]";
+    }
+
+    /**
+     * Remembers the run of the last access, so that iterating in order does not search the runs.
+     */
+    private static final class IteratorData {
+        private final double[] values;
+        private final int[] ends;
+        private int run;
+
+        private IteratorData(double[] values, int[] ends) {
+            this.values = values;
+            this.ends = ends;
+        }
+
+        double get(int index) {
+            run = RunLengthEncoding.findRun(ends, run, index);
+            return values[run];
+        }
+    }
+}
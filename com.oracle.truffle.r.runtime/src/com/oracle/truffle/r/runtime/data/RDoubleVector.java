@@ -89,6 +89,14 @@ public final class RDoubleVector extends RAbstractNumericVector implements RMate
         return new RDoubleVector(new RDoubleSeqVectorData(start, stride, length), length);
     }
 
+    public static RDoubleVector createConstant(double value, int length) {
+        return new RDoubleVector(new RDoubleConstantVectorData(value, length), length);
+    }
+
+    public static RDoubleVector createRunLength(double[] values, int[] ends) {
+        return new RDoubleVector(new RDoubleRunLengthVectorData(values, ends), RunLengthEncoding.getLength(ends));
+    }
+
     public static RDoubleVector createClosure(RAbstractVector delegate, boolean keepAttrs) {
         RDoubleVector result = new RDoubleVector(VectorDataClosure.fromVector(delegate, RType.Double), delegate.getLength());
         if (keepAttrs) {
@@ -167,6 +175,7 @@ public final class RDoubleVector extends RAbstractNumericVector implements RMate
             return null;
         }
         // TODO: get rid of this method
+        // compact and sequence data have no array, the callers must materialize them first
         assert data instanceof RDoubleArrayVectorData : data.getClass().getName();
         return ((RDoubleArrayVectorData) data).getReadonlyDoubleData();
     }
@@ -274,7 +283,36 @@ public final class RDoubleVector extends RAbstractNumericVector implements RMate
         }
         // To retain the semantics of the original materialize, for sequences and such we return new
         // vector
-        return new RDoubleVector(dataLib.getDoubleDataCopy(data), isComplete());
+        RDoubleVector result = new RDoubleVector(dataLib.getDoubleDataCopy(data), isComplete());
+        if (isCompact()) {
+            // unlike sequences, constant and run-length vectors carry attributes, e.g. from array
+            copyCompactAttributes(result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns {@code true} if the data is a constant or run-length encoded, see
+     * {@link RDataFactory#createDoubleConstant(double, int)}.
+     */
+    public boolean isCompact() {
+        return data instanceof RDoubleConstantVectorData || data instanceof RDoubleRunLengthVectorData;
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    private void copyCompactAttributes(RDoubleVector materialized) {
+        materialized.copyAttributesFrom(this);
+    }
+
+    @Override
+    public RAbstractVector copyResized(int size, boolean fillNA) {
+        if (isCompact()) {
+            // constant and run-length data stay compact
+            RDoubleVector result = new RDoubleVector(VectorDataLibrary.getFactory().getUncached().copyResized(data, size, false, fillNA), size);
+            MemoryCopyTracer.reportCopying(this, result);
+            return result;
+        }
+        return super.copyResized(size, fillNA);
     }
 
     @ExportMessage(name = "copy", library = AbstractContainerLibrary.class)
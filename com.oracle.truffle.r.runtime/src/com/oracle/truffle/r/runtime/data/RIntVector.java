@@ -90,6 +90,14 @@ public final class RIntVector extends RAbstractNumericVector {
         return new RIntVector(new RIntSeqVectorData(start, stride, length), length);
     }
 
+    public static RIntVector createConstant(int value, int length) {
+        return new RIntVector(new RIntConstantVectorData(value, length), length);
+    }
+
+    public static RIntVector createRunLength(int[] values, int[] ends) {
+        return new RIntVector(new RIntRunLengthVectorData(values, ends), RunLengthEncoding.getLength(ends));
+    }
+
     public static RIntVector createClosure(RAbstractVector delegate, boolean keepAttrs) {
         RIntVector result = new RIntVector(VectorDataClosure.fromVector(delegate, RType.Integer), delegate.getLength());
         if (keepAttrs) {
@@ -241,6 +249,7 @@ public final class RIntVector extends RAbstractNumericVector {
             return null;
         }
         // TODO: get rid of this method
+        // compact and sequence data have no array, the callers must materialize them first
         assert data instanceof RIntArrayVectorData : data.getClass().getName();
         return ((RIntArrayVectorData) data).getReadonlyIntData();
     }
@@ -281,7 +290,36 @@ public final class RIntVector extends RAbstractNumericVector {
         }
         // To retain the semantics of the original materialize, for sequences and such we return new
         // vector
-        return new RIntVector(dataLib.getIntDataCopy(data), isComplete());
+        RIntVector result = new RIntVector(dataLib.getIntDataCopy(data), isComplete());
+        if (isCompact()) {
+            // unlike sequences, constant and run-length vectors carry attributes, e.g. from array
+            copyCompactAttributes(result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns {@code true} if the data is a constant or run-length encoded, see
+     * {@link RDataFactory#createIntConstant(int, int)}.
+     */
+    public boolean isCompact() {
+        return data instanceof RIntConstantVectorData || data instanceof RIntRunLengthVectorData;
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    private void copyCompactAttributes(RIntVector materialized) {
+        materialized.copyAttributesFrom(this);
+    }
+
+    @Override
+    public RAbstractVector copyResized(int size, boolean fillNA) {
+        if (isCompact()) {
+            // constant and run-length data stay compact
+            RIntVector result = new RIntVector(VectorDataLibrary.getFactory().getUncached().copyResized(data, size, false, fillNA), size);
+            MemoryCopyTracer.reportCopying(this, result);
+            return result;
+        }
+        return super.copyResized(size, fillNA);
     }
 
     @ExportMessage(name = "copy", library = AbstractContainerLibrary.class)
@@ -88,6 +88,14 @@ public final class RLogicalVector extends RAbstractAtomicVector implements RMate
         return new RLogicalVector(data, VectorDataLibrary.getFactory().getUncached().getLength(data));
     }
 
+    public static RLogicalVector createConstant(byte value, int length) {
+        return new RLogicalVector(new RLogicalConstantVectorData(value, length), length);
+    }
+
+    public static RLogicalVector createRunLength(byte[] values, int[] ends) {
+        return new RLogicalVector(new RLogicalRunLengthVectorData(values, ends), RunLengthEncoding.getLength(ends));
+    }
+
     static RLogicalVector fromNative(long address, int length) {
         RLogicalVector result = new RLogicalVector();
         NativeDataAccess.toNative(result);
@@ -176,6 +184,7 @@ public final class RLogicalVector extends RAbstractAtomicVector implements RMate
             return null;
         }
         // TODO: get rid of this method
+        // compact and sequence data have no array, the callers must materialize them first
         assert data instanceof RLogicalArrayVectorData : data.getClass().getName();
         return ((RLogicalArrayVectorData) data).getReadonlyLogicalData();
     }
@@ -285,7 +294,36 @@ public final class RLogicalVector extends RAbstractAtomicVector implements RMate
         }
         // To retain the semantics of the original materialize, for sequences and such we return new
         // vector
-        return new RLogicalVector(dataLib.getLogicalDataCopy(data), isComplete());
+        RLogicalVector result = new RLogicalVector(dataLib.getLogicalDataCopy(data), isComplete());
+        if (isCompact()) {
+            // unlike sequences, constant and run-length vectors carry attributes, e.g. from array
+            copyCompactAttributes(result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns {@code true} if the data is a constant or run-length encoded, see
+     * {@link RDataFactory#createLogicalConstant(byte, int)}.
+     */
+    public boolean isCompact() {
+        return data instanceof RLogicalConstantVectorData || data instanceof RLogicalRunLengthVectorData;
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    private void copyCompactAttributes(RLogicalVector materialized) {
+        materialized.copyAttributesFrom(this);
+    }
+
+    @Override
+    public RAbstractVector copyResized(int size, boolean fillNA) {
+        if (isCompact()) {
+            // constant and run-length data stay compact
+            RLogicalVector result = new RLogicalVector(VectorDataLibrary.getFactory().getUncached().copyResized(data, size, false, fillNA), size);
+            MemoryCopyTracer.reportCopying(this, result);
+            return result;
+        }
+        return super.copyResized(size, fillNA);
     }
 
     @ExportMessage(name = "copy", library = AbstractContainerLibrary.class)
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.data;
+
+import java.util.Arrays;
+
+/**
+ * Helpers for the run-length encoded vector data. A run-length encoding stores the values of the
+ * runs and the exclusive end index of each run, the last end is the length of the data.
+ */
+final class RunLengthEncoding {
+
+    private RunLengthEncoding() {
+        // no instances
+    }
+
+    static int getLength(int[] ends) {
+        return ends.length == 0 ? 0 : ends[ends.length - 1];
+    }
+
+    /**
+     * Returns the index of the run that contains the element at {@code index}.
+     */
+    static int findRun(int[] ends, int index) {
+        int low = 0;
+        int high = ends.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ends[mid] <= index) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the index of the run that contains the element at {@code index}, starting the search
+     * at {@code run}, which is the run of the previous access.
+     */
+    static int findRun(int[] ends, int run, int index) {
+        if (index < ends[run] && (run == 0 || index >= ends[run - 1])) {
+            return run;
+        } else if (run + 1 < ends.length && index >= ends[run] && index < ends[run + 1]) {
+            return run + 1;
+        }
+        return findRun(ends, index);
+    }
+
+    /**
+     * Computes the runs of the data resized to {@code newSize}, with the semantics of
+     * {@link VectorDataLibrary#copyResized(Object, int, boolean, boolean)}. The result has two
+     * arrays: the indices of the source runs, where {@code -1} stands for a run of {@code NA}, and
+     * the new ends of the runs.
+     */
+    static int[][] resize(int[] ends, int newSize, boolean fillNA) {
+        int length = getLength(ends);
+        if (newSize <= length) {
+            int count = newSize == 0 ? 0 : findRun(ends, newSize - 1) + 1;
+            int[] newEnds = Arrays.copyOf(ends, count);
+            if (count > 0) {
+                newEnds[count - 1] = newSize;
+            }
+            return new int[][]{identity(count), newEnds};
+        } else if (fillNA || length == 0) {
+            int[] runs = Arrays.copyOf(identity(ends.length), ends.length + 1);
+            runs[ends.length] = -1;
+            int[] newEnds = Arrays.copyOf(ends, ends.length + 1);
+            newEnds[ends.length] = newSize;
+            return new int[][]{runs, newEnds};
+        } else {
+            int cycles = newSize / length;
+            int rest = newSize % length;
+            int restRuns = rest == 0 ? 0 : findRun(ends, rest - 1) + 1;
+            int count = cycles * ends.length + restRuns;
+            int[] runs = new int[count];
+            int[] newEnds = new int[count];
+            for (int i = 0; i < count; i++) {
+                int cycle = i / ends.length;
+                runs[i] = i % ends.length;
+                newEnds[i] = Math.min(newSize, cycle * length + ends[runs[i]]);
+            }
+            return new int[][]{runs, newEnds};
+        }
+    }
+
+    private static int[] identity(int count) {
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = i;
+        }
+        return result;
+    }
+}
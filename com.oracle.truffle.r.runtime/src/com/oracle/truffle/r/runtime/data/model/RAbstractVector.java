@@ -183,7 +183,8 @@ public abstract class RAbstractVector extends RAbstractContainer implements RFFI
     public abstract Object getInternalManagedData();
 
     public final boolean hasNativeMemoryData() {
-        return getInternalManagedData() == null;
+        // data that are not materialized, e.g. sequences, are never native
+        return isMaterialized() && getInternalManagedData() == null;
     }
 
     @Override
@@ -46,7 +46,7 @@ public class GetReadonlyData {
     public abstract static class Double extends Node {
         public abstract double[] execute(RDoubleVector vector);
 
-        @Specialization(guards = "!vec.hasNativeMemoryData()")
+        @Specialization(guards = {"vec.isMaterialized()", "!vec.hasNativeMemoryData()"})
         protected double[] doManagedRVector(RDoubleVector vec) {
             return vec.getInternalManagedData();
         }
@@ -56,6 +56,12 @@ public class GetReadonlyData {
             return NativeDataAccess.copyDoubleNativeData(vec.getNativeMirror());
         }
 
+        @Specialization(guards = "!vec.isMaterialized()")
+        protected double[] doNonMaterializedRVector(RDoubleVector vec) {
+            // e.g. sequences or constants, the data are computed into a new array
+            return vec.getReadonlyData();
+        }
+
         public static Double create() {
             return GetReadonlyDataFactory.DoubleNodeGen.create();
         }
@@ -48,12 +48,12 @@ public class VectorDataReuse {
 
         public abstract int[] execute(RIntVector vector);
 
-        @Specialization(guards = {"!vec.hasNativeMemoryData()", "vec.isTemporary()"})
+        @Specialization(guards = {"vec.isMaterialized()", "!vec.hasNativeMemoryData()", "vec.isTemporary()"})
         protected int[] doManagedTempRVector(RIntVector vec) {
             return vec.getInternalManagedData();
         }
 
-        @Specialization(guards = {"!vec.hasNativeMemoryData()", "!vec.isTemporary()"})
+        @Specialization(guards = {"vec.isMaterialized()", "!vec.hasNativeMemoryData()", "!vec.isTemporary()"})
         protected int[] doManagedRVector(RIntVector vec) {
             int[] data = vec.getInternalManagedData();
             return Arrays.copyOf(data, data.length);
@@ -64,6 +64,12 @@ public class VectorDataReuse {
             return NativeDataAccess.copyIntNativeData(vec.getNativeMirror());
         }
 
+        @Specialization(guards = "!vec.isMaterialized()")
+        protected int[] doNonMaterializedRVector(RIntVector vec) {
+            // e.g. sequences or constants, the copy is a new array
+            return vec.getDataCopy();
+        }
+
         public static Int create() {
             return VectorDataReuseFactory.IntNodeGen.create();
         }
@@ -73,12 +79,12 @@ public class VectorDataReuse {
 
         public abstract double[] execute(RDoubleVector vector);
 
-        @Specialization(guards = {"!vec.hasNativeMemoryData()", "vec.isTemporary()"})
+        @Specialization(guards = {"vec.isMaterialized()", "!vec.hasNativeMemoryData()", "vec.isTemporary()"})
         protected double[] doManagedTempRVector(RDoubleVector vec) {
             return vec.getInternalManagedData();
         }
 
-        @Specialization(guards = {"!vec.hasNativeMemoryData()", "!vec.isTemporary()"})
+        @Specialization(guards = {"vec.isMaterialized()", "!vec.hasNativeMemoryData()", "!vec.isTemporary()"})
         protected double[] doManagedRVector(RDoubleVector vec) {
             double[] data = vec.getInternalManagedData();
             return Arrays.copyOf(data, data.length);
@@ -89,6 +95,12 @@ public class VectorDataReuse {
             return NativeDataAccess.copyDoubleNativeData(vec.getNativeMirror());
         }
 
+        @Specialization(guards = "!vec.isMaterialized()")
+        protected double[] doNonMaterializedRVector(RDoubleVector vec) {
+            // e.g. sequences or constants, the copy is a new array
+            return vec.getDataCopy();
+        }
+
         public static Double create() {
             return VectorDataReuseFactory.DoubleNodeGen.create();
         }
@@ -22,6 +22,8 @@
  */
 package com.oracle.truffle.r.runtime.env;
 
+import static com.oracle.truffle.r.runtime.context.FastROptions.EnvHashThreshold;
+
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -71,6 +73,7 @@ import com.oracle.truffle.r.runtime.env.frame.FrameSlotChangeMonitor;
 import com.oracle.truffle.r.runtime.env.frame.NSBaseMaterializedFrame;
 import com.oracle.truffle.r.runtime.env.frame.REnvEmptyFrameAccess;
 import com.oracle.truffle.r.runtime.env.frame.REnvFrameAccess;
+import com.oracle.truffle.r.runtime.env.frame.REnvHashFrameAccess;
 import com.oracle.truffle.r.runtime.env.frame.REnvTruffleFrameAccess;
 import com.oracle.truffle.r.runtime.interop.Foreign2R;
 import com.oracle.truffle.r.runtime.interop.R2Foreign;
@@ -755,7 +758,7 @@ public abstract class REnvironment extends RAttributable {
         REnvironment envAbove = searchPath.get(bpos - 1);
         searchPath.add(bpos, env);
         // Now must adjust the Frame world so that unquoted variable lookup works
-        MaterializedFrame aboveFrame = envAbove.frameAccess.getFrame();
+        MaterializedFrame aboveFrame = envAbove.getFrameAccess().getFrame();
         MaterializedFrame envFrame = env.getFrame();
         RArguments.attachFrame(aboveFrame, envFrame);
     }
@@ -787,7 +790,7 @@ public abstract class REnvironment extends RAttributable {
         REnvironment envAbove = searchPath.get(bpos - 1);
         REnvironment envToRemove = searchPath.get(bpos);
         searchPath.remove(bpos);
-        MaterializedFrame aboveFrame = envAbove.frameAccess.getFrame();
+        MaterializedFrame aboveFrame = envAbove.getFrameAccess().getFrame();
         RArguments.detachFrame(aboveFrame);
         return envToRemove;
     }
@@ -859,10 +862,10 @@ public abstract class REnvironment extends RAttributable {
      * Return the "spec" attribute of the "info" env in a namespace or {@code null} if not found.
      */
     public RStringVector getNamespaceSpec() {
-        Object value = frameAccess.get(NAMESPACE_KEY);
+        Object value = getFrameAccess().get(NAMESPACE_KEY);
         if (value instanceof REnvironment) {
             REnvironment info = (REnvironment) value;
-            Object spec = info.frameAccess.get("spec");
+            Object spec = info.getFrameAccess().get("spec");
             if ((spec != null) && spec instanceof RStringVector) {
                 RStringVector infoVec = (RStringVector) spec;
                 if (infoVec.getLength() > 0) {
@@ -894,7 +897,7 @@ public abstract class REnvironment extends RAttributable {
     }
 
     public REnvironment getParent() {
-        MaterializedFrame enclosingFrame = RArguments.getEnclosingFrame(getFrame());
+        MaterializedFrame enclosingFrame = RArguments.getEnclosingFrame(getFrameAccess().getFrame());
         return enclosingFrame == null ? emptyEnv : frameToEnvironment(enclosingFrame);
     }
 
@@ -904,10 +907,18 @@ public abstract class REnvironment extends RAttributable {
      */
     public void setParent(REnvironment env) {
         if (getParent() != env) {
-            RArguments.setEnclosingFrame(getFrame(), env.getFrame(), true);
+            RArguments.setEnclosingFrame(getFrameAccess().getFrame(), env.getFrame(), true);
         }
     }
 
+    /**
+     * Sets the parent of a freshly created environment, unlike {@link #getFrame()} this does not
+     * hand out the frame of this environment.
+     */
+    public void initializeParent(REnvironment env) {
+        RArguments.initializeEnclosingFrame(getFrameAccess().getFrame(), env.getFrame());
+    }
+
     /**
      * The "simple" name of the environment. This is the value returned by the R
      * {@code environmentName} function.
@@ -957,17 +968,49 @@ public abstract class REnvironment extends RAttributable {
      * there is none in the case of {@link NewEnv} environments.
      */
     public MaterializedFrame getFrame() {
-        return frameAccess.getFrame();
+        return getFrameAccess().getFrame();
     }
 
     public MaterializedFrame getFrame(ValueProfile frameAccessProfile) {
-        return frameAccessProfile.profile(frameAccess).getFrame();
+        return frameAccessProfile.profile(getFrameAccess()).getFrame();
+    }
+
+    /**
+     * Returns {@code true} if the bindings of this environment may be kept outside of its frame,
+     * see {@link NewEnv}. Such environments should be accessed via {@link #get(String)} and
+     * {@link #put(String, Object)}, because {@link #getFrame()} moves the bindings back into the
+     * frame for good.
+     */
+    public boolean mayUseHashTable() {
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if this environment keeps its bindings outside of its frame or is about
+     * to do so. Writes to such environments must go through {@link #put(String, Object)}, other
+     * environments may be written via {@link #getFrameForWrite(ValueProfile)}.
+     */
+    public boolean needsPut() {
+        return false;
+    }
+
+    /**
+     * Returns the frame of this environment for writing a single binding into it. Unlike
+     * {@link #getFrame(ValueProfile)} this does not hand out the frame, so it may only be used if
+     * {@link #needsPut()} is {@code false}.
+     */
+    public final MaterializedFrame getFrameForWrite(ValueProfile frameAccessProfile) {
+        return frameAccessProfile.profile(getFrameAccess()).getFrame();
+    }
+
+    REnvFrameAccess getFrameAccess() {
+        return frameAccess;
     }
 
     public void lock(boolean bindings) {
         locked = true;
         if (bindings) {
-            frameAccess.lockBindings();
+            getFrameAccess().lockBindings();
         }
     }
 
@@ -977,19 +1020,19 @@ public abstract class REnvironment extends RAttributable {
 
     @TruffleBoundary
     public Object get(String key) {
-        return frameAccess.get(key);
+        return getFrameAccess().get(key);
     }
 
     @TruffleBoundary
     public boolean isActiveBinding(String key) {
-        return frameAccess.isActiveBinding(key);
+        return getFrameAccess().isActiveBinding(key);
     }
 
     @TruffleBoundary
     public void put(String key, Object value) throws PutException {
         if (locked) {
             // if the binding exists already, can try to update it
-            if (frameAccess.get(key) == null) {
+            if (getFrameAccess().get(key) == null) {
                 throw new PutException(RError.Message.ENV_ADD_BINDINGS);
             }
         }
@@ -999,14 +1042,14 @@ public abstract class REnvironment extends RAttributable {
                 shareable.incRefCount();
             }
         }
-        frameAccess.put(key, value);
+        getFrameAccess().put(key, value);
     }
 
     @TruffleBoundary
     public void putOverrideLock(String key, Object value) {
-        boolean keyLocked = frameAccess.bindingIsLocked(key);
+        boolean keyLocked = getFrameAccess().bindingIsLocked(key);
         if (keyLocked) {
-            frameAccess.unlockBinding(key);
+            getFrameAccess().unlockBinding(key);
         }
         try {
             put(key, value);
@@ -1014,7 +1057,7 @@ public abstract class REnvironment extends RAttributable {
             RSuicide.rSuicide("exception in putOverrideLock");
         } finally {
             if (keyLocked) {
-                frameAccess.lockBinding(key);
+                getFrameAccess().lockBinding(key);
             }
         }
     }
@@ -1032,7 +1075,7 @@ public abstract class REnvironment extends RAttributable {
         if (locked) {
             throw new PutException(RError.Message.ENV_REMOVE_BINDINGS);
         }
-        frameAccess.rm(key);
+        getFrameAccess().rm(key);
     }
 
     /**
@@ -1054,20 +1097,20 @@ public abstract class REnvironment extends RAttributable {
     }
 
     public RStringVector ls(boolean allNames, Pattern pattern, boolean sorted) {
-        return frameAccess.ls(allNames, pattern, sorted);
+        return getFrameAccess().ls(allNames, pattern, sorted);
     }
 
     public void lockBinding(String key) {
-        frameAccess.lockBinding(key);
+        getFrameAccess().lockBinding(key);
     }
 
     public void unlockBinding(String key) {
-        frameAccess.unlockBinding(key);
+        getFrameAccess().unlockBinding(key);
 
     }
 
     public boolean bindingIsLocked(String key) {
-        return frameAccess.bindingIsLocked(key);
+        return getFrameAccess().bindingIsLocked(key);
     }
 
     @Override
@@ -1220,17 +1263,27 @@ public abstract class REnvironment extends RAttributable {
     /**
      * An environment explicitly created with, typically, {@code new.env}, but also used internally.
      * Such environments are always {@link #UNNAMED} but can later be given a name as an attribute.
-     * This is the class used by the {@code new.env} function. We record but do not interpret the
-     * {@code hash} input, as we always use a hashmap, for possible use by the serialization code
-     * (GnuR generates different output format for hash environments).
+     * This is the class used by the {@code new.env} function. The {@code hash} input is also
+     * recorded for possible use by the serialization code (GnuR generates different output format
+     * for hash environments).
      *
+     * Hashed environments move their bindings from the frame to a {@link REnvHashFrameAccess} once
+     * they have more than {@code EnvHashThreshold} of them, as long as the frame has not been
+     * handed out via {@link #getFrame()}. Any code that gets the frame may look up variables in it
+     * directly, so that moves the bindings back into the frame and they stay there.
      */
     public static final class NewEnv extends REnvironment {
         private boolean hashed;
         private int initialSize;
+        private boolean frameEscaped;
+        /**
+         * The current bindings, either those of the frame or a {@link REnvHashFrameAccess}.
+         */
+        private REnvFrameAccess currentFrameAccess;
 
         public NewEnv(MaterializedFrame frame, String name) {
             super(UNNAMED, frame);
+            currentFrameAccess = super.getFrameAccess();
             if (name != null) {
                 setAttr(NAME_ATTR_KEY, name);
             }
@@ -1251,6 +1304,74 @@ public abstract class REnvironment extends RAttributable {
         public void setInitialSize(int initialSize) {
             this.initialSize = initialSize;
         }
+
+        @Override
+        public boolean mayUseHashTable() {
+            return hashed && !frameEscaped;
+        }
+
+        @Override
+        REnvFrameAccess getFrameAccess() {
+            return currentFrameAccess;
+        }
+
+        @Override
+        public MaterializedFrame getFrame() {
+            escapeFrame();
+            return super.getFrame();
+        }
+
+        @Override
+        public MaterializedFrame getFrame(ValueProfile frameAccessProfile) {
+            escapeFrame();
+            return super.getFrame(frameAccessProfile);
+        }
+
+        private void escapeFrame() {
+            if (!frameEscaped) {
+                escapeFrameSlowPath();
+            }
+        }
+
+        @TruffleBoundary
+        private void escapeFrameSlowPath() {
+            frameEscaped = true;
+            if (getFrameAccess() instanceof REnvHashFrameAccess) {
+                currentFrameAccess = ((REnvHashFrameAccess) currentFrameAccess).toFrame();
+            }
+        }
+
+        @Override
+        public boolean needsPut() {
+            if (!mayUseHashTable()) {
+                return false;
+            }
+            return getFrameAccess() instanceof REnvHashFrameAccess || isNearHashThreshold();
+        }
+
+        /**
+         * Frame writes are fine while the environment is small, but they must stop well before
+         * {@link #put(String, Object)} moves the bindings into the hash table.
+         */
+        @TruffleBoundary
+        private boolean isNearHashThreshold() {
+            int threshold = RContext.getInstance().getNonNegativeIntOption(EnvHashThreshold);
+            FrameDescriptor fd = getFrameAccess().getFrame().getFrameDescriptor();
+            return threshold > 0 && (initialSize > threshold || fd.getIdentifiers().size() >= threshold / 2);
+        }
+
+        @Override
+        @TruffleBoundary
+        public void put(String key, Object value) throws PutException {
+            if (mayUseHashTable() && getFrameAccess() instanceof REnvTruffleFrameAccess) {
+                int threshold = RContext.getInstance().getNonNegativeIntOption(EnvHashThreshold);
+                FrameDescriptor fd = getFrameAccess().getFrame().getFrameDescriptor();
+                if (threshold > 0 && (initialSize > threshold || fd.getIdentifiers().size() >= threshold)) {
+                    currentFrameAccess = REnvHashFrameAccess.fromFrame((REnvTruffleFrameAccess) currentFrameAccess, initialSize);
+                }
+            }
+            super.put(key, value);
+        }
     }
 
     /**
@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.env.frame;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
+import com.oracle.truffle.api.frame.FrameSlotKind;
+import com.oracle.truffle.api.frame.MaterializedFrame;
+import com.oracle.truffle.r.runtime.RError;
+import com.oracle.truffle.r.runtime.RInternalError;
+import com.oracle.truffle.r.runtime.data.RMissing;
+import com.oracle.truffle.r.runtime.data.RStringVector;
+import com.oracle.truffle.r.runtime.env.REnvironment;
+import com.oracle.truffle.r.runtime.env.REnvironment.PutException;
+
+/**
+ * Variant of {@link REnvFrameAccess} that keeps the bindings in an open addressing hash table
+ * instead of the slots of the frame. Adding a binding to a frame adds a slot to its
+ * {@link FrameDescriptor}, which does not scale to environments used as hash maps with many keys.
+ *
+ * The frame is only kept for its arguments, e.g. the enclosing frame, and does not contain the
+ * bindings. Therefore this variant must only be used as long as nobody looks up variables in the
+ * frame, see {@link #fromFrame(REnvTruffleFrameAccess, int)} and {@link #toFrame()}.
+ */
+public final class REnvHashFrameAccess extends REnvFrameAccess {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final MaterializedFrame frame;
+    /**
+     * Linear probing table, {@code keys[i] == null} marks an empty entry. Removed entries are
+     * filled by shifting the following entries back, so there are no deleted markers.
+     */
+    private String[] keys;
+    private Object[] values;
+    private int size;
+    /**
+     * Records which bindings are locked, allocated lazily like in {@link REnvTruffleFrameAccess}.
+     */
+    private Set<String> lockedBindings;
+
+    private REnvHashFrameAccess(MaterializedFrame frame, int expectedSize) {
+        this.frame = frame;
+        int capacity = MIN_CAPACITY;
+        while (capacity < 2 * expectedSize && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        this.keys = new String[capacity];
+        this.values = new Object[capacity];
+    }
+
+    /**
+     * Moves the bindings of {@code access} from the frame into a new hash table. The slots of the
+     * frame are cleared, but remain in its descriptor.
+     */
+    @TruffleBoundary
+    public static REnvHashFrameAccess fromFrame(REnvTruffleFrameAccess access, int expectedSize) {
+        MaterializedFrame frame = access.getFrame();
+        FrameDescriptor fd = frame.getFrameDescriptor();
+        REnvHashFrameAccess result = new REnvHashFrameAccess(frame, Math.max(expectedSize, fd.getIdentifiers().size()));
+        for (FrameSlot slot : fd.getSlots()) {
+            if (slot.getIdentifier() instanceof String) {
+                Object value = FrameSlotChangeMonitor.getValue(slot, frame);
+                if (value != null) {
+                    result.putValue((String) slot.getIdentifier(), value);
+                    if (fd.getFrameSlotKind(slot) != FrameSlotKind.Object) {
+                        fd.setFrameSlotKind(slot, FrameSlotKind.Object);
+                    }
+                    FrameSlotChangeMonitor.setObjectAndInvalidate(frame, slot, null, false, null);
+                }
+            }
+        }
+        result.lockedBindings = access.getLockedBindings();
+        return result;
+    }
+
+    /**
+     * Moves the bindings back into the slots of the frame, which is necessary before the frame
+     * can be used to look up variables.
+     */
+    @TruffleBoundary
+    public REnvTruffleFrameAccess toFrame() {
+        REnvTruffleFrameAccess result = new REnvTruffleFrameAccess(frame);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                if (ActiveBinding.isActiveBinding(values[i])) {
+                    FrameSlot slot = FrameSlotChangeMonitor.findOrAddFrameSlot(frame.getFrameDescriptor(), keys[i], FrameSlotKind.Object);
+                    FrameSlotChangeMonitor.setActiveBinding(frame, slot, (ActiveBinding) values[i], false, null);
+                } else {
+                    try {
+                        result.put(keys[i], values[i]);
+                    } catch (PutException e) {
+                        throw RInternalError.shouldNotReachHere(e);
+                    }
+                }
+            }
+        }
+        result.setLockedBindings(lockedBindings);
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public MaterializedFrame getFrame() {
+        return frame;
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int find(String key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != null) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private Object getValue(String key) {
+        int i = find(key);
+        return i < 0 ? null : values[i];
+    }
+
+    private void putValue(String key, Object value) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != null) {
+            if (keys[i].equals(key)) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        if (2 * size > keys.length) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    private void removeEntry(int index) {
+        int mask = keys.length - 1;
+        int hole = index;
+        int i = index;
+        while (true) {
+            i = (i + 1) & mask;
+            if (keys[i] == null) {
+                break;
+            }
+            // move the entry into the hole unless its home position lies after the hole
+            int home = hash(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        keys[hole] = null;
+        values[hole] = null;
+        size--;
+    }
+
+    private void rehash(int capacity) {
+        String[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new String[capacity];
+        values = new Object[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != null) {
+                int i = hash(oldKeys[j]) & mask;
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    @Override
+    @TruffleBoundary
+    public Object get(String key) {
+        Object value = getValue(key);
+        // special treatment for active binding: call bound function
+        if (ActiveBinding.isActiveBinding(value)) {
+            Object readValue = ((ActiveBinding) value).readValue();
+            // special case: if the active binding returns RMissing, then this should behave like
+            // the variable does not exist.
+            return readValue != RMissing.instance ? readValue : null;
+        }
+        return value;
+    }
+
+    @Override
+    @TruffleBoundary
+    public boolean isActiveBinding(String key) {
+        return ActiveBinding.isActiveBinding(getValue(key));
+    }
+
+    @Override
+    @TruffleBoundary
+    public void put(String key, Object value) throws PutException {
+        CompilerAsserts.neverPartOfCompilation();
+        assert key != null;
+        if (lockedBindings != null && lockedBindings.contains(key)) {
+            throw new PutException(RError.Message.ENV_CHANGE_BINDING, key);
+        }
+        if (value == null) {
+            int i = find(key);
+            if (i >= 0) {
+                removeEntry(i);
+            }
+            return;
+        }
+        Object object = getValue(key);
+        if (object != null && ActiveBinding.isActiveBinding(object)) {
+            ((ActiveBinding) object).writeValue(value);
+        } else {
+            putValue(key, value);
+        }
+    }
+
+    @Override
+    @TruffleBoundary
+    public void rm(String key) throws PutException {
+        assert key != null;
+        if (lockedBindings != null) {
+            lockedBindings.remove(key);
+        }
+        int i = find(key);
+        if (i < 0) {
+            throw new PutException(RError.Message.UNKNOWN_OBJECT, key);
+        }
+        if (ActiveBinding.isActiveBinding(values[i])) {
+            ActiveBinding binding = (ActiveBinding) values[i];
+            if (binding.isHidden()) {
+                binding.setInitialized(false);
+                return;
+            }
+        }
+        removeEntry(i);
+    }
+
+    @Override
+    @TruffleBoundary
+    public RStringVector ls(boolean allNames, Pattern pattern, boolean sorted) {
+        ArrayList<String> matchedNamesList = new ArrayList<>(size);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null && ActiveBinding.isListed(values[i]) && REnvironment.includeName(keys[i], allNames, pattern)) {
+                matchedNamesList.add(keys[i]);
+            }
+        }
+        return REnvTruffleFrameAccess.createNamesVector(matchedNamesList, sorted);
+    }
+
+    @Override
+    @TruffleBoundary
+    public boolean bindingIsLocked(String key) {
+        return lockedBindings != null && lockedBindings.contains(key);
+    }
+
+    @Override
+    @TruffleBoundary
+    public void lockBindings() {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                lockBinding(keys[i]);
+            }
+        }
+    }
+
+    @Override
+    @TruffleBoundary
+    public void lockBinding(String key) {
+        if (lockedBindings == null) {
+            lockedBindings = new HashSet<>();
+        }
+        lockedBindings.add(key);
+    }
+
+    @Override
+    @TruffleBoundary
+    public void unlockBinding(String key) {
+        if (lockedBindings != null) {
+            lockedBindings.remove(key);
+        }
+    }
+}
@@ -206,6 +206,13 @@ public final class REnvTruffleFrameAccess extends REnvFrameAccess {
                 matchedNamesList.add(name);
             }
         }
+        return createNamesVector(matchedNamesList, sorted);
+    }
+
+    /**
+     * Creates the result of {@link #ls(boolean, Pattern, boolean)} from the matched names.
+     */
+    static RStringVector createNamesVector(List<String> matchedNamesList, boolean sorted) {
         String[] data = matchedNamesList.toArray(new String[matchedNamesList.size()]);
         if (sorted) {
             Locale locale = RContext.getInstance().stateRLocale.getLocale(RLocale.COLLATE);
@@ -253,6 +260,14 @@ public final class REnvTruffleFrameAccess extends REnvFrameAccess {
         }
     }
 
+    Set<String> getLockedBindings() {
+        return lockedBindings;
+    }
+
+    void setLockedBindings(Set<String> lockedBindings) {
+        this.lockedBindings = lockedBindings;
+    }
+
     public static void getStringIdentifiersAndValues(Frame frame, List<String> names, List<Object> values) {
         FrameDescriptor fd = frame.getFrameDescriptor();
         for (FrameSlot frameSlot : fd.getSlots()) {
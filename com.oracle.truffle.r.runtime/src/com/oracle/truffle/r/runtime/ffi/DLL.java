@@ -48,6 +48,7 @@ import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.nodes.RootNode;
 import com.oracle.truffle.api.profiles.ConditionProfile;
 import com.oracle.truffle.api.source.SourceSection;
+import com.oracle.truffle.r.launcher.StartupTiming;
 import com.oracle.truffle.r.runtime.REnvVars;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RError.Message;
@@ -590,7 +591,7 @@ public class DLL {
      */
     public static DLLInfo loadLibR(RContext context, String path, Function<String, LibHandle> load) {
         LibHandle handle = null;
-        try {
+        try (StartupTiming.Phase phase = StartupTiming.phase("dll.open")) {
             handle = load.apply(path);
         } catch (UnsatisfiedLinkError ex) {
             throw RSuicide.rSuicide(context, String.format("error loading libR from: %s.\n" +
@@ -669,7 +670,9 @@ public class DLL {
                         CompilerDirectives.transferToInterpreterAndInvalidate();
                         invokeVoidCallNode = (InvokeVoidCallNode) insert((Node) RFFIFactory.getCallRFFI().createInvokeVoidCallNode());
                     }
-                    invokeVoidCallNode.dispatch(null, new NativeCallInfo(pkgInit, initFunc, dllInfo), new Object[]{dllInfo});
+                    try (StartupTiming.Phase phase = StartupTiming.phase("dll.init")) {
+                        invokeVoidCallNode.dispatch(null, new NativeCallInfo(pkgInit, initFunc, dllInfo), new Object[]{dllInfo});
+                    }
                 } catch (ReturnException ex) {
                     // An error call can, due to condition handling, throw this which we must
                     // propagate
@@ -695,7 +698,7 @@ public class DLL {
          * so that errors loading (user) packages added to R_DEFAULT_PACKAGES do throw RErrors.
          */
         private synchronized DLLInfo doLoad(RContext context, String absPath, boolean local, boolean now, boolean addToList) throws DLLException {
-            try {
+            try (StartupTiming.Phase phase = StartupTiming.phase("dll.open")) {
                 LibHandle handle = dlOpenNode.execute(absPath, local, now);
                 return DLLInfo.create(libName(context, absPath), absPath, true, handle, addToList);
             } catch (UnsatisfiedLinkError ex) {
@@ -184,4 +184,12 @@ public class TestBuiltin_array extends TestBase {
         assertEval("{ array(character(0), dim=2, dimnames=list(c(\"1\", \"2\")))}");
         assertEval("{ array(list(0), dim=2, dimnames=list(c(\"1\", \"2\")))}");
     }
+
+    @Test
+    public void testArrayConstant() {
+        assertEval("{ x <- array(0, c(2, 3)); x[2, 2] <- 1; x }");
+        assertEval("{ x <- array(NA, c(2, 2), list(c('a', 'b'), NULL)); x['b', 1] <- TRUE; x }");
+        assertEval("{ x <- numeric(4); x[3] <- 2; x }");
+        assertEval("{ x <- integer(3); dim(x) <- c(1, 3); x[1, 2] <- 5L; x }");
+    }
 }
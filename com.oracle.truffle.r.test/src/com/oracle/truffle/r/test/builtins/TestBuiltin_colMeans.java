@@ -120,4 +120,9 @@ public class TestBuiltin_colMeans extends TestBase {
 
         assertEval("{colMeans(matrix(c(NaN,4+5i,2+0i,5+10i),nrow=2,ncol=2), na.rm = TRUE)}");
     }
+
+    @Test
+    public void testLargeMatrix() {
+        assertEval("{ m <- matrix(rep_len(c(1, 2.5, -3, 4), 5e6), 5e5); m[, 2] <- NA; m[9, 3] <- NaN; c(colMeans(m), colMeans(m, na.rm=TRUE)) }");
+    }
 }
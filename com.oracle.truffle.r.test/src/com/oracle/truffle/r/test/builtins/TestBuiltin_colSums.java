@@ -104,4 +104,10 @@ public class TestBuiltin_colSums extends TestBase {
         // colSums on array have correct values
         assertEval("{ a = colSums(array(1:24,c(2,3,4))); c(a[1,1],a[2,2],a[3,3],a[3,4]) }");
     }
+
+    @Test
+    public void testLargeMatrix() {
+        assertEval("{ m <- matrix(rep_len(c(1, 2.5, -3, 4), 5e6), 1000); m[7, 3] <- NA; m[8, 4] <- NaN; c(colSums(m)[1:5], sum(colSums(m, na.rm=TRUE))) }");
+        assertEval("{ m <- matrix(rep_len(1:7, 5e6), 10); m[3, 2] <- NA; c(colSums(m)[1:3], colSums(m, na.rm=TRUE)[1:3]) }");
+    }
 }
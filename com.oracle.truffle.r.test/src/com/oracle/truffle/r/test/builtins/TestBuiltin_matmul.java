@@ -53,4 +53,20 @@ public class TestBuiltin_matmul extends TestBase {
         assertEval("numeric() %*% matrix(0, nrow=1, ncol=0)");
         assertEval("numeric() %*% matrix(0, nrow=0, ncol=1)");
     }
+
+    @Test
+    public void testMatmulTiled() {
+        // larger than one block, integral values keep the sums exact
+        assertEval("{ a <- matrix((1:(150*130)) %% 7 - 3, 150); b <- matrix((1:(130*170)) %% 5 - 2, 130); r <- a %*% b; c(dim(r), sum(r), r[1:3, 1:3], r[150, 170]) }");
+        assertEval("{ a <- matrix((1:(150*130)) %% 7 - 3, 150); b <- matrix((1:(150*90)) %% 5 - 2, 150); r <- crossprod(a, b); c(dim(r), sum(r), r[130, 90], identical(r, t(a) %*% b)) }");
+        assertEval("{ a <- matrix((1:(150*130)) %% 7 - 3, 150); b <- matrix((1:(70*130)) %% 5 - 2, 70); r <- tcrossprod(a, b); c(dim(r), sum(r), r[150, 70], identical(r, a %*% t(b))) }");
+        assertEval("{ a <- matrix((1:(200*150)) %% 11 - 5, 200); r <- crossprod(a); c(dim(r), sum(r), isSymmetric(r), identical(r, t(a) %*% a)) }");
+        assertEval("{ a <- matrix((1:(150*130)) %% 7 - 3, 150); a[5, 9] <- NA; a[7, 2] <- NaN; b <- matrix(1, 130, 100); b[3, 80] <- NA; r <- a %*% b; c(r[5, 1], r[7, 1], r[1, 80], r[7, 80], sum(is.na(r))) }");
+        // above ParallelFlopsThreshold, so the tiles are computed in parallel; the references are
+        // matrix-vector products and single dot products, which stay sequential
+        assertEval("{ a <- matrix((1:(300*310)) %% 7 - 3, 300); b <- matrix((1:(310*290)) %% 5 - 2, 310); r <- a %*% b; " +
+                        "c(dim(r), identical(rowSums(r), drop(a %*% rowSums(b))), identical(colSums(r), drop(colSums(a) %*% b)), r[1, 1] == sum(a[1, ] * b[, 1]), r[300, 290] == sum(a[300, ] * b[, 290]), " +
+                        "r[123, 45] == sum(a[123, ] * b[, 45]), identical(crossprod(t(a), b), r), identical(tcrossprod(a, t(b)), r)) }");
+        assertEval("{ set.seed(4); a <- matrix(runif(400*300), 400); r <- crossprod(a); c(dim(r), isSymmetric(r), isTRUE(all.equal(r[, 7], drop(crossprod(a, a[, 7])))), isTRUE(all.equal(sum(r), sum(rowSums(a)^2)))) }");
+    }
 }
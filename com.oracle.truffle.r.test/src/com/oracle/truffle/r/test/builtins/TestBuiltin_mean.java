@@ -151,4 +151,11 @@ public class TestBuiltin_mean extends TestBase {
         assertEval("{ mean(c(TRUE, TRUE))}");
         assertEval("{ mean(c(TRUE, FALSE))}");
     }
+
+    @Test
+    public void testLongVectors() {
+        assertEval("{ x <- rep_len(c(1, 2.5, -3, 4), 5e6); mean(x) }");
+        assertEval("{ x <- rep_len(c(1, 2.5, -3, 4), 5e6); x[4e6] <- NA; x[4.5e6] <- NA; mean(x) }");
+        assertEval("{ x <- rep_len(1:7, 5e6); x[3e6] <- NA; c(mean(x), mean(x[-3e6])) }");
+    }
 }
@@ -37,4 +37,22 @@ public class TestBuiltin_newenv extends TestBase {
         assertEval(Output.ContainsReferences, "parent.env(new.env())");
         assertEval(Output.ContainsReferences, "e <- new.env(); e; parent.env(new.env(TRUE, e))");
     }
+
+    @Test
+    public void testHashed() {
+        assertEval("{ e <- new.env(size=5000L); for (i in 1:3000) assign(paste0('k', i), i, envir=e); c(length(e), get('k42', e), exists('k3001', e, inherits=FALSE), length(ls(e))) }");
+        assertEval("{ e <- new.env(size=5000L); for (i in 1:2000) e[[paste0('k', i)]] <- i; rm(list=paste0('k', 1:1990), envir=e); ls(e) }");
+        assertEval("{ e <- new.env(size=5000L); for (i in 1:2000) assign(paste0('k', i), -i, envir=e); unlist(mget(c('k1', 'k2000'), envir=e)) }");
+        assertEval("{ e <- new.env(size=5000L); for (i in 1:2000) assign(paste0('k', i), i, envir=e); evalq(k1 + k2000, e) }");
+        assertEval("{ e <- new.env(size=5000L); for (i in 1:2000) assign(paste0('k', i), i, envir=e); f <- function() k7; environment(f) <- e; f() }");
+        assertEval("{ e <- new.env(size=5000L); for (i in 1:2000) assign(paste0('k', i), i, envir=e); x <- 1; c(get('x', e), exists('x', e), exists('x', e, inherits=FALSE)) }");
+        assertEval("{ e <- new.env(size=5000L); assign('a', 1, envir=e); lockBinding('a', e); assign('a', 2, envir=e) }");
+        assertEval("{ e <- new.env(size=5000L); assign('a', 1, envir=e); lockEnvironment(e); assign('b', 2, envir=e) }");
+        assertEval("{ e <- new.env(size=5000L); assign('a', 1, envir=e); c <- new.env(parent=e); assign('b', 2, envir=e); evalq(a + b, c) }");
+        // no 'size', the environment switches to the hash table once it grows
+        assertEval("{ e <- new.env(); for (i in 1:3000) assign(paste0('k', i), i, envir=e); c(length(e), get('k2999', e), exists('k3001', e, inherits=FALSE)) }");
+        assertEval("{ e <- new.env(); for (i in 1:3000) e[[paste0('k', i)]] <- i; rm(list=paste0('k', 3:3000), envir=e); sort(ls(e)) }");
+        assertEval("{ e <- new.env(); for (i in 1:3000) assign(paste0('k', i), i, envir=e); evalq(k1 + k3000, e) }");
+        assertEval("{ e <- new.env(hash=FALSE); for (i in 1:3000) assign(paste0('k', i), i, envir=e); c(length(e), get('k1500', e)) }");
+    }
 }
@@ -177,7 +177,26 @@ public class TestBuiltin_order extends TestBase {
 
         assertEval("invisible(Sys.setlocale('LC_COLLATE', 'en_US.utf8')); str(as.data.frame(list(a=c('A wo','Far ','abc ')))); invisible(Sys.setlocale('LC_COLLATE', 'C')); str(as.data.frame(list(a=c('A wo','Far ','abc '))));");
 
+        // radix orders strings by their UTF-8 bytes, which differs from UTF-16 for supplementary characters
+        assertEval("order(c('\\uff5e', '\\U0001F600', 'a'), method='radix')");
+
         assertEval("order(NULL)");
         assertEval("order(c(NULL, c(1,2,0)))");
     }
+
+    @Test
+    public void testOrderLarge() {
+        // long enough to be sorted in parallel with the default ParallelSortThreshold, the
+        // reference stable order is built from 'which' on the (few) distinct values
+        assertEval("{ set.seed(42); x <- sample(c(NA, -0, 0, 1:100), 1200000, replace=TRUE); ref <- c(unlist(lapply(sort(unique(x)), function(v) which(x == v))), which(is.na(x))); identical(order(x), ref) }");
+        assertEval("{ set.seed(42); x <- sample(c(NA, 1:50), 1200000, replace=TRUE); ref <- unlist(lapply(sort(unique(x), decreasing=TRUE), function(v) which(x == v))); identical(order(x, decreasing=TRUE, na.last=NA), ref) }");
+        assertEval("{ set.seed(42); x <- sample(c(NA, TRUE, FALSE), 1200000, replace=TRUE); identical(order(x), c(which(!x), which(x), which(is.na(x)))) }");
+        assertEval("{ set.seed(42); x <- sample(c(NA, letters), 1200000, replace=TRUE); ref <- c(unlist(lapply(sort(unique(x)), function(v) which(x == v))), which(is.na(x))); identical(order(x), ref) }");
+        assertEval("{ set.seed(42); x <- sample(c(NA, 1:50), 1200000, replace=TRUE); u <- sort(unique(x), decreasing=TRUE); identical(sort(x, decreasing=TRUE), rep(u, vapply(u, function(v) sum(x == v, na.rm=TRUE), 1L))) }");
+        // negative and wide-range doubles, whose keys use the full unsigned range
+        assertEval("{ set.seed(42); x <- runif(1200000, -30, 30); o <- order(x); c(identical(sort(o), seq_along(x)), !is.unsorted(x[o])) }");
+        assertEval("{ set.seed(42); x <- sample(c(NA, -Inf, -30.25, -1e-300, -0, 0, 1e-300, 2.5, 30, Inf), 1200000, replace=TRUE); ref <- c(unlist(lapply(sort(unique(x)), function(v) which(x == v))), which(is.na(x))); identical(order(x), ref) }");
+        assertEval("{ set.seed(42); x <- sample(c(NA, -1e300, -30.25, -1, 0, 1, 30.25, 1e300), 1200000, replace=TRUE); ref <- unlist(lapply(sort(unique(x), decreasing=TRUE), function(v) which(x == v))); identical(order(x, decreasing=TRUE, na.last=NA), ref) }");
+        assertEval("{ set.seed(42); g <- sample(1:3, 1200000, replace=TRUE); x <- runif(1200000, -30, 30); o <- order(g, x); c(!is.unsorted(g[o]), all(tapply(x[o], g[o], function(v) !is.unsorted(v)))) }");
+    }
 }
@@ -91,4 +91,10 @@ public class TestBuiltin_prod extends TestBase {
         assertEval(template("prod(%0%1)", VALUES, OPTIONS));
         assertEval("{ foo <- function(...) prod(...); foo(); }");
     }
+
+    @Test
+    public void testLongVectors() {
+        assertEval("{ x <- rep_len(c(1, 2, 0.5, -1), 5e6); c(prod(x), prod(c(x, NA)), prod(c(x, NA), na.rm = TRUE)) }");
+        assertEval("{ x <- rep_len(c(1L, -1L, 1L), 5e6); prod(x) }");
+    }
 }
@@ -64,4 +64,33 @@ public class TestBuiltin_radixsort extends TestBase {
         // at InternalNode$InternalCallWrapNode.prepareArgs(InternalNode.java:309)
         assertEval(Ignored.ImplementationError, "argv <- list(structure(integer(0), .Label = character(0), class = 'factor'), TRUE, FALSE); .Internal(radixsort(argv[[1]], argv[[2]], argv[[3]]))");
     }
+
+    @Test
+    public void testRadixOrder() {
+        assertEval("order(c(3, 1, NA, 2, -0, 0, NaN, -Inf, Inf), method='radix')");
+        assertEval("order(c(3, 1, NA, 2, -0, 0, NaN, -Inf, Inf), method='radix', na.last=FALSE)");
+        assertEval("order(c(3, 1, NA, 2, -0, 0, NaN, -Inf, Inf), method='radix', na.last=NA)");
+        assertEval("order(c(3L, 1L, NA, 2L, 1L), method='radix', decreasing=TRUE)");
+        assertEval("order(c(TRUE, NA, FALSE, TRUE), method='radix')");
+        assertEval("order(c('b', 'a', NA, 'B', 'a'), method='radix')");
+        assertEval("order(c(1, 1, 2, 2), c('b', 'a', 'd', 'c'), method='radix', decreasing=c(TRUE, FALSE))");
+        assertEval("order(c(1L, 1L, 2L, 2L), c(2, 1, NA, 3), method='radix', decreasing=c(FALSE, TRUE), na.last=NA)");
+        assertEval("sort(c(5L, 3L, NA, 1L), method='radix')");
+        assertEval("order(1:3, 1:2, method='radix')");
+    }
+
+    @Test
+    public void testRadixOrderLarge() {
+        // long enough to be sorted in parallel with the default ParallelSortThreshold
+        assertEval("{ set.seed(42); x <- runif(1200000, -30, 30); o <- order(x, method='radix'); c(identical(sort(o), seq_along(x)), !is.unsorted(x[o])) }");
+        assertEval("{ set.seed(42); x <- c(runif(600000, -1e10, 1e10), -runif(600000, 0, 30)); s <- sort(x, method='radix'); c(length(s) == length(x), !is.unsorted(s), identical(s[1], min(x))) }");
+    }
+
+    @Test
+    public void testRadixGrouping() {
+        assertEval("grouping(c(3, 1, 3, 2, 1))");
+        assertEval("grouping(c('b', 'a', 'b', NA), c(1L, 1L, 2L, NA))");
+        assertEval(".Internal(radixsort(TRUE, FALSE, TRUE, FALSE, c('b', 'a', 'b', 'c')))");
+        assertEval(".Internal(radixsort(TRUE, FALSE, TRUE, TRUE, integer(0)))");
+    }
 }
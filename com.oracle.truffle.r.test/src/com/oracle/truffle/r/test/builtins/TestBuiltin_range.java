@@ -208,4 +208,11 @@ public class TestBuiltin_range extends TestBase {
         assertEval("range(list(1,2,3,6), 44, 1)");
         assertEval("range(list(1,2,3,'a'), 44, 'zz')");
     }
+
+    @Test
+    public void testLongVectors() {
+        assertEval("{ x <- rep_len(c(1, 2.5, -3, 4), 5e6); x[4e6] <- 10; x[17] <- -Inf; c(range(x), range(x, finite = TRUE), max(x), min(x)) }");
+        assertEval("{ x <- rep_len(c(1L, 25L, -3L, 4L), 5e6); x[4e6] <- NA; c(range(x), range(x, na.rm = TRUE)) }");
+        assertEval("{ x <- rep_len(c(1, 2.5, -3, 4), 5e6); x[4e6] <- NaN; c(max(x), min(x), max(x, na.rm = TRUE)) }");
+    }
 }
@@ -269,6 +269,18 @@ public class TestBuiltin_rep extends TestBase {
         assertEval("rep(4, x=3)");
     }
 
+    @Test
+    public void testCompact() {
+        assertEval("{ x <- rep(c(1, NA, 3), each=3); x[5] <- 42; x }");
+        assertEval("{ x <- rep(c(TRUE, FALSE), c(2, 0)); x }");
+        assertEval("{ x <- rep(1:3, c(2, 0, 3)); x[c(1, 6)] <- 0L; x }");
+        assertEval("{ x <- rep(c(1, 2), each=2, length.out=7); x }");
+        assertEval("{ x <- rep(c(1, 2), each=2, times=2); sum(x); rev(x) }");
+        assertEval("{ x <- rep(2.5, 5); names(x) <- letters[1:5]; x[2] <- 1; x }");
+        assertEval("{ x <- rep.int(NA_integer_, 3); length(x) <- 5; x }");
+        assertEval("{ x <- rep_len(c(3L, 3L, 1L), 7); x; is.unsorted(x) }");
+    }
+
     @Test
     public void testSideEffect() {
         assertEval(Ignored.ReferenceError, "{ x <- c(1,2,3); f <- function() { x[1] <<- 10; 2 }; rep(x, f()) }");
@@ -73,4 +73,10 @@ public class TestBuiltin_rowMeans extends TestBase {
         assertEval("{rowMeans(matrix(c(NaN,4+5i,2+0i,5+10i),nrow=2,ncol=2), na.rm = FALSE)}");
         assertEval("{rowMeans(matrix(NA,NA,NA),TRUE)}");
     }
+
+    @Test
+    public void testLargeMatrix() {
+        assertEval("{ m <- matrix(rep_len(c(1, 2.5, -3, 4), 5e6), 10); m[2, 3e5] <- NA; m[5, 7] <- NaN; rowMeans(m) }");
+        assertEval("{ m <- matrix(rep_len(c(1, 2.5, -3, 4), 5e6), 10); m[2, ] <- NA; m[5, 7] <- NaN; rowMeans(m, na.rm=TRUE) }");
+    }
 }
@@ -112,4 +112,11 @@ public class TestBuiltin_rowSums extends TestBase {
 
         assertEval("{x<-matrix(c(\"1\",\"2\",\"3\",\"4\"),ncol=2);rowSums(x)}");
     }
+
+    @Test
+    public void testLargeMatrix() {
+        assertEval("{ m <- matrix(rep_len(c(1, 2.5, -3, 4), 5e6), 1000); m[7, 300] <- NA; m[7, 200] <- NaN; m[9, 100] <- NA; r <- rowSums(m); c(r[1:10], sum(r)) }");
+        assertEval("{ m <- matrix(rep_len(1:7, 5e6), 10); m[3, 2e5] <- NA; rowSums(m, na.rm=TRUE) }");
+        assertEval("{ m <- matrix(rep_len(c(TRUE, FALSE, TRUE), 5e6), 5e5); m[4, 5] <- NA; r <- rowSums(m); c(r[1:5], sum(r, na.rm=TRUE)) }");
+    }
 }
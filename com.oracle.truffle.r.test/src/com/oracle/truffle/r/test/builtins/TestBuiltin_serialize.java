@@ -141,4 +141,20 @@ public class TestBuiltin_serialize extends TestBase {
         assertEval(template("{ f <- function(...) serialize(mget('...'), NULL, version=%0); length(unserialize(f(a=3,b=2,c=1))[[1]]); }", VERSIONS));
         assertEval(template("{ f <- function(...) serialize(environment()[['...']], NULL, version=%0); x <- unserialize(f(a=3,b=2,c=1)); typeof(x) }", VERSIONS));
     }
+
+    @Test
+    public void testSerializeLarge() {
+        assertEval(template("{ x <- list(a=seq(0.5, 300000), b=strrep('x', 100000), c=as.raw(1:200000 %% 256)); data <- serialize(x, NULL, version=%0); c(length(data), identical(unserialize(data), x)) }",
+                        VERSIONS));
+        assertEval(template(
+                        "{ x <- list(a=seq(0.5, 300000), b=strrep('x', 100000), c=letters); f <- tempfile(); con <- file(f, 'wb'); serialize(x, con, version=%0); close(con); con <- file(f, 'rb'); y <- unserialize(con); close(con); unlink(f); identical(x, y) }",
+                        VERSIONS));
+    }
+
+    @Test
+    public void testSerializeBulkVectors() {
+        assertEval(template("{ x <- %0; x[c(2, 40000)] <- NA; f <- tempfile(); saveRDS(x, f, compress=FALSE); y <- readRDS(f); unlink(f); c(identical(x, y), identical(x, unserialize(serialize(x, NULL)))) }",
+                        new String[]{"seq(0.5, 50000)", "1:50000", "rep(c(TRUE, FALSE), 25000)", "complex(real=1:50000, imaginary=-1)", "c(1:50000 + 0L, 3:1)", "(1:50000 %% 3) == 0"}));
+        assertEval("{ x <- as.raw(1:70000 %% 256); f <- tempfile(); saveRDS(x, f, compress=FALSE); y <- readRDS(f); unlink(f); identical(x, y) }");
+    }
 }
@@ -213,4 +213,14 @@ public class TestBuiltin_sum extends TestBase {
     public void testSideEffect() {
         assertEval("{ x <- c(1, 2, 3); f <- function() { x[1] <<- 10; 2 }; g <- function(){ x[1] <<- 100; 0 }; sum(x, f(), x, g()) }");
     }
+
+    @Test
+    public void testLongVectors() {
+        // long enough to be reduced in parallel chunks
+        assertEval("{ x <- rep_len(c(1, 2.5, -3, 4), 5e6); c(sum(x), sum(x * 2), sum(c(x, NA), na.rm = TRUE)) }");
+        assertEval("{ x <- rep_len(c(1, 2.5, -3, 4), 5e6); x[4e6] <- NA; x[10] <- NaN; c(sum(x), sum(x, na.rm = TRUE)) }");
+        assertEval("{ x <- rep_len(c(1L, 2L, NA, 1000L), 5e6); c(sum(x), sum(x, na.rm = TRUE)) }");
+        assertEval("{ x <- rep_len(c(.Machine$integer.max, 1L, -1L, -.Machine$integer.max), 5e6); sum(x) }");
+        assertEval("{ x <- rep_len(c(TRUE, FALSE, TRUE), 5e6); sum(x) }");
+    }
 }
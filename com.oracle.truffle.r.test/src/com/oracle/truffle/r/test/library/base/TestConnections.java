@@ -277,6 +277,38 @@ public class TestConnections extends TestRBase {
         assertEval("f1 <- file(open='w+b', encoding='UTF-8'); writeBin(charToRaw(\"abcd\"), f1); seek(f1); seek(f1,0); seek(f1)");
     }
 
+    @Test
+    public void testCompressedRoundtrip() {
+        // large enough to be compressed in several blocks
+        assertEval(template("{ f <- tempfile(); x <- rep(c(pi, 1:1000, NA), 3000); saveRDS(x, f, compress='%0'); y <- readRDS(f); unlink(f); identical(x, y) }", arr("gzip", "xz", "bzip2")));
+        assertEval(template("{ f <- tempfile(); con <- %0(f, 'w'); writeLines(as.character(1:300000), con); close(con); res <- readLines(f); unlink(f); c(length(res), res[299999]) }", arr("gzfile", "xzfile", "bzfile")));
+    }
+
+    @Test
+    public void testReadLinesBlocks() {
+        // lines of varying length crossing the boundaries of the connection's read cache
+        assertEval(template("{ f <- tempfile(); x <- strrep(c('a', '\u00e9', 'xyz'), 1:3000); writeBin(charToRaw(paste0(x, c('\n', '\r\n', '\r'), collapse='')), f); con <- file(f, 'r'); res <- c(readLines(con, %0), readLines(con)); close(con); unlink(f); c(identical(res, x), length(res)) }",
+                        arr("1", "7", "2999")));
+        assertEval("{ f <- tempfile(); writeBin(c(charToRaw(strrep('ab', 20000)), as.raw(0), charToRaw('cd\nef')), f); res <- readLines(f, skipNul=TRUE); unlink(f); c(nchar(res), substring(res[1], 39999)) }");
+    }
+
+    @Test
+    public void testReadBinLarge() {
+        // large enough to be memory mapped
+        assertEval(template("{ f <- tempfile(); x <- c(seq(0.5, 300000), NA); writeBin(x, f, endian='%0'); con <- file(f, 'rb'); y <- readBin(con, 'double', 1e6, endian='%0'); close(con); unlink(f); c(identical(x, y), length(y)) }",
+                        arr("little", "big")));
+        assertEval("{ f <- tempfile(); x <- c(1:600000, NA); writeBin(x, f); con <- file(f, 'rb'); seek(con, 400); y <- readBin(con, 'integer', 500000); z <- readBin(con, 'integer', 1e6); p <- seek(con); close(con); unlink(f); c(identical(y, x[101:500100]), identical(z, x[500101:600001]), p) }");
+        assertEval("{ f <- tempfile(); x <- as.raw(1:3000000 %% 256); writeBin(x, f); con <- file(f, 'rb'); y <- readBin(con, 'raw', 2999999); z <- readBin(con, 'raw', 10); close(con); unlink(f); c(identical(y, x[-3000000]), identical(z, x[3000000])) }");
+    }
+
+    @Test
+    public void testWriteLinesBuffered() {
+        // more output than fits the encode buffer, mixing ASCII, non-ASCII and very long lines
+        assertEval(template("{ f <- tempfile(); x <- c(paste0(c('line', 'z\u00e1pis'), 1:30000), strrep('y', 70000), 'last'); con <- file(f, 'w', encoding='%0'); writeLines(x, con); cat('end', 1, '\n', file=con); close(con); con <- file(f, 'r', encoding='%0'); y <- readLines(con); close(con); unlink(f); c(length(y), identical(y, c(x, 'end 1 '))) }",
+                        arr("UTF-8", "latin1")));
+        assertEval("{ f <- tempfile(); writeLines(c('a', 'b\u00e9', 'c'), f, sep='|'); res <- readChar(f, 100, useBytes=TRUE); unlink(f); res }");
+    }
+
     private static final String[] LVAL = arr("T", "F");
 
     private static String[] arr(String... args) {
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.library.fastr;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.test.TestBase;
+
+// Checkstyle: stop line length check
+public class TestLazyLoadCache extends TestBase {
+
+    @Test
+    public void testStatistics() {
+        assertEvalFastR("{ s <- .fastr.lazyload.cachestats(); c(names(s), all(s >= 0)) }", "c('hits', 'misses', 'entries', 'size', 'TRUE')");
+        // the data sets are fetched from the lazy-load database of the package 'datasets', the
+        // second fetch of the same object (in a new environment) must be served by the cache
+        assertEvalFastR("{ e1 <- new.env(); e2 <- new.env(); lazyLoad(file.path(system.file(package='datasets'), 'data', 'Rdata'), envir=e1, filter=function(n) n == 'women'); x <- e1$women; s <- .fastr.lazyload.cachestats(); lazyLoad(file.path(system.file(package='datasets'), 'data', 'Rdata'), envir=e2, filter=function(n) n == 'women'); y <- e2$women; t <- .fastr.lazyload.cachestats(); c(identical(x, y), t[['hits']] > s[['hits']]) }",
+                        "c(TRUE, TRUE)");
+    }
+}
@@ -51,4 +51,16 @@ public class TestExternal_covcor extends TestBase {
         assertEval(template("cov(mtcars[,1:4], use='%0', method='%1')", useCov, methods));
         assertEval(template("cov(1:4, c(1,7,1,-4), use='%0', method='%1')", useCov, methods));
     }
+
+    @Test
+    public void testBlocked() {
+        assertEval("{ set.seed(1); m <- matrix(rnorm(4000), 100); m[3, 7] <- NA; c1 <- cor(m); c2 <- cor(m, use='complete'); c3 <- cov(m[, 1:20], m[, 21:40], use='na.or.complete'); " +
+                        "list(dim(c1), sum(is.na(c1)), all.equal(c1[-7, -7], cor(m[, -7])), round(c2[1:3, 1:3], 6), round(c3[1:3, 1:3], 6)) }");
+        assertEval("{ set.seed(2); x <- matrix(rnorm(3000), 1500); y <- matrix(runif(4500), 1500); round(cov(x, y), 8) }");
+        // above ParallelFlopsThreshold, so the tiles are computed in parallel
+        assertEval("{ set.seed(3); m <- matrix(rnorm(400000), 2000); m[5, 3] <- NA; ok <- complete.cases(m); " +
+                        "ref <- function(a, b) crossprod(sweep(a, 2, colMeans(a)), sweep(b, 2, colMeans(b))) / (nrow(a) - 1); " +
+                        "list(all.equal(cov(m[, -3]), ref(m[, -3], m[, -3])), all.equal(cor(m[, -3]), cov2cor(ref(m[, -3], m[, -3]))), sum(is.na(cov(m))), " +
+                        "all.equal(cov(m, use='complete'), ref(m[ok, ], m[ok, ])), all.equal(cov(m[, 1:100], m[, 101:200], use='complete'), ref(m[ok, 1:100], m[ok, 101:200]))) }");
+    }
 }
@@ -46,4 +46,21 @@ public class TestReadTable extends TestBase {
         assertEval("read.table(header = TRUE, blank.lines.skip=FALSE, text = 'a b c\\n\\n1 2 3\\n4 5 6')");
     }
 
+    @Test
+    public void testCountFields() {
+        assertEval("count.fields(textConnection('a b c\\n\\n1 \\'2 3\\' 4 # comment\\n\"x\\ny\" z'))");
+        assertEval("count.fields(textConnection('a,b,c\\n1,\"2,3\",4\\n#c\\n5,6'), sep=',', skip=1)");
+        assertEval("count.fields(textConnection('a,b\\n\\n1,2'), sep=',', blank.lines.skip=FALSE)");
+        assertEval("{ con <- textConnection(c('a b', 'c d e')); pushBack('x', con); count.fields(con) }");
+    }
+
+    @Test
+    public void testLarge() {
+        // large enough to be scanned in blocks split across threads
+        assertEval("{ n <- 200000; f <- tempfile(); write.csv(data.frame(i=seq_len(n), d=seq_len(n)/4, s=paste0('s', seq_len(n) %% 7), l=seq_len(n) %% 2 == 0), f, row.names=FALSE); " +
+                        "x <- read.csv(f, stringsAsFactors=FALSE); unlink(f); list(dim(x), sapply(x, class), sum(x$i), sum(x$d), table(x$s), sum(x$l), x[c(1, n/2, n), ]) }");
+        assertEval("{ n <- 100000; f <- tempfile(); writeLines(c('a,b', rep(c('1,x', '2', '3.5,y'), n)), f); x <- read.csv(f, fill=TRUE, stringsAsFactors=FALSE); unlink(f); " +
+                        "list(dim(x), sapply(x, class), sum(x$a), table(x$b, useNA='always')) }");
+    }
+
 }
@@ -56,6 +56,16 @@ public class TestTypeConvert extends TestBase {
         }
     }
 
+    @Test
+    public void testLarge() {
+        // large enough to be converted in chunks on several threads, the element that changes the
+        // result type is in the last chunk
+        assertEval("{ x <- as.character(1000000L + seq_len(300000)); y <- type.convert(x, as.is=TRUE); list(typeof(y), sum(y)) }");
+        assertEval("{ x <- as.character(1000000L + seq_len(300000)); x[c(7, 299999)] <- c('NA', '0.5'); y <- type.convert(x, as.is=TRUE); list(typeof(y), sum(y, na.rm=TRUE), sum(is.na(y))) }");
+        assertEval("{ x <- as.character(1000000L + seq_len(300000)); x[299999] <- 'x'; y <- type.convert(x, as.is=TRUE); list(typeof(y), y[c(1, 299999)]) }");
+        assertEval("{ x <- rep(c('TRUE', 'FALSE', 'NA'), 100000); x[299999] <- 'T'; y <- type.convert(x, as.is=TRUE); list(typeof(y), sum(y, na.rm=TRUE), sum(is.na(y))) }");
+    }
+
     @Test
     public void testFirstTypeMustBeOfModeTest() {
         assertEval("type.convert('NA', 1)");
@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 3 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.parser;
+
+import static com.oracle.truffle.r.runtime.context.FastROptions.ParseCacheDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.api.source.SourceSection;
+import com.oracle.truffle.r.runtime.RDeparse;
+import com.oracle.truffle.r.runtime.RParserFactory;
+import com.oracle.truffle.r.runtime.RSource;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.context.RContext.ContextKind;
+import com.oracle.truffle.r.runtime.data.RExpression;
+import com.oracle.truffle.r.runtime.data.RPairList;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxCall;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxConstant;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxElement;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxFunction;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxLookup;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxVisitor;
+import com.oracle.truffle.r.test.TestBase;
+import com.oracle.truffle.r.test.generate.FastRContext;
+import com.oracle.truffle.r.test.generate.FastRSession;
+
+/**
+ * Tests the on-disk cache of parsed sources enabled by {@code ParseCacheDir}. The ASTs replayed
+ * from the cache are compared with those of the parser, including source sections, function names
+ * and the node classes, which distinguish e.g. special lookups.
+ */
+public class TestParseCache extends TestBase {
+
+    private static FastRContext context;
+
+    @BeforeClass
+    public static void setupClass() {
+        FastRSession session = FastRSession.create();
+        context = session.createContext(ContextKind.SHARE_PARENT_RW);
+    }
+
+    @AfterClass
+    public static void finishClass() {
+        context.close();
+    }
+
+    /**
+     * A source that is long enough to be cached and uses the different kinds of builder calls.
+     */
+    private static String createSource(String name) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; sb.length() < 4096; i++) {
+            sb.append(name).append(i).append(" <- function(x, ..., n = 2L) {\n");
+            sb.append("    y <- x$a; z <- list(...)[[1L]]\n");
+            sb.append("    g <- function(v) v@slot\n");
+            sb.append("    if (is.null(y)) NA_character_ else paste0(y, 'a\\tb', 1.5e3, 2i, TRUE, NULL, -0x10L, n)\n");
+            sb.append("}\n");
+        }
+        return sb.toString();
+    }
+
+    private static String describe(RExpression expr) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < expr.getLength(); i++) {
+            Object element = expr.getDataAt(i);
+            if (element instanceof RPairList && ((RPairList) element).isLanguage()) {
+                sb.append(new Describe().accept(((RPairList) element).getSyntaxElement()));
+            } else {
+                sb.append(RDeparse.deparse(element));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static final class Describe extends RSyntaxVisitor<String> {
+
+        private static String describe(RSyntaxElement element, String details) {
+            SourceSection section = element.getLazySourceSection();
+            String sectionText = section == null ? "-" : section.getCharIndex() + ":" + section.getCharLength();
+            return element.getClass().getSimpleName() + "[" + sectionText + "]" + details;
+        }
+
+        private String describeAll(RSyntaxElement[] elements) {
+            return Arrays.stream(elements).map(e -> e == null ? "null" : accept(e)).collect(Collectors.joining(", ", "(", ")"));
+        }
+
+        @Override
+        protected String visit(RSyntaxCall element) {
+            return describe(element, accept(element.getSyntaxLHS()) + element.getSyntaxSignature() + describeAll(element.getSyntaxArguments()));
+        }
+
+        @Override
+        protected String visit(RSyntaxConstant element) {
+            return describe(element, RDeparse.deparse(element.getValue()));
+        }
+
+        @Override
+        protected String visit(RSyntaxLookup element) {
+            return describe(element, element.getIdentifier() + (element.isFunctionLookup() ? "()" : ""));
+        }
+
+        @Override
+        protected String visit(RSyntaxFunction element) {
+            return describe(element, element.getSyntaxDebugName() + element.getSyntaxSignature() + describeAll(element.getSyntaxArgumentDefaults()) + accept(element.getSyntaxBody()));
+        }
+    }
+
+    private static String parse(Source source, Path cacheDir) throws Exception {
+        RContext ctx = RContext.getInstance();
+        String origValue = ctx.getOption(ParseCacheDir);
+        ctx.setOption(ParseCacheDir, cacheDir == null ? "" : cacheDir.toString());
+        try {
+            return describe(ctx.getThisEngine().parse(source, false).getExpression());
+        } finally {
+            ctx.setOption(ParseCacheDir, origValue);
+        }
+    }
+
+    private static List<Path> entries(Path cacheDir) throws IOException {
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    private static Path singleEntry(Path cacheDir) throws IOException {
+        List<Path> files = entries(cacheDir);
+        Assert.assertEquals(1, files.size());
+        Assert.assertTrue(files.get(0).getFileName().toString().endsWith(".rast"));
+        return files.get(0);
+    }
+
+    private interface CacheTest {
+        void run(Path cacheDir) throws Exception;
+    }
+
+    private static void runWithCacheDir(CacheTest test) {
+        // there is no parser version, e.g. in a native image, so nothing is cached
+        Assume.assumeNotNull(RParserFactory.getParserVersion());
+        FastRSession.execInContext(context, () -> {
+            Path cacheDir = Files.createTempDirectory("fastr-parse-cache");
+            try {
+                test.run(cacheDir);
+            } finally {
+                try (Stream<Path> files = Files.walk(cacheDir)) {
+                    for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                        Files.delete(file);
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    @Test
+    public void testColdAndWarm() {
+        runWithCacheDir(cacheDir -> {
+            Source source = RSource.fromText(createSource("f"), "parsecache.R");
+            String expected = parse(source, null);
+            Assert.assertTrue(entries(cacheDir).isEmpty());
+
+            Assert.assertEquals(expected, parse(source, cacheDir));
+            Path entry = singleEntry(cacheDir);
+            byte[] bytes = Files.readAllBytes(entry);
+
+            Assert.assertEquals(expected, parse(source, cacheDir));
+            Assert.assertEquals(entry, singleEntry(cacheDir));
+            Assert.assertArrayEquals(bytes, Files.readAllBytes(entry));
+        });
+    }
+
+    @Test
+    public void testWarmReplaysEntry() {
+        runWithCacheDir(cacheDir -> {
+            // same length, so that the source sections of one are valid in the other
+            Source source1 = RSource.fromText(createSource("alpha"), "parsecache1.R");
+            Source source2 = RSource.fromText(createSource("gamma"), "parsecache2.R");
+            String expected1 = parse(source1, null);
+            Assert.assertNotEquals(expected1, parse(source2, null));
+
+            parse(source1, cacheDir);
+            Path entry1 = singleEntry(cacheDir);
+            parse(source2, cacheDir);
+            Path entry2 = entries(cacheDir).stream().filter(p -> !p.equals(entry1)).findFirst().get();
+
+            // a warm parse does not run the parser, so it builds the AST recorded in the entry
+            Files.copy(entry1, entry2, StandardCopyOption.REPLACE_EXISTING);
+            Assert.assertEquals(expected1, parse(source2, cacheDir));
+        });
+    }
+
+    @Test
+    public void testShortSourceNotCached() {
+        runWithCacheDir(cacheDir -> {
+            Source source = RSource.fromText("f <- function(x) x$a + 1L", "parsecache.R");
+            Assert.assertEquals(parse(source, null), parse(source, cacheDir));
+            Assert.assertTrue(entries(cacheDir).isEmpty());
+        });
+    }
+
+    @Test
+    public void testCorruptEntry() {
+        runWithCacheDir(cacheDir -> {
+            Source source = RSource.fromText(createSource("f"), "parsecache.R");
+            String expected = parse(source, null);
+            parse(source, cacheDir);
+            Path entry = singleEntry(cacheDir);
+            byte[] bytes = Files.readAllBytes(entry);
+
+            // truncated entry
+            Files.write(entry, Arrays.copyOf(bytes, bytes.length / 2));
+            Assert.assertEquals(expected, parse(source, cacheDir));
+            Assert.assertArrayEquals(bytes, Files.readAllBytes(singleEntry(cacheDir)));
+
+            // empty entry
+            Files.write(entry, new byte[0]);
+            Assert.assertEquals(expected, parse(source, cacheDir));
+            Assert.assertArrayEquals(bytes, Files.readAllBytes(singleEntry(cacheDir)));
+
+            // garbage after the header
+            byte[] corrupt = bytes.clone();
+            for (int i = corrupt.length / 2; i < corrupt.length; i++) {
+                corrupt[i] = (byte) 0xff;
+            }
+            Files.write(entry, corrupt);
+            Assert.assertEquals(expected, parse(source, cacheDir));
+            Assert.assertArrayEquals(bytes, Files.readAllBytes(singleEntry(cacheDir)));
+        });
+    }
+
+    @Test
+    public void testVersionMismatch() {
+        runWithCacheDir(cacheDir -> {
+            Source source = RSource.fromText(createSource("f"), "parsecache.R");
+            String expected = parse(source, null);
+            parse(source, cacheDir);
+            Path entry = singleEntry(cacheDir);
+            byte[] bytes = Files.readAllBytes(entry);
+
+            // the header is the magic number, the format version and the parser version
+            String version = RParserFactory.getParserVersion();
+            byte[] versionBytes = version.getBytes(StandardCharsets.UTF_8);
+            Assert.assertArrayEquals(versionBytes, Arrays.copyOfRange(bytes, 10, 10 + versionBytes.length));
+
+            byte[] otherParser = bytes.clone();
+            otherParser[10] = (byte) (otherParser[10] == 'x' ? 'y' : 'x');
+            Files.write(entry, otherParser);
+            Assert.assertEquals(expected, parse(source, cacheDir));
+            Assert.assertArrayEquals(bytes, Files.readAllBytes(singleEntry(cacheDir)));
+
+            byte[] otherFormat = bytes.clone();
+            otherFormat[7]++;
+            Files.write(entry, otherFormat);
+            Assert.assertEquals(expected, parse(source, cacheDir));
+            Assert.assertArrayEquals(bytes, Files.readAllBytes(singleEntry(cacheDir)));
+        });
+    }
+}
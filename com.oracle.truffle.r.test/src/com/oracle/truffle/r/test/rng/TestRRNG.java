@@ -43,6 +43,15 @@ public class TestRRNG extends TestBase {
         assertEval("RNGkind('Marsaglia-Multicarry'); RNGkind('Mersenne-Twister'); set.seed(2); runif(5);");
     }
 
+    @Test
+    public void testLecuyerCMRG() {
+        assertEval("RNGkind(\"L'Ecuyer-CMRG\"); set.seed(123); .Random.seed");
+        assertEval("RNGkind(\"L'Ecuyer-CMRG\"); set.seed(42); runif(5)");
+        assertEval("set.seed(1, kind = \"L'Ecuyer-CMRG\"); rnorm(3); RNGkind()[[1]]");
+        assertEval("RNGkind(\"L'Ecuyer-CMRG\"); set.seed(7); s <- .Random.seed; parallel::nextRNGStream(s)");
+        assertEval("RNGkind(\"L'Ecuyer-CMRG\"); set.seed(7); s <- .Random.seed; parallel::nextRNGSubStream(s)");
+    }
+
     @Test
     public void testDirectReadingSeed() {
         assertEval("invisible(runif(1)); length(.Random.seed)");
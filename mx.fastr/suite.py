@@ -161,6 +161,22 @@ suite = {
       "spotbugsIgnoresGenerated" : True,
     },
 
+    "com.oracle.truffle.r.benchmarks" : {
+      "sourceDirs" : ["src"],
+      "dependencies" : [
+        "com.oracle.truffle.r.engine",
+        "mx:JMH_1_21",
+      ],
+      "checkstyle" : "com.oracle.truffle.r.runtime",
+      "javaCompliance" : "8+",
+      "annotationProcessors" : [
+        "mx:JMH_1_21",
+      ],
+      "workingSets" : "FastR,Test",
+      "testProject" : True,
+      "spotbugsIgnoresGenerated" : True,
+    },
+
     "com.oracle.truffle.r.test.native" : {
       "native" : True,
       "sourceDirs" : [],